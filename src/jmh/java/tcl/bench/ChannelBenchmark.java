@@ -0,0 +1,169 @@
+/*
+ * ChannelBenchmark.java
+ *
+ *	JMH benchmarks of channel gets, puts, read and fcopy throughput.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.Interp;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * Benchmarks of line oriented channel I/O on a file. Each invocation writes or reads LINES lines,
+ * and results are reported per line. The read and fcopy benchmarks read or copy a binary file of
+ * COPY_SIZE bytes, and results are reported per file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChannelBenchmark {
+
+  private static final int LINES = 1000;
+
+  private static final int COPY_SIZE = 8 * 1024 * 1024;
+
+  private Interp interp;
+  private File file;
+  private File copyFrom;
+  private File copyTo;
+
+  private TclObject putsScript;
+  private TclObject getsScript;
+  private TclObject fcopyScript;
+  private TclObject readScript;
+  private TclObject readMmapScript;
+
+  @Setup
+  public void setup() throws TclException, IOException {
+    interp = Interp.of();
+    file = File.createTempFile("jtclbench", ".txt");
+    file.deleteOnExit();
+    copyFrom = File.createTempFile("jtclbench", ".bin");
+    copyFrom.deleteOnExit();
+    copyTo = File.createTempFile("jtclbench", ".bin");
+    copyTo.deleteOnExit();
+    interp.setVar("path", TclString.newInstance(file.getPath()), 0);
+    interp.setVar("lines", TclString.newInstance(Integer.toString(LINES)), 0);
+    interp.setVar("copyFrom", TclString.newInstance(copyFrom.getPath()), 0);
+    interp.setVar("copyTo", TclString.newInstance(copyTo.getPath()), 0);
+    interp.setVar("copySize", TclString.newInstance(Integer.toString(COPY_SIZE)), 0);
+    interp.eval(
+        "proc writeLines {} {\n"
+            + "  global path lines\n"
+            + "  set f [open $path w]\n"
+            + "  for {set i 0} {$i < $lines} {incr i} {\n"
+            + "    puts $f \"line $i of the benchmark file, with some padding text\"\n"
+            + "  }\n"
+            + "  close $f\n"
+            + "}\n"
+            + "proc readLines {} {\n"
+            + "  global path\n"
+            + "  set f [open $path r]\n"
+            + "  set n 0\n"
+            + "  while {[gets $f line] >= 0} {incr n}\n"
+            + "  close $f\n"
+            + "  return $n\n"
+            + "}\n"
+            + "proc copyFile {} {\n"
+            + "  global copyFrom copyTo\n"
+            + "  set in [open $copyFrom r]\n"
+            + "  set out [open $copyTo w]\n"
+            + "  fconfigure $in -translation binary\n"
+            + "  fconfigure $out -translation binary\n"
+            + "  set n [fcopy $in $out]\n"
+            + "  close $in\n"
+            + "  close $out\n"
+            + "  return $n\n"
+            + "}\n"
+            + "proc readFile {mmap} {\n"
+            + "  global copyFrom\n"
+            + "  set in [open $copyFrom r]\n"
+            + "  fconfigure $in -translation binary -mmap $mmap\n"
+            + "  set data [read $in]\n"
+            + "  close $in\n"
+            + "  return [string length $data]\n"
+            + "}\n"
+            + "writeLines\n"
+            + "set f [open $copyFrom w]\n"
+            + "fconfigure $f -translation binary\n"
+            + "puts -nonewline $f [string repeat [binary format c* {0 1 2 3 13 10 26 255}] [expr {$copySize / 8}]]\n"
+            + "close $f");
+
+    putsScript = script("writeLines");
+    getsScript = script("readLines");
+    fcopyScript = script("copyFile");
+    readScript = script("readFile 0");
+    readMmapScript = script("readFile 1");
+  }
+
+  @TearDown
+  public void tearDown() {
+    interp.dispose();
+    file.delete();
+    copyFrom.delete();
+    copyTo.delete();
+  }
+
+  private static TclObject script(String s) {
+    TclObject obj = TclString.newInstance(s);
+    obj.preserve();
+    return obj;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES)
+  public TclObject puts() throws TclException {
+    interp.eval(putsScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES)
+  public TclObject gets() throws TclException {
+    interp.eval(getsScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject fcopy() throws TclException {
+    interp.eval(fcopyScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject readBinary() throws TclException {
+    interp.eval(readScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject readBinaryMmap() throws TclException {
+    interp.eval(readMmapScript, 0);
+    return interp.getResult();
+  }
+}
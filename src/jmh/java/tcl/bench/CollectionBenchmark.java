@@ -0,0 +1,108 @@
+/*
+ * CollectionBenchmark.java
+ *
+ *	JMH benchmarks of the list and dict internal reps.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.Interp;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclDict;
+import tcl.lang.model.TclInteger;
+import tcl.lang.model.TclList;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/** Benchmarks of TclList and TclDict operations, called directly from Java. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectionBenchmark {
+
+  @Param({"10", "1000"})
+  public int size;
+
+  private Interp interp;
+
+  private TclObject[] keys;
+  private TclObject list;
+  private TclObject dict;
+
+  @Setup
+  public void setup() throws TclException {
+    interp = Interp.of();
+    keys = new TclObject[size];
+    list = TclList.newInstance();
+    list.preserve();
+    dict = TclDict.newInstance();
+    dict.preserve();
+    for (int i = 0; i < size; i++) {
+      keys[i] = TclString.newInstance("key" + i);
+      keys[i].preserve();
+      TclList.append(interp, list, TclInteger.newInstance(i));
+      TclDict.put(interp, dict, keys[i], TclInteger.newInstance(i));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    interp.dispose();
+  }
+
+  @Benchmark
+  public TclObject listAppend() throws TclException {
+    TclObject l = TclList.newInstance();
+    for (int i = 0; i < size; i++) {
+      TclList.append(interp, l, keys[i]);
+    }
+    return l;
+  }
+
+  @Benchmark
+  public long listIndex() throws TclException {
+    long sum = 0;
+    for (int i = 0; i < size; i++) {
+      sum += TclList.index(interp, list, i).hashCode();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public TclObject dictPut() throws TclException {
+    TclObject d = TclDict.newInstance();
+    for (int i = 0; i < size; i++) {
+      TclDict.put(interp, d, keys[i], keys[i]);
+    }
+    return d;
+  }
+
+  @Benchmark
+  public long dictGet() throws TclException {
+    long sum = 0;
+    for (int i = 0; i < size; i++) {
+      sum += TclDict.get(interp, dict, keys[i]).hashCode();
+    }
+    return sum;
+  }
+}
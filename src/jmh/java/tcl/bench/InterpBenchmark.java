@@ -0,0 +1,139 @@
+/*
+ * InterpBenchmark.java
+ *
+ *	JMH benchmarks of script evaluation, procedure calls, expr
+ *	and variable access.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.Interp;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclInteger;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * Benchmarks of the core evaluation paths of the interpreter. Scripts are held in preserved
+ * TclObjects, as procedure bodies and loop bodies are, so that the cached internal reps are used
+ * the way they are in real programs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterpBenchmark {
+
+  private Interp interp;
+
+  private TclObject smallScript;
+  private TclObject procCall;
+  private TclObject procCallArgs;
+  private TclObject procCallVarArgs;
+  private TclObject exprScript;
+  private TclObject loopScript;
+  private TclObject varScript;
+  private TclObject counter;
+
+  @Setup
+  public void setup() throws TclException {
+    interp = Interp.of();
+    interp.eval("proc noop {} {}");
+    interp.eval("proc add {a b} {return [expr {$a + $b}]}");
+    interp.eval("proc count {first args} {llength $args}");
+    interp.eval("set x 10; set y 20");
+
+    smallScript = script("set a 1; set b 2; set c $a");
+    procCall = script("noop");
+    procCallArgs = script("add 3 4");
+    procCallVarArgs = script("count a b c d");
+    exprScript = script("expr {($x * 3 + $y) / 2 - ($x > $y ? 1 : 0)}");
+    loopScript = script("set s 0; for {set i 0} {$i < 100} {incr i} {incr s $i}; set s");
+    varScript = script("set v $x; append v $y; incr x 0");
+    counter = TclInteger.newInstance(0);
+    counter.preserve();
+  }
+
+  @TearDown
+  public void tearDown() {
+    interp.dispose();
+  }
+
+  private static TclObject script(String s) {
+    TclObject obj = TclString.newInstance(s);
+    obj.preserve();
+    return obj;
+  }
+
+  @Benchmark
+  public TclObject evalSmallScript() throws TclException {
+    interp.eval(smallScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject evalString() throws TclException {
+    interp.eval("set a 1; set b 2; set c $a");
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject procCallNoArgs() throws TclException {
+    interp.eval(procCall, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject procCallWithArgs() throws TclException {
+    interp.eval(procCallArgs, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject procCallWithVarArgs() throws TclException {
+    interp.eval(procCallVarArgs, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject expr() throws TclException {
+    interp.eval(exprScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject forLoop() throws TclException {
+    interp.eval(loopScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject varScript() throws TclException {
+    interp.eval(varScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject varSetGet() throws TclException {
+    interp.setVar("z", counter, 0);
+    return interp.getVar("z", 0);
+  }
+}
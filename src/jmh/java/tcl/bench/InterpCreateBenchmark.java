@@ -0,0 +1,67 @@
+/*
+ * InterpCreateBenchmark.java
+ *
+ *	JMH benchmarks of interpreter creation, from scratch and from
+ *	a template.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.Interp;
+import tcl.lang.InterpTemplate;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclObject;
+
+/**
+ * Benchmarks of creating an interpreter, evaluating one command in it and disposing of it, as a
+ * server that gives each request a fresh interpreter does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterpCreateBenchmark {
+
+  private InterpTemplate template;
+
+  @Setup
+  public void setup() {
+    template = InterpTemplate.standard();
+  }
+
+  private static TclObject run(Interp interp) throws TclException {
+    try {
+      interp.eval("set x [string length $tcl_version]");
+      return interp.getResult();
+    } finally {
+      interp.dispose();
+    }
+  }
+
+  @Benchmark
+  public TclObject create() throws TclException {
+    return run(Interp.of());
+  }
+
+  @Benchmark
+  public TclObject createFromTemplate() throws TclException {
+    return run(Interp.of(template));
+  }
+}
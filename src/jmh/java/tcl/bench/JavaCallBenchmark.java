@@ -0,0 +1,101 @@
+/*
+ * JavaCallBenchmark.java
+ *
+ *	JMH benchmarks of calling Java constructors and methods from
+ *	Tcl with the java package.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.Interp;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * Benchmarks of java::call, java::new and instance method calls made from procs, so that the
+ * signatures are the literals of a proc body, as they are in real programs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JavaCallBenchmark {
+
+  private Interp interp;
+
+  private TclObject instanceCall;
+  private TclObject staticCall;
+  private TclObject overloadedCall;
+  private TclObject newObject;
+
+  @Setup
+  public void setup() throws TclException {
+    interp = Interp.of();
+    interp.eval("package require java");
+    interp.eval("set sb [java::new StringBuilder abc]");
+    interp.eval("set n [java::new Integer 5]");
+    interp.eval("proc instanceCall {sb} {$sb charAt 1}");
+    interp.eval("proc staticCall {} {java::call Integer parseInt 42}");
+    interp.eval("proc overloadedCall {n} {java::call String valueOf $n}");
+    interp.eval("proc newObject {} {java::new java.util.ArrayList}");
+
+    instanceCall = script("instanceCall $sb");
+    staticCall = script("staticCall");
+    overloadedCall = script("overloadedCall $n");
+    newObject = script("newObject");
+  }
+
+  @TearDown
+  public void tearDown() {
+    interp.dispose();
+  }
+
+  private static TclObject script(String s) {
+    TclObject obj = TclString.newInstance(s);
+    obj.preserve();
+    return obj;
+  }
+
+  @Benchmark
+  public TclObject instanceCall() throws TclException {
+    interp.eval(instanceCall, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject staticCall() throws TclException {
+    interp.eval(staticCall, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject overloadedCall() throws TclException {
+    interp.eval(overloadedCall, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject newObject() throws TclException {
+    interp.eval(newObject, 0);
+    return interp.getResult();
+  }
+}
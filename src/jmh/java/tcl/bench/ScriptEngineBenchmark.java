@@ -0,0 +1,69 @@
+/*
+ * ScriptEngineBenchmark.java
+ *
+ *	JMH benchmarks of calling Tcl through the JSR 223 script engine.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.util.concurrent.TimeUnit;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.embed.jsr223.JtclScriptEngineFactory;
+
+/**
+ * Benchmarks of calling a small proc from Java, by evaluating a command string, by evaluating a
+ * compiled script and through Invocable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScriptEngineBenchmark {
+
+  private ScriptEngine engine;
+  private CompiledScript compiled;
+  private Invocable invocable;
+
+  @Setup
+  public void setup() throws ScriptException {
+    engine = new JtclScriptEngineFactory().getScriptEngine();
+    engine.eval("proc score {a b} {expr {$a * 3 + $b}}");
+    compiled = ((Compilable) engine).compile("score 341 1");
+    invocable = (Invocable) engine;
+  }
+
+  @Benchmark
+  public Object evalString() throws ScriptException {
+    return engine.eval("score 341 1");
+  }
+
+  @Benchmark
+  public Object evalCompiled() throws ScriptException {
+    return compiled.eval();
+  }
+
+  @Benchmark
+  public Object invokeFunction() throws ScriptException, NoSuchMethodException {
+    return invocable.invokeFunction("score", 341, 1);
+  }
+}
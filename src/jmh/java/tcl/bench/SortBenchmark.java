@@ -0,0 +1,118 @@
+/*
+ * SortBenchmark.java
+ *
+ *	JMH benchmarks of the lsort command.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.Interp;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclList;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * Benchmarks of lsort on a list of records of three fields, a name, an integer and a real, in
+ * random order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SortBenchmark {
+
+  @Param({"1000", "100000"})
+  public int size;
+
+  private Interp interp;
+
+  private TclObject sortIntegerIndex;
+  private TclObject sortRealIndex;
+  private TclObject sortDictionaryIndex;
+  private TclObject sortUniqueIntegerIndex;
+  private TclObject sortCommand;
+
+  @Setup
+  public void setup() throws TclException {
+    interp = Interp.of();
+    Random random = new Random(42);
+    TclObject records = TclList.newInstance();
+    for (int i = 0; i < size; i++) {
+      TclObject record = TclList.newInstance();
+      TclList.append(interp, record, TclString.newInstance("item" + random.nextInt(size)));
+      TclList.append(interp, record, TclString.newInstance(Integer.toString(random.nextInt())));
+      TclList.append(interp, record, TclString.newInstance(Double.toString(random.nextDouble())));
+      TclList.append(interp, records, record);
+    }
+    interp.setVar("records", records, 0);
+    interp.eval("proc cmp {a b} {string compare [lindex $a 0] [lindex $b 0]}");
+
+    sortIntegerIndex = script("lsort -integer -index 1 $records");
+    sortRealIndex = script("lsort -real -index 2 $records");
+    sortDictionaryIndex = script("lsort -dictionary -index 0 $records");
+    sortUniqueIntegerIndex = script("lsort -unique -integer -index 1 $records");
+    sortCommand = script("lsort -command cmp $records");
+  }
+
+  @TearDown
+  public void tearDown() {
+    interp.dispose();
+  }
+
+  private static TclObject script(String s) {
+    TclObject obj = TclString.newInstance(s);
+    obj.preserve();
+    return obj;
+  }
+
+  @Benchmark
+  public TclObject sortIntegerIndex() throws TclException {
+    interp.eval(sortIntegerIndex, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject sortRealIndex() throws TclException {
+    interp.eval(sortRealIndex, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject sortDictionaryIndex() throws TclException {
+    interp.eval(sortDictionaryIndex, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject sortUniqueIntegerIndex() throws TclException {
+    interp.eval(sortUniqueIntegerIndex, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject sortCommand() throws TclException {
+    interp.eval(sortCommand, 0);
+    return interp.getResult();
+  }
+}
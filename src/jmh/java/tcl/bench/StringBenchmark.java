@@ -0,0 +1,129 @@
+/*
+ * StringBenchmark.java
+ *
+ *	JMH benchmarks of regexp, string map and format.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.Interp;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/** Benchmarks of the string processing commands, evaluated from preserved script objects. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringBenchmark {
+
+  private Interp interp;
+
+  private TclObject regexpScript;
+  private TclObject regsubScript;
+  private TclObject stringMapScript;
+  private TclObject stringMapLargeScript;
+  private TclObject formatScript;
+  private TclObject appendScript;
+
+  @Setup
+  public void setup() throws TclException {
+    interp = Interp.of();
+    interp.eval(
+        "set line {2024-05-17 12:34:56 INFO [worker-7] request id=8812 took 41ms status=200}");
+    interp.eval("set text [string repeat {a&b<c>d \"e\" } 20]");
+    interp.eval("set map {& &amp; < &lt; > &gt; \\\" &quot;}");
+    interp.eval(
+        "set bigmap {}\n"
+            + "for {set i 0} {$i < 256} {incr i} {\n"
+            + "  lappend bigmap [format %c $i] [format %%%02x $i]\n"
+            + "}\n"
+            + "set bigtext [string repeat {GET /index.html?q=a+b&lang=en HTTP/1.1} 1000]");
+
+    regexpScript =
+        script(
+            "regexp {^(\\S+) (\\S+) (\\w+) \\[([^\\]]+)\\].*took (\\d+)ms} $line"
+                + " -> date time level thread ms");
+    regsubScript = script("regsub -all {\\d+} $line N");
+    stringMapScript = script("string map $map $text");
+    stringMapLargeScript = script("string map $bigmap $bigtext");
+    formatScript = script("format {%-10s|%5d|%8.3f|%x|%s} $level 42 3.14159 255 $thread");
+    interp.eval(
+        "proc build {n} {\n"
+            + "  set s {}\n"
+            + "  for {set i 0} {$i < $n} {incr i} {\n"
+            + "    append s {<td>} $i {</td>}\n"
+            + "    if {[string length $s] > 1000000} break\n"
+            + "  }\n"
+            + "  string index $s end\n"
+            + "}");
+    appendScript = script("build 5000");
+    interp.eval(regexpScript, 0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    interp.dispose();
+  }
+
+  private static TclObject script(String s) {
+    TclObject obj = TclString.newInstance(s);
+    obj.preserve();
+    return obj;
+  }
+
+  @Benchmark
+  public TclObject regexp() throws TclException {
+    interp.eval(regexpScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject regsub() throws TclException {
+    interp.eval(regsubScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject stringMap() throws TclException {
+    interp.eval(stringMapScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject stringMapLarge() throws TclException {
+    interp.eval(stringMapLargeScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject format() throws TclException {
+    interp.eval(formatScript, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  public TclObject appendAndLength() throws TclException {
+    interp.eval(appendScript, 0);
+    return interp.getResult();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * TimerBenchmark.java
+ *
+ *	JMH benchmarks of timer scheduling, cancelling and firing with
+ *	a large number of pending timers.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tcl.lang.Interp;
+import tcl.lang.Notifier;
+import tcl.lang.TCL;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * Benchmarks of the "after" command with PENDING timers already scheduled far in the future, as an
+ * event-driven server has with one timeout per connection. Each invocation of the firing benchmark
+ * schedules and fires BATCH timers, and results are reported per timer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimerBenchmark {
+
+  private static final int BATCH = 1000;
+
+  @Param({"100000"})
+  public int pending;
+
+  private Interp interp;
+  private Notifier notifier;
+
+  private TclObject scheduleCancel;
+  private TclObject scheduleBatch;
+
+  @Setup
+  public void setup() throws TclException {
+    interp = Interp.of();
+    notifier = interp.getNotifier();
+    interp.setVar("pending", TclString.newInstance(Integer.toString(pending)), 0);
+    interp.setVar("batch", TclString.newInstance(Integer.toString(BATCH)), 0);
+    interp.eval(
+        "for {set i 0} {$i < $pending} {incr i} {\n"
+            + "  after [expr {3600000 + $i % 1000}] [list timeout $i]\n"
+            + "}\n"
+            + "set fired 0\n"
+            + "proc scheduleCancel {} {\n"
+            + "  after cancel [after 1800000 {timeout x}]\n"
+            + "}\n"
+            + "proc scheduleBatch {} {\n"
+            + "  global batch\n"
+            + "  for {set i 0} {$i < $batch} {incr i} {\n"
+            + "    after 0 {incr fired}\n"
+            + "  }\n"
+            + "}");
+
+    scheduleCancel = script("scheduleCancel");
+    scheduleBatch = script("scheduleBatch");
+  }
+
+  @TearDown
+  public void tearDown() {
+    interp.dispose();
+  }
+
+  private static TclObject script(String s) {
+    TclObject obj = TclString.newInstance(s);
+    obj.preserve();
+    return obj;
+  }
+
+  @Benchmark
+  public TclObject scheduleAndCancel() throws TclException {
+    interp.eval(scheduleCancel, 0);
+    return interp.getResult();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public TclObject scheduleAndFire() throws TclException {
+    interp.eval(scheduleBatch, 0);
+    while (notifier.getTimerQueue().size() > pending) {
+      notifier.doOneEvent(TCL.TIMER_EVENTS | TCL.DONT_WAIT);
+    }
+    return interp.getVar("fired", 0);
+  }
+}
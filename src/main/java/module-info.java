@@ -5,7 +5,10 @@
 module jackal {
   requires java.base;
   requires java.desktop; // java.beans (Tcl Blend / Java integration)
-  requires java.scripting; // javax.script (JSR 223)
+  requires transitive java.scripting; // javax.script, the JSR 223 engine implements its interfaces
+  requires java.compiler; // javax.tools (TJC runtime compiler)
+  requires transitive java.management; // JMX, ProfilerMBean returns open MBean types
+  requires jdk.management; // thread allocation counters (Profiler)
 
   exports tcl.lang;
   exports tcl.lang.exception;
@@ -43,12 +43,18 @@ public final class CallFrame {
 
   private int level;
 
-  private HashMap<String, Var> varTable = new HashMap<>();
+  // Created by Var.lookupVar() when the first variable that has no compiled
+  // local slot is made, which most procedures never do.
+  private HashMap<String, Var> varTable;
 
-  private final Var[] compiledLocals = null;
+  private Var[] compiledLocals;
 
   private String[] compiledLocalsNames;
 
+  // Data an extension keeps with the frame, like the object context of an
+  // [incr Tcl] method. Cleared when the frame is disposed of.
+  private Object clientData;
+
   /**
    * Creates a CallFrame for the global variables.
    *
@@ -65,7 +71,8 @@ public final class CallFrame {
   }
 
   /**
-   * Creates a CallFrame. It changes the following variables:
+   * Chain this frame into the call frame stack and binds the parameters values to the formal
+   * parameters of the procedure. It changes the following variables:
    *
    * <ul>
    *   <li>this.caller
@@ -74,25 +81,7 @@ public final class CallFrame {
    *   <li>interp.varFrame
    * </ul>
    *
-   * @param i current interpreter.
-   * @param proc the procedure to invoke in this call frame.
-   * @param objv the arguments to the procedure.
-   * @exception TclException if error occurs in parameter bindings.
-   */
-  CallFrame(Interp i, Procedure proc, TclObject[] objv) throws TclException {
-    this(i);
-
-    try {
-      chain(proc, objv);
-    } catch (TclException e) {
-      dispose();
-      throw e;
-    }
-  }
-
-  /**
-   * Chain this frame into the call frame stack and binds the parameters values to the formal
-   * parameters of the procedure.
+   * <p>The frame may be one that was used for an earlier call and then disposed of.
    *
    * @param proc the procedure.
    * @param proc argv the parameter values.
@@ -101,6 +90,7 @@ public final class CallFrame {
   void chain(Procedure proc, TclObject[] objv) throws TclException {
     this.setNs(proc.wcmd.getNs());
     this.setObjv(objv);
+    this.setProcCallFrame(true);
     // FIXME : quick level hack : fix later
     setLevel((getInterp().getVarFrame() == null) ? 1 : (getInterp().getVarFrame().getLevel() + 1));
     setCaller(getInterp().getFrame());
@@ -108,6 +98,17 @@ public final class CallFrame {
     getInterp().setFrame(this);
     getInterp().setVarFrame(this);
 
+    // Allocate slots for the locals the procedure is known to use,
+    // keeping the array of an earlier call when it is the right size
+
+    String[] localNames = proc.getLocalNames();
+    compiledLocalsNames = localNames;
+    if (localNames == null) {
+      compiledLocals = null;
+    } else if (compiledLocals == null || compiledLocals.length != localNames.length) {
+      compiledLocals = new Var[localNames.length];
+    }
+
     // parameter bindings
 
     int numArgs = proc.argList.length;
@@ -119,23 +120,28 @@ public final class CallFrame {
       wrongNumProcArgs(objv, proc);
     }
 
+    // When the formal parameters hold the first compiled local slots,
+    // the values go straight into the slots. The frame may come from the
+    // pool, but dispose() has emptied its slots, so there is no existing
+    // variable or trace to look up. A variable resolver must still see
+    // each name.
+
+    final boolean bindToSlots =
+        proc.argsInLocals() && getNs().resolver == null && getInterp().getResolvers().isEmpty();
+
     int i, j;
     for (i = 0, j = startIndex; i < numArgs; i++, j++) {
       // Handle the special case of the last formal being
       // "args". When it occurs, assign it a list consisting of
       // all the remaining actual arguments.
 
-      TclObject varName = proc.argList[i][0];
       TclObject value = null;
 
       if ((i == (numArgs - 1)) && proc.isVarArgs) {
         value = TclList.newInstance();
-        value.preserve();
-        for (int k = j; k < objv.length; k++) {
-          TclList.append(getInterp(), value, objv[k]);
+        if (j < objv.length) {
+          TclList.append(getInterp(), value, objv, j, objv.length);
         }
-        getInterp().setVar(varName, value, 0);
-        value.release();
       } else {
         if (j < objv.length) {
           value = objv[j];
@@ -144,7 +150,17 @@ public final class CallFrame {
         } else {
           wrongNumProcArgs(objv, proc);
         }
-        getInterp().setVar(varName, value, 0);
+      }
+
+      if (bindToSlots) {
+        Var var = getInterp().newLocalVar();
+        var.setFlags(Var.SCALAR);
+        var.setHashKey(compiledLocalsNames[i]);
+        var.setValue(value);
+        value.preserve();
+        compiledLocals[i] = var;
+      } else {
+        getInterp().setVar(proc.argList[i][0], value, 0);
       }
     }
   }
@@ -305,12 +321,14 @@ public final class CallFrame {
     getInterp().setVarFrame(getCallerVar());
     setCaller(null);
     setCallerVar(null);
+    clientData = null;
 
     if (getVarTable() != null) {
       Var.deleteVars(getInterp(), getVarTable());
       setVarTable(null);
     }
     if (getCompiledLocals() != null) {
+      // The emptied array is kept for the next call if the frame is reused
       Var.deleteVars(getInterp(), getCompiledLocals());
       compiledLocalsNames = null;
     }
@@ -394,6 +412,18 @@ public final class CallFrame {
     this.level = level;
   }
 
+  /**
+   * Data an extension keeps with this CallFrame while it is active, like the object context of an
+   * [incr Tcl] method. Null unless set by the extension that pushed the frame.
+   */
+  public Object getClientData() {
+    return clientData;
+  }
+
+  public void setClientData(Object clientData) {
+    this.clientData = clientData;
+  }
+
   /** Stores the variables of this CallFrame. */
   public HashMap<String, Var> getVarTable() {
     return varTable;
@@ -406,10 +436,11 @@ public final class CallFrame {
   /**
    * Array of local variables in a compiled proc frame. These include locals set in the proc,
    * globals or other variable brought into the proc scope, and compiler generated aliases to
-   * globals. This array is always null for an interpreted proc. A compiled proc implementation
-   * known which variable is associated with each slot at compile time, so it is able to avoid a
-   * symbol table lookup each time the variable is accessed. Both scalar variables and array
-   * variables could appear in this array.
+   * globals. For an interpreted proc, the slots are the arguments and the variables named in the
+   * body of the proc (see Procedure.getLocalNames()); other locals live in the varTable. Code that
+   * knows which variable is associated with each slot is able to avoid a symbol table lookup each
+   * time the variable is accessed. Both scalar variables and array variables could appear in this
+   * array.
    */
   public Var[] getCompiledLocals() {
     return compiledLocals;
@@ -418,4 +449,33 @@ public final class CallFrame {
   public String[] getCompiledLocalsNames() {
     return compiledLocalsNames;
   }
+
+  /**
+   * Gives a frame pushed for a TJC compiled command the compiled local slots of the command.
+   *
+   * @param names the names of the variables in the slots.
+   * @return the slots, which are emptied when the frame is disposed of.
+   */
+  public Var[] initCompiledLocals(String[] names) {
+    compiledLocalsNames = names;
+    compiledLocals = new Var[names.length];
+    return compiledLocals;
+  }
+
+  /**
+   * @param name a variable name
+   * @return the index of the compiled local slot for the variable, or -1 if the variable doesn't
+   *     live in the compiled local array
+   */
+  public int getCompiledLocalIndex(String name) {
+    final String[] names = compiledLocalsNames;
+    if (names != null) {
+      for (int i = 0; i < names.length; i++) {
+        if (names[i].equals(name)) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
 }
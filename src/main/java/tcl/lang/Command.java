@@ -168,6 +168,7 @@ public sealed interface Command
         tcl.pkg.itcl.Cmds.StubExistsCmd,
         tcl.lang.cmd.SubstCmd,
         tcl.lang.cmd.SwitchCmd,
+        tcl.pkg.tjc.TJCAutoCompileCmd,
         tcl.pkg.tjc.TJCCommandCmd,
         tcl.pkg.tjc.TJCCompileCmd,
         tcl.pkg.tjc.TJCPackageCmd,
@@ -0,0 +1,388 @@
+/*
+ * ExprCode.java
+ *
+ *	This file implements the internal rep used to cache a
+ *	pre-lexed Tcl expression on the TclObject holding it.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang;
+
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclBignum;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+import tcl.lang.parse.ParseAdaptor;
+import tcl.lang.parse.ParseResult;
+import tcl.lang.parse.ParsedWord;
+
+/**
+ * This class holds an expression that has been broken up into the token stream that
+ * Expression.ExprLex() would produce for it. Numeric and boolean literals are stored as constant
+ * ExprValues, and $var, [cmd] and "quoted" operands as ParsedWords that only need to be evaluated.
+ * The Expression parser consumes these tokens in place of lexing the string, so evaluating a cached
+ * expression has exactly the same semantics (including the order of errors and side effects) as
+ * evaluating the string.
+ *
+ * <p>An expression is only compiled the second time the same TclObject is evaluated, since
+ * compiling costs more than lexing the string once. An expression that can't be lexed without
+ * evaluating it, such as one with a syntax error inside a nested command, is marked as not compiled
+ * and is always evaluated from its string.
+ */
+public final class ExprCode implements InternalRep {
+
+  // Token type used for the name of a math function. It never ends
+  // up in Expression.m_token since the function call is parsed as
+  // soon as the token is read.
+
+  static final int FUNC_NAME = 6;
+
+  /** The string the expression was compiled from. */
+  final String expr;
+
+  /** The token types, ending with Expression.END. Null if the expression isn't compiled. */
+  final int[] tokens;
+
+  /**
+   * For each token, an ExprValue holding a literal value, a ParsedWord holding an operand to
+   * evaluate, the function name of a FUNC_NAME token, or null for operators.
+   */
+  final Object[] operands;
+
+  /** True if compiling the expression was attempted and failed. */
+  private final boolean failed;
+
+  private ExprCode(String expr, int[] tokens, Object[] operands, boolean failed) {
+    this.expr = expr;
+    this.tokens = tokens;
+    this.operands = operands;
+    this.failed = failed;
+  }
+
+  /** Returns the expression string. */
+  @Override
+  public String toString() {
+    return expr;
+  }
+
+  /**
+   * Return the compiled expression for a TclObject, compiling it and caching it in the object's
+   * internal rep if needed. Only objects with a string internal rep are converted, so that numbers
+   * and lists passed to expr don't lose their internal rep. The first call for an object only
+   * records that it has been seen.
+   *
+   * @param interp current interpreter
+   * @param tobj the expression
+   * @return the compiled expression, or null if the object must be evaluated from its string rep
+   */
+  static ExprCode get(Interp interp, TclObject tobj) {
+    InternalRep rep = tobj.getInternalRep();
+    ExprCode code;
+
+    if (rep instanceof ExprCode) {
+      code = (ExprCode) rep;
+      if (code.tokens == null && !code.failed) {
+        code = compile(interp, code.expr);
+        tobj.setInternalRep(code);
+      }
+    } else if (rep instanceof TclString) {
+      tobj.setInternalRep(new ExprCode(tobj.toString(), null, null, false));
+      return null;
+    } else {
+      return null;
+    }
+    return (code.tokens == null) ? null : code;
+  }
+
+  /**
+   * Break an expression up into tokens. This is a copy of the logic in Expression.ExprLex(), with
+   * the evaluation of operands deferred.
+   *
+   * @param interp current interpreter, used for number parsing; its result is not changed
+   * @param expr the expression string
+   * @return the compiled expression; its tokens are null if the expression can't be compiled
+   */
+  static ExprCode compile(Interp interp, String expr) {
+    final int len = expr.length();
+    int[] tokens = new int[8];
+    Object[] operands = new Object[8];
+    int numTokens = 0;
+    int ind = 0;
+    char c, c2;
+
+    while (true) {
+      int token;
+      Object operand = null;
+
+      while (ind < len && (((c = expr.charAt(ind)) == ' ') || Character.isWhitespace(c))) {
+        ind++;
+      }
+
+      if (ind >= len) {
+        token = Expression.END;
+      } else {
+        lex:
+        {
+          c = expr.charAt(ind);
+          if (ind < len - 1) {
+            c2 = expr.charAt(ind + 1);
+          } else {
+            c2 = '\0';
+          }
+
+          if ((c != '+') && (c != '-')) {
+            if (ind == len - 1 && c >= '0' && c <= '9') {
+              ind++;
+              token = Expression.VALUE;
+              operand = new ExprValue(c - '0', String.valueOf(c));
+              break lex;
+            }
+            final boolean startsWithDigit = Character.isDigit(c);
+            if (startsWithDigit && Expression.looksLikeInt(expr, len, ind, false)) {
+              StrtoulResult res = interp.getStrtoulResult();
+              Util.strtoul(expr, ind, 0, res);
+              if (res.getErrno() == 0) {
+                String str = expr.substring(ind, res.getIndex());
+                ind = res.getIndex();
+                token = Expression.VALUE;
+                operand = new ExprValue(res.getValue(), str);
+                break lex;
+              } else if (res.getErrno() == TCL.INTEGER_RANGE) {
+                String str = expr.substring(ind, res.getIndex());
+                operand = new ExprValue(TclBignum.parse(expr, ind, res.getIndex()), str);
+                ind = res.getIndex();
+                token = Expression.VALUE;
+                break lex;
+              }
+            } else if (startsWithDigit || (c == '.') || (c == 'n') || (c == 'N')) {
+              StrtodResult res = interp.getStrtodResult();
+              Util.strtod(expr, ind, -1, res);
+              if (res.getErrno() == 0) {
+                String str = expr.substring(ind, res.getIndex());
+                ind = res.getIndex();
+                token = Expression.VALUE;
+                operand = new ExprValue(res.getValue(), str);
+                break lex;
+              } else if (res.getErrno() == TCL.DOUBLE_RANGE) {
+                return notCompiled(expr);
+              }
+            }
+          }
+
+          ind += 1;
+
+          ParsedWord.Result word;
+          switch (c) {
+            case '$':
+              word = ParsedWord.parseVar(interp, expr, ind - 1, len);
+              if (word == null) {
+                return notCompiled(expr);
+              }
+              token = Expression.VALUE;
+              operand = word.getWord();
+              ind = word.getNextIndex();
+              break;
+            case '[':
+              word = ParsedWord.parseNestedCmd(interp, expr, ind, len);
+              if (word == null) {
+                return notCompiled(expr);
+              }
+              token = Expression.VALUE;
+              operand = word.getWord();
+              ind = word.getNextIndex();
+              break;
+            case '"':
+              word = ParsedWord.parseQuotes(interp, expr, ind, len);
+              if (word == null) {
+                return notCompiled(expr);
+              }
+              token = Expression.VALUE;
+              operand = word.getWord();
+              ind = word.getNextIndex();
+              break;
+            case '{':
+              {
+                ParseResult pres;
+                try {
+                  pres = ParseAdaptor.parseBraces(null, expr, ind, len);
+                } catch (TclException e) {
+                  return notCompiled(expr);
+                }
+                ExprValue value = new ExprValue(0, null);
+                Expression.ExprParseString(interp, pres.getValue(), value);
+                pres.release();
+                token = Expression.VALUE;
+                operand = value;
+                ind = pres.getNextIndex();
+                break;
+              }
+            case '(':
+              token = Expression.OPEN_PAREN;
+              break;
+            case ')':
+              token = Expression.CLOSE_PAREN;
+              break;
+            case ',':
+              token = Expression.COMMA;
+              break;
+            case '*':
+              token = Expression.MULT;
+              break;
+            case '/':
+              token = Expression.DIVIDE;
+              break;
+            case '%':
+              token = Expression.MOD;
+              break;
+            case '+':
+              token = Expression.PLUS;
+              break;
+            case '-':
+              token = Expression.MINUS;
+              break;
+            case '?':
+              token = Expression.QUESTY;
+              break;
+            case ':':
+              token = Expression.COLON;
+              break;
+            case '<':
+              if (c2 == '<') {
+                ind += 1;
+                token = Expression.LEFT_SHIFT;
+              } else if (c2 == '=') {
+                ind += 1;
+                token = Expression.LEQ;
+              } else {
+                token = Expression.LESS;
+              }
+              break;
+            case '>':
+              if (c2 == '>') {
+                ind += 1;
+                token = Expression.RIGHT_SHIFT;
+              } else if (c2 == '=') {
+                ind += 1;
+                token = Expression.GEQ;
+              } else {
+                token = Expression.GREATER;
+              }
+              break;
+            case '=':
+              if (c2 != '=') {
+                return notCompiled(expr);
+              }
+              ind += 1;
+              token = Expression.EQUAL;
+              break;
+            case '!':
+              if (c2 == '=') {
+                ind += 1;
+                token = Expression.NEQ;
+              } else {
+                token = Expression.NOT;
+              }
+              break;
+            case '&':
+              if (c2 == '&') {
+                ind += 1;
+                token = Expression.AND;
+              } else {
+                token = Expression.BIT_AND;
+              }
+              break;
+            case '^':
+              token = Expression.BIT_XOR;
+              break;
+            case '|':
+              if (c2 == '|') {
+                ind += 1;
+                token = Expression.OR;
+              } else {
+                token = Expression.BIT_OR;
+              }
+              break;
+            case '~':
+              token = Expression.BIT_NOT;
+              break;
+            default:
+              if (c == 'e' && c2 == 'q') {
+                ind += 1;
+                token = Expression.STREQ;
+                break;
+              } else if (c == 'n' && c2 == 'e') {
+                ind += 1;
+                token = Expression.STRNEQ;
+                break;
+              }
+              if (!Character.isLetter(c)) {
+                return notCompiled(expr);
+              }
+
+              // A boolean literal or the name of a math function,
+              // see the matching code in ExprLex().
+
+              ind--;
+              int i;
+              for (i = ind; i < len; i++) {
+                c = expr.charAt(i);
+                if (!(Character.isLetterOrDigit(c) || c == '_')) {
+                  break;
+                }
+              }
+              int nameEnd = i;
+              for (; i < len; i++) {
+                c = expr.charAt(i);
+                if (!(c == ' ' || Character.isWhitespace(c))) {
+                  break;
+                }
+              }
+              boolean is_math_func = (i < len) && (expr.charAt(i) == '(');
+
+              if (!is_math_func) {
+                String tok = Expression.getBooleanToken(expr.substring(ind));
+                if (tok != null) {
+                  ind += tok.length();
+                  token = Expression.VALUE;
+                  ExprValue value = new ExprValue(0, null);
+                  value.setStringValue(tok);
+                  operand = value;
+                  break;
+                }
+              }
+
+              token = FUNC_NAME;
+              operand = expr.substring(ind, nameEnd);
+              ind = nameEnd;
+              break;
+          }
+        }
+      }
+
+      if (numTokens == tokens.length) {
+        int[] newTokens = new int[numTokens * 2];
+        Object[] newOperands = new Object[numTokens * 2];
+        System.arraycopy(tokens, 0, newTokens, 0, numTokens);
+        System.arraycopy(operands, 0, newOperands, 0, numTokens);
+        tokens = newTokens;
+        operands = newOperands;
+      }
+      tokens[numTokens] = token;
+      operands[numTokens] = operand;
+      numTokens++;
+
+      if (token == Expression.END) {
+        break;
+      }
+    }
+
+    return new ExprCode(expr, tokens, operands, false);
+  }
+
+  private static ExprCode notCompiled(String expr) {
+    return new ExprCode(expr, null, null, true);
+  }
+}
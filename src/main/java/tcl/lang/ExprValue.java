@@ -14,19 +14,25 @@
 
 package tcl.lang;
 
+import java.math.BigInteger;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclRuntimeError;
+import tcl.lang.model.TclBignum;
 
 /**
- * Describes an expression value, which can be either an integer (the usual case), a
- * double-precision floating-point value, or a string. A number type will typically have a string
- * value that is the number string before it was parsed into a number. If the number has no string
- * value then one will be generated by getStringValue().
+ * Describes an expression value, which can be either an integer (the usual case), an integer too
+ * large for a long, a double-precision floating-point value, or a string. A number type will
+ * typically have a string value that is the number string before it was parsed into a number. If
+ * the number has no string value then one will be generated by getStringValue().
+ *
+ * <p>A BIGNUM value is never within the range of a long; the setBignumValue() methods store a value
+ * that fits as an INT.
  */
 public final class ExprValue {
   public static final int INT = 0;
   public static final int DOUBLE = 1;
   public static final int STRING = 2;
+  public static final int BIGNUM = 3;
 
   /** Integer value, if any. */
   private long intValue;
@@ -37,7 +43,10 @@ public final class ExprValue {
   /** Used to hold a string value, if any. */
   private String stringValue;
 
-  /** Type of value: INT, DOUBLE, or STRING. */
+  /** Arbitrary-precision integer value, if any. */
+  private BigInteger bignumValue;
+
+  /** Type of value: INT, DOUBLE, STRING, or BIGNUM. */
   private int type;
 
   /** Extra debug checking */
@@ -55,6 +64,10 @@ public final class ExprValue {
     setStringValue(s);
   }
 
+  public ExprValue(BigInteger b, String s) {
+    setBignumValue(b, s);
+  }
+
   public ExprValue(boolean b) {
     setIntValue(b);
   }
@@ -75,10 +88,21 @@ public final class ExprValue {
     return type == STRING;
   }
 
+  public final boolean isBignumType() {
+    return type == BIGNUM;
+  }
+
   public final boolean isIntOrDoubleType() {
     return (type == INT) || (type == DOUBLE);
   }
 
+  /**
+   * @return true for an INT or BIGNUM value
+   */
+  public final boolean isIntegerType() {
+    return (type == INT) || (type == BIGNUM);
+  }
+
   public final long getIntValue() {
     if (validate) {
       if (type != INT) {
@@ -97,6 +121,22 @@ public final class ExprValue {
     return doubleValue;
   }
 
+  public final BigInteger getBignumValue() {
+    if (validate) {
+      if (type != BIGNUM) {
+        throw new TclRuntimeError("called getBignumValue() on non-BIGNUM type");
+      }
+    }
+    return bignumValue;
+  }
+
+  /**
+   * @return the value of an INT or BIGNUM as a BigInteger
+   */
+  public final BigInteger getIntegerValue() {
+    return (type == BIGNUM) ? bignumValue : BigInteger.valueOf(intValue);
+  }
+
   public final String getStringValue() {
     if (type == STRING) {
       // No-op
@@ -109,6 +149,10 @@ public final class ExprValue {
         // Generate Tcl string rep for the double.
         stringValue = Util.printDouble(doubleValue);
       }
+    } else if (type == BIGNUM) {
+      if (stringValue == null) {
+        stringValue = bignumValue.toString();
+      }
     }
     return stringValue;
   }
@@ -129,6 +173,8 @@ public final class ExprValue {
         return (doubleValue != 0.0);
       case ExprValue.STRING:
         return Util.getBoolean(interp, stringValue);
+      case ExprValue.BIGNUM:
+        return true;
       default:
         throw new TclRuntimeError("internal error: expression, unknown");
     }
@@ -164,6 +210,26 @@ public final class ExprValue {
     type = DOUBLE;
   }
 
+  /**
+   * Set an integer value of any size. A value that fits in a long is stored as an INT.
+   *
+   * @param value the integer value
+   */
+  public final void setBignumValue(BigInteger value) {
+    setBignumValue(value, null);
+  }
+
+  public final void setBignumValue(BigInteger value, String s) {
+    stringValue = s;
+    if (TclBignum.fitsLong(value)) {
+      intValue = value.longValue();
+      type = INT;
+    } else {
+      bignumValue = value;
+      type = BIGNUM;
+    }
+  }
+
   public final void setStringValue(String s) {
     if (s == null) {
       throw new NullPointerException();
@@ -180,6 +246,7 @@ public final class ExprValue {
     intValue = value2.intValue;
     doubleValue = value2.doubleValue;
     stringValue = value2.stringValue;
+    bignumValue = value2.bignumValue;
   }
 
   public final void nullStringValue() {
@@ -213,6 +280,8 @@ public final class ExprValue {
           sb.append("\"");
         }
       }
+    } else if (type == BIGNUM) {
+      sb.append("BIGNUM \"" + bignumValue + "\"");
     } else if (type == DOUBLE) {
       sb.append("DOUBLE \"" + doubleValue + "\"");
       if (stringValue != null) {
@@ -227,11 +296,20 @@ public final class ExprValue {
     return sb.toString();
   }
 
-  // Optimized int multiply operation
+  // Optimized int multiply operation. The result is promoted
+  // to a BIGNUM if the product overflows a long.
 
   final void optIntMult(final ExprValue value2) {
     stringValue = null;
-    intValue *= value2.intValue;
+    final long x = intValue;
+    final long y = value2.intValue;
+    final long r = x * y;
+    if (Math.multiplyHigh(x, y) != (r >> 63)) {
+      bignumValue = BigInteger.valueOf(x).multiply(BigInteger.valueOf(y));
+      type = BIGNUM;
+    } else {
+      intValue = r;
+    }
   }
 
   // Optimized double multiply operation
@@ -241,11 +319,20 @@ public final class ExprValue {
     doubleValue *= value2.doubleValue;
   }
 
-  // Optimized int plus operation
+  // Optimized int plus operation. The result is promoted
+  // to a BIGNUM if the sum overflows a long.
 
   public final void optIntPlus(final ExprValue value2) {
     stringValue = null;
-    intValue += value2.intValue;
+    final long x = intValue;
+    final long y = value2.intValue;
+    final long r = x + y;
+    if (((x ^ r) & (y ^ r)) < 0) {
+      bignumValue = BigInteger.valueOf(x).add(BigInteger.valueOf(y));
+      type = BIGNUM;
+    } else {
+      intValue = r;
+    }
   }
 
   // Optimized double plus operation
@@ -255,11 +342,20 @@ public final class ExprValue {
     doubleValue += value2.doubleValue;
   }
 
-  // Optimized int minus operation
+  // Optimized int minus operation. The result is promoted
+  // to a BIGNUM if the difference overflows a long.
 
   final void optIntMinus(final ExprValue value2) {
     stringValue = null;
-    intValue -= value2.intValue;
+    final long x = intValue;
+    final long y = value2.intValue;
+    final long r = x - y;
+    if (((x ^ y) & (x ^ r)) < 0) {
+      bignumValue = BigInteger.valueOf(x).subtract(BigInteger.valueOf(y));
+      type = BIGNUM;
+    } else {
+      intValue = r;
+    }
   }
 
   // Optimized double minus operation
@@ -14,17 +14,21 @@
 
 package tcl.lang;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclRuntimeError;
+import tcl.lang.model.TclBignum;
 import tcl.lang.model.TclDouble;
 import tcl.lang.model.TclInteger;
 import tcl.lang.model.TclObject;
 import tcl.lang.model.TclString;
 import tcl.lang.parse.ParseAdaptor;
 import tcl.lang.parse.ParseResult;
+import tcl.lang.parse.ParsedWord;
 
 /** This class handles Tcl expressions. */
 public class Expression {
@@ -134,9 +138,15 @@ public class Expression {
    */
   int m_token;
 
-  /** Position to the next character to be scanned from the expression string. */
+  /**
+   * Position to the next character to be scanned from the expression string, or to the next token
+   * when m_code is not null.
+   */
   private int m_ind;
 
+  /** The compiled expression whose tokens are being read, or null when lexing m_expr. */
+  private ExprCode m_code;
+
   /**
    * Cache of ExprValue objects. These are cached on a per-interp basis to speed up most
    * expressions.
@@ -154,7 +164,23 @@ public class Expression {
    * @exception TclException for malformed expressions.
    */
   public void evalSetResult(Interp interp, String string) throws TclException {
-    ExprValue value = ExprTopLevel(interp, string);
+    setResult(interp, ExprTopLevel(interp, string));
+  }
+
+  /**
+   * Evaluate a Tcl expression held in a TclObject and set the interp result to the value. The
+   * expression is compiled and cached in the object's internal rep, so that evaluating it again
+   * doesn't require lexing the string.
+   *
+   * @param interp the context in which to evaluate the expression.
+   * @param tobj expression to evaluate.
+   * @exception TclException for malformed expressions.
+   */
+  public void evalSetResult(Interp interp, TclObject tobj) throws TclException {
+    setResult(interp, ExprTopLevel(interp, tobj));
+  }
+
+  private void setResult(Interp interp, ExprValue value) {
     switch (value.getType()) {
       case ExprValue.INT:
         interp.setResult(value.getIntValue());
@@ -165,6 +191,9 @@ public class Expression {
       case ExprValue.STRING:
         interp.setResult(value.getStringValue());
         break;
+      case ExprValue.BIGNUM:
+        interp.setResult(TclBignum.newInstance(value.getBignumValue()));
+        break;
       default:
         throw new TclRuntimeError("internal error: expression, unknown");
     }
@@ -187,6 +216,22 @@ public class Expression {
     return b;
   }
 
+  /**
+   * Evaluate a Tcl expression held in a TclObject. The expression is compiled and cached in the
+   * object's internal rep, so that evaluating it again doesn't require lexing the string.
+   *
+   * @param interp the context in which to evaluate the expression.
+   * @param tobj expression to evaluate.
+   * @exception TclException for malformed expressions.
+   * @return the value of the expression in boolean.
+   */
+  public boolean evalBoolean(Interp interp, TclObject tobj) throws TclException {
+    ExprValue value = ExprTopLevel(interp, tobj);
+    boolean b = value.getBooleanValue(interp);
+    releaseExprValue(value);
+    return b;
+  }
+
   /** Constructor. */
   public Expression() {
     mathFuncTable = new HashMap<String, MathFunction>();
@@ -225,6 +270,7 @@ public class Expression {
     registerMathFunction("int", new IntFunction());
     registerMathFunction("wide", new WideFunction());
     registerMathFunction("round", new RoundFunction());
+    registerMathFunction("entier", new EntierFunction());
 
     m_expr = null;
     m_ind = 0;
@@ -255,12 +301,56 @@ public class Expression {
     int m_len_saved = m_len;
     int m_token_saved = m_token;
     int m_ind_saved = m_ind;
+    ExprCode m_code_saved = m_code;
 
     try {
       m_expr = string;
       m_ind = 0;
       m_len = string.length();
       m_token = UNKNOWN;
+      m_code = null;
+
+      ExprValue val = ExprGetValue(interp, -1);
+      if (m_token != END) {
+        SyntaxError(interp);
+      }
+      return val;
+    } finally {
+      m_expr = m_expr_saved;
+      m_len = m_len_saved;
+      m_token = m_token_saved;
+      m_ind = m_ind_saved;
+      m_code = m_code_saved;
+    }
+  }
+
+  /**
+   * Provides top-level functionality for an expression held in a TclObject. If the expression can
+   * be compiled, the tokens of the compiled expression are read instead of lexing the string.
+   *
+   * @param interp the context in which to evaluate the expression.
+   * @param tobj the expression.
+   * @exception TclException for malformed expressions.
+   * @return the value of the expression.
+   */
+  private final ExprValue ExprTopLevel(Interp interp, TclObject tobj) throws TclException {
+    ExprCode code = ExprCode.get(interp, tobj);
+    if (code == null) {
+      return ExprTopLevel(interp, tobj.toString());
+    }
+
+    String m_expr_saved = m_expr;
+    int m_len_saved = m_len;
+    int m_token_saved = m_token;
+    int m_ind_saved = m_ind;
+    ExprCode m_code_saved = m_code;
+
+    try {
+      m_expr = code.expr;
+      m_ind = 0;
+      m_len = m_expr.length();
+      m_token = UNKNOWN;
+      m_code = code;
 
       ExprValue val = ExprGetValue(interp, -1);
       if (m_token != END) {
@@ -272,6 +362,7 @@ public class Expression {
       m_len = m_len_saved;
       m_token = m_token_saved;
       m_ind = m_ind_saved;
+      m_code = m_code_saved;
     }
   }
 
@@ -359,6 +450,11 @@ public class Expression {
           // Inline TclDouble.get()
           ((TclDouble) obj.getInternalRep()).value, (obj.hasNoStringRep() ? null : obj.toString()));
       return;
+    } else if (obj.getInternalRep() instanceof TclBignum) {
+      value.setBignumValue(
+          ((TclBignum) obj.getInternalRep()).getValue(),
+          (obj.hasNoStringRep() ? null : obj.toString()));
+      return;
     }
 
     // Otherwise, try to parse a numeric value from the
@@ -545,6 +641,17 @@ public class Expression {
         } else {
           // System.out.println("string failed trailing_blanks test, not an integer");
         }
+      } else if (res.getErrno() == TCL.INTEGER_RANGE) {
+        // An integer too large for a long. TclBignum.isBignum()
+        // makes the same trailing blanks check as above.
+
+        if (TclBignum.isBignum(interp, obj)) {
+          value.setBignumValue(((TclBignum) obj.getInternalRep()).getValue(), s);
+          return;
+        } else if (obj.isIntType()) {
+          value.setIntValue(obj.ivalue, s);
+          return;
+        }
       }
     } else {
       // System.out.println("string does not look like an int, checking for Double");
@@ -674,6 +781,8 @@ public class Expression {
 
         if (value.isDoubleType()) {
           value.setIntValue(value.getDoubleValue() != 0.0);
+        } else if (value.isBignumType()) {
+          value.setIntValue(true);
         } else if (value.isStringType()) {
           try {
             boolean b = Util.getBoolean(interp, value.getStringValue());
@@ -772,7 +881,14 @@ public class Expression {
     switch (operator) {
       case UNARY_MINUS:
         if (value.isIntType()) {
-          value.setIntValue(value.getIntValue() * -1);
+          long i = value.getIntValue();
+          if (i == Long.MIN_VALUE) {
+            value.setBignumValue(BigInteger.valueOf(i).negate());
+          } else {
+            value.setIntValue(-i);
+          }
+        } else if (value.isBignumType()) {
+          value.setBignumValue(value.getBignumValue().negate());
         } else if (value.isDoubleType()) {
           value.setDoubleValue(value.getDoubleValue() * -1.0);
         } else {
@@ -783,7 +899,7 @@ public class Expression {
         // Unary + operator raises an error for a String,
         // otherwise it tosses out the string rep.
 
-        if (value.isIntOrDoubleType()) {
+        if (value.isIntOrDoubleType() || value.isBignumType()) {
           value.nullStringValue();
         } else {
           IllegalType(interp, value.getType(), operator);
@@ -795,6 +911,8 @@ public class Expression {
           value.optIntUnaryNot();
         } else if (value.isDoubleType()) {
           value.setIntValue(value.getDoubleValue() == 0.0);
+        } else if (value.isBignumType()) {
+          value.setIntValue(false);
         } else if (value.isStringType()) {
           String s = value.getStringValue();
           int s_len = s.length();
@@ -819,6 +937,8 @@ public class Expression {
       case BIT_NOT:
         if (value.isIntType()) {
           value.setIntValue(~value.getIntValue());
+        } else if (value.isBignumType()) {
+          value.setBignumValue(value.getBignumValue().not());
         } else {
           IllegalType(interp, value.getType(), operator);
         }
@@ -861,15 +981,13 @@ public class Expression {
           }
           IllegalType(interp, ExprValue.STRING, operator);
         } else if (t1 == ExprValue.DOUBLE) {
-          if (t2 == ExprValue.INT) {
-            value2.setDoubleValue((double) value2.getIntValue());
+          if (t2 != ExprValue.DOUBLE) {
+            toDouble(value2);
             t2 = ExprValue.DOUBLE;
           }
         } else if (t2 == ExprValue.DOUBLE) {
-          if (t1 == ExprValue.INT) {
-            value.setDoubleValue((double) value.getIntValue());
-            t1 = ExprValue.DOUBLE;
-          }
+          toDouble(value);
+          t1 = ExprValue.DOUBLE;
         }
         break;
 
@@ -881,12 +999,12 @@ public class Expression {
       case BIT_AND:
       case BIT_XOR:
       case BIT_OR:
-        if (t1 != ExprValue.INT) {
+        if (!value.isIntegerType()) {
           if (value.getStringValue().length() == 0) {
             EmptyStringOperandError(interp, operator);
           }
           IllegalType(interp, value.getType(), operator);
-        } else if (t2 != ExprValue.INT) {
+        } else if (!value2.isIntegerType()) {
           if (value2.getStringValue().length() == 0) {
             EmptyStringOperandError(interp, operator);
           }
@@ -918,15 +1036,11 @@ public class Expression {
             t1 = ExprValue.STRING;
           }
         } else if (t1 == ExprValue.DOUBLE) {
-          if (t2 == ExprValue.INT) {
-            value2.setDoubleValue((double) value2.getIntValue());
-            t2 = ExprValue.DOUBLE;
-          }
+          toDouble(value2);
+          t2 = ExprValue.DOUBLE;
         } else if (t2 == ExprValue.DOUBLE) {
-          if (t1 == ExprValue.INT) {
-            value.setDoubleValue((double) value.getIntValue());
-            t1 = ExprValue.DOUBLE;
-          }
+          toDouble(value);
+          t1 = ExprValue.DOUBLE;
         }
         break;
 
@@ -948,9 +1062,16 @@ public class Expression {
         if (t1 == ExprValue.STRING) {
           IllegalType(interp, ExprValue.STRING, operator);
         }
+        if (t1 == ExprValue.BIGNUM) {
+          value.setIntValue(true);
+          t1 = ExprValue.INT;
+        }
         if (t2 == ExprValue.STRING) {
           boolean b = Util.getBoolean(interp, value2.getStringValue());
           value2.setIntValue(b);
+        } else if (t2 == ExprValue.BIGNUM) {
+          value2.setIntValue(true);
+          t2 = ExprValue.INT;
         }
         break;
 
@@ -967,6 +1088,14 @@ public class Expression {
         throw new TclException(interp, "unknown operator in expression");
     }
 
+    // Integers too large for a long are handled separately, so
+    // that the operators below only deal with long values.
+
+    if (t1 == ExprValue.BIGNUM || t2 == ExprValue.BIGNUM) {
+      evalBignumOperator(interp, operator, value, value2);
+      return;
+    }
+
     // Carry out the function of the specified operator.
 
     switch (operator) {
@@ -1004,8 +1133,9 @@ public class Expression {
           divisor = value2.getIntValue();
 
           if (dividend == TCL.INT_MIN && divisor == -1) {
-            // Avoid integer overflow on (TCL.INT_MIN / -1)
-            quotient = TCL.INT_MIN;
+            // The quotient of (TCL.INT_MIN / -1) overflows a long
+            value.setBignumValue(BigInteger.valueOf(dividend).negate());
+            break;
           } else {
             quotient = dividend / divisor;
             // Round down to a smaller negative number if
@@ -1114,10 +1244,18 @@ public class Expression {
         // the right operand value is implicitly (value & 0x1f),
         // so a negative shift amount is in the 0 to 63 range.
 
+        // A result that doesn't fit in a long is promoted to a
+        // bignum.
+
         long left_shift_num = value.getIntValue();
         long left_shift_by = value2.getIntValue();
-        if (left_shift_by >= 64) {
-          left_shift_num = 0;
+        if (left_shift_num == 0) {
+          // No-op
+        } else if (left_shift_by >= 64
+            || (left_shift_by > 0
+                && (left_shift_num << left_shift_by) >> left_shift_by != left_shift_num)) {
+          evalBignumOperator(interp, operator, value, value2);
+          break;
         } else {
           left_shift_num <<= left_shift_by;
         }
@@ -1275,6 +1413,123 @@ public class Expression {
     return;
   }
 
+  // Convert an INT or BIGNUM value to a DOUBLE.
+
+  private static void toDouble(final ExprValue value) {
+    if (value.isIntType()) {
+      value.setDoubleValue((double) value.getIntValue());
+    } else {
+      value.setDoubleValue(value.getBignumValue().doubleValue());
+    }
+  }
+
+  // Evaluate a binary operator for two integer operands, at least
+  // one of which is a BIGNUM or the result of which doesn't fit in
+  // a long. The operands have already been checked by
+  // evalBinaryOperator(). The result is stored in the first value,
+  // as an INT if it fits in a long.
+
+  private static void evalBignumOperator(
+      final Interp interp, final int operator, final ExprValue value, final ExprValue value2)
+      throws TclException {
+    BigInteger x = value.getIntegerValue();
+    BigInteger y = value2.getIntegerValue();
+
+    switch (operator) {
+      case MULT:
+        value.setBignumValue(x.multiply(y));
+        break;
+      case DIVIDE:
+        {
+          if (y.signum() == 0) {
+            DivideByZero(interp);
+          }
+          // Round towards -Infinity, as for long values
+          BigInteger[] qr = x.divideAndRemainder(y);
+          BigInteger quotient = qr[0];
+          if (qr[1].signum() != 0 && qr[1].signum() != y.signum()) {
+            quotient = quotient.subtract(BigInteger.ONE);
+          }
+          value.setBignumValue(quotient);
+          break;
+        }
+      case MOD:
+        {
+          if (y.signum() == 0) {
+            DivideByZero(interp);
+          }
+          // The sign of the remainder matches the sign of the divisor
+          BigInteger remainder = x.mod(y.abs());
+          if (y.signum() < 0 && remainder.signum() != 0) {
+            remainder = remainder.add(y);
+          }
+          value.setBignumValue(remainder);
+          break;
+        }
+      case PLUS:
+        value.setBignumValue(x.add(y));
+        break;
+      case MINUS:
+        value.setBignumValue(x.subtract(y));
+        break;
+      case LEFT_SHIFT:
+      case RIGHT_SHIFT:
+        {
+          if (y.signum() < 0) {
+            throw new TclException(interp, "negative shift argument");
+          }
+          if (operator == RIGHT_SHIFT) {
+            if (!TclBignum.fitsLong(y) || y.longValue() > Integer.MAX_VALUE) {
+              value.setIntValue(x.signum() < 0 ? -1 : 0);
+            } else {
+              value.setBignumValue(x.shiftRight(y.intValue()));
+            }
+          } else if (x.signum() == 0) {
+            value.setIntValue(0);
+          } else {
+            if (!TclBignum.fitsLong(y) || y.longValue() > Integer.MAX_VALUE) {
+              IntegerTooLarge(interp);
+            }
+            try {
+              value.setBignumValue(x.shiftLeft(y.intValue()));
+            } catch (ArithmeticException e) {
+              IntegerTooLarge(interp);
+            }
+          }
+          break;
+        }
+      case LESS:
+        value.setIntValue(x.compareTo(y) < 0);
+        break;
+      case GREATER:
+        value.setIntValue(x.compareTo(y) > 0);
+        break;
+      case LEQ:
+        value.setIntValue(x.compareTo(y) <= 0);
+        break;
+      case GEQ:
+        value.setIntValue(x.compareTo(y) >= 0);
+        break;
+      case EQUAL:
+        value.setIntValue(x.equals(y));
+        break;
+      case NEQ:
+        value.setIntValue(!x.equals(y));
+        break;
+      case BIT_AND:
+        value.setBignumValue(x.and(y));
+        break;
+      case BIT_XOR:
+        value.setBignumValue(x.xor(y));
+        break;
+      case BIT_OR:
+        value.setBignumValue(x.or(y));
+        break;
+      default:
+        throw new TclException(interp, "unknown operator in expression");
+    }
+  }
+
   /**
    * GetLexeme -> ExprLex
    *
@@ -1290,6 +1545,10 @@ public class Expression {
   private ExprValue ExprLex(Interp interp) throws TclException {
     char c, c2;
 
+    if (m_code != null) {
+      return ExprLexCode(interp);
+    }
+
     while (m_ind < m_len && (((c = m_expr.charAt(m_ind)) == ' ') || Character.isWhitespace(c))) {
       m_ind++;
     }
@@ -1344,10 +1603,14 @@ public class Expression {
           ExprValue value = grabExprValue();
           value.setIntValue(res.getValue(), token);
           return value;
-        } else {
-          if (res.getErrno() == TCL.INTEGER_RANGE) {
-            IntegerTooLarge(interp);
-          }
+        } else if (res.getErrno() == TCL.INTEGER_RANGE) {
+          String token = m_expr.substring(m_ind, res.getIndex());
+          BigInteger b = TclBignum.parse(m_expr, m_ind, res.getIndex());
+          m_ind = res.getIndex();
+          m_token = VALUE;
+          ExprValue value = grabExprValue();
+          value.setBignumValue(b, token);
+          return value;
         }
       } else if (startsWithDigit || (c == '.') || (c == 'n') || (c == 'N')) {
         StrtodResult res = interp.getStrtodResult();
@@ -1632,6 +1895,49 @@ public class Expression {
     }
   }
 
+  /**
+   * Read the next token of a compiled expression. This has the same effect as ExprLex() would have
+   * on the string the expression was compiled from.
+   *
+   * @param interp the context in which to evaluate the expression.
+   * @exception TclException for malformed expressions.
+   * @return the value of the token if it is an operand, or null otherwise.
+   */
+  private ExprValue ExprLexCode(Interp interp) throws TclException {
+    final int token = m_code.tokens[m_ind];
+    final Object operand = m_code.operands[m_ind];
+    ExprValue retval;
+
+    // Stay on the END token once it is reached, like ExprLex() does.
+
+    if (token != END) {
+      m_ind++;
+    }
+
+    if (token == ExprCode.FUNC_NAME) {
+      return mathFunction(interp, (String) operand);
+    }
+    m_token = token;
+    if (operand == null) {
+      return null;
+    }
+
+    retval = grabExprValue();
+    if (operand instanceof ExprValue) {
+      retval.setValue((ExprValue) operand);
+    } else if (interp.getNoEval() != 0) {
+      retval.setIntValue(0);
+    } else {
+      TclObject obj = ((ParsedWord) operand).eval(interp);
+      try {
+        ExprParseObject(interp, obj, retval);
+      } finally {
+        obj.release();
+      }
+    }
+    return retval;
+  }
+
   /**
    * Parses a math function from an expression string, carry out the function, and return the value
    * computed.
@@ -1642,11 +1948,6 @@ public class Expression {
    */
   ExprValue mathFunction(Interp interp) throws TclException {
     int startIdx = m_ind;
-    ExprValue value;
-    String funcName;
-    MathFunction mathFunc;
-    ExprValue[] values = null;
-    int numArgs;
 
     // Find the end of the math function's name and lookup the MathFunc
     // record for the function. Search until the char at m_ind is not
@@ -1661,7 +1962,24 @@ public class Expression {
     // Get the funcName BEFORE calling ExprLex, so the funcName
     // will not have trailing whitespace.
 
-    funcName = m_expr.substring(startIdx, m_ind);
+    return mathFunction(interp, m_expr.substring(startIdx, m_ind));
+  }
+
+  /**
+   * Parses the arguments of a math function whose name has already been read, carry out the
+   * function, and return the value computed.
+   *
+   * @param interp current interpreter.
+   * @param funcName name of the math function.
+   * @return the value computed by the math function.
+   * @exception TclException if any error happens.
+   */
+  private ExprValue mathFunction(Interp interp, String funcName) throws TclException {
+    ExprValue value;
+    MathFunction mathFunc;
+    ExprValue[] values = null;
+    int numArgs;
+
     mathFunc = (MathFunction) mathFuncTable.get(funcName);
 
     // Parse errors are thrown BEFORE unknown function names
@@ -1809,6 +2127,12 @@ public class Expression {
           if (mathFunc.argTypes[i] == MathFunction.DOUBLE) {
             value.setDoubleValue((double) value.getIntValue());
           }
+        } else if (value.isBignumType()) {
+          if (mathFunc.argTypes[i] == MathFunction.DOUBLE) {
+            value.setDoubleValue(value.getBignumValue().doubleValue());
+          } else if (mathFunc.argTypes[i] == MathFunction.INT) {
+            value.setIntValue(value.getBignumValue().longValue());
+          }
         } else {
           if (mathFunc.argTypes[i] == MathFunction.INT) {
             value.setIntValue((long) value.getDoubleValue());
@@ -1937,7 +2261,7 @@ public class Expression {
     }
   }
 
-  static void checkDoubleRange(Interp interp, double d) throws TclException {
+  public static void checkDoubleRange(Interp interp, double d) throws TclException {
     if (Double.isNaN(d) || Double.isInfinite(d)) {
       Expression.DoubleTooLarge(interp);
     }
@@ -2060,7 +2384,8 @@ abstract sealed class MathFunction
         DoubleFunction,
         IntFunction,
         WideFunction,
-        RoundFunction {
+        RoundFunction,
+        EntierFunction {
   static final int INT = 0;
   static final int DOUBLE = 1;
   static final int EITHER = 2;
@@ -2146,10 +2471,14 @@ final class AbsFunction extends MathFunction {
       } else {
         value.setDoubleValue(-d);
       }
+    } else if (value.isBignumType()) {
+      value.setBignumValue(value.getBignumValue().abs());
     } else {
       long i = value.getIntValue();
       if (i > 0) {
         value.setIntValue(i);
+      } else if (i == Long.MIN_VALUE) {
+        value.setBignumValue(BigInteger.valueOf(i).negate());
       } else {
         value.setIntValue(-i);
       }
@@ -2167,6 +2496,10 @@ final class DoubleFunction extends MathFunction {
     ExprValue value = values[0];
     if (value.isIntType()) {
       value.setDoubleValue((double) value.getIntValue());
+    } else if (value.isBignumType()) {
+      double d = value.getBignumValue().doubleValue();
+      Expression.checkDoubleRange(interp, d);
+      value.setDoubleValue(d);
     }
   }
 }
@@ -2179,7 +2512,10 @@ final class IntFunction extends MathFunction {
 
   void apply(Interp interp, ExprValue[] values) throws TclException {
     ExprValue value = values[0];
-    if (!value.isIntType()) {
+    if (value.isBignumType()) {
+      // Keep the low order bits, as in Tcl 8.5
+      value.setIntValue(value.getBignumValue().longValue());
+    } else if (!value.isIntType()) {
       double d = value.getDoubleValue();
       Expression.checkIntegerRange(interp, d);
       value.setIntValue((long) d);
@@ -2195,7 +2531,10 @@ final class WideFunction extends MathFunction {
 
   void apply(Interp interp, ExprValue[] values) throws TclException {
     ExprValue value = values[0];
-    if (!value.isIntType()) {
+    if (value.isBignumType()) {
+      // Keep the low order bits, as in Tcl 8.5
+      value.setIntValue(value.getBignumValue().longValue());
+    } else if (!value.isIntType()) {
       double d = value.getDoubleValue();
       Expression.checkIntegerRange(interp, d);
       value.setIntValue((long) d);
@@ -2219,15 +2558,39 @@ final class RoundFunction extends MathFunction {
         if (f <= -0.5) {
           i += -1.0;
         }
-        Expression.checkIntegerRange(interp, i);
-        value.setIntValue((long) i);
       } else {
         if (f >= 0.5) {
           i += 1.0;
         }
-        Expression.checkIntegerRange(interp, i);
-        value.setIntValue((long) i);
       }
+      EntierFunction.setIntegerValue(interp, value, i);
+    }
+  }
+}
+
+final class EntierFunction extends MathFunction {
+  EntierFunction() {
+    argTypes = new int[1];
+    argTypes[0] = EITHER;
+  }
+
+  void apply(Interp interp, ExprValue[] values) throws TclException {
+    ExprValue value = values[0];
+    if (value.isDoubleType()) {
+      double d = value.getDoubleValue();
+      setIntegerValue(interp, value, (d < 0.0 ? Math.ceil(d) : Math.floor(d)));
+    }
+  }
+
+  // Store a double with no fractional part as an integer of any size.
+
+  static void setIntegerValue(Interp interp, ExprValue value, double d) throws TclException {
+    if (d >= (double) TCL.INT_MIN && d < -((double) TCL.INT_MIN)) {
+      value.setIntValue((long) d);
+    } else if (Double.isNaN(d) || Double.isInfinite(d)) {
+      Expression.IntegerTooLarge(interp);
+    } else {
+      value.setBignumValue(new BigDecimal(d).toBigInteger());
     }
   }
 }
@@ -42,7 +42,12 @@ public sealed interface InternalRep
         TclLambda,
         TclList,
         TclString,
+        TclBignum,
         UTF8CharPointer,
+        ExprCode,
+        ResolvedCmdName,
+        ScriptCode,
+        StringMap,
         tcl.lang.cmd.NamespaceCmd,
         tcl.pkg.itcl.ItclEnsInvoc,
         tcl.pkg.java.ArraySig,
@@ -18,6 +18,7 @@ import tcl.lang.cmd.PackageCmd;
 import tcl.lang.cmd.RegexpCmd;
 import tcl.lang.exception.*;
 import tcl.lang.model.*;
+import tcl.lang.parse.ParsedScript;
 import tcl.lang.parse.Parser;
 import tcl.lang.parse.TclParse;
 import tcl.lang.parse.TclToken;
@@ -59,6 +60,13 @@ public class Interp extends EventuallyFreed {
 
   private int cmdCount;
 
+  // Incremented whenever the command a name resolves to might change: a
+  // command is created, deleted, renamed, hidden or exposed, or a
+  // command resolver is added or removed. Cached command lookups are
+  // only valid while this is unchanged. See ResolvedCmdName.
+
+  private int cmdNameEpoch;
+
   private Map<String, Channel> interpChanTable;
 
   /**
@@ -79,6 +87,37 @@ public class Interp extends EventuallyFreed {
 
   private CallFrame varFrame;
 
+  /** The most call frames and local variables kept for reuse by later procedure calls. */
+  private static final int MAX_POOLED_FRAMES = 32;
+
+  private static final int MAX_POOLED_VARS = 256;
+
+  // Call frames and local variables of finished procedure calls. Reusing
+  // them lets a small procedure be called without allocating a frame or
+  // a Var for each of its arguments.
+
+  private final CallFrame[] framePool = new CallFrame[MAX_POOLED_FRAMES];
+
+  private int framePoolSize = 0;
+
+  private final Var[] varPool = new Var[MAX_POOLED_VARS];
+
+  private int varPoolSize = 0;
+
+  // The command profiler, created by getProfiler(). While it is running it
+  // is also activeProfiler, which WrappedCommand checks before each command.
+
+  private Profiler profiler;
+
+  volatile Profiler activeProfiler;
+
+  // Compiles the procs that have been called hotProcThreshold times, or
+  // null if procs are only interpreted. See setProcCompiler().
+
+  ProcCompiler procCompiler;
+
+  int hotProcThreshold;
+
   private Namespace globalNs;
 
   private final HashMap<String, WrappedCommand> hiddenCmdTable = new HashMap<>();
@@ -355,6 +394,25 @@ public class Interp extends EventuallyFreed {
     return out;
   }
 
+  /**
+   * Create an interpreter in the state captured by a template. The built-in commands are not
+   * created one by one and init.tcl is not evaluated; the namespaces, commands, variables and
+   * packages of the template are recreated instead.
+   *
+   * @param template the template, see InterpTemplate.capture() and InterpTemplate.standard()
+   * @return the new interpreter
+   */
+  public static Interp of(InterpTemplate template) {
+    var out = new Interp();
+    out.initBase();
+    try {
+      template.restore(out);
+    } catch (TclException e) {
+      throw new TclRuntimeError("unexpected TclException: " + e);
+    }
+    return out;
+  }
+
   public static HashMap getTclLibraryScripts() {
     return tclLibraryScripts;
   }
@@ -377,6 +435,91 @@ public class Interp extends EventuallyFreed {
   }
 
   private void init() {
+    initBase();
+
+    // find the name of constructing class to use as the shell class name
+    // can be overridden by setShellClassName()
+    Throwable t = new Throwable();
+    StackTraceElement[] es = t.getStackTrace();
+    shellClassName = es[es.length - 1].getClassName();
+
+    // Create the built-in commands.
+
+    createCommands();
+
+    try {
+      // Set up tcl_platform, tcl_version, tcl_library and other
+      // global variables.
+
+      setVar("tcl_platform", "engine", "JTcl", TCL.GLOBAL_ONLY);
+      setVar("tcl_platform", "platform", "java", TCL.GLOBAL_ONLY);
+      setVar("tcl_platform", "byteOrder", "bigEndian", TCL.GLOBAL_ONLY);
+      setVar(
+          "tcl_platform",
+          "user",
+          Util.tryGetSystemProperty("user.name", "unknown"),
+          TCL.GLOBAL_ONLY);
+
+      setVar("tcl_platform", "os", Util.tryGetSystemProperty("os.name", "?"), TCL.GLOBAL_ONLY);
+      setVar(
+          "tcl_platform",
+          "osVersion",
+          Util.tryGetSystemProperty("os.version", "?"),
+          TCL.GLOBAL_ONLY);
+      setVar("tcl_platform", "machine", Util.tryGetSystemProperty("os.arch", "?"), TCL.GLOBAL_ONLY);
+
+      setVar("tcl_version", TCL_VERSION, TCL.GLOBAL_ONLY);
+      setVar("tcl_patchLevel", TCL_PATCH_LEVEL, TCL.GLOBAL_ONLY);
+      setVar("tcl_library", "resource:/tcl/lang/library", TCL.GLOBAL_ONLY);
+      if (Util.isWindows()) {
+        setVar("tcl_platform", "host_platform", "windows", TCL.GLOBAL_ONLY);
+      } else if (Util.isMac()) {
+        setVar("tcl_platform", "host_platform", "macintosh", TCL.GLOBAL_ONLY);
+      } else {
+        setVar("tcl_platform", "host_platform", "unix", TCL.GLOBAL_ONLY);
+      }
+
+      // Create the env array an populated it with proper
+      // values.
+
+      Env.initialize(this);
+
+      // Register Tcl's version number. Note: This MUST be
+      // done before the call to evalResource, otherwise
+      // calls to "package require tcl" will fail.
+
+      pkgProvide("Tcl", TCL_VERSION);
+
+      // Source the init.tcl script to initialize auto-loading.
+
+      evalResource("/tcl/lang/library/init.tcl");
+
+    } catch (TclException e) {
+      System.out.println(getResult());
+      e.printStackTrace();
+      throw new TclRuntimeError("unexpected TclException: " + e);
+    }
+
+    // Debug print interp info, this is handy when tracking
+    // down where an Interp that was not disposed of properly
+    // was allocated.
+
+    if (false) {
+      try {
+        throw new Exception();
+      } catch (Exception e) {
+        System.err.println("Interp() : " + this);
+        e.printStackTrace(System.err);
+      }
+    }
+  }
+
+  /**
+   * Initialize the parts of the interpreter that come before the built-in commands and library
+   * scripts: the shared result values, the global namespace, the channel table and the
+   * tcl_precision trace.
+   */
+  private void initBase() {
     // freeProc = null;
     setErrorLine(0);
 
@@ -491,12 +634,6 @@ public class Interp extends EventuallyFreed {
 
     dbg = initDebugInfo();
 
-    // find the name of constructing class to use as the shell class name
-    // can be overridden by setShellClassName()
-    Throwable t = new Throwable();
-    StackTraceElement[] es = t.getStackTrace();
-    shellClassName = es[es.length - 1].getClassName();
-
     // init parser variables
     Parser.init(this);
     TclParse.init(this);
@@ -509,76 +646,6 @@ public class Interp extends EventuallyFreed {
     // Sets up the variable trace for tcl_precision.
 
     Util.setupPrecisionTrace(this);
-
-    // Create the built-in commands.
-
-    createCommands();
-
-    try {
-      // Set up tcl_platform, tcl_version, tcl_library and other
-      // global variables.
-
-      setVar("tcl_platform", "engine", "JTcl", TCL.GLOBAL_ONLY);
-      setVar("tcl_platform", "platform", "java", TCL.GLOBAL_ONLY);
-      setVar("tcl_platform", "byteOrder", "bigEndian", TCL.GLOBAL_ONLY);
-      setVar(
-          "tcl_platform",
-          "user",
-          Util.tryGetSystemProperty("user.name", "unknown"),
-          TCL.GLOBAL_ONLY);
-
-      setVar("tcl_platform", "os", Util.tryGetSystemProperty("os.name", "?"), TCL.GLOBAL_ONLY);
-      setVar(
-          "tcl_platform",
-          "osVersion",
-          Util.tryGetSystemProperty("os.version", "?"),
-          TCL.GLOBAL_ONLY);
-      setVar("tcl_platform", "machine", Util.tryGetSystemProperty("os.arch", "?"), TCL.GLOBAL_ONLY);
-
-      setVar("tcl_version", TCL_VERSION, TCL.GLOBAL_ONLY);
-      setVar("tcl_patchLevel", TCL_PATCH_LEVEL, TCL.GLOBAL_ONLY);
-      setVar("tcl_library", "resource:/tcl/lang/library", TCL.GLOBAL_ONLY);
-      if (Util.isWindows()) {
-        setVar("tcl_platform", "host_platform", "windows", TCL.GLOBAL_ONLY);
-      } else if (Util.isMac()) {
-        setVar("tcl_platform", "host_platform", "macintosh", TCL.GLOBAL_ONLY);
-      } else {
-        setVar("tcl_platform", "host_platform", "unix", TCL.GLOBAL_ONLY);
-      }
-
-      // Create the env array an populated it with proper
-      // values.
-
-      Env.initialize(this);
-
-      // Register Tcl's version number. Note: This MUST be
-      // done before the call to evalResource, otherwise
-      // calls to "package require tcl" will fail.
-
-      pkgProvide("Tcl", TCL_VERSION);
-
-      // Source the init.tcl script to initialize auto-loading.
-
-      evalResource("/tcl/lang/library/init.tcl");
-
-    } catch (TclException e) {
-      System.out.println(getResult());
-      e.printStackTrace();
-      throw new TclRuntimeError("unexpected TclException: " + e);
-    }
-
-    // Debug print interp info, this is handy when tracking
-    // down where an Interp that was not disposed of properly
-    // was allocated.
-
-    if (false) {
-      try {
-        throw new Exception();
-      } catch (Exception e) {
-        System.err.println("Interp() : " + this);
-        e.printStackTrace(System.err);
-      }
-    }
   }
 
   /**
@@ -636,6 +703,10 @@ public class Interp extends EventuallyFreed {
       throw new TclRuntimeError("dispose() called with active evals");
     }
 
+    if (profiler != null) {
+      profiler.dispose();
+    }
+
     // Remove our association with the notifer (if we had one).
 
     if (notifier != null) {
@@ -744,9 +815,9 @@ public class Interp extends EventuallyFreed {
     resolvers.clear();
 
     // Free up classloader (makes sure Interp is released in container
-    // environments.)
-    if (getClassLoader() != null) {
-      getClassLoader().dispose();
+    // environments.) Check the field, getClassLoader() would create one.
+    if (classLoader != null) {
+      classLoader.dispose();
       setClassLoader(null);
     }
 
@@ -1413,6 +1484,7 @@ public class Interp extends EventuallyFreed {
 
     cmd = new WrappedCommand();
     ns.getCmdTable().put(tail, cmd);
+    incrCmdNameEpoch();
     cmd.setTable(ns.getCmdTable());
     cmd.setHashKey(tail);
     cmd.setNs(ns);
@@ -1568,6 +1640,7 @@ public class Interp extends EventuallyFreed {
     // references that point to this command.
 
     cmd.incrEpoch();
+    incrCmdNameEpoch();
 
     // If this command was imported into other namespaces, then imported
     // commands were created that refer back to this command. Delete these
@@ -1705,6 +1778,7 @@ public class Interp extends EventuallyFreed {
 
     oldTable.remove(oldHashKey);
     cmd.incrEpoch();
+    interp.incrCmdNameEpoch();
 
     return;
   }
@@ -2087,12 +2161,28 @@ public class Interp extends EventuallyFreed {
       throw new NullPointerException("passed null String to eval()");
     }
 
+    evalScript(new CharPointer(string), null, flags);
+  }
+
+  /**
+   * Evaluate a script, either by parsing it with Parser.eval2() or, if it has already been parsed,
+   * by evaluating its ParsedScript, and process the result the way eval(String, int) does.
+   *
+   * @param script the script
+   * @param parsed the ParsedScript for the script, or null
+   * @param flags Either 0 or TCL.EVAL_GLOBAL
+   * @throws TclException on any TCL error
+   */
+  private void evalScript(CharPointer script, ParsedScript parsed, int flags) throws TclException {
     int evalFlags = this.getEvalFlags();
     this.setEvalFlags(this.getEvalFlags() & ~Parser.TCL_ALLOW_EXCEPTIONS);
 
-    CharPointer script = new CharPointer(string);
     try {
-      Parser.eval2(this, script.getArray(), script.getIndex(), script.length(), flags);
+      if (parsed != null) {
+        parsed.eval(this, flags);
+      } else {
+        Parser.eval2(this, script.getArray(), script.getIndex(), script.length(), flags);
+      }
     } catch (TclException e) {
 
       if (getNestLevel() != 0) {
@@ -2160,12 +2250,19 @@ public class Interp extends EventuallyFreed {
       isPureList = true;
     }
 
-    // Non-optimized eval(), used when tobj is not a pure list.
+    // Non-optimized eval(), used when tobj is not a pure list. The
+    // parsed script is cached in tobj, so that a script evaluated
+    // many times is only parsed once.
 
     if (!isPureList) {
       tobj.preserve();
       try {
-        eval(tobj.toString(), flags);
+        ScriptCode code = ScriptCode.get(this, tobj);
+        if (code != null) {
+          evalScript(code.script, code.parsed, flags);
+        } else {
+          eval(tobj.toString(), flags);
+        }
       } finally {
         tobj.release();
 
@@ -2401,7 +2498,7 @@ public class Interp extends EventuallyFreed {
     FileChannel fchan = new FileChannel();
     fchan.setEncoding(encoding);
     boolean wasOpened = false;
-    TclObject result = TclString.newInstance(new StringBuffer(64));
+    TclObject result = TclString.newInstance(new StringBuilder(64));
 
     try {
       sourceFile = FileUtil.getNewFileObj(this, s);
@@ -2545,7 +2642,7 @@ public class Interp extends EventuallyFreed {
    * @return the content of the script.
    */
   private String readScriptFromInputStream(InputStream s, String javaEncoding) {
-    TclObject result = TclString.newInstance(new StringBuffer(64));
+    TclObject result = TclString.newInstance(new StringBuilder(64));
     ReadInputStreamChannel rc = new ReadInputStreamChannel(this, s);
     rc.setEncoding(javaEncoding);
 
@@ -2846,7 +2943,59 @@ public class Interp extends EventuallyFreed {
    * @throws TclException incorrect arguments passed.
    */
   protected CallFrame newCallFrame(Procedure proc, TclObject[] objv) throws TclException {
-    return new CallFrame(this, proc, objv);
+    CallFrame frame;
+    if (framePoolSize > 0) {
+      frame = framePool[--framePoolSize];
+      framePool[framePoolSize] = null;
+    } else {
+      frame = new CallFrame(this);
+    }
+
+    try {
+      frame.chain(proc, objv);
+    } catch (TclException e) {
+      releaseCallFrame(frame);
+      throw e;
+    }
+    return frame;
+  }
+
+  /**
+   * Disposes of a CallFrame created by newCallFrame(Procedure, TclObject[]) once the procedure has
+   * finished, and keeps it for reuse by a later call.
+   *
+   * @param frame the frame of the finished procedure call.
+   */
+  void releaseCallFrame(CallFrame frame) {
+    frame.dispose();
+    if (framePoolSize < MAX_POOLED_FRAMES && frame.getInterp() == this) {
+      framePool[framePoolSize++] = frame;
+    }
+  }
+
+  /**
+   * @return a Var for a local variable of a procedure, reused from an earlier call if possible.
+   */
+  Var newLocalVar() {
+    if (varPoolSize > 0) {
+      Var var = varPool[--varPoolSize];
+      varPool[varPoolSize] = null;
+      return var;
+    }
+    return new Var();
+  }
+
+  /**
+   * Keeps a deleted local variable for reuse by newLocalVar(). The caller must make sure that
+   * nothing refers to the variable any more.
+   *
+   * @param var a Var that was deleted along with its call frame.
+   */
+  void releaseLocalVar(Var var) {
+    if (varPoolSize < MAX_POOLED_VARS) {
+      var.reset();
+      varPool[varPoolSize++] = var;
+    }
   }
 
   /**
@@ -2858,6 +3007,38 @@ public class Interp extends EventuallyFreed {
     return new CallFrame(this);
   }
 
+  /**
+   * @return the command profiler of this interpreter, which is not running until it is started
+   */
+  public Profiler getProfiler() {
+    if (profiler == null) {
+      profiler = new Profiler(this);
+    }
+    return profiler;
+  }
+
+  /**
+   * Sets the compiler of the hot procs of this interpreter. Each proc that is called threshold
+   * times from now on is handed to the compiler once.
+   *
+   * @param compiler the compiler, or null to stop compiling procs.
+   * @param threshold the number of calls that makes a proc hot, at least 1.
+   */
+  public void setProcCompiler(ProcCompiler compiler, int threshold) {
+    if (compiler != null && threshold < 1) {
+      throw new IllegalArgumentException("threshold must be at least 1");
+    }
+    procCompiler = compiler;
+    hotProcThreshold = (compiler == null ? 0 : threshold);
+  }
+
+  /**
+   * @return the number of calls that makes a proc hot, or 0 if there is no proc compiler.
+   */
+  public int getHotProcThreshold() {
+    return hotProcThreshold;
+  }
+
   /**
    * Retrieve the current working directory for this interpreter. Side effects: If the working dir
    * is null, set it to env(HOME)
@@ -3189,6 +3370,7 @@ public class Interp extends EventuallyFreed {
     if (cmd.getTable().containsKey(cmd.getHashKey())) {
       cmd.getTable().remove(cmd.getHashKey());
       cmd.incrEpoch();
+      incrCmdNameEpoch();
     }
 
     // Now link the hash table entry with the command structure.
@@ -3274,6 +3456,7 @@ public class Interp extends EventuallyFreed {
     // of commands in the global namespace.
 
     ns.getCmdTable().put(cmdName, cmd);
+    incrCmdNameEpoch();
 
     // Not needed as we are only in the global namespace
     // (but would be needed again if we supported namespace command hiding)
@@ -3361,7 +3544,7 @@ public class Interp extends EventuallyFreed {
       }
       cmd = (WrappedCommand) getHiddenCmdTable().get(cmdName);
     } else {
-      cmd = Namespace.findCommand(this, cmdName, null, TCL.GLOBAL_ONLY);
+      cmd = ResolvedCmdName.getCommand(this, objv[0], true);
       if (cmd == null) {
         if ((flags & INVOKE_NO_UNKNOWN) == 0) {
           cmd = Namespace.findCommand(this, "unknown", null, TCL.GLOBAL_ONLY);
@@ -3415,6 +3598,7 @@ public class Interp extends EventuallyFreed {
         cmd.setTable(getHiddenCmdTable());
         cmd.setHashKey(cmdName);
         getHiddenCmdTable().put(cmdName, cmd);
+        incrCmdNameEpoch();
       }
     }
 
@@ -3768,6 +3952,22 @@ public class Interp extends EventuallyFreed {
     this.cmdCount = cmdCount;
   }
 
+  /**
+   * @return the current command name epoch; cached command lookups made in an earlier epoch must be
+   *     resolved again
+   */
+  public int getCmdNameEpoch() {
+    return cmdNameEpoch;
+  }
+
+  /**
+   * Invalidate all cached command lookups in this interpreter. Called whenever a command is
+   * created, deleted, renamed, hidden or exposed, or command resolution rules change.
+   */
+  public void incrCmdNameEpoch() {
+    cmdNameEpoch++;
+  }
+
   /** Table of channels currently registered in this interp. */
   public Map<String, Channel> getInterpChanTable() {
     return interpChanTable;
@@ -3912,6 +4112,7 @@ public class Interp extends EventuallyFreed {
         res = resolvers.get(i);
         if (name.equals(res.name)) {
           resolvers.set(i, new ResolverScheme(res.name, resolver));
+          incrCmdNameEpoch();
           return;
         }
       }
@@ -3921,6 +4122,7 @@ public class Interp extends EventuallyFreed {
     // of the linked list, so that it overrides existing schemes.
     res = new ResolverScheme(name, resolver);
     getResolvers().add(0, res);
+    incrCmdNameEpoch();
   }
 
   /**
@@ -3991,6 +4193,7 @@ public class Interp extends EventuallyFreed {
         throw new TclRuntimeError("name " + name + " not found in resolvers");
       }
       getResolvers().remove(index);
+      incrCmdNameEpoch();
     }
 
     return found;
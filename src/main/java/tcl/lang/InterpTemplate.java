@@ -0,0 +1,331 @@
+/*
+ * InterpTemplate.java --
+ *
+ *	A snapshot of an initialized interpreter that new interpreters
+ *	can be created from.
+ *
+ * See the file "license.terms" for information on usage and redistribution
+ * of this file, and for a DISCLAIMER OF ALL WARRANTIES.
+ */
+
+package tcl.lang;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import tcl.lang.cmd.PackageCmd;
+import tcl.lang.exception.TclException;
+import tcl.lang.exception.TclRuntimeError;
+import tcl.lang.model.Namespace;
+import tcl.lang.model.TclList;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * A snapshot of the namespaces, commands, procs, global and namespace variables and packages of an
+ * interpreter. Interp.of(InterpTemplate) creates a new interpreter in the state of the snapshot
+ * without creating the built-in commands one by one or evaluating init.tcl and the other library
+ * scripts, so it is much cheaper than Interp.of().
+ *
+ * <p>Procs are recreated from their argument list and body. Java commands, including the load on
+ * demand stubs of the built-in commands, are recreated as AutoloadStubs for their class, so each
+ * interpreter gets its own instance the first time the command is invoked; a Java command can only
+ * be captured if its class has a public no-argument constructor. Variable values are captured as
+ * strings. Traces, aliases, child interpreters, channels, namespace resolvers and associated data
+ * are not part of a template.
+ *
+ * <p>A template holds no reference to the interpreter it was captured from, and can be used to
+ * create interpreters in any thread.
+ */
+public final class InterpTemplate {
+
+  /** A command captured in a template. */
+  private sealed interface CommandState permits ProcState, ClassState, ImportState {}
+
+  /** A proc, recreated from its argument list and body. */
+  private record ProcState(String args, String body, String srcFileName, int srcLineNumber)
+      implements CommandState {}
+
+  /** A Java command, recreated as an AutoloadStub for its class. */
+  private record ClassState(String className) implements CommandState {}
+
+  /** A command imported from another namespace with "namespace import". */
+  private record ImportState(String realName) implements CommandState {}
+
+  /** A scalar variable, or an array variable if elements is not null. */
+  private record VarState(String name, String value, Map<String, String> elements) {}
+
+  /** A namespace, with its commands and variables keyed by their simple names. */
+  private record NamespaceState(
+      String fullName,
+      String[] exportPatterns,
+      Map<String, CommandState> commands,
+      List<VarState> vars) {}
+
+  // Namespaces in the order they are created, the global namespace first
+  // and each namespace ahead of its children.
+
+  private final List<NamespaceState> namespaces;
+
+  private final Map<String, CommandState> hiddenCommands;
+
+  private final Map<String, PackageCmd.Package> packageTable;
+
+  private final String packageUnknown;
+
+  private final boolean isSafe;
+
+  private final int maxNestingDepth;
+
+  private final String shellClassName;
+
+  // The template of a newly created interpreter, captured the first
+  // time standard() is called.
+
+  private static InterpTemplate standard;
+
+  private InterpTemplate(Interp interp) throws TclException {
+    namespaces = new ArrayList<>();
+    captureNamespace(interp, interp.getGlobalNs());
+
+    hiddenCommands = new HashMap<>();
+    for (Map.Entry<String, WrappedCommand> entry : interp.getHiddenCmdTable().entrySet()) {
+      hiddenCommands.put(entry.getKey(), captureCommand(interp, entry.getValue()));
+    }
+
+    packageTable = new HashMap<>();
+    PackageCmd.copyPackageTable(interp.getPackageTable(), packageTable);
+    packageUnknown = interp.getPackageUnknown();
+    isSafe = interp.isSafe();
+    maxNestingDepth = interp.getMaxNestingDepth();
+    shellClassName = interp.getShellClassName();
+  }
+
+  /**
+   * Capture the state of an interpreter in a template. The interpreter should not be evaluating a
+   * script, and is left unchanged.
+   *
+   * @param interp the interpreter to capture
+   * @return a template that new interpreters can be created from with Interp.of(InterpTemplate)
+   * @throws TclException if the interpreter holds a command or variable that can't be captured
+   */
+  public static InterpTemplate capture(Interp interp) throws TclException {
+    return new InterpTemplate(interp);
+  }
+
+  /**
+   * @return a template of a newly created interpreter, so that Interp.of(InterpTemplate.standard())
+   *     is equivalent to Interp.of()
+   */
+  public static synchronized InterpTemplate standard() {
+    if (standard == null) {
+      Interp interp = Interp.of();
+      try {
+        standard = capture(interp);
+      } catch (TclException e) {
+        throw new TclRuntimeError("unexpected TclException: " + e);
+      } finally {
+        interp.dispose();
+      }
+    }
+    return standard;
+  }
+
+  private void captureNamespace(Interp interp, Namespace ns) throws TclException {
+    String[] exportPatterns = new String[ns.numExportPatterns];
+    if (ns.numExportPatterns > 0) {
+      System.arraycopy(ns.exportArray, 0, exportPatterns, 0, ns.numExportPatterns);
+    }
+
+    Map<String, CommandState> commands = new HashMap<>();
+    for (Map.Entry<String, WrappedCommand> entry : ns.getCmdTable().entrySet()) {
+      commands.put(entry.getKey(), captureCommand(interp, entry.getValue()));
+    }
+
+    List<VarState> vars = new ArrayList<>();
+    for (Map.Entry<String, Var> entry : ns.getVarTable().entrySet()) {
+      Var var = entry.getValue();
+      if (var.isVarUndefined()) {
+        continue;
+      }
+      if (var.isVarLink()) {
+        throw new TclException(
+            interp,
+            "can't capture variable \""
+                + qualify(ns, entry.getKey())
+                + "\" in an interpreter template: variable is a link");
+      }
+      if (var.isVarArray()) {
+        Map<String, String> elements = new HashMap<>();
+        Map<String, Var> arrayMap = var.getArrayMap();
+        if (arrayMap != null) {
+          for (Map.Entry<String, Var> element : arrayMap.entrySet()) {
+            Var el = element.getValue();
+            if (!el.isVarUndefined()) {
+              elements.put(element.getKey(), el.getValue().toString());
+            }
+          }
+        }
+        vars.add(new VarState(entry.getKey(), null, elements));
+      } else {
+        vars.add(new VarState(entry.getKey(), var.getValue().toString(), null));
+      }
+    }
+
+    namespaces.add(new NamespaceState(ns.fullName, exportPatterns, commands, vars));
+
+    if (ns.childTable != null) {
+      for (Namespace child : ns.childTable.values()) {
+        captureNamespace(interp, child);
+      }
+    }
+  }
+
+  private static CommandState captureCommand(Interp interp, WrappedCommand wcmd)
+      throws TclException {
+    Command cmd = wcmd.getCmd();
+
+    if (cmd instanceof Procedure proc) {
+      TclObject args = TclList.newInstance();
+      for (TclObject[] arg : proc.argList) {
+        if (arg[1] == null) {
+          TclList.append(interp, args, arg[0]);
+        } else {
+          TclObject spec = TclList.newInstance();
+          TclList.append(interp, spec, arg[0]);
+          TclList.append(interp, spec, arg[1]);
+          TclList.append(interp, args, spec);
+        }
+      }
+      String body = new String(proc.body.getArray(), proc.body.getIndex(), proc.body_length);
+      return new ProcState(args.toString(), body, proc.srcFileName, proc.srcLineNumber);
+    }
+    if (cmd instanceof ImportedCmdData data) {
+      return new ImportState(interp.getCommandFullName(data.getRealCmd()));
+    }
+    if (cmd instanceof AutoloadStub stub) {
+      return new ClassState(stub.className());
+    }
+    if (!(cmd instanceof CommandWithDispose) && hasPublicConstructor(cmd.getClass())) {
+      return new ClassState(cmd.getClass().getName());
+    }
+    throw new TclException(
+        interp,
+        "can't capture command \""
+            + interp.getCommandFullName(wcmd)
+            + "\" in an interpreter template");
+  }
+
+  private static boolean hasPublicConstructor(Class<?> cls) {
+    if (!Modifier.isPublic(cls.getModifiers())) {
+      return false;
+    }
+    try {
+      Constructor<?> constructor = cls.getConstructor();
+      return Modifier.isPublic(constructor.getModifiers());
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static String qualify(Namespace ns, String name) {
+    return ns.parent == null ? "::" + name : ns.fullName + "::" + name;
+  }
+
+  /**
+   * Recreate the captured state in a new interpreter, that has been initialized up to the point
+   * where Interp.of() creates the built-in commands.
+   *
+   * @param interp the new interpreter
+   * @throws TclException
+   */
+  void restore(Interp interp) throws TclException {
+    interp.setSafe(isSafe);
+    interp.setMaxNestingDepth(maxNestingDepth);
+    interp.setShellClassName(shellClassName);
+    interp.setPackageUnknown(packageUnknown);
+    PackageCmd.copyPackageTable(packageTable, interp.getPackageTable());
+
+    // Hidden commands were hidden from the global namespace, so create
+    // them there under their token and hide them again before any
+    // other command is created.
+
+    for (Map.Entry<String, CommandState> entry : hiddenCommands.entrySet()) {
+      String token = entry.getKey();
+      restoreCommand(interp, interp.getGlobalNs(), token, entry.getValue());
+      interp.hideCommand(token, token);
+    }
+
+    for (NamespaceState state : namespaces) {
+      Namespace ns = interp.getGlobalNs();
+      if (!state.fullName().equals("::")) {
+        ns = Namespace.createNamespace(interp, state.fullName(), null);
+      }
+      for (String pattern : state.exportPatterns()) {
+        Namespace.exportList(interp, ns, pattern, false);
+      }
+      for (Map.Entry<String, CommandState> entry : state.commands().entrySet()) {
+        if (!(entry.getValue() instanceof ImportState)) {
+          restoreCommand(interp, ns, entry.getKey(), entry.getValue());
+        }
+      }
+      for (VarState var : state.vars()) {
+        String name = qualify(ns, var.name());
+        if (var.elements() == null) {
+          interp.setVar(name, null, var.value(), TCL.GLOBAL_ONLY);
+        } else if (var.elements().isEmpty()) {
+          // Setting and unsetting an element leaves an empty array
+          interp.setVar(name, "", "", TCL.GLOBAL_ONLY);
+          interp.unsetVar(name, "", TCL.GLOBAL_ONLY);
+        } else {
+          for (Map.Entry<String, String> element : var.elements().entrySet()) {
+            interp.setVar(name, element.getKey(), element.getValue(), TCL.GLOBAL_ONLY);
+          }
+        }
+      }
+    }
+
+    // Imports refer to commands in other namespaces, so they are
+    // restored once all the namespaces have their commands.
+
+    for (NamespaceState state : namespaces) {
+      for (Map.Entry<String, CommandState> entry : state.commands().entrySet()) {
+        if (entry.getValue() instanceof ImportState imported) {
+          Namespace ns = Namespace.findNamespace(interp, state.fullName(), null, TCL.GLOBAL_ONLY);
+          Namespace.importList(interp, ns, imported.realName(), true);
+          String realName = imported.realName();
+          String importedName = qualify(ns, realName.substring(realName.lastIndexOf("::") + 2));
+          String name = qualify(ns, entry.getKey());
+          if (!importedName.equals(name)) {
+            interp.renameCommand(importedName, name);
+          }
+        }
+      }
+    }
+  }
+
+  private static void restoreCommand(Interp interp, Namespace ns, String name, CommandState state)
+      throws TclException {
+    String fullName = qualify(ns, name);
+    if (state instanceof ProcState p) {
+      Procedure proc =
+          new Procedure(
+              interp,
+              ns,
+              name,
+              TclString.newInstance(p.args()),
+              TclString.newInstance(p.body()),
+              p.srcFileName(),
+              p.srcLineNumber());
+      interp.createCommand(fullName, proc);
+      proc.wcmd = Namespace.findCommand(interp, fullName, ns, TCL.NAMESPACE_ONLY);
+    } else if (state instanceof ClassState c) {
+      interp.createCommand(fullName, new AutoloadStub(c.className()));
+    } else {
+      throw new TclRuntimeError("imported command restored out of order");
+    }
+  }
+}
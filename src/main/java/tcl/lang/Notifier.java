@@ -64,7 +64,7 @@ public class Notifier implements EventDeleter {
   /** Stores the Notifier for each thread. */
   private static final Map<Thread, Notifier> notifierTable = new HashMap<>();
 
-  private final List<TimerHandler> timerList = new ArrayList<>();
+  private final TimerQueue timerQueue = new TimerQueue();
 
   private int timerGeneration;
 
@@ -439,8 +439,8 @@ public class Notifier implements EventDeleter {
       // event queue. We can't process expired times right away,
       // because there may already be other events on the queue.
 
-      if (!isTimerPending() && timerList.size() > 0) {
-        TimerHandler h = timerList.get(0);
+      if (!isTimerPending() && !timerQueue.isEmpty()) {
+        TimerHandler h = timerQueue.peek();
 
         if (h.atTime <= sysTime) {
           TimerEvent event = new TimerEvent();
@@ -495,8 +495,8 @@ public class Notifier implements EventDeleter {
         waitLock.lock();
         try {
           long waitTime;
-          if (timerList.size() > 0) {
-            TimerHandler h = timerList.get(0);
+          if (!timerQueue.isEmpty()) {
+            TimerHandler h = timerQueue.peek();
             waitTime = h.atTime - sysTime;
             if (waitTime > 0) {
               waitTime = waitTime < PAUSE_WAIT ? waitTime : PAUSE_WAIT;
@@ -645,9 +645,9 @@ public class Notifier implements EventDeleter {
     this.primaryThread = primaryThread;
   }
 
-  /** List of registered timer handlers. */
-  public List<TimerHandler> getTimerList() {
-    return timerList;
+  /** Queue of registered timer handlers, ordered by firing time. */
+  public TimerQueue getTimerQueue() {
+    return timerQueue;
   }
 
   /** Used to distinguish older timer handlers from recently-created ones. */
@@ -743,15 +743,15 @@ public class Notifier implements EventDeleter {
 
       timerPending = false;
 
-      while (timerList.size() > 0) {
-        TimerHandler h = timerList.get(0);
+      while (!timerQueue.isEmpty()) {
+        TimerHandler h = timerQueue.peek();
         if (h.generation > gen) {
           break;
         }
         if (h.atTime > sysTime) {
           break;
         }
-        timerList.remove(0);
+        timerQueue.poll();
         h.invoke();
       }
 
@@ -0,0 +1,30 @@
+/*
+ * ProcCompiler.java --
+ *
+ *	Interface of a compiler of the hot procs of an interpreter.
+ *
+ * See the file "license.terms" for information on usage and redistribution
+ * of this file, and for a DISCLAIMER OF ALL WARRANTIES.
+ */
+
+package tcl.lang;
+
+/**
+ * Compiles the procs of an interpreter that are called often. When a compiler is set with
+ * Interp.setProcCompiler(), each proc counts its calls, and the call that reaches the threshold
+ * hands the proc to the compiler. The compiler is expected to work in the background and, once it
+ * has a faster implementation, to install it in the thread of the interpreter with
+ * Procedure.setCompiledCommand(). A proc is handed to the compiler only once, and stays interpreted
+ * if it can't be compiled.
+ */
+public interface ProcCompiler {
+
+  /**
+   * Starts compiling a hot proc. Invoked in the thread of the interpreter, right before the proc is
+   * called, so it must not block or change the result of the interpreter.
+   *
+   * @param interp the interpreter of the proc.
+   * @param proc the proc to compile, which is not a lambda.
+   */
+  void compile(Interp interp, Procedure proc);
+}
@@ -16,12 +16,14 @@
 
 package tcl.lang;
 
+import java.util.LinkedHashSet;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclRuntimeError;
 import tcl.lang.model.CharPointer;
 import tcl.lang.model.Namespace;
 import tcl.lang.model.TclList;
 import tcl.lang.model.TclObject;
+import tcl.lang.parse.ParsedScript;
 import tcl.lang.parse.Parser;
 
 /** This class implements the body of a Tcl procedure. */
@@ -43,6 +45,45 @@ public final class Procedure implements Command, CommandWithDispose {
   public CharPointer body;
   int body_length;
 
+  // The body of the procedure broken up into commands and words. This is
+  // filled in the first time the procedure is invoked, and stays valid for
+  // as long as this Procedure exists: redefining the proc creates a new
+  // Procedure. Null if the body has not been parsed yet, or if it contains
+  // a syntax error, in which case it is evaluated with Parser.eval2.
+
+  private ParsedScript parsedBody;
+  private boolean parsedBodyFailed;
+
+  // Names of the variables that get a slot in the compiled local array
+  // of each call frame for this procedure: the formal parameters,
+  // followed by the variables the body refers to by a simple literal
+  // name. Computed the first time the procedure is invoked. Any other
+  // local variables are kept in the frame's var table.
+
+  private String[] localNames;
+
+  // True if the formal parameters are the first entries of localNames,
+  // in order, so that a call frame can bind each argument to its slot
+  // without looking up the name.
+
+  private boolean argsInLocals;
+
+  // Upper bound on the number of compiled local slots. Names are
+  // looked up in the slots by a linear search.
+
+  private static final int MAX_LOCAL_NAMES = 64;
+
+  // Number of calls counted toward the hot proc threshold of the
+  // interpreter, or -1 once the procedure has been handed to the proc
+  // compiler.
+
+  private int callCount;
+
+  // The compiled implementation of this procedure, installed by the proc
+  // compiler of the interpreter, or null while it is interpreted.
+
+  private Command compiledCmd;
+
   // The wrapped command that corresponds to this
   // procedure. This is used to find the namespace
   // a proc is currently defined in.
@@ -156,6 +197,25 @@ public final class Procedure implements Command, CommandWithDispose {
       TclObject argv[]) // Argument list.
       throws TclException // Standard Tcl exception.
       {
+    if (compiledCmd != null) {
+      compiledCmd.cmdProc(interp, argv);
+      return;
+    }
+    if (callCount >= 0 && interp.procCompiler != null && ++callCount >= interp.hotProcThreshold) {
+      callCount = -1;
+      if (!isLambda()) {
+        interp.procCompiler.compile(interp, this);
+      }
+    }
+
+    if (localNames == null) {
+      localNames = findLocalNames();
+      argsInLocals = localNames.length >= argList.length;
+      for (int i = 0; argsInLocals && i < argList.length; i++) {
+        argsInLocals = localNames[i].equals(argList[i][0].toString());
+      }
+    }
+
     // Create the call frame and parameter bindings
 
     CallFrame frame = interp.newCallFrame(this, argv);
@@ -164,7 +224,16 @@ public final class Procedure implements Command, CommandWithDispose {
 
     interp.pushDebugStack(srcFileName, srcLineNumber);
     try {
-      Parser.eval2(interp, body.getArray(), body.getIndex(), body_length, 0);
+      if (parsedBody == null && !parsedBodyFailed) {
+        parsedBody =
+            ParsedScript.parse(interp, body.getArray(), body.getIndex(), body_length, false);
+        parsedBodyFailed = (parsedBody == null);
+      }
+      if (parsedBody != null) {
+        parsedBody.eval(interp, 0);
+      } else {
+        Parser.eval2(interp, body.getArray(), body.getIndex(), body_length, 0);
+      }
     } catch (TclException e) {
       int code = e.getCompletionCode();
       if (code == TCL.RETURN) {
@@ -207,10 +276,10 @@ public final class Procedure implements Command, CommandWithDispose {
       // interpreter state.
 
       if (interp.isErrInProgress()) {
-        frame.dispose();
+        interp.releaseCallFrame(frame);
         interp.setErrInProgress(true);
       } else {
-        frame.dispose();
+        interp.releaseCallFrame(frame);
       }
     }
   }
@@ -234,6 +303,8 @@ public final class Procedure implements Command, CommandWithDispose {
   public void disposeCmd() {
     // body.release();
     body = null;
+    parsedBody = null;
+    compiledCmd = null;
     for (int i = 0; i < argList.length; i++) {
       argList[i][0].release();
       argList[i][0] = null;
@@ -253,6 +324,144 @@ public final class Procedure implements Command, CommandWithDispose {
     return wcmd.getHashKey() == null;
   }
 
+  /**
+   * @return true if the procedure has been deleted, or redefined, which creates a new Procedure
+   */
+  public boolean isDeleted() {
+    return argList == null;
+  }
+
+  /**
+   * @return the compiled implementation of the procedure, or null if it is interpreted
+   */
+  public Command getCompiledCommand() {
+    return compiledCmd;
+  }
+
+  /**
+   * Replaces the interpreted body of the procedure with a compiled implementation, which is called
+   * with the same arguments from then on. The procedure keeps its name, arguments, body and traces,
+   * so that info, rename and trace see no difference. Must be invoked in the thread of the
+   * interpreter.
+   *
+   * @param cmd the compiled implementation, or null to interpret the body again.
+   */
+  public void setCompiledCommand(Command cmd) {
+    if (!isDeleted()) {
+      compiledCmd = cmd;
+    }
+  }
+
+  /**
+   * @return the names of the variables that live in the compiled local array of a call frame for
+   *     this procedure, or null if they haven't been determined yet
+   */
+  String[] getLocalNames() {
+    return localNames;
+  }
+
+  /**
+   * @return true if the formal parameters take the first slots of the compiled local array, in
+   *     order
+   */
+  boolean argsInLocals() {
+    return argsInLocals;
+  }
+
+  /**
+   * Determine the compiled local variables of the procedure. The body is scanned for "$name"
+   * substitutions and for the variable names of set, incr, append and lappend commands. The scan is
+   * only lexical, so it may find names that are not really used as variables; that only costs an
+   * unused slot, since any variable can live in either the compiled local array or the var table.
+   * Names that are qualified or look like array elements are never given a slot.
+   */
+  private String[] findLocalNames() {
+    LinkedHashSet<String> names = new LinkedHashSet<>();
+    for (int i = 0; i < argList.length; i++) {
+      addLocalName(names, argList[i][0].toString());
+    }
+
+    final char[] script = body.getArray();
+    final int end = body.getIndex() + body_length;
+    boolean wordStart = true;
+    int i = body.getIndex();
+
+    while (i < end && names.size() < MAX_LOCAL_NAMES) {
+      char c = script[i];
+      if (c == '$') {
+        i++;
+        if (i < end && script[i] == '{') {
+          int close = i + 1;
+          while (close < end && script[close] != '}') {
+            close++;
+          }
+          if (close < end) {
+            addLocalName(names, new String(script, i + 1, close - i - 1));
+          }
+          i = close;
+        } else {
+          int nameEnd = scanVarName(script, i, end);
+          addLocalName(names, new String(script, i, nameEnd - i));
+          i = nameEnd;
+        }
+        wordStart = false;
+      } else if (wordStart && Character.isLetter(c)) {
+        int wordEnd = i;
+        while (wordEnd < end && Character.isLetter(script[wordEnd])) {
+          wordEnd++;
+        }
+        String word = new String(script, i, wordEnd - i);
+        i = wordEnd;
+        if ((word.equals("set")
+                || word.equals("incr")
+                || word.equals("append")
+                || word.equals("lappend"))
+            && i < end
+            && (script[i] == ' ' || script[i] == '\t')) {
+          while (i < end && (script[i] == ' ' || script[i] == '\t')) {
+            i++;
+          }
+          int nameEnd = scanVarName(script, i, end);
+          addLocalName(names, new String(script, i, nameEnd - i));
+          i = nameEnd;
+        }
+        wordStart = false;
+      } else {
+        wordStart = (Character.isWhitespace(c) || c == '[' || c == '{' || c == ';');
+        i++;
+      }
+    }
+
+    return names.toArray(new String[names.size()]);
+  }
+
+  // Return the index of the first character following the variable
+  // name that starts at index i. A qualified name is scanned as a whole,
+  // so that addLocalName() will reject it.
+
+  private static int scanVarName(char[] script, int i, int end) {
+    while (i < end) {
+      char c = script[i];
+      if (Character.isLetterOrDigit(c) || c == '_') {
+        i++;
+      } else if (c == ':' && i + 1 < end && script[i + 1] == ':') {
+        i += 2;
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  private static void addLocalName(LinkedHashSet<String> names, String name) {
+    if (name.length() > 0
+        && name.indexOf("::") == -1
+        && name.indexOf('(') == -1
+        && names.size() < MAX_LOCAL_NAMES) {
+      names.add(name);
+    }
+  }
+
   /*
    * ----------------------------------------------------------------------
    *
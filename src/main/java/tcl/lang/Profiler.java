@@ -0,0 +1,333 @@
+/*
+ * Profiler.java --
+ *
+ *	Counts the calls of each command of an interpreter and measures
+ *	their latency and allocation.
+ *
+ * See the file "license.terms" for information on usage and redistribution
+ * of this file, and for a DISCLAIMER OF ALL WARRANTIES.
+ */
+
+package tcl.lang;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.ArrayType;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclInteger;
+import tcl.lang.model.TclList;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * The command profiler of an interpreter. While it is running, every command the interpreter
+ * invokes, built-in or proc, is timed, and the profiler keeps for each command the number of calls,
+ * the inclusive time (including the commands it called), the exclusive time (its own), an estimate
+ * of the bytes it allocated, and a histogram of the inclusive time of each call in power of two
+ * buckets of microseconds.
+ *
+ * <p>The profiler adds two clock reads, and two reads of the thread allocation counter when the JVM
+ * supports it, to each command, and costs nothing when it is not running. It is used from Tcl with
+ * "info profile", and from Java with Interp.getProfiler() or through JMX (see ProfilerMBean).
+ *
+ * <p>The data is written by the thread of the interpreter only. A report made in another thread
+ * while commands are running may be slightly out of date.
+ */
+public final class Profiler implements ProfilerMBean {
+
+  /** Number of histogram buckets; the last one also counts all longer calls. */
+  private static final int BUCKETS = 32;
+
+  private static final String[] ITEM_NAMES = {
+    "name", "calls", "inclusive", "exclusive", "allocated", "histogram"
+  };
+
+  private final Interp interp;
+
+  // Counts the bytes allocated by the current thread, or null if the JVM
+  // can't do that.
+  private final com.sun.management.ThreadMXBean allocCounter;
+
+  // Keyed by name, so that a command that is deleted and created again,
+  // as a proc is when it is redefined, keeps one profile.
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  // The commands being profiled, innermost last: their profiles, when
+  // each one started, how much of its time was spent in the commands it
+  // called, and the allocation counter when it started.
+
+  private Entry[] calls = new Entry[64];
+
+  private long[] startTimes = new long[64];
+
+  private long[] childTimes = new long[64];
+
+  private long[] startBytes = new long[64];
+
+  private int depth = 0;
+
+  private ObjectName mbeanName;
+
+  /** The profile of one command. */
+  static final class Entry {
+    final Profiler profiler;
+    final String name;
+    long calls;
+    long inclusive;
+    long exclusive;
+    long allocated;
+    final long[] histogram = new long[BUCKETS];
+
+    Entry(Profiler profiler, String name) {
+      this.profiler = profiler;
+      this.name = name;
+    }
+
+    void reset() {
+      calls = 0;
+      inclusive = 0;
+      exclusive = 0;
+      allocated = 0;
+      Arrays.fill(histogram, 0);
+    }
+  }
+
+  Profiler(Interp interp) {
+    this.interp = interp;
+
+    com.sun.management.ThreadMXBean counter = null;
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      counter = (com.sun.management.ThreadMXBean) threads;
+      if (!counter.isThreadAllocatedMemorySupported()
+          || !counter.isThreadAllocatedMemoryEnabled()) {
+        counter = null;
+      }
+    }
+    allocCounter = counter;
+  }
+
+  /** Starts profiling the commands of the interpreter. */
+  public void start() {
+    if (mbeanName == null) {
+      register();
+    }
+    interp.activeProfiler = this;
+  }
+
+  /** Stops profiling, keeping the data collected so far. */
+  public void stop() {
+    if (interp.activeProfiler == this) {
+      interp.activeProfiler = null;
+    }
+  }
+
+  public boolean isRunning() {
+    return interp.activeProfiler == this;
+  }
+
+  /** Discards the data collected so far. */
+  public void reset() {
+    for (Entry entry : entries.values()) {
+      entry.reset();
+    }
+  }
+
+  /**
+   * Invoked before a command is called.
+   *
+   * @param cmd the command that is about to be called.
+   */
+  void enter(WrappedCommand cmd) {
+    // The profile is found before the call, since the command may be
+    // deleted by the time it returns.
+    Entry entry = cmd.profileEntry;
+    if (entry == null || entry.profiler != this) {
+      entry = entries.computeIfAbsent(interp.getCommandFullName(cmd), n -> new Entry(this, n));
+      cmd.profileEntry = entry;
+    }
+
+    if (depth == startTimes.length) {
+      calls = Arrays.copyOf(calls, depth * 2);
+      startTimes = Arrays.copyOf(startTimes, depth * 2);
+      childTimes = Arrays.copyOf(childTimes, depth * 2);
+      startBytes = Arrays.copyOf(startBytes, depth * 2);
+    }
+    if (allocCounter != null) {
+      startBytes[depth] = allocCounter.getCurrentThreadAllocatedBytes();
+    }
+    calls[depth] = entry;
+    childTimes[depth] = 0;
+    startTimes[depth] = System.nanoTime();
+    depth++;
+  }
+
+  /** Invoked after a command returns or throws, for each call of enter(). */
+  void leave() {
+    final long elapsed = System.nanoTime() - startTimes[--depth];
+    if (depth > 0) {
+      childTimes[depth - 1] += elapsed;
+    }
+
+    final Entry entry = calls[depth];
+    calls[depth] = null;
+    entry.calls++;
+    entry.inclusive += elapsed;
+    entry.exclusive += elapsed - childTimes[depth];
+    if (allocCounter != null) {
+      entry.allocated += allocCounter.getCurrentThreadAllocatedBytes() - startBytes[depth];
+    }
+    int bucket = 64 - Long.numberOfLeadingZeros(elapsed / 1000);
+    entry.histogram[Math.min(bucket, BUCKETS - 1)]++;
+  }
+
+  /**
+   * @return the profiles of the commands called so far, with the most exclusive time first.
+   */
+  private ArrayList<Entry> sortedEntries() {
+    ArrayList<Entry> list = new ArrayList<>();
+    for (Entry entry : entries.values()) {
+      if (entry.calls > 0) {
+        list.add(entry);
+      }
+    }
+    list.sort((a, b) -> Long.compare(b.exclusive, a.exclusive));
+    return list;
+  }
+
+  /**
+   * Reports the profiles of the commands whose fully qualified names match a pattern, as a dict
+   * that maps each name to a dict of its calls, inclusive and exclusive time in microseconds,
+   * allocated bytes (when the JVM can count them) and histogram. The histogram maps the upper bound
+   * of each bucket in microseconds to the number of calls in it; empty buckets are left out. The
+   * commands with the most exclusive time come first.
+   *
+   * @param pattern a glob pattern, or null to report all commands.
+   * @return the report.
+   * @throws TclException never.
+   */
+  public TclObject report(String pattern) throws TclException {
+    TclObject result = TclList.newInstance();
+    for (Entry entry : sortedEntries()) {
+      if (pattern != null && !Util.stringMatch(entry.name, pattern)) {
+        continue;
+      }
+      TclObject stats = TclList.newInstance();
+      TclList.append(interp, stats, TclString.newInstance("calls"));
+      TclList.append(interp, stats, TclInteger.newInstance(entry.calls));
+      TclList.append(interp, stats, TclString.newInstance("inclusive"));
+      TclList.append(interp, stats, TclInteger.newInstance(entry.inclusive / 1000));
+      TclList.append(interp, stats, TclString.newInstance("exclusive"));
+      TclList.append(interp, stats, TclInteger.newInstance(entry.exclusive / 1000));
+      if (allocCounter != null) {
+        TclList.append(interp, stats, TclString.newInstance("allocated"));
+        TclList.append(interp, stats, TclInteger.newInstance(entry.allocated));
+      }
+      TclObject histogram = TclList.newInstance();
+      for (int i = 0; i < BUCKETS; i++) {
+        if (entry.histogram[i] != 0) {
+          TclList.append(interp, histogram, TclInteger.newInstance(1L << i));
+          TclList.append(interp, histogram, TclInteger.newInstance(entry.histogram[i]));
+        }
+      }
+      TclList.append(interp, stats, TclString.newInstance("histogram"));
+      TclList.append(interp, stats, histogram);
+
+      TclList.append(interp, result, TclString.newInstance(entry.name));
+      TclList.append(interp, result, stats);
+    }
+    return result;
+  }
+
+  public TabularData getCommands() {
+    try {
+      CompositeType rowType =
+          new CompositeType(
+              "CommandProfile",
+              "Profile of a Tcl command",
+              ITEM_NAMES,
+              new String[] {
+                "Fully qualified command name",
+                "Number of calls",
+                "Inclusive time in microseconds",
+                "Exclusive time in microseconds",
+                "Bytes allocated, or -1 if unknown",
+                "Calls by inclusive time, bucket i counting calls under 2^i microseconds"
+              },
+              new OpenType<?>[] {
+                SimpleType.STRING,
+                SimpleType.LONG,
+                SimpleType.LONG,
+                SimpleType.LONG,
+                SimpleType.LONG,
+                ArrayType.getPrimitiveArrayType(long[].class)
+              });
+      TabularData table =
+          new TabularDataSupport(
+              new TabularType(
+                  "CommandProfiles", "Profiles of Tcl commands", rowType, new String[] {"name"}));
+      for (Entry entry : sortedEntries()) {
+        table.put(
+            new CompositeDataSupport(
+                rowType,
+                ITEM_NAMES,
+                new Object[] {
+                  entry.name,
+                  entry.calls,
+                  entry.inclusive / 1000,
+                  entry.exclusive / 1000,
+                  allocCounter != null ? entry.allocated : -1L,
+                  entry.histogram.clone()
+                }));
+      }
+      return table;
+    } catch (OpenDataException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // Registers the profiler with the platform MBean server. Profiling
+  // works without it, so a failure is ignored.
+
+  private void register() {
+    try {
+      ObjectName name =
+          new ObjectName(
+              "tcl.lang:type=Profiler,interp="
+                  + Integer.toHexString(System.identityHashCode(interp)));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+      mbeanName = name;
+    } catch (JMException | SecurityException e) {
+      mbeanName = null;
+    }
+  }
+
+  /** Invoked when the interpreter is disposed of. */
+  void dispose() {
+    stop();
+    if (mbeanName != null) {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      try {
+        server.unregisterMBean(mbeanName);
+      } catch (JMException e) {
+        // Already unregistered
+      }
+      mbeanName = null;
+    }
+  }
+}
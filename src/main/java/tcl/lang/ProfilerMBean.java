@@ -0,0 +1,40 @@
+/*
+ * ProfilerMBean.java --
+ *
+ *	Management interface of the command profiler of an interpreter.
+ *
+ * See the file "license.terms" for information on usage and redistribution
+ * of this file, and for a DISCLAIMER OF ALL WARRANTIES.
+ */
+
+package tcl.lang;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * The JMX view of a Profiler. The profiler of an interpreter is registered with the platform MBean
+ * server, under the name {@code tcl.lang:type=Profiler,interp=<id>}, the first time it is started,
+ * and unregistered when the interpreter is disposed of.
+ */
+public interface ProfilerMBean {
+
+  /**
+   * @return true if commands are being profiled
+   */
+  boolean isRunning();
+
+  /** Starts profiling the commands of the interpreter. */
+  void start();
+
+  /** Stops profiling, keeping the data collected so far. */
+  void stop();
+
+  /** Discards the data collected so far. */
+  void reset();
+
+  /**
+   * @return one row for each command that has been called while profiling, with its name, number of
+   *     calls, inclusive and exclusive time in microseconds, bytes allocated and latency histogram
+   */
+  TabularData getCommands();
+}
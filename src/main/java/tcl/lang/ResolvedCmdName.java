@@ -0,0 +1,129 @@
+/*
+ * ResolvedCmdName.java
+ *
+ *	This file implements the "cmdName" internal rep, used to cache
+ *	the command a command name resolves to on the TclObject holding
+ *	the name.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang;
+
+import tcl.lang.exception.TclException;
+import tcl.lang.exception.TclRuntimeError;
+import tcl.lang.model.Namespace;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * This class caches the result of looking up a command name with Namespace.findCommand(). The
+ * cached command is used as long as the name is looked up in the same interpreter and namespace,
+ * the command hasn't been deleted, and the interpreter's command name epoch hasn't changed. The
+ * epoch is incremented whenever a command is created, deleted, renamed, hidden or exposed, or a
+ * command resolver is changed, since any of these can change what a name resolves to.
+ *
+ * <p>Only objects with a string internal rep are converted, so that a command name that is also a
+ * list or a number doesn't lose its internal rep.
+ */
+public final class ResolvedCmdName implements InternalRep {
+
+  /** The command name. */
+  private final String name;
+
+  /** The interpreter the name was resolved in. */
+  private final Interp interp;
+
+  /** The namespace the name was resolved in. */
+  private final Namespace refNs;
+
+  /** True if the name was resolved in the global namespace only. */
+  private final boolean globalOnly;
+
+  /** Value of interp.getCmdNameEpoch() when the name was resolved. */
+  private final int epoch;
+
+  /** The command the name resolved to. */
+  private final WrappedCommand cmd;
+
+  private ResolvedCmdName(
+      String name,
+      Interp interp,
+      Namespace refNs,
+      boolean globalOnly,
+      int epoch,
+      WrappedCommand cmd) {
+    this.name = name;
+    this.interp = interp;
+    this.refNs = refNs;
+    this.globalOnly = globalOnly;
+    this.epoch = epoch;
+    this.cmd = cmd;
+  }
+
+  /** Returns the command name. */
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * Find the command named by a TclObject, like Namespace.findCommand(interp, name, null, 0). The
+   * result is cached in the object's internal rep.
+   *
+   * @param interp current interpreter
+   * @param tobj the command name
+   * @return the command, or null if there is no such command
+   */
+  public static WrappedCommand getCommand(Interp interp, TclObject tobj) {
+    return getCommand(interp, tobj, false);
+  }
+
+  /**
+   * Find the command named by a TclObject, caching the result in the object's internal rep.
+   *
+   * @param interp current interpreter
+   * @param tobj the command name
+   * @param globalOnly if true, the name is looked up as if with TCL.GLOBAL_ONLY
+   * @return the command, or null if there is no such command
+   */
+  public static WrappedCommand getCommand(Interp interp, TclObject tobj, boolean globalOnly) {
+    InternalRep rep = tobj.getInternalRep();
+    Namespace ns = globalOnly ? interp.getGlobalNs() : Namespace.getCurrentNamespace(interp);
+
+    if (rep instanceof ResolvedCmdName) {
+      ResolvedCmdName resolved = (ResolvedCmdName) rep;
+      if (resolved.interp == interp
+          && resolved.refNs == ns
+          && resolved.globalOnly == globalOnly
+          && resolved.epoch == interp.getCmdNameEpoch()
+          && !resolved.cmd.isDeleted()) {
+        return resolved.cmd;
+      }
+    } else if (!(rep instanceof TclString)) {
+      return findCommand(interp, tobj.toString(), globalOnly);
+    }
+
+    String name = tobj.toString();
+    int epoch = interp.getCmdNameEpoch();
+    WrappedCommand cmd = findCommand(interp, name, globalOnly);
+    if (cmd != null) {
+      tobj.setInternalRep(new ResolvedCmdName(name, interp, ns, globalOnly, epoch, cmd));
+    }
+    return cmd;
+  }
+
+  private static WrappedCommand findCommand(Interp interp, String name, boolean globalOnly) {
+    if (!globalOnly) {
+      return interp.getWrappedCommand(name);
+    }
+    try {
+      return Namespace.findCommand(interp, name, null, TCL.GLOBAL_ONLY);
+    } catch (TclException e) {
+      // This should never happen
+      throw new TclRuntimeError("unexpected TclException: " + e);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * ScriptCode.java
+ *
+ *	This file implements the internal rep used to cache a parsed
+ *	Tcl script on the TclObject holding it.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang;
+
+import tcl.lang.model.CharPointer;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+import tcl.lang.parse.ParsedScript;
+
+/**
+ * This class caches the ParsedScript for a script held in a TclObject, so that a script that is
+ * evaluated over and over, such as the body of a loop passed to eval, an "after" or "fileevent"
+ * callback or the script of a "namespace eval", is only tokenized once.
+ *
+ * <p>As with ExprCode, a script is only parsed the second time the same TclObject is evaluated,
+ * since building a ParsedScript costs more than a single pass of Parser.eval2(). Only objects with
+ * a string internal rep are converted, so that pure lists keep their internal rep and the list fast
+ * path in Interp.eval(). A script with a syntax error is marked as not parsed and is always
+ * evaluated from its string, so that the error is reported exactly as before.
+ */
+public final class ScriptCode implements InternalRep {
+
+  /** The script, as passed to Parser.eval2(). */
+  final CharPointer script;
+
+  /** The parsed script. Null if the script hasn't been parsed. */
+  final ParsedScript parsed;
+
+  /** True if parsing the script was attempted and failed. */
+  private final boolean failed;
+
+  private ScriptCode(CharPointer script, ParsedScript parsed, boolean failed) {
+    this.script = script;
+    this.parsed = parsed;
+    this.failed = failed;
+  }
+
+  /** Returns the script string. */
+  @Override
+  public String toString() {
+    return script.toString();
+  }
+
+  /**
+   * Return the parsed script for a TclObject, parsing it and caching it in the object's internal
+   * rep if needed. The first call for an object only records that it has been seen.
+   *
+   * @param interp current interpreter; its result is not changed
+   * @param tobj the script
+   * @return the script with its ParsedScript, or null if the object must be evaluated from its
+   *     string rep
+   */
+  static ScriptCode get(Interp interp, TclObject tobj) {
+    InternalRep rep = tobj.getInternalRep();
+    ScriptCode code;
+
+    if (rep instanceof ScriptCode) {
+      code = (ScriptCode) rep;
+      if (code.parsed == null && !code.failed) {
+        CharPointer script = code.script;
+        ParsedScript parsed =
+            ParsedScript.parse(
+                interp, script.getArray(), script.getIndex(), script.length(), false);
+        code = new ScriptCode(script, parsed, parsed == null);
+        tobj.setInternalRep(code);
+      }
+    } else if (rep instanceof TclString) {
+      tobj.setInternalRep(new ScriptCode(new CharPointer(tobj.toString()), null, false));
+      return null;
+    } else {
+      return null;
+    }
+    return (code.parsed == null) ? null : code;
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * StringMap.java
+ *
+ *	This file implements the internal rep used to cache the
+ *	compiled char map of the "string map" command.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang;
+
+import java.util.Arrays;
+import tcl.lang.exception.TclException;
+import tcl.lang.exception.TclRuntimeError;
+import tcl.lang.model.TclList;
+import tcl.lang.model.TclObject;
+
+/**
+ * This class caches a "string map" char map as a trie of its keys, so that mapping a string costs
+ * one walk of the trie per character of the string, however many keys the map has. A map is
+ * compiled the first time it is used; a -nocase trie is only built if the map is used with -nocase.
+ *
+ * <p>"string map" replaces the first key in list order that matches at a position, which is not
+ * necessarily the longest one. Each trie node records the lowest index of the keys ending at it and
+ * of the keys below it, so the walk finds the first listed key and stops as soon as no deeper key
+ * can be listed before the best match found so far.
+ *
+ * <p>Converting a list to a StringMap loses its list rep, so a char map that is also used as a list
+ * will be reparsed by each command. Char maps are usually constant tables, so this is rarely an
+ * issue.
+ */
+public final class StringMap implements InternalRep {
+
+  /** The keys and values of the map, in list order. */
+  private final String[] strings;
+
+  /** Trie of the keys. Null until the map is used without -nocase. */
+  private Node exact;
+
+  /** Trie of the lower case keys. Null until the map is used with -nocase. */
+  private Node folded;
+
+  private StringMap(String[] strings) {
+    this.strings = strings;
+  }
+
+  /** Returns the char map as a list string. */
+  @Override
+  public String toString() {
+    StringBuffer sbuf = new StringBuffer(64);
+    try {
+      for (String s : strings) {
+        Util.appendElement(null, sbuf, s);
+      }
+    } catch (TclException e) {
+      throw new TclRuntimeError("unexpected TclException: " + e);
+    }
+    return sbuf.toString();
+  }
+
+  /**
+   * Return the compiled char map for a TclObject, converting it to a StringMap if needed.
+   *
+   * @param interp current interpreter
+   * @param tobj the char map, a list of key/value pairs
+   * @return the compiled char map
+   * @throws TclException if the char map isn't a valid list, or has an odd number of elements
+   */
+  public static StringMap get(Interp interp, TclObject tobj) throws TclException {
+    InternalRep rep = tobj.getInternalRep();
+    if (rep instanceof StringMap) {
+      return (StringMap) rep;
+    }
+
+    TclObject[] elems = TclList.getElements(interp, tobj);
+    if ((elems.length % 2) != 0) {
+      // The charMap must be an even number of key/value items
+
+      throw new TclException(interp, "char map list unbalanced");
+    }
+    String[] strings = new String[elems.length];
+    for (int i = 0; i < elems.length; i++) {
+      strings[i] = elems[i].toString();
+    }
+
+    // Make sure the string rep exists before the list rep is replaced
+
+    tobj.toString();
+    StringMap map = new StringMap(strings);
+    tobj.setInternalRep(map);
+    return map;
+  }
+
+  /**
+   * @return true if the char map has no keys
+   */
+  public boolean isEmpty() {
+    return strings.length == 0;
+  }
+
+  /**
+   * Replace each key of the map found in a string with its value. The string is scanned from the
+   * start; at each position the first key in list order that matches is replaced, and scanning
+   * continues after it.
+   *
+   * @param string the string to map
+   * @param nocase true to compare the keys and the string without regard to case
+   * @return the mapped string, or null if no key matched
+   */
+  public String map(String string, boolean nocase) {
+    Node root = nocase ? foldedTrie() : exactTrie();
+    int length = string.length();
+    StringBuilder sb = null;
+    int p = 0;
+
+    for (int i = 0; i < length; ) {
+      // Walk the trie from this position to find the first listed key
+
+      int best = -1;
+      int bestLen = 0;
+      Node node = root;
+      for (int j = i; j < length; j++) {
+        char c = string.charAt(j);
+        node = node.child(nocase ? Character.toLowerCase(c) : c);
+        if (node == null) {
+          break;
+        }
+        if (node.key >= 0 && (best < 0 || node.key < best)) {
+          best = node.key;
+          bestLen = j - i + 1;
+        }
+        if (best >= 0 && best < node.minBelow) {
+          break;
+        }
+      }
+
+      if (best < 0) {
+        i++;
+        continue;
+      }
+      if (sb == null) {
+        sb = new StringBuilder(length + 16);
+      }
+      sb.append(string, p, i).append(strings[best + 1]);
+      i += bestLen;
+      p = i;
+    }
+
+    if (sb == null) {
+      return null;
+    }
+    sb.append(string, p, length);
+    return sb.toString();
+  }
+
+  private Node exactTrie() {
+    if (exact == null) {
+      exact = build(false);
+    }
+    return exact;
+  }
+
+  private Node foldedTrie() {
+    if (folded == null) {
+      folded = build(true);
+    }
+    return folded;
+  }
+
+  // Build the trie of the keys. Empty keys never match, so they are
+  // left out.
+
+  private Node build(boolean nocase) {
+    Node root = new Node();
+    for (int k = 0; k < strings.length; k += 2) {
+      String key = strings[k];
+      if (key.length() == 0) {
+        continue;
+      }
+      Node node = root;
+      for (int j = 0; j < key.length(); j++) {
+        char c = key.charAt(j);
+        if (node.minBelow > k) {
+          node.minBelow = k;
+        }
+        node = node.add(nocase ? Character.toLowerCase(c) : c);
+      }
+      if (node.key < 0) {
+        node.key = k;
+      }
+    }
+    return root;
+  }
+
+  /** A trie node. The children are kept sorted by character for a binary search. */
+  private static final class Node {
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    /** Index in strings of the first listed key ending at this node, or -1. */
+    int key = -1;
+
+    /** Lowest index in strings of the keys ending below this node. */
+    int minBelow = Integer.MAX_VALUE;
+
+    private char[] chars = NO_CHARS;
+    private Node[] children = NO_NODES;
+
+    Node child(char c) {
+      int i = Arrays.binarySearch(chars, c);
+      return (i < 0) ? null : children[i];
+    }
+
+    Node add(char c) {
+      int i = Arrays.binarySearch(chars, c);
+      if (i >= 0) {
+        return children[i];
+      }
+      i = -i - 1;
+      int n = chars.length;
+      char[] newChars = new char[n + 1];
+      Node[] newChildren = new Node[n + 1];
+      System.arraycopy(chars, 0, newChars, 0, i);
+      System.arraycopy(children, 0, newChildren, 0, i);
+      System.arraycopy(chars, i, newChars, i + 1, n - i);
+      System.arraycopy(children, i, newChildren, i + 1, n - i);
+      Node node = new Node();
+      newChars[i] = c;
+      newChildren[i] = node;
+      chars = newChars;
+      children = newChildren;
+      return node;
+    }
+  }
+}
@@ -14,6 +14,8 @@
 
 package tcl.lang;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclRuntimeError;
 import tcl.lang.model.TclDouble;
@@ -21,47 +23,32 @@ import tcl.lang.model.TclInteger;
 import tcl.lang.model.TclList;
 import tcl.lang.model.TclObject;
 
-/*
- * This file is adapted from the JDK 1.0 QSortAlgorithm.java demo program.
- * Original copyright notice is preserveed below.
- *
- * @(#)QSortAlgorithm.java	1.3   29 Feb 1996 James Gosling
- *
- * Copyright (c) 1994-1996 Sun Microsystems, Inc. All Rights Reserved.
+/**
+ * Sorts an array of TclObjects.
  *
- * Permission to use, copy, modify, and distribute this software
- * and its documentation for NON-COMMERCIAL or COMMERCIAL purposes and
- * without fee is hereby granted.
- * Please refer to the file http://www.javasoft.com/copy_trademarks.html
- * for further important copyright and trademark information and to
- * http://www.javasoft.com/licensing.html for further important
- * licensing information for the Java (tm) Technology.
- *
- * SUN MAKES NO REPRESENTATIONS OR WARRANTIES. ABOUT THE SUITABILITY OF
- * THE SOFTWARE, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
- * TO THE IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
- * PARTICULAR PURPOSE, OR NON-INFRINGEMENT. SUN SHALL NOT BE LIABLE FOR
- * ANY DAMAGES SUFFERED BY LICENSEE AS A RESULT OF USING, MODIFYING OR
- * DISTRIBUTING THIS SOFTWARE OR ITS DERIVATIVES.
- *
- * THIS SOFTWARE IS NOT DESIGNED OR INTENDED FOR USE OR RESALE AS ON-LINE
- * CONTROL EQUIPMENT IN HAZARDOUS ENVIRONMENTS REQUIRING FAIL-SAFE
- * PERFORMANCE, SUCH AS IN THE OPERATION OF NUCLEAR FACILITIES, AIRCRAFT
- * NAVIGATION OR COMMUNICATION SYSTEMS, AIR TRAFFIC CONTROL, DIRECT LIFE
- * SUPPORT MACHINES, OR WEAPONS SYSTEMS, IN WHICH THE FAILURE OF THE
- * SOFTWARE COULD LEAD DIRECTLY TO DEATH, PERSONAL INJURY, OR SEVERE
- * PHYSICAL OR ENVIRONMENTAL DAMAGE ("HIGH RISK ACTIVITIES").  SUN
- * SPECIFICALLY DISCLAIMS ANY EXPRESS OR IMPLIED WARRANTY OF FITNESS FOR
- * HIGH RISK ACTIVITIES.
+ * <p>The sort key of each element, the element itself or its -index'th sublist element converted to
+ * a long, a double or a string according to the mode, is computed once before sorting, so that the
+ * comparisons only compare keys. The elements are sorted by a merge sort, which is stable, as the
+ * sort of C Tcl is: elements that compare equal keep their order. Large lists are sorted in
+ * parallel, unless they are sorted with a -command, which has to be evaluated in the thread of the
+ * interpreter.
  */
-
-/** Sorts an array of TclObjects. */
 public final class TclSorter {
   public static final int ASCII = 0;
   public static final int INTEGER = 1;
   public static final int REAL = 2;
   public static final int COMMAND = 3;
   public static final int DICTIONARY = 4;
+
+  /** Lists at least this long are sorted in parallel. */
+  private static final int PARALLEL_THRESHOLD = 32768;
+
+  /** Parallel sorts don't split runs shorter than this. */
+  private static final int PARALLEL_GRAIN = 8192;
+
+  /** Runs this short are sorted by insertion. */
+  private static final int INSERTION_THRESHOLD = 16;
+
   // Data used during sort.
 
   private final int sortMode;
@@ -70,6 +57,18 @@ public final class TclSorter {
   private final String sortCommand;
   private final Interp sortInterp;
 
+  // The sort keys of the elements, in their original order. Only the
+  // array for the sort mode is used.
+
+  private long[] longKeys;
+  private double[] doubleKeys;
+  private String[] stringKeys;
+  private TclObject[] objKeys;
+
+  // The original position of each element of the sorted array.
+
+  private int[] order;
+
   private TclSorter(Interp interp, int mode, int index, boolean increasing, String cmd) {
     this.sortInterp = interp;
     this.sortMode = mode;
@@ -79,85 +78,7 @@ public final class TclSorter {
   }
 
   /**
-   * This is a generic version of C.A.R Hoare's Quick Sort algorithm. This will handle arrays that
-   * are already sorted, and arrays with duplicate keys.<br>
-   * If you think of a one dimensional array as going from the lowest index on the left to the
-   * highest index on the right then the parameters to this function are lowest index or left and
-   * highest index or right. The first time you call this function it will be with the parameters 0,
-   * a.length - 1.
-   *
-   * @param a an integer array
-   * @param lo0 left boundary of array partition
-   * @param hi0 right boundary of array partition
-   */
-  private void quickSort(TclObject a[], int lo0, int hi0) throws TclException {
-    int lo = lo0;
-    int hi = hi0;
-    TclObject mid;
-    int midIndex;
-
-    if (hi0 > lo0) {
-      // Arbitrarily establishing partition element as the midpoint of
-      // the array.
-      midIndex = (lo0 + hi0) >>> 1;
-      mid = a[midIndex];
-
-      // loop through the array until indices cross
-      while (lo <= hi) {
-        // find the first element that is greater than or equal to
-        // the partition element starting from the left Index.
-
-        while ((lo < hi0) && lo != midIndex && (compare(a[lo], mid) < 0)) {
-          ++lo;
-        }
-
-        // find an element that is smaller than or equal to
-        // the partition element starting from the right Index.
-
-        while ((hi > lo0) && hi != midIndex && (compare(a[hi], mid) > 0)) {
-          --hi;
-        }
-
-        // if the indexes have not crossed, swap
-        if (lo <= hi) {
-          swap(a, lo, hi);
-          ++lo;
-          --hi;
-        }
-      }
-
-      // If the right index has not reached the left side of array
-      // must now sort the left partition.
-
-      if (lo0 < hi) {
-        quickSort(a, lo0, hi);
-      }
-
-      // If the left index has not reached the right side of array
-      // must now sort the right partition.
-
-      if (lo < hi0) {
-        quickSort(a, lo, hi0);
-      }
-    }
-  }
-
-  /**
-   * Swaps two items in the array.
-   *
-   * @param a the array.
-   * @param i index of first item.
-   * @param j index of first item.
-   */
-  private static void swap(TclObject a[], int i, int j) {
-    TclObject T;
-    T = a[i];
-    a[i] = a[j];
-    a[j] = T;
-  }
-
-  /**
-   * Starts the quick sort with the given parameters.
+   * Sorts an array in place with the given parameters.
    *
    * @param interp if cmd is specified, it is evaluated inside this interp.
    * @param a the array of TclObject's to sort.
@@ -166,15 +87,46 @@ public final class TclSorter {
    *     on the lsitLength+index+1 element (end = -2); if index==-1, sort on entire element.
    * @param increasing true if the sorted array should be in increasing order.
    * @param cmd the command to use for comparing items. It is used only if sortMode is COMMAND.
-   * @return
-   * @throws TclException if an error occurs during sorting.
+   * @return the sorter, which keeps the keys of the sorted elements for equalKeys().
+   * @throws TclException if an error occurs during sorting. The array is unchanged.
    */
   public static TclSorter sort(
       Interp interp, TclObject[] a, int mode, int index, boolean increasing, String cmd)
       throws TclException {
-    var qsort = new TclSorter(interp, mode, index, increasing, cmd);
-    qsort.quickSort(a, 0, a.length - 1);
-    return qsort;
+    var sorter = new TclSorter(interp, mode, index, increasing, cmd);
+    sorter.extractKeys(a);
+
+    final int n = a.length;
+    int[] idx = new int[n];
+    for (int i = 0; i < n; i++) {
+      idx[i] = i;
+    }
+    int[] tmp = new int[n];
+    if (n >= PARALLEL_THRESHOLD && mode != COMMAND) {
+      ForkJoinPool.commonPool().invoke(new ParallelSort(sorter, idx, tmp, 0, n));
+    } else {
+      sorter.mergeSort(idx, tmp, 0, n);
+    }
+
+    TclObject[] unsorted = a.clone();
+    for (int i = 0; i < n; i++) {
+      a[i] = unsorted[idx[i]];
+    }
+    sorter.order = idx;
+    return sorter;
+  }
+
+  /**
+   * Compares the keys of two elements of the sorted array, which is cheaper than comparing the
+   * elements with compare().
+   *
+   * @param i position of the first element in the sorted array.
+   * @param j position of the second element in the sorted array.
+   * @return true if they are equal.
+   * @exception TclException if the -command fails.
+   */
+  public boolean equalKeys(int i, int j) throws TclException {
+    return compareKeys(order[i], order[j]) == 0;
   }
 
   /**
@@ -186,100 +138,116 @@ public final class TclSorter {
    * @exception TclException if an error occurs during sorting.
    */
   public int compare(TclObject obj1, TclObject obj2) throws TclException {
+    int code;
 
-    int index;
-    int code = 0;
+    obj1 = element(obj1);
+    obj2 = element(obj2);
 
-    if (sortIndex != -1) {
-      // The "-index" option was specified. Treat each object as a
-      // list, extract the requested element from each list, and
-      // compare the elements, not the lists. The special index "end"
-      // is signaled here with (-2 - offset from end), so end-1 is -3.
-
-      TclObject obj;
-      if (sortIndex < -1) { // take the offset from end
-        index = TclList.getLength(sortInterp, obj1) + (sortIndex + 1);
-      } else {
-        index = sortIndex;
-      }
+    switch (sortMode) {
+      case ASCII:
+        code = obj1.toString().compareTo(obj2.toString());
+        break;
+      case DICTIONARY:
+        code = doDictionary(obj1.toString(), obj2.toString());
+        break;
+      case INTEGER:
+        code = compareLongs(toLong(obj1), toLong(obj2));
+        break;
+      case REAL:
+        code = compareDoubles(toDouble(obj1), toDouble(obj2));
+        break;
+      case COMMAND:
+        code = doCommand(obj1, obj2);
+        break;
 
-      obj = TclList.index(sortInterp, obj1, index);
-      if (obj == null) {
-        throw new TclException(
-            sortInterp, "element " + index + " missing from sublist \"" + obj1 + "\"");
-      }
-      obj1 = obj;
+      default:
+        // Should never come to here.
 
-      if (sortIndex < -1) { // take the offset from end
-        index = TclList.getLength(sortInterp, obj2) + (sortIndex + 1);
-      } else {
-        index = sortIndex;
-      }
+        throw new TclRuntimeError("Unknown sortMode " + sortMode);
+    }
 
-      obj = TclList.index(sortInterp, obj2, index);
-      if (obj == null) {
-        throw new TclException(
-            sortInterp, "element " + index + " missing from sublist \"" + obj2 + "\"");
+    if (sortIncreasing) {
+      return code;
+    } else {
+      return -code;
+    }
+  }
+
+  /**
+   * Computes the sort key of each element of the array. As in C Tcl, the sublist elements are all
+   * extracted before any of them is converted, and an error is reported for the first element that
+   * has no valid key.
+   *
+   * @param a the array to sort.
+   * @exception TclException if an element has no valid key.
+   */
+  private void extractKeys(TclObject[] a) throws TclException {
+    final int n = a.length;
+    TclObject[] elems = a;
+    if (sortIndex != -1) {
+      elems = new TclObject[n];
+      for (int i = 0; i < n; i++) {
+        elems[i] = element(a[i]);
       }
-      obj2 = obj;
     }
 
     switch (sortMode) {
       case ASCII:
-        code = obj1.toString().compareTo(obj2.toString());
-        break;
       case DICTIONARY:
-        code = doDictionary(obj1.toString(), obj2.toString());
+        stringKeys = new String[n];
+        for (int i = 0; i < n; i++) {
+          stringKeys[i] = elems[i].toString();
+        }
         break;
       case INTEGER:
-        try {
-          long int1 = TclInteger.getLong(sortInterp, obj1);
-          long int2 = TclInteger.getLong(sortInterp, obj2);
-
-          if (int1 > int2) {
-            code = 1;
-          } else if (int2 > int1) {
-            code = -1;
-          }
-        } catch (TclException e1) {
-          sortInterp.addErrorInfo("\n    (converting list element from string to integer)");
-          throw e1;
+        longKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+          longKeys[i] = toLong(elems[i]);
         }
         break;
       case REAL:
-        try {
-          double f1 = TclDouble.get(sortInterp, obj1);
-          double f2 = TclDouble.get(sortInterp, obj2);
-
-          if (f1 > f2) {
-            code = 1;
-          } else if (f2 > f1) {
-            code = -1;
-          }
-        } catch (TclException e2) {
-          sortInterp.addErrorInfo("\n    (converting list element from string to real)");
-          throw e2;
+        doubleKeys = new double[n];
+        for (int i = 0; i < n; i++) {
+          doubleKeys[i] = toDouble(elems[i]);
         }
         break;
       case COMMAND:
-        StringBuffer sbuf = new StringBuffer(sortCommand);
-        Util.appendElement(sortInterp, sbuf, obj1.toString());
-        Util.appendElement(sortInterp, sbuf, obj2.toString());
-        try {
-          sortInterp.eval(sbuf.toString(), 0);
-        } catch (TclException e3) {
-          sortInterp.addErrorInfo("\n    (-compare command)");
-          throw e3;
-        }
+        objKeys = elems == a ? a.clone() : elems;
+        break;
 
-        try {
-          code = TclInteger.getInt(sortInterp, sortInterp.getResult());
-        } catch (TclException e) {
-          sortInterp.resetResult();
-          TclException e4 =
-              new TclException(sortInterp, "-compare command returned non-integer result");
-          throw e4;
-        }
+      default:
+        // Should never come to here.
+
+        throw new TclRuntimeError("Unknown sortMode " + sortMode);
+    }
+  }
+
+  /**
+   * Compares the keys of two elements.
+   *
+   * @param i original position of the first element.
+   * @param j original position of the second element.
+   * @return 0 if they are equal, a positive number if the first element sorts after the second, a
+   *     negative number otherwise.
+   * @exception TclException if the -command fails.
+   */
+  private int compareKeys(int i, int j) throws TclException {
+    int code;
+    switch (sortMode) {
+      case ASCII:
+        code = stringKeys[i].compareTo(stringKeys[j]);
+        break;
+      case DICTIONARY:
+        code = doDictionary(stringKeys[i], stringKeys[j]);
+        break;
+      case INTEGER:
+        code = compareLongs(longKeys[i], longKeys[j]);
+        break;
+      case REAL:
+        code = compareDoubles(doubleKeys[i], doubleKeys[j]);
+        break;
+      case COMMAND:
+        code = doCommand(objKeys[i], objKeys[j]);
         break;
 
       default:
@@ -295,6 +263,201 @@ public final class TclSorter {
     }
   }
 
+  /**
+   * Sorts a run of element positions by their keys, keeping equal elements in order.
+   *
+   * @param idx the positions to sort.
+   * @param tmp scratch space, as long as idx.
+   * @param lo first position of the run.
+   * @param hi the position after the run.
+   * @exception TclException if the -command fails.
+   */
+  private void mergeSort(int[] idx, int[] tmp, int lo, int hi) throws TclException {
+    if (hi - lo <= INSERTION_THRESHOLD) {
+      insertionSort(idx, lo, hi);
+      return;
+    }
+    final int mid = (lo + hi) >>> 1;
+    mergeSort(idx, tmp, lo, mid);
+    mergeSort(idx, tmp, mid, hi);
+    merge(idx, tmp, lo, mid, hi);
+  }
+
+  private void insertionSort(int[] idx, int lo, int hi) throws TclException {
+    for (int i = lo + 1; i < hi; i++) {
+      final int x = idx[i];
+      int j = i - 1;
+      while (j >= lo && compareKeys(idx[j], x) > 0) {
+        idx[j + 1] = idx[j];
+        j--;
+      }
+      idx[j + 1] = x;
+    }
+  }
+
+  /**
+   * Merges two adjacent sorted runs. The element of the first run is taken when two are equal.
+   *
+   * @param idx the positions to merge.
+   * @param tmp scratch space, as long as idx.
+   * @param lo first position of the first run.
+   * @param mid first position of the second run.
+   * @param hi the position after the second run.
+   * @exception TclException if the -command fails.
+   */
+  private void merge(int[] idx, int[] tmp, int lo, int mid, int hi) throws TclException {
+    if (compareKeys(idx[mid - 1], idx[mid]) <= 0) {
+      // Already in order
+      return;
+    }
+    System.arraycopy(idx, lo, tmp, lo, mid - lo);
+    int i = lo;
+    int j = mid;
+    int k = lo;
+    while (i < mid && j < hi) {
+      if (compareKeys(tmp[i], idx[j]) <= 0) {
+        idx[k++] = tmp[i++];
+      } else {
+        idx[k++] = idx[j++];
+      }
+    }
+    while (i < mid) {
+      idx[k++] = tmp[i++];
+    }
+  }
+
+  /** Sorts the halves of a run in parallel, then merges them. */
+  private static final class ParallelSort extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final TclSorter sorter;
+    private final int[] idx;
+    private final int[] tmp;
+    private final int lo;
+    private final int hi;
+
+    ParallelSort(TclSorter sorter, int[] idx, int[] tmp, int lo, int hi) {
+      this.sorter = sorter;
+      this.idx = idx;
+      this.tmp = tmp;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        if (hi - lo <= PARALLEL_GRAIN) {
+          sorter.mergeSort(idx, tmp, lo, hi);
+        } else {
+          final int mid = (lo + hi) >>> 1;
+          invokeAll(
+              new ParallelSort(sorter, idx, tmp, lo, mid),
+              new ParallelSort(sorter, idx, tmp, mid, hi));
+          sorter.merge(idx, tmp, lo, mid, hi);
+        }
+      } catch (TclException e) {
+        // Only -command comparisons throw, and those aren't parallel.
+        throw new TclRuntimeError("unexpected TclException: " + e, e);
+      }
+    }
+  }
+
+  /**
+   * @param obj an element of the list.
+   * @return the element itself, or its sublist element selected by -index.
+   * @exception TclException if the sublist has no such element.
+   */
+  private TclObject element(TclObject obj) throws TclException {
+    if (sortIndex == -1) {
+      return obj;
+    }
+
+    // The "-index" option was specified. Treat each object as a
+    // list, extract the requested element from each list, and
+    // compare the elements, not the lists. The special index "end"
+    // is signaled here with (-2 - offset from end), so end-1 is -3.
+
+    int index;
+    if (sortIndex < -1) { // take the offset from end
+      index = TclList.getLength(sortInterp, obj) + (sortIndex + 1);
+    } else {
+      index = sortIndex;
+    }
+
+    TclObject elem = TclList.index(sortInterp, obj, index);
+    if (elem == null) {
+      throw new TclException(
+          sortInterp, "element " + index + " missing from sublist \"" + obj + "\"");
+    }
+    return elem;
+  }
+
+  private long toLong(TclObject obj) throws TclException {
+    try {
+      return TclInteger.getLong(sortInterp, obj);
+    } catch (TclException e) {
+      sortInterp.addErrorInfo("\n    (converting list element from string to integer)");
+      throw e;
+    }
+  }
+
+  private double toDouble(TclObject obj) throws TclException {
+    try {
+      return TclDouble.get(sortInterp, obj);
+    } catch (TclException e) {
+      sortInterp.addErrorInfo("\n    (converting list element from string to real)");
+      throw e;
+    }
+  }
+
+  private static int compareLongs(long int1, long int2) {
+    if (int1 > int2) {
+      return 1;
+    } else if (int2 > int1) {
+      return -1;
+    }
+    return 0;
+  }
+
+  // Unlike Double.compare(), NaN is equal to everything, as in C Tcl.
+
+  private static int compareDoubles(double f1, double f2) {
+    if (f1 > f2) {
+      return 1;
+    } else if (f2 > f1) {
+      return -1;
+    }
+    return 0;
+  }
+
+  /**
+   * Compares two elements with the -command.
+   *
+   * @param obj1 first item.
+   * @param obj2 second item.
+   * @return the integer result of the command.
+   * @exception TclException if the command fails or doesn't return an integer.
+   */
+  private int doCommand(TclObject obj1, TclObject obj2) throws TclException {
+    StringBuffer sbuf = new StringBuffer(sortCommand);
+    Util.appendElement(sortInterp, sbuf, obj1.toString());
+    Util.appendElement(sortInterp, sbuf, obj2.toString());
+    try {
+      sortInterp.eval(sbuf.toString(), 0);
+    } catch (TclException e3) {
+      sortInterp.addErrorInfo("\n    (-compare command)");
+      throw e3;
+    }
+
+    try {
+      return TclInteger.getInt(sortInterp, sortInterp.getResult());
+    } catch (TclException e) {
+      sortInterp.resetResult();
+      throw new TclException(sortInterp, "-compare command returned non-integer result");
+    }
+  }
+
   /**
    * DictionaryCompare -> doDictionary
    *
@@ -321,11 +484,23 @@ public final class TclSorter {
         while (endNum1 < len1 && Character.isDigit(str1.charAt(endNum1))) ++endNum1;
         int endNum2 = index2 + 1;
         while (endNum2 < len2 && Character.isDigit(str2.charAt(endNum2))) ++endNum2;
-        long v1 = Long.parseLong(str1.substring(index1, endNum1));
-        long v2 = Long.parseLong(str2.substring(index2, endNum2));
 
-        if (v1 < v2) return -1;
-        if (v1 > v2) return 1;
+        // Compare the numbers by value without converting them, so that
+        // numbers of any length can be compared: once the leading zeros
+        // are skipped, the longer number is the larger, and numbers of
+        // the same length compare as their first different digits.
+        int start1 = index1;
+        while (start1 < endNum1 - 1 && Character.digit(str1.charAt(start1), 10) == 0) ++start1;
+        int start2 = index2;
+        while (start2 < endNum2 - 1 && Character.digit(str2.charAt(start2), 10) == 0) ++start2;
+        if (endNum1 - start1 < endNum2 - start2) return -1;
+        if (endNum1 - start1 > endNum2 - start2) return 1;
+        for (int k = 0; k < endNum1 - start1; k++) {
+          int d1 = Character.digit(str1.charAt(start1 + k), 10);
+          int d2 = Character.digit(str2.charAt(start2 + k), 10);
+          if (d1 < d2) return -1;
+          if (d1 > d2) return 1;
+        }
 
         if (secondaryDiff == 0) {
           if (endNum1 - index1 < endNum2 - index2) secondaryDiff = -1;
@@ -32,6 +32,12 @@ public abstract sealed class TimerHandler
   /** Used to distinguish older idle handlers from recently-created ones. */
   int generation;
 
+  /** Position of this handler in the notifier's TimerQueue, or -1 if it isn't queued. */
+  int heapIndex = -1;
+
+  /** Order in which this handler was added to the TimerQueue. */
+  long sequence;
+
   /**
    * Create a timer handler to be fired after the given time lapse. Side effects: The timer is
    * registered in the list of timers in the given notifier. After milliseconds have elapsed, the
@@ -42,32 +48,25 @@ public abstract sealed class TimerHandler
    * @param milliseconds number of milliseconds to wait before invoking processTimerEvent()
    */
   public TimerHandler(Notifier n, long milliseconds) {
-    int i;
-
     atTime = System.currentTimeMillis() + milliseconds;
     notifier = n;
     isCancelled = false;
 
     /*
-     * Add timer event to the pending timer list in the correct position
-     * (ordered by event firing time).
+     * Add timer event to the pending timer queue, which is ordered by
+     * event firing time.
      *
      * NOTE: it's very important that if two timer handlers have the same
-     * atTime, the newer timer handler always goes after the older handler
-     * in the list. See comments in Notifier.TimerEvent.processEvent() for
+     * atTime, the newer timer handler always fires after the older
+     * handler. TimerQueue orders such handlers by the order they were
+     * added in. See comments in Notifier.TimerEvent.processEvent() for
      * details.
      */
 
     synchronized (notifier) {
       generation = notifier.getTimerGeneration();
 
-      for (i = 0; i < notifier.getTimerList().size(); i++) {
-        TimerHandler q = (TimerHandler) notifier.getTimerList().get(i);
-        if (atTime < q.atTime) {
-          break;
-        }
-      }
-      notifier.getTimerList().add(i, this);
+      notifier.getTimerQueue().add(this);
 
       if (Thread.currentThread() != notifier.getPrimaryThread()) {
         notifier.signalWaiters();
@@ -88,18 +87,7 @@ public abstract sealed class TimerHandler
     isCancelled = true;
 
     synchronized (notifier) {
-      for (int i = 0; i < notifier.getTimerList().size(); i++) {
-        if (notifier.getTimerList().get(i) == this) {
-          notifier.getTimerList().remove(i);
-
-          /*
-           * We can return now because the same timer can be
-           * registered only once in the list of timers.
-           */
-
-          return;
-        }
-      }
+      notifier.getTimerQueue().remove(this);
     }
   }
 
@@ -0,0 +1,157 @@
+/*
+ * TimerQueue.java --
+ *
+ *	The queue of pending timer handlers in a Notifier.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang;
+
+import java.util.Arrays;
+
+/**
+ * A priority queue of TimerHandlers, ordered by firing time. It is a binary min-heap in which each
+ * handler records its own position, so that add() and remove() are O(log n) and peek() is O(1).
+ *
+ * <p>Handlers with the same atTime are ordered by the order in which they were added, so that a
+ * newer handler always fires after an older one. See the comments in Notifier.TimerEvent for why
+ * this matters.
+ *
+ * <p>Like the list it replaces, this class is not synchronized; callers lock the Notifier.
+ */
+public final class TimerQueue {
+
+  /** The heap. The children of heap[i] are heap[2i+1] and heap[2i+2]. */
+  private TimerHandler[] heap = new TimerHandler[16];
+
+  /** Number of handlers in the heap. */
+  private int size;
+
+  /** Incremented for each handler added, to order handlers with the same atTime. */
+  private long sequence;
+
+  /** Creates an empty queue. */
+  public TimerQueue() {}
+
+  /**
+   * @return the number of pending timer handlers
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return true if there are no pending timer handlers
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the handler that fires first, or null if the queue is empty
+   */
+  public TimerHandler peek() {
+    return (size == 0) ? null : heap[0];
+  }
+
+  /**
+   * Add a handler to the queue. A handler can only be in the queue once.
+   *
+   * @param h the handler to add
+   */
+  void add(TimerHandler h) {
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    h.sequence = sequence++;
+    siftUp(size++, h);
+  }
+
+  /**
+   * Remove and return the handler that fires first.
+   *
+   * @return the removed handler, or null if the queue is empty
+   */
+  TimerHandler poll() {
+    if (size == 0) {
+      return null;
+    }
+    TimerHandler h = heap[0];
+    removeAt(0);
+    return h;
+  }
+
+  /**
+   * Remove a handler from the queue.
+   *
+   * @param h the handler to remove
+   * @return true if the handler was in the queue
+   */
+  boolean remove(TimerHandler h) {
+    int i = h.heapIndex;
+    if (i < 0 || i >= size || heap[i] != h) {
+      return false;
+    }
+    removeAt(i);
+    return true;
+  }
+
+  private void removeAt(int i) {
+    TimerHandler removed = heap[i];
+    removed.heapIndex = -1;
+    int last = --size;
+    TimerHandler moved = heap[last];
+    heap[last] = null;
+    if (i != last) {
+      siftDown(i, moved);
+      if (heap[i] == moved) {
+        siftUp(i, moved);
+      }
+    }
+  }
+
+  // Returns true if a fires before b.
+
+  private static boolean before(TimerHandler a, TimerHandler b) {
+    return (a.atTime < b.atTime) || (a.atTime == b.atTime && a.sequence < b.sequence);
+  }
+
+  private void siftUp(int i, TimerHandler h) {
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      TimerHandler p = heap[parent];
+      if (!before(h, p)) {
+        break;
+      }
+      heap[i] = p;
+      p.heapIndex = i;
+      i = parent;
+    }
+    heap[i] = h;
+    h.heapIndex = i;
+  }
+
+  private void siftDown(int i, TimerHandler h) {
+    int half = size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      TimerHandler c = heap[child];
+      int right = child + 1;
+      if (right < size && before(heap[right], c)) {
+        child = right;
+        c = heap[child];
+      }
+      if (!before(c, h)) {
+        break;
+      }
+      heap[i] = c;
+      c.heapIndex = i;
+      i = child;
+    }
+    heap[i] = h;
+    h.heapIndex = i;
+  }
+}
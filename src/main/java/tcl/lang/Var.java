@@ -17,7 +17,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclRuntimeError;
 import tcl.lang.exception.TclVarException;
@@ -212,8 +211,11 @@ public final class Var {
   /** tobj is the object stored in the var if it is scalar. always use getValue() and setValue() */
   private TclObject tobj;
 
-  /** Key/value pairs in array, if this is an array variable. Always use getArrayMap() */
-  private final Map<String, Var> arraymap = new ConcurrentHashMap<>();
+  /**
+   * Key/value pairs in array, if this is an array variable, otherwise null. Always use
+   * getArrayMap()
+   */
+  private Map<String, Var> arraymap;
 
   private Var linkto;
 
@@ -251,6 +253,23 @@ public final class Var {
     setFlags((SCALAR | UNDEFINED | IN_SYMBOL_TABLE));
   }
 
+  /**
+   * Return a Var that was deleted by deleteVar() to the state the constructor leaves it in, so that
+   * it can be reused for another local variable.
+   */
+  void reset() {
+    tobj = null;
+    arraymap = null;
+    linkto = null;
+    ns = null;
+    hashKey = null;
+    table = null;
+    refCount = 0;
+    traces = null;
+    sidVec = null;
+    flags = (SCALAR | UNDEFINED | IN_SYMBOL_TABLE);
+  }
+
   /**
    * Set the value of this Var (either as a scalar or as an array element)
    *
@@ -268,20 +287,21 @@ public final class Var {
   }
 
   /**
-   * @return the Map<String, Var> that contains the values if thiis is an array element
+   * @return the Map<String, Var> that contains the values if this is an array variable, or null if
+   *     it is not
    */
   public Map<String, Var> getArrayMap() {
     return arraymap;
   }
 
-  /** Create a new array map in this Var */
+  /** Create a new, empty array map in this Var */
   public void createArrayMap() {
-    this.arraymap.clear();
+    this.arraymap = new VarArrayMap();
   }
 
   /** Remove the existing array map in this var */
   public void deleteArrayMap() {
-    arraymap.clear();
+    arraymap = null;
   }
 
   /** Used to create a String that describes this variable. */
@@ -512,7 +532,7 @@ public final class Var {
       cxtNs = interp.getVarFrame().getNs();
     }
 
-    if (cxtNs.resolver != null || interp.getResolvers() != null) {
+    if (cxtNs.resolver != null || !interp.getResolvers().isEmpty()) {
       try {
         if (cxtNs.resolver != null) {
           var = cxtNs.resolver.resolveVar(interp, part1, cxtNs, flags);
@@ -523,7 +543,7 @@ public final class Var {
           var = null;
         }
 
-        if (var == null && interp.getResolvers() != null) {
+        if (var == null && !interp.getResolvers().isEmpty()) {
           for (ListIterator<Interp.ResolverScheme> iter = interp.getResolvers().listIterator();
               var == null && iter.hasNext(); ) {
             res = iter.next();
@@ -812,6 +832,19 @@ public final class Var {
       int flags // OR-ed combination of TCL.GLOBAL_ONLY,
       // and TCL.LEAVE_ERR_MSG bits.
       ) throws TclException {
+    // Read a scalar compiled local directly from its slot
+
+    if (part2 == null && (flags & ~TCL.LEAVE_ERR_MSG) == 0) {
+      CallFrame varFrame = interp.getVarFrame();
+      if (varFrame != null && varFrame.getCompiledLocals() != null) {
+        TclObject value =
+            getCompiledLocalScalar(interp, varFrame, varFrame.getCompiledLocalIndex(part1));
+        if (value != null) {
+          return value;
+        }
+      }
+    }
+
     Var[] result = lookupVar(interp, part1, part2, flags, "read", false, true);
 
     if (result == null) {
@@ -905,6 +938,34 @@ public final class Var {
   public static TclObject setVar(
       Interp interp, String part1, String part2, TclObject newValue, int flags)
       throws TclException {
+    // Set a scalar compiled local directly in its slot
+
+    if (part2 == null && (flags & ~TCL.LEAVE_ERR_MSG) == 0) {
+      CallFrame varFrame = interp.getVarFrame();
+      if (varFrame != null && varFrame.getCompiledLocals() != null) {
+        int localIndex = varFrame.getCompiledLocalIndex(part1);
+        if (localIndex != -1 && canUseCompiledLocals(interp, varFrame)) {
+          Var[] compiledLocals = varFrame.getCompiledLocals();
+          Var var = compiledLocals[localIndex];
+          if (var == null) {
+            return initVarCompiledLocalScalar(interp, part1, newValue, compiledLocals, localIndex);
+          }
+          var = resolveScalar(var);
+          if (var != null && ((var.getFlags() & IN_SYMBOL_TABLE) == 0 || var.getTable() != null)) {
+            TclObject oldValue = var.getValue();
+            if (oldValue != newValue) {
+              var.setValue(newValue);
+              newValue.preserve();
+              if (oldValue != null) {
+                oldValue.release();
+              }
+            }
+            return newValue;
+          }
+        }
+      }
+    }
+
     Var[] result = lookupVar(interp, part1, part2, flags, "set", true, true);
     if (result == null) {
       return null;
@@ -1023,9 +1084,8 @@ public final class Var {
           // We append newValue's bytes but don't change its ref
           // count.
 
-          bytes = newValue.toString();
           if (oldValue == null) {
-            TclObject tobj = TclString.newInstance(bytes);
+            TclObject tobj = TclString.newInstance(newValue.toString());
             var.setValue(tobj);
             tobj.preserve();
           } else {
@@ -1035,7 +1095,7 @@ public final class Var {
               oldValue = var.getValue();
               oldValue.preserve(); // since var is referenced
             }
-            TclString.append(oldValue, bytes);
+            TclString.append(oldValue, newValue);
           }
         }
       } else {
@@ -1795,10 +1855,7 @@ public final class Var {
     dummyVar = new Var();
     // FIXME: Var class really should implement clone to make a bit copy.
     dummyVar.setValue(var.getValue());
-    if (var.getArrayMap() != null) {
-      dummyVar.createArrayMap();
-      dummyVar.getArrayMap().putAll(var.getArrayMap());
-    }
+    dummyVar.arraymap = var.arraymap;
     dummyVar.setLinkto(var.getLinkto());
     dummyVar.setTraces(var.getTraces());
     dummyVar.setFlags(var.getFlags());
@@ -2578,9 +2635,14 @@ public final class Var {
       if (clocal != null) {
         // Cleanup the Var instance and then
         // null out the compiled local slots.
+        // Once nothing links to it, the Var
+        // can be reused by a later call frame.
 
         deleteVar(interp, clocal, flags);
         compiledLocals[i] = null;
+        if (clocal.getRefCount() == 0) {
+          interp.releaseLocalVar(clocal);
+        }
       }
     }
   }
@@ -2849,6 +2911,42 @@ public final class Var {
     return v;
   }
 
+  // Returns true if the compiled local array of varFrame can be
+  // accessed without going through lookupVar(). A variable resolver
+  // could claim any name, so compiled locals are only accessed
+  // directly when no resolver is installed.
+
+  static boolean canUseCompiledLocals(Interp interp, CallFrame varFrame) {
+    return varFrame.getNs().resolver == null && interp.getResolvers().isEmpty();
+  }
+
+  /**
+   * Get the value of a scalar compiled local, without a symbol table lookup. This is a fast path
+   * for getVar(): it returns null whenever the variable needs to be looked up the usual way, such
+   * as when the slot is empty, the variable is undefined or an array, or it has traces.
+   *
+   * @param interp the interp that holds the variable
+   * @param varFrame the current variable frame
+   * @param localIndex index of the compiled local slot, as returned by
+   *     CallFrame.getCompiledLocalIndex(), or -1
+   * @return the value of the variable, or null
+   */
+  public static TclObject getCompiledLocalScalar(
+      Interp interp, CallFrame varFrame, int localIndex) {
+    if (localIndex == -1 || !canUseCompiledLocals(interp, varFrame)) {
+      return null;
+    }
+    Var var = varFrame.getCompiledLocals()[localIndex];
+    if (var == null) {
+      return null;
+    }
+    var = resolveScalar(var);
+    if (var == null) {
+      return null;
+    }
+    return var.getValue();
+  }
+
   // Helper method invoked to null out a compiled local
   // slot for a non-linked local variable that is now
   // undefined. The unset command has no way of knowing
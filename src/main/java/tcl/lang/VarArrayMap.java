@@ -0,0 +1,299 @@
+/*
+ * VarArrayMap.java
+ *
+ *	This file implements the table that holds the elements of a
+ *	Tcl array variable.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map from element names to the Var structures of the elements of an array variable. Entries are
+ * kept in insertion order in parallel key and value arrays, and are found through an open
+ * addressing hash index with linear probing, so a lookup doesn't allocate and an entry costs no
+ * more than its slots in the arrays.
+ *
+ * <p>An array is only ever accessed from the thread of the interpreter that owns it, so the map is
+ * not synchronized. It does however allow itself to be modified while it is being iterated, since a
+ * trace invoked while walking the elements of an array (for "array get", "array unset" or when the
+ * array is deleted) can create or unset elements. An iterator never throws a
+ * ConcurrentModificationException: it skips entries removed after it was created, and may or may
+ * not return entries added after it was created. Entries returned by the iterator do not support
+ * setValue().
+ */
+final class VarArrayMap extends AbstractMap<String, Var> {
+
+  /** Initial number of entries. Must be a power of 2. */
+  private static final int MIN_CAPACITY = 4;
+
+  // Element names, Var structures and hash codes of the entries, in
+  // insertion order. A removed entry leaves a null key behind. The
+  // arrays are replaced, not modified, when they are resized, so that
+  // an iterator can keep walking the arrays it was created with.
+
+  private String[] keys;
+  private Var[] values;
+  private int[] hashes;
+
+  // Hash index of the entries. Each slot holds the position of an
+  // entry plus one, or 0 if it is empty. The length is twice the
+  // capacity of the entry arrays, so the load factor is at most 1/2.
+
+  private int[] index;
+
+  // Number of entry positions that have been used, including the
+  // positions of removed entries.
+
+  private int count;
+
+  // Number of entries in the map.
+
+  private int size;
+
+  private Set<Map.Entry<String, Var>> entrySet;
+
+  VarArrayMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  private void allocate(int capacity) {
+    keys = new String[capacity];
+    values = new Var[capacity];
+    hashes = new int[capacity];
+    index = new int[capacity * 2];
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * @return the index slot that holds the entry for key, or -1 if there is no such entry
+   */
+  private int findSlot(Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+    final int h = hash(key);
+    final int mask = index.length - 1;
+    for (int i = h & mask; ; i = (i + 1) & mask) {
+      int e = index[i];
+      if (e == 0) {
+        return -1;
+      }
+      e--;
+      if (hashes[e] == h && key.equals(keys[e])) {
+        return i;
+      }
+    }
+  }
+
+  private void insertSlot(int h, int e) {
+    final int mask = index.length - 1;
+    int i = h & mask;
+    while (index[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    index[i] = e + 1;
+  }
+
+  /**
+   * Empty an index slot, moving later entries of the same probe sequence back so that no lookup has
+   * to skip over deleted slots.
+   */
+  private void deleteSlot(int i) {
+    final int mask = index.length - 1;
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      int e = index[j];
+      if (e == 0) {
+        break;
+      }
+      int home = hashes[e - 1] & mask;
+      if (i <= j ? (i < home && home <= j) : (i < home || home <= j)) {
+        continue;
+      }
+      index[i] = e;
+      i = j;
+    }
+    index[i] = 0;
+  }
+
+  /**
+   * Move the live entries into new arrays, twice as large as needed to hold them, dropping the
+   * positions of removed entries.
+   */
+  private void resize() {
+    String[] oldKeys = keys;
+    Var[] oldValues = values;
+    int[] oldHashes = hashes;
+    int oldCount = count;
+
+    int capacity = MIN_CAPACITY;
+    while (capacity < size * 2) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+
+    int e = 0;
+    for (int i = 0; i < oldCount; i++) {
+      if (oldKeys[i] != null) {
+        keys[e] = oldKeys[i];
+        values[e] = oldValues[i];
+        hashes[e] = oldHashes[i];
+        insertSlot(oldHashes[i], e);
+        e++;
+      }
+    }
+    count = e;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return findSlot(key) != -1;
+  }
+
+  @Override
+  public Var get(Object key) {
+    int i = findSlot(key);
+    return (i == -1) ? null : values[index[i] - 1];
+  }
+
+  @Override
+  public Var put(String key, Var value) {
+    int i = findSlot(key);
+    if (i != -1) {
+      int e = index[i] - 1;
+      Var old = values[e];
+      values[e] = value;
+      return old;
+    }
+    if (count == keys.length) {
+      resize();
+    }
+    int h = hash(key);
+    int e = count++;
+    keys[e] = key;
+    values[e] = value;
+    hashes[e] = h;
+    insertSlot(h, e);
+    size++;
+    return null;
+  }
+
+  @Override
+  public Var remove(Object key) {
+    int i = findSlot(key);
+    if (i == -1) {
+      return null;
+    }
+    int e = index[i] - 1;
+    Var old = values[e];
+    deleteSlot(i);
+    keys[e] = null;
+    values[e] = null;
+    size--;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(keys, 0, count, null);
+    Arrays.fill(values, 0, count, null);
+    Arrays.fill(index, 0);
+    count = 0;
+    size = 0;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Var>> entrySet() {
+    if (entrySet == null) {
+      entrySet =
+          new AbstractSet<Map.Entry<String, Var>>() {
+            @Override
+            public Iterator<Map.Entry<String, Var>> iterator() {
+              return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+              return size;
+            }
+
+            @Override
+            public void clear() {
+              VarArrayMap.this.clear();
+            }
+          };
+    }
+    return entrySet;
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<String, Var>> {
+    private final String[] iterKeys = keys;
+    private final Var[] iterValues = values;
+    private int next;
+    private String lastKey;
+
+    // Once the map has been resized, the arrays this iterator walks are
+    // full and no longer modified, so an entry in them is only returned
+    // if its key is still in the map, with the value the map now holds.
+
+    private boolean resized() {
+      return iterKeys != keys;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (!resized()) {
+        while (next < count && iterKeys[next] == null) {
+          next++;
+        }
+        return next < count;
+      }
+      while (next < iterKeys.length && (iterKeys[next] == null || !containsKey(iterKeys[next]))) {
+        next++;
+      }
+      return next < iterKeys.length;
+    }
+
+    @Override
+    public Map.Entry<String, Var> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lastKey = iterKeys[next];
+      Var value = resized() ? get(lastKey) : iterValues[next];
+      next++;
+      return new AbstractMap.SimpleImmutableEntry<>(lastKey, value);
+    }
+
+    @Override
+    public void remove() {
+      if (lastKey == null) {
+        throw new IllegalStateException();
+      }
+      VarArrayMap.this.remove(lastKey);
+      lastKey = null;
+    }
+  }
+}
@@ -64,6 +64,9 @@ public final class WrappedCommand {
 
   private int cmdEpoch;
 
+  /** The profile of this command, kept here so the profiler doesn't look it up on each call */
+  Profiler.Entry profileEntry;
+
   /**
    * @return true if there are any command traces on this command
    */
@@ -350,15 +353,34 @@ public final class WrappedCommand {
 
   /**
    * @return true if the caller must call WrappedCommand.invoke(Interp, TclObject[]) because there
-   *     are execution traces in effect. Note that it is always OK to call invoke() instead of
-   *     cmd.cmdProc(), but doing so adds an extra Java stack frame that may limit how deep Tcl code
-   *     stack frames can go.
+   *     are execution traces in effect or the interpreter's profiler is running. Note that it is
+   *     always OK to call invoke() instead of cmd.cmdProc(), but doing so adds an extra Java stack
+   *     frame that may limit how deep Tcl code stack frames can go.
    */
   public final boolean mustCallInvoke(Interp interp) {
+    return hasTracesInEffect(interp) || interp.activeProfiler != null;
+  }
+
+  private boolean hasTracesInEffect(Interp interp) {
     return ((executionTraces != null && !executionTraceInProgress)
         || interp.hasActiveExecutionStepTraces());
   }
 
+  /** Calls cmd.cmdProc, timing the call if the interpreter's profiler is running. */
+  private void callCmdProc(Interp interp, TclObject[] objv) throws TclException {
+    final Profiler profiler = interp.activeProfiler;
+    if (profiler == null) {
+      getCmd().cmdProc(interp, objv);
+      return;
+    }
+    profiler.enter(this);
+    try {
+      getCmd().cmdProc(interp, objv);
+    } finally {
+      profiler.leave();
+    }
+  }
+
   /**
    * Call cmd.cmdProc after calling execution traces on this command, and call execution traces
    * after this command exits. Application code should use this call, rather than directly calling
@@ -370,8 +392,8 @@ public final class WrappedCommand {
    * @throws TclException on any errors
    */
   public void invoke(Interp interp, TclObject[] objv) throws TclException {
-    if (!mustCallInvoke(interp)) {
-      getCmd().cmdProc(interp, objv); // bypass all trace stuff
+    if (!hasTracesInEffect(interp)) {
+      callCmdProc(interp, objv); // bypass all trace stuff
       return;
     } else {
       TclException savedException = null;
@@ -410,7 +432,7 @@ public final class WrappedCommand {
       if (hasStepTrace) hadStepTrace = interp.activateExecutionStepTrace(this);
 
       try {
-        getCmd().cmdProc(interp, objv);
+        callCmdProc(interp, objv);
       } catch (TclException e) {
         savedException = e;
       }
@@ -20,6 +20,7 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.SyncFailedException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import tcl.lang.Interp;
 import tcl.lang.TclIO;
 import tcl.lang.cmd.EncodingCmd;
@@ -223,18 +224,42 @@ public abstract sealed class Channel
             int cnt = 0;
             int total = 0;
             char[] buf = null;
+            byte[] bytes = null;
             int bufsize = numBytes < 8192 ? numBytes : 8192;
             if (readChars) buf = new char[bufsize];
-            else TclByteArray.setLength(interp, tobj, 0);
+            else {
+              ByteBuffer mapped = mapInput(numBytes);
+              if (mapped != null) {
+                TclByteArray.setBuffer(tobj, mapped);
+                setOwnership(false, READ_OWNERSHIP);
+                return mapped.remaining();
+              }
+
+              /*
+               * Size the array from the input left, if the channel knows
+               * it; one extra byte lets the read that finds EOF complete
+               * without growing the array
+               */
+              long remaining = getRemainingInputBytes();
+              int size = bufsize;
+              if (remaining >= 0) {
+                size = (int) Math.min(numBytes, Math.min(remaining + 1, TclByteArray.MAX_LENGTH));
+              }
+              bytes = TclByteArray.setLength(interp, tobj, size);
+            }
             while (total < numBytes) {
 
               if (readChars) cnt = finalReader.read(buf, 0, Math.min(buf.length, numBytes - total));
               else {
-                /* resize array */
-                int curBufLen = TclByteArray.getLength(interp, tobj);
-
-                if (curBufLen < total + bufsize) {
-                  TclByteArray.setLength(interp, tobj, curBufLen + bufsize);
+                /* grow the array geometrically, so a large read is not quadratic */
+                if (total == bytes.length) {
+                  if (total >= TclByteArray.MAX_LENGTH) {
+                    break;
+                  }
+                  long size = Math.max((long) total * 2, total + bufsize);
+                  size = Math.min(size, Math.min(numBytes, TclByteArray.MAX_LENGTH));
+                  TclByteArray.setLength(interp, tobj, total);
+                  bytes = TclByteArray.setLength(interp, tobj, (int) size);
                 }
 
                 /*
@@ -242,11 +267,7 @@ public abstract sealed class Channel
                  * efficient because it avoids UnicodeDecoder's byte ->
                  * char conversion
                  */
-                cnt =
-                    finalInputStream.read(
-                        TclByteArray.getBytes(interp, tobj),
-                        total,
-                        Math.min(bufsize, numBytes - total));
+                cnt = finalInputStream.read(bytes, total, Math.min(bytes.length, numBytes) - total);
               }
               if (cnt == -1) {
                 eofSeen = true;
@@ -267,6 +288,9 @@ public abstract sealed class Channel
             if (!readChars) {
               // trim the TclByteArray
               TclByteArray.setLength(interp, tobj, total);
+              if (bytes.length - total > bufsize) {
+                TclByteArray.trimToLength(interp, tobj);
+              }
             }
             if (eofSeen && total == 0) {
               setOwnership(false, READ_OWNERSHIP);
@@ -287,7 +311,7 @@ public abstract sealed class Channel
 
             switch (rv) {
               case EolInputFilter.COMPLETE_LINE:
-                TclString.append(tobj, sb.toString());
+                TclString.append(tobj, sb);
                 eofSeen = eolInputFilter.eofSeen();
                 return sb.length();
 
@@ -310,6 +334,29 @@ public abstract sealed class Channel
     }
   }
 
+  /**
+   * @return the number of bytes that can be read before EOF, including input already buffered in
+   *     the channel, or -1 if the channel can't tell. Used to size the array for a binary read. The
+   *     default implementation returns -1.
+   */
+  long getRemainingInputBytes() {
+    return -1;
+  }
+
+  /**
+   * Map the next bytes of input into memory, for a binary read. The channel is positioned after the
+   * mapped bytes, and sets eofSeen if they reach EOF. The default implementation returns null;
+   * FileChannel maps the file when -mmap is set.
+   *
+   * @param numBytes the maximum number of bytes to map
+   * @return a buffer holding the next bytes of input, or null to read them through the input
+   *     streams
+   * @throws IOException
+   */
+  ByteBuffer mapInput(int numBytes) throws IOException {
+    return null;
+  }
+
   /**
    * Tcl_WriteObj -> write
    *
@@ -330,16 +377,27 @@ public abstract sealed class Channel
           && encoding == null
           && (outputTranslation == TRANS_BINARY || outputTranslation == TRANS_LF)) {
         /* Can write with the more efficient firstOutputStream */
-        firstOutputStream.write(
-            TclByteArray.getBytes(interp, outData), 0, TclByteArray.getLength(interp, outData));
+        ByteBuffer data = TclByteArray.getBuffer(interp, outData);
+        if (data.hasArray()) {
+          firstOutputStream.write(
+              data.array(), data.arrayOffset() + data.position(), data.remaining());
+        } else {
+          /* Data mapped from a file; write it without copying all of it into the heap */
+          byte[] chunk = new byte[Math.min(data.remaining(), 65536)];
+          while (data.hasRemaining()) {
+            int len = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, len);
+            firstOutputStream.write(chunk, 0, len);
+          }
+          data.rewind();
+        }
         /*
          * Step in to do line buffering, since we bypassed
          * EolOutputFilter
          */
         if (buffering == TclIO.BUFF_LINE) {
-          byte[] bytes = TclByteArray.getBytes(interp, outData);
-          for (byte b : bytes) {
-            if (b == 0x0A) {
+          for (int i = data.position(); i < data.limit(); i++) {
+            if (data.get(i) == 0x0A) {
               firstOutputStream.flush();
               break;
             }
@@ -650,6 +708,28 @@ public abstract sealed class Channel
     }
   }
 
+  /**
+   * @return true if the channel's input stream never blocks in available(), and its readiness for
+   *     'fileevent' can be found with the SocketSelector instead of by a background refill
+   */
+  boolean isSelectable() {
+    return false;
+  }
+
+  /**
+   * Arrange for a handler to be run once, on another thread, when the channel might have become
+   * readable or writable according to the 'fileevent' definition.
+   *
+   * @param type FileEvent.READABLE or FileEvent.WRITABLE
+   * @param handler run when the channel might be ready
+   * @return false if the channel can't tell when it becomes ready, in which case the handler is
+   *     never run and the caller must poll isReadable() or isWritable()
+   * @throws IOException
+   */
+  boolean notifyWhenReady(int type, Runnable handler) throws IOException {
+    return false;
+  }
+
   /** Force a non-blocking refill of the InputBuffer */
   void fillInputBuffer() throws IOException {
     if (isReadOnly() || isReadWrite()) {
@@ -782,6 +862,22 @@ public abstract sealed class Channel
     }
   }
 
+  /**
+   * Set the blocking mode of the input and output streams, without changing the channel's -blocking
+   * option. Used by fcopy, which reads and writes the streams directly while the channel keeps the
+   * mode the script configured.
+   *
+   * @param streamBlocking True for blocking streams, false for non-blocking streams
+   */
+  void setStreamBlocking(boolean streamBlocking) {
+    if (inputBuffer != null) {
+      inputBuffer.setBlockingMode(streamBlocking);
+    }
+    if (nonBlockingOutputStream != null) {
+      nonBlockingOutputStream.setBlocking(streamBlocking);
+    }
+  }
+
   /**
    * @return buffering mode - TclIO.BUFF_FULL, TclIO.BUFF_LINE or TclIO.BUFF_NONE.
    */
@@ -0,0 +1,48 @@
+/*
+ * ChannelExecutor.java
+ *
+ *	This file implements the pool of threads that perform
+ *	background I/O for channels.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang.channel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of daemon threads, shared by all channels, that perform the reads and writes that a
+ * non-blocking channel must not wait for: InputBuffer refills and NonBlockingOutputStream writes. A
+ * thread is only busy while a read or write is actually in progress, so the number of threads
+ * depends on the amount of pending I/O rather than on the number of open channels. Idle threads
+ * exit after a minute.
+ */
+final class ChannelExecutor {
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private static final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            t.setName("Channel I/O " + threadCount.incrementAndGet());
+            return t;
+          });
+
+  private ChannelExecutor() {}
+
+  /**
+   * Run a task on a pool thread.
+   *
+   * @param task the I/O to perform
+   */
+  static void execute(Runnable task) {
+    executor.execute(task);
+  }
+}
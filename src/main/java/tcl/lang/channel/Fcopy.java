@@ -1,18 +1,29 @@
 package tcl.lang.channel;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 import tcl.lang.Interp;
 import tcl.lang.TCL;
 import tcl.lang.TclEvent;
 import tcl.lang.TclIO;
 import tcl.lang.exception.TclException;
+import tcl.lang.io.Translation;
 
 /**
  * This class implements an efficient copy between Channels
  *
+ * <p>When both channels are binary and one is a file, the data is copied with NIO rather than
+ * through the channels' streams: a file is sent to a socket or another file with
+ * FileChannel.transferTo(), which the operating system can do without copying the data through the
+ * heap, and a socket is read straight into a file. Background copies run on the shared
+ * ChannelExecutor pool.
+ *
  * @author Dan Bodoh
  */
 public class Fcopy {
+  /** Source of channel owner ids for background copies, which don't run on a thread of their own */
+  private static final AtomicLong nextOwnerId = new AtomicLong(Long.MAX_VALUE);
+
   /** Source channel, from which to copy */
   Channel source;
 
@@ -46,6 +57,12 @@ public class Fcopy {
   /** Set to true if we can read/write bytes during fcopy; false if we must read/write chars */
   boolean transferBytes;
 
+  /**
+   * Set to true if the bytes can be copied with NIO, bypassing the channels' streams, because both
+   * channels are binary and nothing is buffered in the source
+   */
+  boolean transferDirect;
+
   /**
    * Set to true if input is encoded, but output is not; fcopy spec indicates output should be utf8
    * encoded in that case
@@ -64,8 +81,11 @@ public class Fcopy {
   /** Buffer used for transferring bytes */
   byte[] bbuf = null;
 
-  /** If a background fcopy is taking place, this is the thread responsible */
-  Thread backgroundCopy = null;
+  /**
+   * Id of the owner of the channels during the copy: the current thread's id for a foreground copy,
+   * or a unique id from nextOwnerId for a background copy
+   */
+  long ownerId;
 
   /** The current interpreter, for error reporting */
   Interp interp;
@@ -113,7 +133,8 @@ public class Fcopy {
   public long start() throws TclException {
     if (callback == null) {
       /* wait for copy to complete */
-      getChannelOwnership(Thread.currentThread().getId());
+      ownerId = Thread.currentThread().getId();
+      getChannelOwnership(ownerId);
       try {
         setup();
         doCopy();
@@ -161,17 +182,9 @@ public class Fcopy {
                 };
             interp.getNotifier().queueEvent(event, TCL.QUEUE_TAIL);
           };
-      backgroundCopy = new Thread(r);
-      getChannelOwnership(backgroundCopy.getId());
-      backgroundCopy.setDaemon(true);
-      backgroundCopy.setName(
-          "Fcopy ("
-              + interp.toString()
-              + "): "
-              + source.getChanName()
-              + " -> "
-              + destination.getChanName());
-      backgroundCopy.start();
+      ownerId = nextOwnerId.getAndDecrement();
+      getChannelOwnership(ownerId);
+      ChannelExecutor.execute(r);
       return 0;
     }
   }
@@ -208,10 +221,12 @@ public class Fcopy {
 
     /*
      * Turn blocking on; background copy is done with a thread. Blocking is
-     * turned on to prevent extra buffer copying for background read/write
+     * turned on to prevent extra buffer copying for background read/write.
+     * Only the streams are switched, so that "fconfigure -blocking" still
+     * reports the script's setting while a background copy runs.
      */
-    source.setBlocking(true);
-    destination.setBlocking(true);
+    source.setStreamBlocking(true);
+    destination.setStreamBlocking(true);
 
     sourceBuffering = source.getBuffering();
     destinationBuffering = destination.getBuffering();
@@ -232,6 +247,17 @@ public class Fcopy {
         srcEncoding.equals(dstEncoding)
             && (source.getInputTranslation() == destination.getOutputTranslation());
 
+    transferDirect =
+        transferBytes
+            && (source.getEncoding() == null)
+            && isUntranslated(source.getInputTranslation())
+            && isUntranslated(destination.getOutputTranslation())
+            && (source.getInputEofChar() == 0)
+            && (source.getNumBufferedInputBytes() == 0)
+            && ((source instanceof FileChannel
+                    && (destination instanceof SocketChannel || destination instanceof FileChannel))
+                || (source instanceof SocketChannel && destination instanceof FileChannel));
+
     /*
      * If the source is encoded, but the destination is not, the fcopy spec
      * says that the output should be utf-8 encoded; and vice versa.
@@ -249,7 +275,9 @@ public class Fcopy {
       bufsize = 1;
     }
 
-    if (transferBytes) {
+    if (transferDirect) {
+      // No buffer needed
+    } else if (transferBytes) {
       bbuf = new byte[bufsize];
     } else {
       cbuf = new char[bufsize];
@@ -262,8 +290,8 @@ public class Fcopy {
     destination.setBlocking(destinationBlocking);
     source.setBuffering(sourceBuffering);
     destination.setBuffering(destinationBuffering);
-    source.setOwnership(false, Channel.READ_OWNERSHIP);
-    destination.setOwnership(false, Channel.WRITE_OWNERSHIP);
+    source.setOwnership(false, Channel.READ_OWNERSHIP, ownerId);
+    destination.setOwnership(false, Channel.WRITE_OWNERSHIP, ownerId);
     if (doUtf8OutputEncoding) {
       destination.setEncoding(null);
     }
@@ -280,6 +308,9 @@ public class Fcopy {
    * @throws IOException
    */
   private long doCopy() throws IOException {
+    if (transferDirect) {
+      return doDirectCopy();
+    }
     int cnt;
     long startCount = destination.outputBuffer.getReceivedByteCount();
     while (!source.eof()) {
@@ -323,4 +354,71 @@ public class Fcopy {
     if (!destination.isClosed()) destination.firstWriter.flush();
     return bytesWritten;
   }
+
+  /**
+   * @return true if a translation leaves the bytes of a binary channel unchanged
+   */
+  private static boolean isUntranslated(Translation translation) {
+    return translation == Translation.TRANS_BINARY || translation == Translation.TRANS_LF;
+  }
+
+  /**
+   * Copy data with NIO, without going through the channels' streams, until EOF or size bytes have
+   * been written to the destination. Output already buffered in the destination is flushed first.
+   *
+   * @return number of bytes written to the destination
+   * @throws IOException
+   */
+  private long doDirectCopy() throws IOException {
+    if (source.eof() || destination.isClosed()) {
+      return bytesWritten;
+    }
+    destination.firstWriter.flush();
+
+    java.nio.channels.FileChannel out = null;
+    if (destination instanceof FileChannel dst) {
+      if ((dst.mode & TclIO.APPEND) != 0) {
+        dst.prepareForAppendWrite();
+      }
+      out = dst.getFileChannel();
+    }
+
+    if (source instanceof FileChannel src) {
+      java.nio.channels.FileChannel in = src.getFileChannel();
+      long position = in.position();
+      long count = Math.max(in.size() - position, 0);
+      if (size >= 0 && size < count) {
+        count = size;
+      }
+
+      if (out == null) {
+        bytesWritten = ((SocketChannel) destination).transferFrom(in, position, count);
+      } else {
+        while (bytesWritten < count && !source.isClosed() && !destination.isClosed()) {
+          bytesWritten += in.transferTo(position + bytesWritten, count - bytesWritten, out);
+        }
+      }
+      if (!source.isClosed()) {
+        in.position(position + bytesWritten);
+      }
+      // Like the stream path, only see EOF when trying to read past the
+      // end, not when -size stops the copy right at it.
+
+      if ((size < 0 || size > count) && bytesWritten == count) {
+        source.eofSeen = true;
+      }
+    } else {
+      SocketChannel src = (SocketChannel) source;
+      while (size < 0 || bytesWritten < size) {
+        if (source.isClosed() || destination.isClosed()) break;
+        long cnt = src.transferTo(out, (size < 0) ? Long.MAX_VALUE : size - bytesWritten);
+        if (cnt == -1) {
+          source.eofSeen = true;
+          break;
+        }
+        bytesWritten += cnt;
+      }
+    }
+    return bytesWritten;
+  }
 }
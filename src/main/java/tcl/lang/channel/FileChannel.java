@@ -20,6 +20,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.SyncFailedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
 import tcl.lang.FileUtil;
 import tcl.lang.Interp;
 import tcl.lang.TclIO;
@@ -39,6 +41,12 @@ public final class FileChannel extends SeekableChannel {
    */
   private RandomAccessFile file = null;
 
+  /**
+   * Set to true by "fconfigure -mmap 1" to map the file into memory for binary reads, instead of
+   * reading it through the input streams
+   */
+  private boolean mmap = false;
+
   /**
    * Open a file with the read/write permissions determined by modeFlags. This method must be called
    * before any other methods will function properly.
@@ -261,6 +269,70 @@ public final class FileChannel extends SeekableChannel {
     return "file";
   }
 
+  /**
+   * @return true if binary reads map the file into memory
+   */
+  public boolean getMmap() {
+    return mmap;
+  }
+
+  /**
+   * Set whether binary reads map the file into memory. Only files opened read-only can be mapped.
+   * The mapped bytes become the value of the byte array returned by read, and are only copied into
+   * the heap if a command needs them as an array. The file must not be truncated while a value read
+   * from it is in use.
+   *
+   * @param mmap true to map the file for binary reads
+   */
+  public void setMmap(boolean mmap) {
+    this.mmap = mmap;
+  }
+
+  @Override
+  long getRemainingInputBytes() {
+    if (file == null) {
+      return -1;
+    }
+    try {
+      return Math.max(file.length() - file.getFilePointer(), 0) + getNumBufferedInputBytes();
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  ByteBuffer mapInput(int numBytes) throws IOException {
+    if (!mmap
+        || file == null
+        || !isReadOnly()
+        || !blocking
+        || getInputEofChar() != 0
+        || getNumBufferedInputBytes() != 0) {
+      return null;
+    }
+    java.nio.channels.FileChannel fc = file.getChannel();
+    long position = fc.position();
+    long size = fc.size();
+    long count = Math.min(numBytes, size - position);
+    if (count <= 0) {
+      return null;
+    }
+    ByteBuffer buffer = fc.map(MapMode.READ_ONLY, position, count);
+    fc.position(position + count);
+    if (numBytes > count) {
+      eofSeen = true;
+    }
+    return buffer;
+  }
+
+  /**
+   * @return the NIO channel of the open file, used by Fcopy to copy without going through the
+   *     channel's streams, or null if the file is closed
+   */
+  java.nio.channels.FileChannel getFileChannel() {
+    return (file == null) ? null : file.getChannel();
+  }
+
   @Override
   protected InputStream getInputStream() throws IOException {
     if (file == null) throw new IOException("file has not been opened, or has been closed");
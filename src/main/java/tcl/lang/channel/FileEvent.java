@@ -101,8 +101,10 @@ public class FileEvent extends TclEvent {
     }
     if (type == READABLE && !channel.isReadable()) {
       try {
-        channel.fillInputBuffer();
-        requeueLater();
+        if (!channel.notifyWhenReady(type, this::requeue)) {
+          channel.fillInputBuffer();
+          requeueLater();
+        }
       } catch (IOException e) {
         new TclException(interp, e.getMessage());
         interp.backgroundError();
@@ -111,7 +113,13 @@ public class FileEvent extends TclEvent {
       return 1;
     }
     if (type == WRITABLE && !channel.isWritable()) {
-      requeueLater();
+      try {
+        if (!channel.notifyWhenReady(type, this::requeue)) {
+          requeueLater();
+        }
+      } catch (IOException e) {
+        requeueLater();
+      }
       return 1;
     }
 
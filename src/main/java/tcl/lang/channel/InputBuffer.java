@@ -49,14 +49,26 @@ class InputBuffer extends FilterInputStream {
   /** Set to true when a refill is requested */
   boolean requestRefill = false;
 
-  /** This thread refills the buffer */
-  Refiller refiller = null;
+  /** Object on which refills are requested and acknowledged */
+  private final Object refillLock = new Object();
 
-  /** Set to true when refiller should stop */
+  /** Thread that is performing a background refill, or null */
+  private Thread refillThread = null;
+
+  /** Exception caught during a background refill */
+  private IOException ioException = null;
+
+  /**
+   * If true, the underlying stream is a selectable channel that can tell whether it is ready
+   * without blocking; refills are then done in the reading thread instead of in the background.
+   */
+  private final boolean selectable;
+
+  /** Set to true when the buffer is closed */
   boolean closed = false;
 
   /**
-   * Construct a new InputBuffer in blocking mode
+   * Construct a new InputBuffer
    *
    * @param in underlying InputStream for the buffer
    * @param size initial size, in bytes. Can be 0.
@@ -67,15 +79,11 @@ class InputBuffer extends FilterInputStream {
   InputBuffer(EofInputFilter in, int size, int buffering, boolean blockingMode, Channel channel) {
     super(in);
     eofInputFilter = in;
-    setBuffering(buffering);
-    setBlockingMode(true);
-    setBufferSize(size);
+    this.buffering = buffering;
+    this.requestedBufferSize = size;
+    this.selectable = channel.isSelectable();
     setBlockingMode(blockingMode);
-    refiller = new Refiller();
     resizeBuffer();
-    refiller.setDaemon(true);
-    refiller.setName("InputBuffer Refiller: " + channel.getChanName());
-    refiller.start();
   }
 
   /**
@@ -104,12 +112,10 @@ class InputBuffer extends FilterInputStream {
    * @param size new requested size. If size < 0 it is set to 0.
    */
   void setBufferSize(int size) {
-    if (refiller == null) requestedBufferSize = size;
-    else
-      synchronized (getRefillerNotifier()) {
-        requestedBufferSize = size;
-        resizeBuffer();
-      }
+    synchronized (getRefillerNotifier()) {
+      requestedBufferSize = size;
+      resizeBuffer();
+    }
   }
 
   /**
@@ -118,13 +124,9 @@ class InputBuffer extends FilterInputStream {
    * @param buffering TclIO.BUFF_FULL, TclIO.BUFF_NONE or TclIO.BUFF_LINE
    */
   void setBuffering(int buffering) {
-    if (refiller == null) {
+    synchronized (getRefillerNotifier()) {
       this.buffering = buffering;
-    } else {
-      synchronized (getRefillerNotifier()) {
-        this.buffering = buffering;
-        resizeBuffer();
-      }
+      resizeBuffer();
     }
   }
 
@@ -152,12 +154,14 @@ class InputBuffer extends FilterInputStream {
     return eofSeen;
   }
 
-  /** Close the inputBuffer and kill the refiller */
+  /** Close the inputBuffer and interrupt any background refill */
   @Override
   public void close() throws IOException {
-    closed = true;
-    if (refiller != null) {
-      refiller.interrupt();
+    synchronized (getRefillerNotifier()) {
+      closed = true;
+      if (refillThread != null) {
+        refillThread.interrupt();
+      }
     }
     super.close();
   }
@@ -195,7 +199,7 @@ class InputBuffer extends FilterInputStream {
    * @return the object on which refills are requested and acknowledges
    */
   final Object getRefillerNotifier() {
-    return refiller;
+    return refillLock;
   }
 
   /**
@@ -207,22 +211,48 @@ class InputBuffer extends FilterInputStream {
       if (requestRefill || refillInProgress) {
         return true;
       } else {
-        refiller.throwIOExceptionIfCaught();
+        throwIOExceptionIfCaught();
         return false;
       }
     }
   }
 
   /**
-   * Request that the InputBuffer be refiiled.
+   * @throws IOException if there was an exception caught during a background refill
+   */
+  private void throwIOExceptionIfCaught() throws IOException {
+    synchronized (getRefillerNotifier()) {
+      if (ioException != null) {
+        IOException e = ioException;
+        ioException = null;
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Request that the InputBuffer be refiiled. The refill is performed by a ChannelExecutor thread,
+   * except for a selectable channel, whose buffer is refilled by the calling thread if wait is true
+   * and not at all otherwise (the Selector finds out when there is data to read).
    *
    * @param wait if true, this method does not return until the refill operation is complete
    * @throws IOException
    */
   void requestRefill(boolean wait) throws IOException {
+    if (selectable) {
+      if (wait) {
+        synchronized (getRefillerNotifier()) {
+          resizeBuffer();
+          refill();
+        }
+      }
+      return;
+    }
     synchronized (getRefillerNotifier()) {
-      requestRefill = true;
-      refiller.notifyAll();
+      if (!requestRefill && !refillInProgress) {
+        requestRefill = true;
+        ChannelExecutor.execute(this::backgroundRefill);
+      }
       if (wait) {
         while (isRefillInProgress()) {
           try {
@@ -251,7 +281,7 @@ class InputBuffer extends FilterInputStream {
         }
       }
       if (remaining() == 0) requestRefill(true);
-      else refiller.throwIOExceptionIfCaught();
+      else throwIOExceptionIfCaught();
       if (eofSeen) return -1;
       if (buffer.length == 0) {
         int c = super.read();
@@ -285,7 +315,7 @@ class InputBuffer extends FilterInputStream {
 
       if (eofSeen) return -1;
 
-      refiller.throwIOExceptionIfCaught();
+      throwIOExceptionIfCaught();
 
       if (remaining() == 0) {
 
@@ -294,9 +324,10 @@ class InputBuffer extends FilterInputStream {
          * available in the underlying stream? Don't try for line
          * buffering, because we don't want to accidently read past EOL.
          * And don't request any more than the Tcl buffer size, because
-         * that would confuse test cases
+         * that would confuse test cases. A selectable channel never has
+         * other readers, so line buffering doesn't matter there.
          */
-        if (buffering != TclIO.BUFF_LINE && super.available() > 0) {
+        if ((buffering != TclIO.BUFF_LINE || selectable) && super.available() > 0) {
 
           int directRequestSize = Math.min(len, super.available());
           if (requestedBufferSize > 0 && directRequestSize > requestedBufferSize)
@@ -338,110 +369,89 @@ class InputBuffer extends FilterInputStream {
     }
   }
 
-  /** Runs refill in the background */
-  private class Refiller extends Thread {
-    IOException ioException = null;
+  /** Performs a refill requested by requestRefill() on a ChannelExecutor thread */
+  private void backgroundRefill() {
+    synchronized (getRefillerNotifier()) {
+      if (closed) {
+        requestRefill = false;
+        getRefillerNotifier().notifyAll();
+        return;
+      }
+      ioException = null;
+      resizeBuffer();
+      refillInProgress = true;
+      refillThread = Thread.currentThread();
+    }
 
-    /**
-     * @throws IOException if there was an exception caught during refill
-     */
-    void throwIOExceptionIfCaught() throws IOException {
+    try {
+      refill();
+    } catch (IOException e) {
       synchronized (getRefillerNotifier()) {
-        if (ioException != null) {
-          IOException e = ioException;
-          ioException = null;
-          throw e;
-        }
+        ioException = e;
+      }
+    } finally {
+      synchronized (getRefillerNotifier()) {
+        refillThread = null;
+        refillInProgress = false;
+        requestRefill = false;
+        getRefillerNotifier().notifyAll();
       }
     }
+  }
 
-    /**
-     * Refill the buffer from the underlying input stream. Any data in the buffer is lost.
-     *
-     * @throws IOException
-     */
-    private void refill() throws IOException {
-      if (eofSeen) return;
-      if (remaining() > 0) return; // perhaps it was refilled in the background?
-
-      if (buffering == TclIO.BUFF_FULL || buffering == TclIO.BUFF_NONE) {
-        /*
-         * Get as many bytes as available in the underlying stream, up
-         * to buffer.length. But we must always get at least one
-         * character.
-         */
-        int readSize = Math.min(buffer.length, eofInputFilter.available());
-        if (readSize < 1) readSize = 1;
-
-        // keep the blocking read out of the synchronized section. The
-        // buffer is protected
-        // by refillInProgress
-        int cnt = eofInputFilter.read(buffer, 0, readSize);
-        synchronized (getRefillerNotifier()) {
-          if (cnt == -1) {
-            eofSeen = true;
-            position = 0;
-            limit = 0;
-            return;
-          } else {
-            position = 0;
-            limit = cnt;
-            return;
-          }
-        }
-      } else {
-        /* line buffering, look for first eolChar */
-        synchronized (getRefillerNotifier()) {
+  /**
+   * Refill the buffer from the underlying input stream. Any data in the buffer is lost.
+   *
+   * @throws IOException
+   */
+  private void refill() throws IOException {
+    if (eofSeen) return;
+    if (remaining() > 0) return; // perhaps it was refilled in the background?
+
+    if (buffering == TclIO.BUFF_FULL || buffering == TclIO.BUFF_NONE) {
+      /*
+       * Get as many bytes as available in the underlying stream, up
+       * to buffer.length. But we must always get at least one
+       * character.
+       */
+      int readSize = Math.min(buffer.length, eofInputFilter.available());
+      if (readSize < 1) readSize = 1;
+
+      // keep the blocking read out of the synchronized section. The
+      // buffer is protected
+      // by refillInProgress
+      int cnt = eofInputFilter.read(buffer, 0, readSize);
+      synchronized (getRefillerNotifier()) {
+        if (cnt == -1) {
+          eofSeen = true;
+          position = 0;
           limit = 0;
+          return;
+        } else {
           position = 0;
-        }
-        while (true) {
-          /* don't put blocking read in synchronized section */
-          int c = eofInputFilter.read();
-          synchronized (getRefillerNotifier()) {
-            if (c == -1) {
-              if (limit == 0) eofSeen = true;
-              return;
-            }
-            buffer[limit++] = (byte) (c & 0xFF);
-            if (c == eolChar || limit >= buffer.length) {
-              return;
-            }
-          }
+          limit = cnt;
+          return;
         }
       }
-    }
-
-    @Override
-    public void run() {
-      ioException = null;
-
-      while (!closed) {
+    } else {
+      /* line buffering, look for first eolChar */
+      synchronized (getRefillerNotifier()) {
+        limit = 0;
+        position = 0;
+      }
+      while (true) {
+        /* don't put blocking read in synchronized section */
+        int c = eofInputFilter.read();
         synchronized (getRefillerNotifier()) {
-          while (!closed && !requestRefill) {
-            try {
-              getRefillerNotifier().wait();
-            } catch (InterruptedException e) {
-              return;
-            }
+          if (c == -1) {
+            if (limit == 0) eofSeen = true;
+            return;
           }
-          ioException = null;
-          resizeBuffer();
-          refillInProgress = true;
-        }
-
-        try {
-          refill();
-        } catch (IOException e) {
-          synchronized (getRefillerNotifier()) {
-            ioException = e;
+          buffer[limit++] = (byte) (c & 0xFF);
+          if (c == eolChar || limit >= buffer.length) {
+            return;
           }
         }
-        synchronized (getRefillerNotifier()) {
-          refillInProgress = false;
-          requestRefill = false;
-          getRefillerNotifier().notifyAll();
-        }
       }
     }
   }
@@ -18,16 +18,16 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
   /** Queue of writes to occur in background */
   private ConcurrentLinkedQueue<Transaction> queue;
 
-  /** Thread that empties the queue */
-  private Thread bkgndWriter = null;
+  /** True while a thread is emptying the queue */
+  private boolean draining = false;
 
-  /** Notifier between main thread and bkgndWriter thread */
+  /** Notifier between the writing thread and the thread that empties the queue */
   private Object notifier = new Object();
 
   /** The channel that this stream serves */
   private Channel channel = null;
 
-  /** Exception from writer thread */
+  /** Exception from the thread that empties the queue */
   private volatile IOException ioException = null;
 
   /** Set to true when the channel is closed */
@@ -45,16 +45,6 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
     setBlocking(blocking);
     this.channel = channel;
     queue = new ConcurrentLinkedQueue<Transaction>();
-
-    /*
-     * The bkgndWriter thread reads the queue in both blocking and non-blocking mode.
-     * Using the thread all the time avoids race conditions when switching between blocked
-     * and non-blocked mode on the channel.
-     */
-    bkgndWriter = new Thread(this);
-    bkgndWriter.setDaemon(true);
-    bkgndWriter.setName("NonBlockingOutputStream: " + channel.getChanName());
-    bkgndWriter.start();
   }
 
   /**
@@ -71,13 +61,7 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
    */
   @Override
   public void flush() throws IOException {
-    synchronized (notifier) {
-      checkClosed();
-      queue.offer(new Transaction(Transaction.Flush));
-      notifier.notifyAll();
-    }
-    if (blocking) waitForEmptyQueue();
-    throwExceptionIfCaught();
+    submit(new Transaction(Transaction.Flush));
   }
 
   /**
@@ -93,19 +77,13 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
    */
   @Override
   public void write(byte[] b, int off, int len) throws IOException {
-    synchronized (notifier) {
-      checkClosed();
-      if (blocking) {
-        queue.offer(new Transaction(b, off, len));
-      } else {
-        byte[] copy = new byte[len];
-        System.arraycopy(b, off, copy, 0, len);
-        queue.offer(new Transaction(copy, 0, len));
-      }
-      notifier.notifyAll();
+    if (blocking) {
+      submit(new Transaction(b, off, len));
+    } else {
+      byte[] copy = new byte[len];
+      System.arraycopy(b, off, copy, 0, len);
+      submit(new Transaction(copy, 0, len));
     }
-    if (blocking) waitForEmptyQueue();
-    throwExceptionIfCaught();
   }
 
   /**
@@ -118,13 +96,7 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
    * @throws IOException
    */
   void writeAssumingExclusiveBufferUse(byte[] b, int off, int len) throws IOException {
-    synchronized (notifier) {
-      checkClosed();
-      queue.offer(new Transaction(b, off, len));
-      notifier.notifyAll();
-    }
-    if (blocking) waitForEmptyQueue();
-    throwExceptionIfCaught();
+    submit(new Transaction(b, off, len));
   }
 
   /*
@@ -146,12 +118,35 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
    */
   @Override
   public void close() throws IOException {
+    submit(new Transaction(Transaction.Close));
+  }
+
+  /**
+   * Queue a transaction. If no thread is emptying the queue, the queue is emptied by this thread in
+   * blocking mode, or by a ChannelExecutor thread in non-blocking mode. Queuing every transaction,
+   * even in blocking mode, keeps the transactions in order when the channel is switched between
+   * blocking and non-blocking mode.
+   *
+   * @param transaction the write, flush or close to perform
+   * @throws IOException
+   */
+  private void submit(Transaction transaction) throws IOException {
+    boolean drainHere = false;
     synchronized (notifier) {
       checkClosed();
-      queue.offer(new Transaction(Transaction.Close));
-      notifier.notifyAll();
+      queue.offer(transaction);
+      if (!draining) {
+        draining = true;
+        if (blocking) {
+          drainHere = true;
+        } else {
+          ChannelExecutor.execute(this);
+        }
+      }
     }
-    if (blocking) {
+    if (drainHere) {
+      run();
+    } else if (blocking) {
       waitForEmptyQueue();
     }
     throwExceptionIfCaught();
@@ -196,8 +191,8 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
   }
 
   /**
-   * Runs as the background writer thread; writes data placed in the queue in both blocking and
-   * non-blocking mode.
+   * Empties the queue, performing each transaction in turn. Runs in the writing thread in blocking
+   * mode, or as a ChannelExecutor task in non-blocking mode.
    *
    * @see java.lang.Runnable#run()
    */
@@ -210,13 +205,9 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
         transaction = queue.peek();
 
         if (transaction == null) {
-          try {
-            notifier.wait();
-          } catch (InterruptedException e) {
-            closed = true;
-            return;
-          }
-          continue;
+          draining = false;
+          notifier.notifyAll();
+          return;
         }
       }
 
@@ -232,6 +223,7 @@ class NonBlockingOutputStream extends FilterOutputStream implements Runnable {
           closed = true;
           channel = null;
           queue.clear();
+          draining = false;
           notifier.notifyAll();
           return;
         }
@@ -8,13 +8,14 @@ package tcl.lang.channel;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 import java.net.UnknownHostException;
+import java.nio.channels.SelectionKey;
+import java.util.HashSet;
+import java.util.Set;
 import tcl.lang.Interp;
 import tcl.lang.TCL;
 import tcl.lang.TclIO;
@@ -25,12 +26,15 @@ import tcl.lang.model.TclString;
 
 /**
  * The ServerSocketChannel class implements a channel object for ServerSocket connections, created
- * using the socket -server command.
+ * using the socket -server command. New connections are accepted by the SocketSelector thread.
  */
 public final class ServerSocketChannel extends AbstractSocketChannel {
 
-  /** The java ServerSocket object associated with this Channel. */
-  private ServerSocket sock;
+  /** The java.nio ServerSocketChannel object associated with this Channel. */
+  private final java.nio.channels.ServerSocketChannel sock;
+
+  /** The selector that waits for connections. */
+  private final SocketSelector selector;
 
   /** The interpreter to evaluate the callback in, when a connection is made. */
   private Interp cbInterp;
@@ -38,12 +42,16 @@ public final class ServerSocketChannel extends AbstractSocketChannel {
   /** The script to evaluate in the interpreter. */
   private TclObject callback;
 
-  /** The thread which listens for new connections. */
-  private AcceptThread acceptThread;
+  /**
+   * Connections that have been accepted, but not yet handed to the callback. They are reset when
+   * the server socket is closed, as connections still in the listen backlog would be.
+   */
+  private final Set<java.nio.channels.SocketChannel> pending = new HashSet<>();
 
   /**
    * Creates a new ServerSocketChannel object with the given options. Creates an underlying
-   * ServerSocket object, and a thread to handle connections to the socket.
+   * ServerSocketChannel object, and registers it with the SocketSelector to handle connections to
+   * the socket.
    *
    * @param interp the current interpreter
    * @param localAddr the IP address to bind to, or an empty string
@@ -63,51 +71,105 @@ public final class ServerSocketChannel extends AbstractSocketChannel {
       }
     }
     this.mode = TclIO.CREAT; // Allow no reading or writing on channel
-    this.callback = callback;
-    this.callback.preserve();
-    this.cbInterp = interp;
 
     // Create the server socket.
+    java.nio.channels.ServerSocketChannel s = null;
     try {
-      if (localAddress == null) sock = new ServerSocket(port);
-      else sock = new ServerSocket(port, 0, localAddress);
+      s = java.nio.channels.ServerSocketChannel.open();
+      s.bind(new InetSocketAddress(localAddress, port));
+      s.configureBlocking(false);
+      selector = SocketSelector.getInstance();
     } catch (IOException ex) {
+      if (s != null) {
+        try {
+          s.close();
+        } catch (IOException e) {
+        }
+      }
       throw new TclException(interp, "couldn't open socket: " + ex.getMessage().toLowerCase());
     }
+    sock = s;
 
-    acceptThread = new AcceptThread(sock, this);
+    this.callback = callback;
+    this.callback.preserve();
+    this.cbInterp = interp;
 
     setChanName(TclIO.getNextDescriptor(interp, "sock"));
-    acceptThread.setDaemon(true);
-    acceptThread.setName(
-        "ServerSocketChannel ("
-            + interp.toString()
-            + "): "
-            + getChanName()
-            + " "
-            + localAddr
-            + ":"
-            + port);
-    acceptThread.start();
+    selector.register(sock, SelectionKey.OP_ACCEPT, this::acceptConnections);
+  }
+
+  /** Called by the selector when connections are waiting to be accepted */
+  private void acceptConnections() {
+    try {
+      java.nio.channels.SocketChannel s;
+      while ((s = sock.accept()) != null) {
+        addConnection(s);
+      }
+    } catch (IOException e) {
+      // Socket closed, or out of resources for now
+    }
+    if (sock.isOpen()) {
+      selector.register(sock, SelectionKey.OP_ACCEPT, this::acceptConnections);
+    }
   }
 
   /**
-   * Add an event to the TclEvent queue to process a new socket connection
+   * Add an event to the TclEvent queue to process a new socket connection. Not synchronized on the
+   * channel: it is called on the selector thread, which close() waits for while holding the
+   * channel's lock.
    *
    * @param s the new socket returned from accept()
    */
-  synchronized void addConnection(Socket s) {
-    SocketConnectionEvent evt = new SocketConnectionEvent(cbInterp, callback, s, this.sock);
+  void addConnection(java.nio.channels.SocketChannel s) {
+    synchronized (pending) {
+      if (!sock.isOpen()) {
+        reset(s);
+        return;
+      }
+      pending.add(s);
+    }
+    SocketConnectionEvent evt = new SocketConnectionEvent(cbInterp, callback, s, this);
     cbInterp.getNotifier().queueEvent(evt, TCL.QUEUE_TAIL);
   }
 
+  /**
+   * Called by a SocketConnectionEvent before it hands a connection to the callback.
+   *
+   * @param s a socket passed to addConnection()
+   * @return true if the connection is still open, false if it was reset by closing this channel
+   */
+  boolean claimConnection(java.nio.channels.SocketChannel s) {
+    synchronized (pending) {
+      return pending.remove(s);
+    }
+  }
+
+  /** Close a connection with a reset, so that the client sees an error on its next write */
+  private static void reset(java.nio.channels.SocketChannel s) {
+    try {
+      s.setOption(StandardSocketOptions.SO_LINGER, 0);
+    } catch (IOException e) {
+      // close anyway
+    }
+    try {
+      s.close();
+    } catch (IOException e) {
+    }
+  }
+
   /* (non-Javadoc)
    * @see tcl.lang.channel.Channel#implClose()
    */
   @Override
   void implClose() throws IOException {
-    acceptThread.pleaseStop();
+    selector.cancel(sock);
     sock.close();
+    synchronized (pending) {
+      for (java.nio.channels.SocketChannel s : pending) {
+        reset(s);
+      }
+      pending.clear();
+    }
     callback.release();
   }
 
@@ -136,12 +198,12 @@ public final class ServerSocketChannel extends AbstractSocketChannel {
 
   @Override
   InetAddress getLocalAddress() {
-    return sock.getInetAddress();
+    return sock.socket().getInetAddress();
   }
 
   @Override
   int getLocalPort() {
-    return sock.getLocalPort();
+    return sock.socket().getLocalPort();
   }
 
   @Override
@@ -154,58 +216,3 @@ public final class ServerSocketChannel extends AbstractSocketChannel {
     return 0; // not supported
   }
 }
-
-/** Thread that accepts connections on the ServerSocket */
-class AcceptThread extends Thread {
-
-  /** The ServerSocket accepting connections */
-  private ServerSocket sock;
-
-  /** The Tcl Channel associated with the socket */
-  private ServerSocketChannel sschan;
-
-  /** Set to false when channel is shut down */
-  volatile boolean keepRunning;
-
-  public AcceptThread(ServerSocket s1, ServerSocketChannel s2) {
-    sock = s1;
-
-    // Every 10 seconds, we check to see if this socket has been closed:
-    try {
-      sock.setSoTimeout(10000);
-    } catch (SocketException e) {
-    }
-
-    sschan = s2;
-    keepRunning = true;
-  }
-
-  @Override
-  public void run() {
-    try {
-      while (keepRunning) {
-        Socket s = null;
-        try {
-          s = sock.accept();
-        } catch (InterruptedIOException ex) {
-          // Timeout
-          continue;
-        } catch (IOException ex) {
-          // Socket closed
-          break;
-        }
-        // Get a connection
-        sschan.addConnection(s);
-      }
-    } catch (Exception e) {
-      // Something went wrong.
-      e.printStackTrace();
-    }
-  }
-
-  /** Request that this thread stop accepting connections */
-  public void pleaseStop() {
-    keepRunning = false;
-    interrupt();
-  }
-}
@@ -9,8 +9,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.List;
 import tcl.lang.Interp;
 import tcl.lang.TclIO;
 import tcl.lang.exception.TclException;
@@ -20,23 +24,30 @@ import tcl.lang.model.TclString;
 /**
  * The SocketChannel class implements a channel object for Socket connections, created using the
  * socket command.
+ *
+ * <p>The socket is a java.nio SocketChannel that is always in non-blocking mode. Whenever a read,
+ * write or asynchronous connect can't complete immediately, the SocketSelector is used to wait for
+ * the socket to become ready, so no thread is dedicated to the socket.
  */
 public final class SocketChannel extends AbstractSocketChannel {
 
-  /** The java Socket object associated with this Channel */
-  private Socket sock = null;
+  /** Size of the buffer holding bytes read from the socket but not yet returned */
+  private static final int READ_AHEAD_SIZE = 8192;
+
+  /** The java.nio SocketChannel object associated with this Channel */
+  private final java.nio.channels.SocketChannel sock;
+
+  /** The selector that waits for the socket to be ready */
+  private final SocketSelector selector;
 
   /** Indicates an error during the connection */
   private IOException connectException = null;
 
-  /** Thread responsible for connecting socket asynchronously */
-  private Thread asyncConnectThread = null;
-
-  /** Local address, or null if any address can be used */
-  InetAddress localAddress = null;
+  /** True while an asynchronous connect is in progress */
+  private boolean connecting = false;
 
-  /** address to connect to */
-  InetAddress addr = null;
+  /** Handlers to run when the asynchronous connect completes */
+  private List<Runnable> connectWaiters = null;
 
   /** The input stream returned to the Channel */
   InputStream istream = null;
@@ -45,7 +56,7 @@ public final class SocketChannel extends AbstractSocketChannel {
   OutputStream ostream = null;
 
   /** Notifies that async connection has been made */
-  Object asyncNotifier = new Object();
+  private final Object asyncNotifier = new Object();
 
   /**
    * Constructor - creates a new SocketChannel object with the given options.
@@ -69,6 +80,9 @@ public final class SocketChannel extends AbstractSocketChannel {
       final int port)
       throws IOException, TclException {
 
+    InetAddress localAddress = null;
+    InetAddress addr;
+
     // Resolve addresses
     if (!localAddr.equals("")) {
       try {
@@ -87,18 +101,24 @@ public final class SocketChannel extends AbstractSocketChannel {
     // Set the mode of this socket.
     this.mode = mode;
 
-    // Create the Socket object
-    if (async) {
-      asyncConnectThread = new Thread(() -> connectSocket(addr, port, localAddress, localPort));
-      asyncConnectThread.setDaemon(true);
-      asyncConnectThread.setName(
-          "SocketChannel (" + interp.toString() + "): " + address + ":" + port);
-      asyncConnectThread.start();
-    } else {
-      connectSocket(addr, port, localAddress, localPort);
-      if (connectException != null) {
-        throw connectException;
+    selector = SocketSelector.getInstance();
+
+    // Create the socket and connect it
+    sock = java.nio.channels.SocketChannel.open();
+    try {
+      if (localAddress != null || localPort != 0) {
+        sock.bind(new InetSocketAddress(localAddress, localPort));
+      }
+      if (async) {
+        sock.configureBlocking(false);
+        connectAsync(new InetSocketAddress(addr, port));
+      } else {
+        sock.connect(new InetSocketAddress(addr, port));
+        sock.configureBlocking(false);
       }
+    } catch (IOException e) {
+      sock.close();
+      throw e;
     }
 
     // If we got this far, then the socket has been created.
@@ -112,35 +132,55 @@ public final class SocketChannel extends AbstractSocketChannel {
    * @param interp the current interpreter
    * @param s A connected socket from which to create a channel
    */
-  public SocketChannel(Interp interp, Socket s) throws IOException, TclException {
+  public SocketChannel(Interp interp, java.nio.channels.SocketChannel s)
+      throws IOException, TclException {
     this.mode = TclIO.RDWR;
     this.sock = s;
+    this.selector = SocketSelector.getInstance();
+    sock.configureBlocking(false);
 
     setChanName(TclIO.getNextDescriptor(interp, "sock"));
   }
 
   /**
-   * Create the 'sock' field and connect the Socket
+   * Start connecting the socket, and have the selector finish the connection when it completes.
+   * Errors are recorded in connectException.
    *
-   * @param addr Address to connect to
-   * @param port Port to connect to
-   * @param localAddress Local address to bind, or null for default
-   * @param localPort Local port to bind to, or 0 for any port
-   * @throws IOException
+   * @param remote the address to connect to
    */
-  protected void connectSocket(
-      InetAddress addr, int port, InetAddress localAddress, int localPort) {
-    Socket s;
-    try {
-      s = new Socket(addr, port, localAddress, localPort);
-      synchronized (asyncNotifier) {
-        sock = s;
-        asyncNotifier.notifyAll();
+  private void connectAsync(InetSocketAddress remote) {
+    synchronized (asyncNotifier) {
+      try {
+        if (!sock.connect(remote)) {
+          connecting = true;
+          selector.register(sock, SelectionKey.OP_CONNECT, this::finishConnect);
+        }
+      } catch (IOException e) {
+        connectException = e;
       }
-    } catch (IOException e) {
-      synchronized (this) {
+    }
+  }
+
+  /** Called by the selector when an asynchronous connect has completed, or failed */
+  private void finishConnect() {
+    List<Runnable> waiters;
+    synchronized (asyncNotifier) {
+      try {
+        if (!sock.finishConnect()) {
+          selector.register(sock, SelectionKey.OP_CONNECT, this::finishConnect);
+          return;
+        }
+      } catch (IOException e) {
         connectException = e;
-        this.notifyAll();
+      }
+      connecting = false;
+      waiters = connectWaiters;
+      connectWaiters = null;
+      asyncNotifier.notifyAll();
+    }
+    if (waiters != null) {
+      for (Runnable waiter : waiters) {
+        waiter.run();
       }
     }
   }
@@ -150,9 +190,8 @@ public final class SocketChannel extends AbstractSocketChannel {
    * already made.
    */
   private void waitForConnection() {
-    if (asyncConnectThread == null) return; // synchronous connection
     synchronized (asyncNotifier) {
-      while (sock == null && connectException == null) {
+      while (connecting) {
         try {
           asyncNotifier.wait();
         } catch (InterruptedException e) {
@@ -162,6 +201,18 @@ public final class SocketChannel extends AbstractSocketChannel {
     }
   }
 
+  /**
+   * Wait for the connection, and throw the exception if it failed
+   *
+   * @throws IOException
+   */
+  private void checkConnection() throws IOException {
+    waitForConnection();
+    synchronized (asyncNotifier) {
+      if (connectException != null) throw connectException;
+    }
+  }
+
   /*
    * (non-Javadoc)
    *
@@ -169,65 +220,103 @@ public final class SocketChannel extends AbstractSocketChannel {
    */
   @Override
   void implClose() throws IOException {
+    List<Runnable> waiters;
     synchronized (asyncNotifier) {
-      if (asyncConnectThread != null) asyncConnectThread.interrupt();
-      if (sock != null) sock.close();
+      connecting = false;
+      waiters = connectWaiters;
+      connectWaiters = null;
+      asyncNotifier.notifyAll();
+    }
+    selector.cancel(sock);
+    sock.close();
+    if (waiters != null) {
+      for (Runnable waiter : waiters) {
+        waiter.run();
+      }
     }
   }
 
   @Override
-  protected InputStream getInputStream() throws IOException {
-    /*
-     * Wrap sock.getInputStream() in a stream that waits for async
-     * connection to be made
-     */
-    if (istream == null) {
-      istream =
-          new InputStream() {
+  boolean isSelectable() {
+    return true;
+  }
 
-            @Override
-            public int read() throws IOException {
-              waitForConnection();
-              if (sock != null) return sock.getInputStream().read();
-              else if (connectException != null) throw connectException;
-              else throw new IOException("socket is null");
-            }
+  /** A socket is not writable until an asynchronous connect has completed */
+  @Override
+  boolean isWritable() {
+    synchronized (asyncNotifier) {
+      if (connecting) return false;
+    }
+    return super.isWritable();
+  }
 
-            /*
-             * (non-Javadoc)
-             *
-             * @see java.io.InputStream#read(byte[], int, int)
-             */
-            @Override
-            public int read(byte[] b, int off, int len) throws IOException {
-              waitForConnection();
-              if (sock != null) return sock.getInputStream().read(b, off, len);
-              else if (connectException != null) throw connectException;
-              else throw new IOException("socket is null");
-            }
+  @Override
+  boolean notifyWhenReady(int type, Runnable handler) throws IOException {
+    synchronized (asyncNotifier) {
+      if (connecting) {
+        if (connectWaiters == null) connectWaiters = new ArrayList<>();
+        connectWaiters.add(handler);
+        return true;
+      }
+    }
+    if (type == FileEvent.READABLE && !isClosed()) {
+      initInput();
+      selector.register(sock, SelectionKey.OP_READ, handler);
+      return true;
+    }
+    return false;
+  }
 
-            /*
-             * (non-Javadoc)
-             *
-             * @see java.io.InputStream#available()
-             */
-            @Override
-            public int available() throws IOException {
-              synchronized (asyncNotifier) {
-                if (sock == null) return 0;
-                else return sock.getInputStream().available();
-              }
-            }
-          };
+  @Override
+  protected InputStream getInputStream() throws IOException {
+    if (istream == null) {
+      istream = new SocketInputStream();
     }
     return istream;
   }
 
+  /**
+   * Write a region of a file to the socket, for Fcopy. FileChannel.transferTo() lets the operating
+   * system send the file without copying it through the heap.
+   *
+   * @param in the file to send
+   * @param position offset in the file of the first byte to send
+   * @param count number of bytes to send, which must not go past the end of the file
+   * @return the number of bytes written
+   * @throws IOException
+   */
+  long transferFrom(java.nio.channels.FileChannel in, long position, long count)
+      throws IOException {
+    checkConnection();
+    long written = 0;
+    while (written < count && !isClosed()) {
+      long cnt = in.transferTo(position + written, count - written, sock);
+      if (cnt == 0) {
+        selector.await(sock, SelectionKey.OP_WRITE);
+      }
+      written += cnt;
+    }
+    return written;
+  }
+
+  /**
+   * Read from the socket straight into a file, for Fcopy. Bytes already read ahead by the socket's
+   * input stream are written first.
+   *
+   * @param out the file to write to, at its current position
+   * @param max maximum number of bytes to transfer
+   * @return the number of bytes written, or -1 at EOF
+   * @throws IOException
+   */
+  long transferTo(java.nio.channels.FileChannel out, long max) throws IOException {
+    return ((SocketInputStream) getInputStream()).transferTo(out, max);
+  }
+
   @Override
   protected OutputStream getOutputStream() throws IOException {
     /*
-     * Wrap sock.getOutputStream() in a stream that waits for async
-     * connection to be made
+     * Wrap the socket in a stream that waits for async connection to be
+     * made, and for the socket to be writable
      */
     if (ostream == null) {
       ostream =
@@ -235,10 +324,7 @@ public final class SocketChannel extends AbstractSocketChannel {
 
             @Override
             public void write(int b) throws IOException {
-              waitForConnection();
-              if (sock != null) sock.getOutputStream().write(b);
-              else if (connectException != null) throw connectException;
-              else throw new IOException("socket is null");
+              write(new byte[] {(byte) b}, 0, 1);
             }
 
             /*
@@ -248,10 +334,7 @@ public final class SocketChannel extends AbstractSocketChannel {
              */
             @Override
             public void flush() throws IOException {
-              waitForConnection();
-              if (sock != null) sock.getOutputStream().flush();
-              else if (connectException != null) throw connectException;
-              else throw new IOException("socket is null");
+              checkConnection();
             }
 
             /*
@@ -261,19 +344,126 @@ public final class SocketChannel extends AbstractSocketChannel {
              */
             @Override
             public void write(byte[] b, int off, int len) throws IOException {
-              waitForConnection();
-              if (sock != null) sock.getOutputStream().write(b, off, len);
-              else if (connectException != null) throw connectException;
-              else throw new IOException("socket is null");
+              checkConnection();
+              ByteBuffer src = ByteBuffer.wrap(b, off, len);
+              while (src.hasRemaining()) {
+                if (sock.write(src) == 0) {
+                  selector.await(sock, SelectionKey.OP_WRITE);
+                }
+              }
             }
           };
     }
     return ostream;
   }
 
+  /**
+   * Reads from the non-blocking socket, waiting for it with the selector when no bytes are
+   * available. available() reads ahead whatever the socket has without blocking, so that the
+   * InputBuffer can tell whether a read would block, and whether end of file has been reached.
+   */
+  private final class SocketInputStream extends InputStream {
+
+    /** Bytes read ahead from the socket; between position and limit */
+    private final ByteBuffer readAhead = ByteBuffer.allocate(READ_AHEAD_SIZE).limit(0);
+
+    /** Set when the socket reported end of file */
+    private boolean eof = false;
+
+    /** Set when end of file has been returned by read() */
+    private boolean eofReturned = false;
+
+    /**
+     * Read whatever the socket has into readAhead, without blocking
+     *
+     * @return number of bytes read, or -1 at end of file
+     */
+    private int fill() throws IOException {
+      readAhead.compact();
+      int cnt;
+      try {
+        cnt = sock.read(readAhead);
+      } finally {
+        readAhead.flip();
+      }
+      if (cnt == -1) eof = true;
+      return cnt;
+    }
+
+    long transferTo(java.nio.channels.FileChannel out, long max) throws IOException {
+      checkConnection();
+      while (!readAhead.hasRemaining()) {
+        if (eof) {
+          eofReturned = true;
+          return -1;
+        }
+        if (fill() == 0) {
+          selector.await(sock, SelectionKey.OP_READ);
+        }
+      }
+      int cnt = (int) Math.min(max, readAhead.remaining());
+      ByteBuffer chunk = readAhead.slice(readAhead.position(), cnt);
+      while (chunk.hasRemaining()) {
+        out.write(chunk);
+      }
+      readAhead.position(readAhead.position() + cnt);
+      return cnt;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int cnt = read(b, 0, 1);
+      return (cnt == -1) ? -1 : (b[0] & 0xff);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.io.InputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) return 0;
+      checkConnection();
+      while (!readAhead.hasRemaining()) {
+        if (eof) {
+          eofReturned = true;
+          return -1;
+        }
+        if (fill() == 0) {
+          selector.await(sock, SelectionKey.OP_READ);
+        }
+      }
+      int cnt = Math.min(len, readAhead.remaining());
+      readAhead.get(b, off, cnt);
+      return cnt;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.io.InputStream#available()
+     */
+    @Override
+    public int available() throws IOException {
+      synchronized (asyncNotifier) {
+        if (connecting) return 0;
+        // let a reader find out about the failure
+        if (connectException != null) return 1;
+      }
+      if (!readAhead.hasRemaining() && !eof) {
+        fill();
+      }
+      if (readAhead.hasRemaining()) return readAhead.remaining();
+      // let a reader find out about end of file
+      return (eof && !eofReturned) ? 1 : 0;
+    }
+  }
+
   @Override
   public TclObject getError(Interp interp) throws TclException {
-    synchronized (this) {
+    synchronized (asyncNotifier) {
       return TclString.newInstance(connectException == null ? "" : connectException.getMessage());
     }
   }
@@ -281,24 +471,24 @@ public final class SocketChannel extends AbstractSocketChannel {
   @Override
   InetAddress getLocalAddress() {
     waitForConnection();
-    return (sock == null ? null : sock.getLocalAddress());
+    return sock.socket().getLocalAddress();
   }
 
   @Override
   int getLocalPort() {
     waitForConnection();
-    return (sock == null ? null : sock.getLocalPort());
+    return sock.socket().getLocalPort();
   }
 
   @Override
   InetAddress getPeerAddress() {
     waitForConnection();
-    return sock.getInetAddress();
+    return sock.socket().getInetAddress();
   }
 
   @Override
   int getPeerPort() {
     waitForConnection();
-    return sock.getPort();
+    return sock.socket().getPort();
   }
 }
@@ -7,8 +7,6 @@
 package tcl.lang.channel;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
 import tcl.lang.Interp;
 import tcl.lang.TCL;
 import tcl.lang.TclEvent;
@@ -21,8 +19,8 @@ public class SocketConnectionEvent extends TclEvent {
 
   Interp cbInterp;
   TclObject callbackCmd;
-  Socket sock;
-  ServerSocket serverSock;
+  java.nio.channels.SocketChannel sock;
+  ServerSocketChannel serverSock;
 
   /**
    * Create a new event to process a new socket connection
@@ -30,10 +28,13 @@ public class SocketConnectionEvent extends TclEvent {
    * @param interp The interpreter in which the connection was made
    * @param callbackObj Callback provided to 'socket -server'
    * @param sock The new Java socket that was accepted
-   * @param serverSock The Java ServerSocket that created sock
+   * @param serverSock The ServerSocketChannel that accepted sock
    */
   public SocketConnectionEvent(
-      Interp interp, TclObject callbackObj, Socket sock, ServerSocket serverSock) {
+      Interp interp,
+      TclObject callbackObj,
+      java.nio.channels.SocketChannel sock,
+      ServerSocketChannel serverSock) {
     this.cbInterp = interp;
     this.callbackCmd = callbackObj;
     this.sock = sock;
@@ -42,14 +43,10 @@ public class SocketConnectionEvent extends TclEvent {
 
   public int processEvent(int flags) {
     /*
-     *  If the server socket was closed before we got around to this socket, just close this socket.
-     * This emulates Tcl's behavior of not making connections outside of event loop
+     *  If the server socket was closed before we got around to this socket, it has already reset
+     * this socket. This emulates Tcl's behavior of not making connections outside of event loop
      */
-    if (serverSock.isClosed()) {
-      try {
-        sock.close();
-      } catch (IOException e) {
-      }
+    if (!serverSock.claimConnection(sock)) {
       return 1;
     }
 
@@ -72,9 +69,9 @@ public class SocketConnectionEvent extends TclEvent {
     cblist.append(" ");
     cblist.append(chan.getChanName());
     cblist.append(" ");
-    cblist.append("" + sock.getInetAddress().getHostAddress());
+    cblist.append("" + sock.socket().getInetAddress().getHostAddress());
     cblist.append(" ");
-    cblist.append("" + sock.getPort());
+    cblist.append("" + sock.socket().getPort());
 
     // Process the event
     try {
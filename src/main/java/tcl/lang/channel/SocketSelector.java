@@ -0,0 +1,273 @@
+/*
+ * SocketSelector.java
+ *
+ *	This file implements the thread that waits for socket channels
+ *	to become ready for I/O.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang.channel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A single daemon thread that waits on a java.nio Selector for all the socket channels in the JVM,
+ * so that server sockets, asynchronous connects, blocking socket reads and writes and 'fileevent'
+ * scripts on sockets don't need a thread of their own.
+ *
+ * <p>Interest in an operation is registered with a handler, which is run once, on the selector
+ * thread, the next time the channel is ready for the operation. A handler must not block; it
+ * normally queues a TclEvent or wakes up a waiting thread. The channel must be in non-blocking
+ * mode.
+ */
+final class SocketSelector implements Runnable {
+
+  /** The operations a handler can be registered for, in the order of the handlers array. */
+  private static final int[] OPS = {
+    SelectionKey.OP_ACCEPT, SelectionKey.OP_CONNECT, SelectionKey.OP_READ, SelectionKey.OP_WRITE
+  };
+
+  private static SocketSelector instance = null;
+
+  private final Selector selector;
+
+  private final Thread thread;
+
+  /** Registrations and cancellations waiting to be performed by the selector thread */
+  private final ConcurrentLinkedQueue<Request> requests = new ConcurrentLinkedQueue<>();
+
+  private SocketSelector() throws IOException {
+    selector = Selector.open();
+    thread = new Thread(this);
+    thread.setDaemon(true);
+    thread.setName("SocketSelector");
+    thread.start();
+  }
+
+  /**
+   * @return the selector shared by all socket channels, which is created on first use
+   * @throws IOException if the Selector cannot be opened
+   */
+  static synchronized SocketSelector getInstance() throws IOException {
+    if (instance == null) {
+      instance = new SocketSelector();
+    }
+    return instance;
+  }
+
+  /**
+   * Run a handler once, the next time a channel is ready for an operation. If a handler is already
+   * registered for the same channel and operation, it is replaced.
+   *
+   * @param channel a channel in non-blocking mode
+   * @param op one of the SelectionKey.OP_* operations
+   * @param handler run on the selector thread when the channel is ready, or when the registration
+   *     is cancelled
+   */
+  void register(SelectableChannel channel, int op, Runnable handler) {
+    requests.offer(new Request(channel, op, handler));
+    selector.wakeup();
+  }
+
+  /**
+   * Stop selecting on a channel. All the handlers registered for the channel are run, so that
+   * threads waiting for the channel wake up and notice that it was closed. This method returns once
+   * the channel has been deregistered from the selector, so that closing the channel closes the
+   * underlying socket immediately.
+   *
+   * @param channel channel to remove from the selector
+   */
+  void cancel(SelectableChannel channel) {
+    if (channel.keyFor(selector) == null) {
+      return;
+    }
+    CountDownLatch done = new CountDownLatch(1);
+    requests.offer(new Request(channel, 0, done::countDown));
+    selector.wakeup();
+    if (Thread.currentThread() == thread) {
+      return;
+    }
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Block the current thread until a channel is ready for an operation, or until the channel is
+   * cancelled or closed.
+   *
+   * @param channel a channel in non-blocking mode
+   * @param op one of the SelectionKey.OP_* operations
+   * @throws IOException if the thread is interrupted while waiting
+   */
+  void await(SelectableChannel channel, int op) throws IOException {
+    final boolean[] ready = {false};
+    register(
+        channel,
+        op,
+        () -> {
+          synchronized (ready) {
+            ready[0] = true;
+            ready.notifyAll();
+          }
+        });
+    synchronized (ready) {
+      while (!ready[0] && channel.isOpen()) {
+        try {
+          ready.wait(1000);
+        } catch (InterruptedException e) {
+          throw new InterruptedIOException();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    List<Runnable> ready = new ArrayList<>();
+    while (true) {
+      try {
+        selector.select();
+      } catch (IOException e) {
+        continue;
+      }
+
+      Request request;
+      while ((request = requests.poll()) != null) {
+        request.perform(ready);
+      }
+
+      Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+      while (iter.hasNext()) {
+        SelectionKey key = iter.next();
+        iter.remove();
+        Runnable[] handlers = (Runnable[]) key.attachment();
+        int readyOps;
+        try {
+          readyOps = key.readyOps();
+        } catch (CancelledKeyException e) {
+          readyOps = -1;
+        }
+        for (int i = 0; i < OPS.length; i++) {
+          if (handlers[i] != null && (readyOps & OPS[i]) != 0) {
+            ready.add(handlers[i]);
+            handlers[i] = null;
+          }
+        }
+        updateInterestOps(key);
+      }
+
+      for (Runnable handler : ready) {
+        try {
+          handler.run();
+        } catch (RuntimeException e) {
+          // A handler for a channel whose interpreter has gone away;
+          // nothing else to do with it.
+        }
+      }
+      ready.clear();
+    }
+  }
+
+  /** Set the interest set of a key to the operations that have a handler. */
+  private static void updateInterestOps(SelectionKey key) {
+    if (!key.isValid()) {
+      return;
+    }
+    Runnable[] handlers = (Runnable[]) key.attachment();
+    int ops = 0;
+    for (int i = 0; i < OPS.length; i++) {
+      if (handlers[i] != null) {
+        ops |= OPS[i];
+      }
+    }
+    try {
+      key.interestOps(ops);
+    } catch (CancelledKeyException e) {
+    }
+  }
+
+  /** A registration or cancellation, performed on the selector thread. */
+  private final class Request {
+    final SelectableChannel channel;
+    final int op;
+
+    /** Handler to register, or for a cancellation (op 0), a handler to run when it is done */
+    final Runnable handler;
+
+    Request(SelectableChannel channel, int op, Runnable handler) {
+      this.channel = channel;
+      this.op = op;
+      this.handler = handler;
+    }
+
+    /**
+     * Perform this request.
+     *
+     * @param ready receives handlers that need to be run because of the request
+     */
+    void perform(List<Runnable> ready) {
+      SelectionKey key = channel.keyFor(selector);
+
+      if (op == 0) {
+        if (key != null) {
+          Runnable[] handlers = (Runnable[]) key.attachment();
+          for (int i = 0; i < OPS.length; i++) {
+            if (handlers[i] != null) {
+              ready.add(handlers[i]);
+              handlers[i] = null;
+            }
+          }
+          key.cancel();
+          try {
+            selector.selectNow();
+          } catch (IOException e) {
+          }
+        }
+        handler.run();
+        return;
+      }
+
+      if (!channel.isOpen()) {
+        // Let the handler find out about the closed channel
+        ready.add(handler);
+        return;
+      }
+      try {
+        if (key == null || !key.isValid()) {
+          if (key != null) {
+            // A cancelled key stays registered until the next
+            // select, so flush it out first.
+            selector.selectNow();
+          }
+          key = channel.register(selector, 0, new Runnable[OPS.length]);
+        }
+        Runnable[] handlers = (Runnable[]) key.attachment();
+        for (int i = 0; i < OPS.length; i++) {
+          if (OPS[i] == op) {
+            handlers[i] = handler;
+          }
+        }
+        updateInterestOps(key);
+      } catch (IOException e) {
+        // Most likely closed since isOpen() was checked
+        ready.add(handler);
+      }
+    }
+  }
+}
@@ -17,7 +17,10 @@
 package tcl.lang.cmd;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import tcl.lang.AssocData;
 import tcl.lang.Command;
 import tcl.lang.IdleHandler;
@@ -147,7 +150,7 @@ public final class AfterCmd implements Command {
       timerInfo.command = cmd;
       timerInfo.id = getAssocData().lastAfterId;
 
-      getAssocData().handlers.add(timerInfo);
+      getAssocData().add(timerInfo.id, timerInfo, cmd);
 
       interp.setResult("after#" + timerInfo.id);
 
@@ -180,25 +183,7 @@ public final class AfterCmd implements Command {
          * Search the timer/idle handler by id or by command.
          */
 
-        info = null;
-        for (i = 0; i < getAssocData().handlers.size(); i++) {
-          Object obj = getAssocData().handlers.get(i);
-          if (obj instanceof TimerInfo) {
-            TclObject cmd = ((TimerInfo) obj).command;
-
-            if ((cmd == arg) || cmd.toString().equals(arg.toString())) {
-              info = obj;
-              break;
-            }
-          } else {
-            TclObject cmd = ((IdleInfo) obj).command;
-
-            if ((cmd == arg) || cmd.toString().equals(arg.toString())) {
-              info = obj;
-              break;
-            }
-          }
-        }
+        info = getAssocData().findScript(arg.toString());
         if (info == null) {
           info = getAfterEvent(interp, arg.toString());
         }
@@ -209,6 +194,11 @@ public final class AfterCmd implements Command {
          */
 
         if (info != null) {
+          int id = (info instanceof TimerInfo) ? ((TimerInfo) info).id : ((IdleInfo) info).id;
+          if (getAssocData().remove(id) == null) {
+            throw new TclRuntimeError("info " + info + " has no handler");
+          }
+
           if (info instanceof TimerInfo) {
             TimerInfo ti = (TimerInfo) info;
             ti.cancel();
@@ -218,14 +208,6 @@ public final class AfterCmd implements Command {
             ii.cancel();
             ii.command.release();
           }
-
-          int hindex = getAssocData().handlers.indexOf(info);
-          if (hindex == -1) {
-            throw new TclRuntimeError("info " + info + " has no handler");
-          }
-          if (getAssocData().handlers.remove(hindex) == null) {
-            throw new TclRuntimeError("cound not remove handler " + hindex);
-          }
         }
         break;
 
@@ -243,7 +225,7 @@ public final class AfterCmd implements Command {
         idleInfo.command = cmd;
         idleInfo.id = getAssocData().lastAfterId;
 
-        getAssocData().handlers.add(idleInfo);
+        getAssocData().add(idleInfo.id, idleInfo, cmd);
 
         interp.setResult("after#" + idleInfo.id);
         break;
@@ -255,14 +237,7 @@ public final class AfterCmd implements Command {
            */
 
           TclObject list = TclList.newInstance();
-          for (i = 0; i < getAssocData().handlers.size(); i++) {
-            int id;
-            Object obj = getAssocData().handlers.get(i);
-            if (obj instanceof TimerInfo) {
-              id = ((TimerInfo) obj).id;
-            } else {
-              id = ((IdleInfo) obj).id;
-            }
+          for (Integer id : getAssocData().handlers.keySet()) {
             TclList.append(interp, list, TclString.newInstance("after#" + id));
           }
           interp.setResult(list);
@@ -346,20 +321,7 @@ public final class AfterCmd implements Command {
     } catch (Exception e) {
       return null;
     }
-    for (int i = 0; i < getAssocData().handlers.size(); i++) {
-      Object obj = getAssocData().handlers.get(i);
-      if (obj instanceof TimerInfo) {
-        if (((TimerInfo) obj).id == id) {
-          return obj;
-        }
-      } else {
-        if (((IdleInfo) obj).id == id) {
-          return obj;
-        }
-      }
-    }
-
-    return null;
+    return getAssocData().handlers.get(id);
   }
 
   public AfterAssocData getAssocData() {
@@ -377,12 +339,70 @@ public final class AfterCmd implements Command {
    */
   final class AfterAssocData implements AssocData {
 
-    /** The set of handlers created but not yet fired. */
-    List handlers = new ArrayList();
+    /**
+     * The handlers created but not yet fired, keyed by id. The map is in creation order, which is
+     * the order "after info" lists them in.
+     */
+    Map<Integer, Object> handlers = new LinkedHashMap<>();
+
+    /**
+     * The same handlers, keyed by the string of their script, so that "after cancel" can find a
+     * script without scanning all the handlers. Handlers with the same script are in creation
+     * order.
+     */
+    Map<String, ArrayList<Object>> scripts = new HashMap<>();
 
     /** Timer identifier of most recently created timer. */
     int lastAfterId = 0;
 
+    /**
+     * Adds a handler that has not fired yet.
+     *
+     * @param id the id of the handler
+     * @param info the TimerInfo or IdleInfo
+     * @param command the script of the handler
+     */
+    void add(int id, Object info, TclObject command) {
+      handlers.put(id, info);
+      scripts.computeIfAbsent(command.toString(), s -> new ArrayList<>(1)).add(info);
+    }
+
+    /**
+     * Removes a handler that fired or was cancelled.
+     *
+     * @param id the id of the handler
+     * @return the TimerInfo or IdleInfo, or null if there is no handler with this id
+     */
+    Object remove(int id) {
+      Object info = handlers.remove(id);
+      if (info != null) {
+        String script =
+            (info instanceof TimerInfo)
+                ? ((TimerInfo) info).command.toString()
+                : ((IdleInfo) info).command.toString();
+        ArrayList<Object> same = scripts.get(script);
+        for (int i = 0; i < same.size(); i++) {
+          if (same.get(i) == info) {
+            same.remove(i);
+            break;
+          }
+        }
+        if (same.isEmpty()) {
+          scripts.remove(script);
+        }
+      }
+      return info;
+    }
+
+    /**
+     * @param script the string of a script
+     * @return the oldest handler with this script, or null if there is none
+     */
+    Object findScript(String script) {
+      ArrayList<Object> same = scripts.get(script);
+      return (same == null) ? null : same.get(0);
+    }
+
     /**
      * This method is called when the interpreter is destroyed or when Interp.deleteAssocData is
      * called on a registered AssocData instance.
@@ -394,11 +414,11 @@ public final class AfterCmd implements Command {
      * @param interp the interpreter in which this AssocData instance is registered in
      */
     public void disposeAssocData(Interp interp) {
-      for (int i = getAssocData().handlers.size() - 1; i >= 0; i--) {
-        Object info = getAssocData().handlers.get(i);
-        if (getAssocData().handlers.remove(i) == null) {
-          throw new TclRuntimeError("cound not remove handler " + i);
-        }
+      List<Object> infos = new ArrayList<>(getAssocData().handlers.values());
+      getAssocData().handlers.clear();
+      getAssocData().scripts.clear();
+      for (int i = infos.size() - 1; i >= 0; i--) {
+        Object info = infos.get(i);
         if (info instanceof TimerInfo ti) {
           ti.cancel();
           ti.command.release();
@@ -439,13 +459,9 @@ public final class AfterCmd implements Command {
     /** Execute the command for this timer event */
     public void processTimerEvent() {
       try {
-        int index = getAssocData().handlers.indexOf(this);
-        if (index == -1) {
+        if (getAssocData().remove(id) == null) {
           throw new TclRuntimeError("this " + this + " has no handler");
         }
-        if (getAssocData().handlers.remove(index) == null) {
-          throw new TclRuntimeError("cound not remove handler " + index);
-        }
         interp.eval(command, TCL.EVAL_GLOBAL);
       } catch (TclException e) {
         interp.addErrorInfo("\n    (\"after\" script)");
@@ -492,13 +508,9 @@ public final class AfterCmd implements Command {
     /** Run the idle command */
     public void processIdleEvent() {
       try {
-        int index = getAssocData().handlers.indexOf(this);
-        if (index == -1) {
+        if (getAssocData().remove(id) == null) {
           throw new TclRuntimeError("this " + this + " has no handler");
         }
-        if (getAssocData().handlers.remove(index) == null) {
-          throw new TclRuntimeError("cound not remove handler " + index);
-        }
         interp.eval(command, TCL.EVAL_GLOBAL);
       } catch (TclException e) {
         interp.addErrorInfo("\n    (\"after\" script)");
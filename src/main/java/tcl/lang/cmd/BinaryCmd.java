@@ -831,7 +831,7 @@ public record BinaryCmd() implements Command {
         // Integer.toHexString(b & 0xff));
       }
     } else {
-      long value = TclInteger.getLong(interp, src);
+      long value = TclBignum.getLongBits(interp, src);
       switch (type) {
         case 'c':
           resultBytes[cursor++] = (byte) value;
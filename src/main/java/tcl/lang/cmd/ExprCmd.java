@@ -33,7 +33,7 @@ public final class ExprCmd implements Command {
     }
 
     if (argv.length == 2) {
-      interp.getExpr().evalSetResult(interp, argv[1].toString());
+      interp.getExpr().evalSetResult(interp, argv[1]);
     } else {
       StringBuffer sbuf = new StringBuffer();
       sbuf.append(argv[1].toString());
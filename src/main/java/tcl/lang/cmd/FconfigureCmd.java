@@ -19,6 +19,7 @@ import tcl.lang.Interp;
 import tcl.lang.TclIO;
 import tcl.lang.channel.AbstractSocketChannel;
 import tcl.lang.channel.Channel;
+import tcl.lang.channel.FileChannel;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclNumArgsException;
 import tcl.lang.exception.TclRuntimeError;
@@ -201,6 +202,12 @@ public final class FconfigureCmd implements Command {
         return;
       }
 
+      // -mmap is a Jackal extension for files, left out of the standard option lists
+      if (chan instanceof FileChannel && argv[2].toString().equals("-mmap")) {
+        interp.setResult(((FileChannel) chan).getMmap());
+        return;
+      }
+
       int index = 0;
       try {
         index = TclIndex.get(interp, argv[2], validCmds, "option", 0);
@@ -324,6 +331,16 @@ public final class FconfigureCmd implements Command {
       // Iterate through the list setting the name with the
       // corresponding value.
 
+      if (chan instanceof FileChannel && argv[i - 1].toString().equals("-mmap")) {
+        boolean mmap = TclBoolean.get(interp, argv[i]);
+        if (mmap && !chan.isReadOnly()) {
+          throw new TclException(
+              interp, "-mmap can only be set on a file opened read-only: \"" + argv[1] + "\"");
+        }
+        ((FileChannel) chan).setMmap(mmap);
+        continue;
+      }
+
       int index;
       try {
         index = TclIndex.get(interp, argv[i - 1], commonValidCommands, "option", 0);
@@ -40,7 +40,7 @@ public final class ForCmd implements Command {
     }
 
     TclObject start = argv[1];
-    String test = argv[2].toString();
+    TclObject test = argv[2];
     TclObject next = argv[3];
     TclObject command = argv[4];
 
@@ -13,11 +13,13 @@
 
 package tcl.lang.cmd;
 
+import java.math.BigInteger;
 import tcl.lang.Command;
 import tcl.lang.Interp;
 import tcl.lang.StrtoulResult;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclNumArgsException;
+import tcl.lang.model.TclBignum;
 import tcl.lang.model.TclDouble;
 import tcl.lang.model.TclInteger;
 import tcl.lang.model.TclObject;
@@ -59,7 +61,7 @@ public final class FormatCmd implements Command {
    */
   public void cmdProc(Interp interp, TclObject argv[]) throws TclException {
 
-    StringBuffer sbuf; // Stores the return value of the parsed
+    StringBuilder sbuf; // Stores the return value of the parsed
     // format string
     StrtoulResult stoul; // A result object to pass to strtoul call
     char[] format; // The format argument is converted to a char
@@ -97,10 +99,10 @@ public final class FormatCmd implements Command {
     fmtIndex = 0;
     gotXpg = gotSequential = false;
     format = argv[1].toString().toCharArray();
-    sbuf = new StringBuffer();
+    sbuf = new StringBuilder();
 
     // So, what happens here is to scan the format string one % group
-    // at a time, making many individual appends to the StringBuffer.
+    // at a time, making many individual appends to the StringBuilder.
 
     while (fmtIndex < format.length) {
       fmtFlags = phase = width = 0;
@@ -120,7 +122,7 @@ public final class FormatCmd implements Command {
             break;
           }
         }
-        sbuf.append(new String(format, fmtIndex, i - fmtIndex));
+        sbuf.append(format, fmtIndex, i - fmtIndex);
         fmtIndex = i;
         if (noPercent) {
           break;
@@ -353,7 +355,16 @@ public final class FormatCmd implements Command {
         case 'X':
         case 'i':
           {
-            lngValue = TclInteger.getLong(interp, argv[argIndex]);
+            if ((index == 'd' || index == 'i')
+                && !useShort
+                && TclBignum.isBignum(interp, argv[argIndex])) {
+              // An integer too large for a long is printed in full
+
+              sbuf.append(
+                  cvtBigToStr(TclBignum.get(interp, argv[argIndex]), width, precision, fmtFlags));
+              break;
+            }
+            lngValue = TclBignum.getLongBits(interp, argv[argIndex]);
             if (index != 'u') fmtFlags |= SIGNED_VALUE;
 
             // If the useShort option has been selected, we need
@@ -488,8 +499,8 @@ public final class FormatCmd implements Command {
       int base,
       char[] charSet,
       String altPrefix) {
-    StringBuffer sbuf = new StringBuffer(100);
-    StringBuffer tmpBuf = new StringBuffer(100);
+    StringBuilder sbuf = new StringBuilder(100);
+    StringBuilder tmpBuf = new StringBuilder(100);
 
     int i;
     int length;
@@ -593,6 +604,49 @@ public final class FormatCmd implements Command {
     }
   }
 
+  /**
+   * This procedure is invoked in "phase 6" of the Format cmdProc. It converts an integer that is
+   * too large for a long to a decimal string, with the same sign, precision and padding rules as
+   * cvtLngToStr().
+   *
+   * @param value the integer to convert
+   * @param width the minimum field width
+   * @param precision the minimum number of digits
+   * @param flags the format flags
+   * @return the formatted string
+   */
+  private static String cvtBigToStr(BigInteger value, int width, int precision, int flags) {
+    StringBuilder sbuf = new StringBuilder(value.abs().toString());
+    String prefix = "";
+
+    if (value.signum() < 0) {
+      prefix = "-";
+    } else if ((flags & SHOW_SIGN) != 0) {
+      prefix = "+";
+    } else if ((flags & SPACE_OR_SIGN) != 0) {
+      prefix = " ";
+    }
+
+    if (((PAD_W_ZERO & flags) != 0) && (precision < width - prefix.length())) {
+      precision = width - prefix.length();
+    }
+    for (int i = (precision - sbuf.length()); i > 0; i--) {
+      sbuf.insert(0, '0');
+    }
+    sbuf.insert(0, prefix);
+
+    int nspace = width - sbuf.length();
+    if (nspace <= 0) {
+      return sbuf.toString();
+    }
+    String spaces = " ".repeat(nspace);
+    if ((LEFT_JUSTIFY & flags) != 0) {
+      return sbuf.append(spaces).toString();
+    } else {
+      return spaces + sbuf;
+    }
+  }
+
   // Convert a double value to a Java String.
 
   public static String toString(double dblValue, int precision, int base) {
@@ -625,7 +679,7 @@ public final class FormatCmd implements Command {
       char[] charSet,
       String altPrefix,
       int xtype) {
-    StringBuffer sbuf = new StringBuffer(100);
+    StringBuilder sbuf = new StringBuilder(100);
     int i;
     int exp;
     int length;
@@ -881,11 +935,11 @@ public final class FormatCmd implements Command {
       length = width;
     }
 
-    // Count the number of spaces remaining and create a StringBuffer
+    // Count the number of spaces remaining and create a StringBuilder
     // (tmpBuf) with the correct number of spaces.
 
     int nspace = width - length;
-    StringBuffer tmpBuf = new StringBuffer(100 + nspace);
+    StringBuilder tmpBuf = new StringBuilder(100 + nspace);
     if (nspace > 0) {
       for (i = 0; i < nspace; i++) {
         tmpBuf.append(' ');
@@ -919,7 +973,7 @@ public final class FormatCmd implements Command {
   private static String cvtStrToStr(String strValue, int width, int precision, int flags) {
     String left = "";
     String right = "";
-    StringBuffer sbuf = new StringBuffer(100);
+    StringBuilder sbuf = new StringBuilder(100);
 
     if (precision >= 0 && precision < strValue.length()) {
       strValue = strValue.substring(0, precision);
@@ -58,7 +58,7 @@ public final class GetsCmd implements Command {
     }
 
     try {
-      line = TclString.newInstance(new StringBuffer(64));
+      line = TclString.newInstance(new StringBuilder(64));
       lineLen = chan.read(interp, line, TclIO.READ_LINE, 0);
       if (lineLen < 0) {
         // FIXME: Need more specific posix error codes!
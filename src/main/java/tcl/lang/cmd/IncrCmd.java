@@ -14,12 +14,14 @@
 
 package tcl.lang.cmd;
 
+import java.math.BigInteger;
 import tcl.lang.Command;
 import tcl.lang.Interp;
 import tcl.lang.TCL;
 import tcl.lang.Var;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclNumArgsException;
+import tcl.lang.model.TclBignum;
 import tcl.lang.model.TclInteger;
 import tcl.lang.model.TclObject;
 
@@ -45,6 +47,10 @@ public final class IncrCmd implements Command {
       incrAmount = 1;
     } else {
       try {
+        if (TclBignum.isBignum(interp, objv[2])) {
+          interp.setResult(incrBignum(interp, objv[1], TclBignum.get(interp, objv[2])));
+          return;
+        }
         incrAmount = TclInteger.getLong(interp, objv[2]);
       } catch (TclException e) {
         interp.addErrorInfo("\n    (reading increment)");
@@ -67,4 +73,27 @@ public final class IncrCmd implements Command {
     interp.setResult(newValue);
     return;
   }
+
+  /**
+   * Increment a variable by an amount that is too large for a long. The variable's value may be an
+   * integer of any size.
+   *
+   * @param interp current interpreter
+   * @param varName name of the variable to increment
+   * @param incrAmount amount to add to the variable
+   * @return the new value of the variable
+   * @exception TclException if the variable doesn't hold an integer, or can't be set.
+   */
+  private static TclObject incrBignum(Interp interp, TclObject varName, BigInteger incrAmount)
+      throws TclException {
+    TclObject varValue;
+    try {
+      varValue = interp.getVar(varName, 0);
+    } catch (TclException e) {
+      interp.addErrorInfo("\n    (reading value of variable to increment)");
+      throw e;
+    }
+    BigInteger sum = TclBignum.get(interp, varValue).add(incrAmount);
+    return interp.setVar(varName, TclBignum.newInstance(sum), 0);
+  }
 }
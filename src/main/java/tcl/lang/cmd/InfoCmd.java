@@ -103,6 +103,15 @@ public final class InfoCmd implements Command {
     if (objv.length < 2) {
       throw new TclNumArgsException(interp, 1, objv, "option ?arg arg ...?");
     }
+
+    // "info profile" is not a Tcl 8.4 option. It is only matched by its full
+    // name, so that abbreviations like "info pr" and the error message
+    // listing the options stay as they are in Tcl.
+
+    if (objv[1].toString().equals("profile")) {
+      InfoProfileCmd(interp, objv);
+      return;
+    }
     index = TclIndex.get(interp, objv[1], validCmds, "option", 0);
 
     switch (index) {
@@ -894,6 +903,57 @@ public final class InfoCmd implements Command {
     return;
   }
 
+  private static final String profileOptions[] = {"disable", "enable", "report", "reset"};
+
+  private static final int PROFILE_DISABLE = 0;
+  private static final int PROFILE_ENABLE = 1;
+  private static final int PROFILE_REPORT = 2;
+  private static final int PROFILE_RESET = 3;
+
+  /**
+   * Called to implement the "info profile" command that controls the command profiler of the
+   * interpreter and reports what it has measured. Handles the following syntax:
+   *
+   * <p>info profile enable|disable|reset
+   *
+   * <p>info profile report ?pattern?
+   *
+   * <p>The report is a dict from the fully qualified names of the commands called while the
+   * profiler was enabled to their statistics; see Profiler.report().
+   *
+   * @param interp
+   * @param objv
+   * @throws TclException
+   */
+  private static void InfoProfileCmd(Interp interp, TclObject[] objv) throws TclException {
+    if (objv.length < 3) {
+      throw new TclNumArgsException(interp, 2, objv, "option ?pattern?");
+    }
+    int option = TclIndex.get(interp, objv[2], profileOptions, "option", 0);
+    if (objv.length > (option == PROFILE_REPORT ? 4 : 3)) {
+      throw new TclNumArgsException(interp, 3, objv, option == PROFILE_REPORT ? "?pattern?" : null);
+    }
+
+    switch (option) {
+      case PROFILE_DISABLE:
+        interp.getProfiler().stop();
+        interp.resetResult();
+        break;
+      case PROFILE_ENABLE:
+        interp.getProfiler().start();
+        interp.resetResult();
+        break;
+      case PROFILE_REPORT:
+        String pattern = (objv.length == 4) ? objv[3].toString() : null;
+        interp.setResult(interp.getProfiler().report(pattern));
+        break;
+      case PROFILE_RESET:
+        interp.getProfiler().reset();
+        interp.resetResult();
+        break;
+    }
+  }
+
   /**
    * Called to implement the "info script" command that returns the script file that is currently
    * being evaluated. Handles the following syntax:
@@ -18,6 +18,7 @@ package tcl.lang.cmd;
 import tcl.lang.AssocData;
 import tcl.lang.CommandWithDispose;
 import tcl.lang.Interp;
+import tcl.lang.InterpTemplate;
 import tcl.lang.TCL;
 import tcl.lang.TclIO;
 import tcl.lang.WrappedCommand;
@@ -335,7 +336,10 @@ public final class InterpSlaveCmd implements CommandWithDispose, AssocData {
           interp, "interpreter named \"" + pathString + "\" already exists, cannot create");
     }
 
-    Interp slaveInterp = Interp.of();
+    // Every slave starts out the same, so create it from a template
+    // rather than evaluating the library scripts again.
+
+    Interp slaveInterp = Interp.of(InterpTemplate.standard());
     InterpSlaveCmd slave = new InterpSlaveCmd();
 
     slaveInterp.setMaxNestingDepth(masterInterp.getMaxNestingDepth());
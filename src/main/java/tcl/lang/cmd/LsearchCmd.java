@@ -98,7 +98,7 @@ public final class LsearchCmd implements Command {
     TclObject start = null;
     TclObject[] listv;
     TclObject resultList = null;
-    Regex regexp;
+    Regex regexp = null;
 
     if (objv.length < 3) {
       throw new TclNumArgsException(interp, 1, objv, "?options? list pattern");
@@ -362,7 +362,14 @@ public final class LsearchCmd implements Command {
           case REGEXP:
             {
               try {
-                regexp = new Regex(patObj.toString(), listv[i].toString(), 0);
+                // The pattern is compiled once, and the matcher is
+                // reset for each element.
+
+                if (regexp == null) {
+                  regexp = new Regex(patObj.toString(), listv[i].toString(), 0);
+                } else {
+                  regexp.reset(listv[i].toString());
+                }
                 match = regexp.match();
               } catch (PatternSyntaxException ex) {
                 throw new TclException(interp, Regex.getPatternSyntaxMessage(ex));
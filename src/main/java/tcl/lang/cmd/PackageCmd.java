@@ -14,6 +14,7 @@
 package tcl.lang.cmd;
 
 import java.util.ArrayList;
+import java.util.Map;
 import tcl.lang.Command;
 import tcl.lang.Interp;
 import tcl.lang.TCL;
@@ -651,6 +652,34 @@ public final class PackageCmd implements Command {
     return pkg;
   }
 
+  /**
+   * Copy the entries of a package table into another, including the list of available versions of
+   * each package, so that "package ifneeded" and "package forget" on the copy leave the original
+   * unchanged. Used by InterpTemplate.
+   *
+   * @param from package table to copy
+   * @param to package table the entries are copied into
+   */
+  public static void copyPackageTable(Map<String, Package> from, Map<String, Package> to) {
+    for (Map.Entry<String, Package> entry : from.entrySet()) {
+      Package pkg = entry.getValue();
+      PkgAvail head = null;
+      PkgAvail tail = null;
+      for (PkgAvail avail = pkg.avail(); avail != null; avail = avail.next) {
+        PkgAvail a = new PkgAvail();
+        a.version = avail.version;
+        a.script = avail.script;
+        if (tail == null) {
+          head = a;
+        } else {
+          tail.next = a;
+        }
+        tail = a;
+      }
+      to.put(entry.getKey(), new Package(pkg.version(), head));
+    }
+  }
+
   /**
    * This procedure checks to see whether a version number has valid syntax.
    *
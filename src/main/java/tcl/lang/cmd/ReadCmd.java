@@ -83,7 +83,7 @@ public final class ReadCmd implements Command {
       if (chan.getEncoding() == null && !noNewline) {
         result = TclByteArray.newInstance();
       } else {
-        result = TclString.newInstance(new StringBuffer(64));
+        result = TclString.newInstance(new StringBuilder(64));
       }
       if (readAll) {
         chan.read(interp, result, TclIO.READ_ALL, 0);
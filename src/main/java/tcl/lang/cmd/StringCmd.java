@@ -19,6 +19,7 @@ package tcl.lang.cmd;
 import tcl.lang.Command;
 import tcl.lang.Expression;
 import tcl.lang.Interp;
+import tcl.lang.StringMap;
 import tcl.lang.StrtodResult;
 import tcl.lang.StrtoulResult;
 import tcl.lang.TCL;
@@ -29,7 +30,6 @@ import tcl.lang.exception.TclRuntimeError;
 import tcl.lang.model.TclByteArray;
 import tcl.lang.model.TclIndex;
 import tcl.lang.model.TclInteger;
-import tcl.lang.model.TclList;
 import tcl.lang.model.TclObject;
 import tcl.lang.model.TclString;
 
@@ -309,8 +309,7 @@ public final class StringCmd implements Command {
             throw new TclNumArgsException(interp, 2, objv, "string charIndex");
           }
 
-          String string1 = objv[2].toString();
-          int length1 = string1.length();
+          int length1 = TclString.length(objv[2]);
 
           int i = Util.getIntForIndex(interp, objv[3], length1 - 1);
 
@@ -320,9 +319,10 @@ public final class StringCmd implements Command {
             // single character, and allocate a new
             // TclString if not found.
 
-            TclObject obj = interp.checkCommonCharacter(string1.charAt(i));
+            char c = TclString.charAt(objv[2], i);
+            TclObject obj = interp.checkCommonCharacter(c);
             if (obj == null) {
-              obj = TclString.newInstance(string1.substring(i, i + 1));
+              obj = TclString.newInstance(c);
             }
             interp.setResult(obj);
           }
@@ -656,7 +656,7 @@ public final class StringCmd implements Command {
           if (objv[2].isByteArrayType()) {
             interp.setResult(TclByteArray.getLength(interp, objv[2]));
           } else {
-            interp.setResult(objv[2].toString().length());
+            interp.setResult(TclString.length(objv[2]));
           }
           break;
         }
@@ -678,86 +678,22 @@ public final class StringCmd implements Command {
             }
           }
 
-          TclObject mapElemv[] = TclList.getElements(interp, objv[objv.length - 2]);
-          if (mapElemv.length == 0) {
+          StringMap map = StringMap.get(interp, objv[objv.length - 2]);
+          if (map.isEmpty()) {
             // empty charMap, just return whatever string was given
 
             interp.setResult(objv[objv.length - 1]);
-          } else if ((mapElemv.length % 2) != 0) {
-            // The charMap must be an even number of key/value items
-
-            throw new TclException(interp, "char map list unbalanced");
-          }
-          String string1 = objv[objv.length - 1].toString();
-          String cmpString1;
-          if (nocase) {
-            cmpString1 = string1.toLowerCase();
-          } else {
-            cmpString1 = string1;
-          }
-          int length1 = string1.length();
-          if (length1 == 0) {
-            // Empty input string, just stop now
-
             break;
           }
 
-          // Precompute pointers to the unicode string and length.
-          // This saves us repeated function calls later,
-          // significantly speeding up the algorithm.
+          String result = map.map(objv[objv.length - 1].toString(), nocase);
+          if (result == null) {
+            // Nothing was mapped
 
-          String mapStrings[] = new String[mapElemv.length];
-          int mapLens[] = new int[mapElemv.length];
-          for (int ix = 0; ix < mapElemv.length; ix++) {
-            mapStrings[ix] = mapElemv[ix].toString();
-            mapLens[ix] = mapStrings[ix].length();
-          }
-          String cmpStrings[];
-          if (nocase) {
-            cmpStrings = new String[mapStrings.length];
-            for (int ix = 0; ix < mapStrings.length; ix++) {
-              cmpStrings[ix] = mapStrings[ix].toLowerCase();
-            }
+            interp.setResult(objv[objv.length - 1]);
           } else {
-            cmpStrings = mapStrings;
-          }
-
-          TclObject result = TclString.newInstance("");
-          int p, str1;
-          for (p = 0, str1 = 0; str1 < length1; str1++) {
-            for (index = 0; index < mapStrings.length; index += 2) {
-              // Get the key string to match on
-
-              String string2 = mapStrings[index];
-              int length2 = mapLens[index];
-              if ((length2 > 0) && (cmpString1.substring(str1).startsWith(cmpStrings[index]))) {
-                if (p != str1) {
-                  // Put the skipped chars onto the result first
-
-                  TclString.append(result, string1.substring(p, str1));
-                  p = str1 + length2;
-                } else {
-                  p += length2;
-                }
-
-                // Adjust len to be full length of matched string
-
-                str1 = p - 1;
-
-                // Append the map value to the unicode string
-
-                TclString.append(result, mapStrings[index + 1]);
-                break;
-              }
-            }
-          }
-
-          if (p != str1) {
-            // Put the rest of the unmapped chars onto result
-
-            TclString.append(result, string1.substring(p, str1));
+            interp.setResult(result);
           }
-          interp.setResult(result);
           break;
         }
 
@@ -790,13 +726,12 @@ public final class StringCmd implements Command {
             throw new TclNumArgsException(interp, 2, objv, "string first last");
           }
 
-          String string1 = null;
+          boolean isByteArray = objv[2].isByteArrayType();
           int length1;
-          if (objv[2].isByteArrayType()) {
+          if (isByteArray) {
             length1 = TclByteArray.getLength(interp, objv[2]);
           } else {
-            string1 = objv[2].toString();
-            length1 = string1.length();
+            length1 = TclString.length(objv[2]);
           }
 
           int first = Util.getIntForIndex(interp, objv[3], length1 - 1);
@@ -811,12 +746,12 @@ public final class StringCmd implements Command {
           if (first > last) {
             interp.resetResult();
           } else {
-            if (string1 == null) {
+            if (isByteArray) {
               byte[] bytes = TclByteArray.getBytes(interp, objv[2]);
               TclObject rv = TclByteArray.newInstance(bytes, first, last + 1 - first);
               interp.setResult(rv);
             } else {
-              interp.setResult(string1.substring(first, last + 1));
+              interp.setResult(TclString.substring(objv[2], first, last + 1));
             }
           }
           break;
@@ -35,7 +35,7 @@ public final class WhileCmd implements Command {
     if (argv.length != 3) {
       throw new TclNumArgsException(interp, 1, argv, "test command");
     }
-    String test = argv[1].toString();
+    TclObject test = argv[1];
     TclObject command = argv[2];
 
     loop:
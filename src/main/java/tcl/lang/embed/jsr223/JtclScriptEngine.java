@@ -30,13 +30,18 @@ package tcl.lang.embed.jsr223;
  */
 
 import java.io.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
 import javax.script.*;
 import tcl.lang.*;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclNumArgsException;
 import tcl.lang.model.*;
+import tcl.lang.parse.Parser;
 
-public class JtclScriptEngine extends AbstractScriptEngine {
+public class JtclScriptEngine extends AbstractScriptEngine implements Compilable, Invocable {
 
   // my factory, may be null
   private ScriptEngineFactory factory;
@@ -50,20 +55,83 @@ public class JtclScriptEngine extends AbstractScriptEngine {
 
   private static final String CONTEXT = "javax.script.ScriptContext";
 
+  // Created once for each interpreter. Holds the context of the script
+  // being evaluated, and the command and method names passed to the
+  // Invocable methods, so that the command each name resolves to stays
+  // cached in its TclObject from one call to the next.
   private static class ContextData implements AssocData {
-    ContextData(ScriptContext ctx) {
+    ScriptContext getContext() {
+      return context;
+    }
+
+    // Make ctx the current context, returning the previous one
+    ScriptContext enter(ScriptContext ctx) {
+      ScriptContext oldContext = context;
       context = ctx;
+      if (ctx.getAttribute("context", ScriptContext.ENGINE_SCOPE) != ctx) {
+        ctx.setAttribute("context", ctx, ScriptContext.ENGINE_SCOPE);
+      }
+      return oldContext;
     }
 
-    ScriptContext getContext() {
-      return context;
+    void leave(ScriptContext oldContext) {
+      if (oldContext != null) {
+        context = oldContext;
+      }
+    }
+
+    TclObject getName(HashMap<String, TclObject> names, String name) {
+      TclObject tobj = names.get(name);
+      if (tobj == null) {
+        tobj = TclString.newInstance(name);
+        tobj.preserve();
+        names.put(name, tobj);
+      }
+      return tobj;
     }
 
     public void disposeAssocData(Interp interp) {
-      // do nothing...
+      for (TclObject tobj : functions.values()) {
+        tobj.release();
+      }
+      for (TclObject tobj : methods.values()) {
+        tobj.release();
+      }
+      functions.clear();
+      methods.clear();
     }
 
     private ScriptContext context;
+    final HashMap<String, TclObject> functions = new HashMap<>();
+    final HashMap<String, TclObject> methods = new HashMap<>();
+  }
+
+  // A script compiled by compile(). The script is held in a TclObject,
+  // which caches the parsed script for the interpreter that evaluates it.
+  // Interpreters are confined to a thread, so each thread evaluating
+  // the script gets its own TclObject.
+  private static final class JtclCompiledScript extends CompiledScript {
+    private final JtclScriptEngine engine;
+    private final ThreadLocal<TclObject> code;
+
+    JtclCompiledScript(JtclScriptEngine engine, String script) {
+      this.engine = engine;
+      this.code =
+          ThreadLocal.withInitial(
+              () -> {
+                TclObject tobj = TclString.newInstance(script);
+                tobj.preserve();
+                return tobj;
+              });
+    }
+
+    public Object eval(ScriptContext ctx) throws ScriptException {
+      return engine.eval(code.get(), ctx);
+    }
+
+    public ScriptEngine getEngine() {
+      return engine;
+    }
   }
 
   private static TclObject java2tcl(Interp interp, Object javaObj) throws TclException {
@@ -97,6 +165,17 @@ public class JtclScriptEngine extends AbstractScriptEngine {
     Object javaObject = null;
     boolean isReflectObj = false;
 
+    // A number or boolean can't name a Java object, so it is converted
+    // without first trying, and failing, to find a Java object for it
+    InternalRep rep = tclObj.getInternalRep();
+    if (rep instanceof TclBoolean) {
+      return Boolean.valueOf(TclBoolean.get(interp, tclObj));
+    } else if (rep instanceof TclInteger) {
+      return Integer.valueOf(TclInteger.getInt(interp, tclObj));
+    } else if (rep instanceof TclDouble) {
+      return Double.valueOf(TclDouble.get(interp, tclObj));
+    }
+
     try {
       javaObject = tcl.pkg.java.ReflectObject.get(interp, tclObj);
       isReflectObj = true;
@@ -107,15 +186,7 @@ public class JtclScriptEngine extends AbstractScriptEngine {
     if (isReflectObj) {
       return javaObject;
     } else {
-      // TCL primitive type
-      InternalRep rep = tclObj.getInternalRep();
-      if (rep instanceof TclBoolean) {
-        return Boolean.valueOf(TclBoolean.get(interp, tclObj));
-      } else if (rep instanceof TclInteger) {
-        return Integer.valueOf(TclInteger.getInt(interp, tclObj));
-      } else if (rep instanceof TclDouble) {
-        return Double.valueOf(TclDouble.get(interp, tclObj));
-      } else if (rep instanceof TclString) {
+      if (rep instanceof TclString) {
         return tclObj.toString();
       } else {
         // FIXME: Is this an error??
@@ -164,8 +235,8 @@ public class JtclScriptEngine extends AbstractScriptEngine {
 
     public void cmdProc(Interp interp, TclObject[] argv) throws TclException {
       AssocData data = interp.getAssocData(CONTEXT);
-      if (data != null && data instanceof ContextData) {
-        ScriptContext context = ((ContextData) data).getContext();
+      if (data instanceof ContextData cdata && cdata.getContext() != null) {
+        ScriptContext context = cdata.getContext();
         switch (argv.length) {
           case 1:
             // default variable is context itself!
@@ -198,7 +269,7 @@ public class JtclScriptEngine extends AbstractScriptEngine {
     public void cmdProc(Interp interp, TclObject[] argv) throws TclException {
       AssocData data = interp.getAssocData(CONTEXT);
       Writer writer;
-      if (data != null && data instanceof ContextData cdata) {
+      if (data instanceof ContextData cdata && cdata.getContext() != null) {
         ScriptContext context = cdata.getContext();
         writer = context.getWriter();
       } else {
@@ -219,20 +290,14 @@ public class JtclScriptEngine extends AbstractScriptEngine {
 
   public TclObject eval(String str, ScriptContext ctx) throws ScriptException {
     Interp interp = getInterp();
-    AssocData oldAssocData = interp.getAssocData(CONTEXT);
+    ContextData data = (ContextData) interp.getAssocData(CONTEXT);
+    ScriptContext oldContext = data.enter(ctx);
     try {
-      interp.setAssocData(CONTEXT, new ContextData(ctx));
-      ctx.setAttribute("context", ctx, ScriptContext.ENGINE_SCOPE);
       interp.eval(str);
     } catch (TclException exp) {
-      String errMsg = interp.getResult().toString();
-      ScriptException se = new ScriptException(errMsg);
-      se.initCause(exp);
-      throw se;
+      throw scriptException(interp, exp);
     } finally {
-      if (oldAssocData != null) {
-        interp.setAssocData(CONTEXT, oldAssocData);
-      }
+      data.leave(oldContext);
     }
     return interp.getResult();
   }
@@ -241,6 +306,196 @@ public class JtclScriptEngine extends AbstractScriptEngine {
     return eval(readFully(reader), ctx);
   }
 
+  TclObject eval(TclObject script, ScriptContext ctx) throws ScriptException {
+    Interp interp = getInterp();
+    ContextData data = (ContextData) interp.getAssocData(CONTEXT);
+    ScriptContext oldContext = data.enter(ctx);
+    try {
+      interp.eval(script, 0);
+    } catch (TclException exp) {
+      throw scriptException(interp, exp);
+    } finally {
+      data.leave(oldContext);
+    }
+    return interp.getResult();
+  }
+
+  public CompiledScript compile(String script) throws ScriptException {
+    if (!Parser.commandComplete(script)) {
+      throw new ScriptException("missing close-brace, close-bracket or close-quote in script");
+    }
+    return new JtclCompiledScript(this, script);
+  }
+
+  public CompiledScript compile(Reader reader) throws ScriptException {
+    return compile(readFully(reader));
+  }
+
+  /**
+   * Invoke a Tcl command, usually a proc, in the interpreter of the current thread. The arguments
+   * are converted to TclObjects the way context variables are, and passed to the command without
+   * building a command string. Integer, double and boolean results are returned as Integer, Double
+   * and Boolean objects, a Java object handle as the object it refers to, and anything else as a
+   * String.
+   */
+  public Object invokeFunction(String name, Object... args)
+      throws ScriptException, NoSuchMethodException {
+    if (name == null) {
+      throw new NullPointerException("function name is null");
+    }
+    return invoke(null, name, args, Object.class);
+  }
+
+  /**
+   * Invoke a method of an object command, such as a Java object handle or an [incr Tcl] object, in
+   * the interpreter of the current thread. A Java object is passed as its handle, and a String as
+   * the name of the object command.
+   */
+  public Object invokeMethod(Object thiz, String name, Object... args)
+      throws ScriptException, NoSuchMethodException {
+    if (thiz == null) {
+      throw new IllegalArgumentException("script object is null");
+    }
+    if (name == null) {
+      throw new NullPointerException("method name is null");
+    }
+    return invoke(thiz, name, args, Object.class);
+  }
+
+  /**
+   * Return an implementation of an interface whose methods invoke the Tcl commands of the same
+   * name, converting the result to the return type of the method.
+   */
+  public <T> T getInterface(Class<T> clasz) {
+    return makeInterface(null, clasz);
+  }
+
+  /**
+   * Return an implementation of an interface whose methods invoke the methods of the same name of
+   * an object command, converting the result to the return type of the method.
+   */
+  public <T> T getInterface(Object thiz, Class<T> clasz) {
+    if (thiz == null) {
+      throw new IllegalArgumentException("script object is null");
+    }
+    return makeInterface(thiz, clasz);
+  }
+
+  private <T> T makeInterface(Object thiz, Class<T> clasz) {
+    if (clasz == null || !clasz.isInterface()) {
+      throw new IllegalArgumentException("interface Class expected");
+    }
+    InvocationHandler handler =
+        (Object proxy, Method method, Object[] args) -> {
+          if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+              case "equals":
+                return proxy == args[0];
+              case "hashCode":
+                return System.identityHashCode(proxy);
+              default:
+                return clasz.getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+          }
+          return invoke(
+              thiz,
+              method.getName(),
+              (args == null) ? new Object[0] : args,
+              method.getReturnType());
+        };
+    return clasz.cast(
+        Proxy.newProxyInstance(clasz.getClassLoader(), new Class<?>[] {clasz}, handler));
+  }
+
+  // Invoke the command name, or the method name of the object command
+  // thiz, and convert the result to returnType.
+  private Object invoke(Object thiz, String name, Object[] args, Class<?> returnType)
+      throws ScriptException, NoSuchMethodException {
+    Interp interp = getInterp();
+    ContextData data = (ContextData) interp.getAssocData(CONTEXT);
+    int first = (thiz == null) ? 1 : 2;
+    TclObject[] objv = new TclObject[first + args.length];
+    ScriptContext oldContext = data.enter(context);
+    try {
+      if (thiz == null) {
+        objv[0] = data.getName(data.functions, name);
+      } else {
+        objv[0] =
+            (thiz instanceof String)
+                ? TclString.newInstance((String) thiz)
+                : java2tcl(interp, thiz);
+        objv[1] = data.getName(data.methods, name);
+      }
+      for (int i = 0; i < args.length; i++) {
+        objv[first + i] = java2tcl(interp, args[i]);
+      }
+      for (TclObject tobj : objv) {
+        tobj.preserve();
+      }
+
+      int code;
+      try {
+        code = interp.invokeGlobal(objv, Interp.INVOKE_NO_UNKNOWN);
+      } catch (TclException exp) {
+        interp.resetResult();
+        throw new NoSuchMethodException(
+            (thiz == null)
+                ? "no such function \"" + name + "\""
+                : "no such object \"" + objv[0] + "\"");
+      }
+      if (code == TCL.ERROR) {
+        throw scriptException(interp, new TclException(interp, interp.getResult().toString()));
+      }
+
+      TclObject result = interp.getResult();
+      result.preserve();
+      try {
+        return tcl2java(interp, result, returnType);
+      } finally {
+        result.release();
+      }
+    } catch (TclException exp) {
+      throw scriptException(interp, exp);
+    } finally {
+      for (TclObject tobj : objv) {
+        if (tobj != null) {
+          tobj.release();
+        }
+      }
+      data.leave(oldContext);
+    }
+  }
+
+  private static Object tcl2java(Interp interp, TclObject tclObj, Class<?> type)
+      throws TclException {
+    if (type == Void.TYPE) {
+      return null;
+    } else if (type == TclObject.class) {
+      return tclObj.duplicate();
+    } else if (type == String.class) {
+      return tclObj.toString();
+    } else if (type == Integer.TYPE || type == Integer.class) {
+      return Integer.valueOf(TclInteger.getInt(interp, tclObj));
+    } else if (type == Long.TYPE || type == Long.class) {
+      return Long.valueOf(TclInteger.getLong(interp, tclObj));
+    } else if (type == Double.TYPE || type == Double.class) {
+      return Double.valueOf(TclDouble.get(interp, tclObj));
+    } else if (type == Float.TYPE || type == Float.class) {
+      return Float.valueOf((float) TclDouble.get(interp, tclObj));
+    } else if (type == Boolean.TYPE || type == Boolean.class) {
+      return Boolean.valueOf(TclBoolean.get(interp, tclObj));
+    } else {
+      return tcl2java(interp, tclObj);
+    }
+  }
+
+  private static ScriptException scriptException(Interp interp, TclException exp) {
+    String errMsg = interp.getResult().toString();
+    ScriptException se = new ScriptException(errMsg);
+    se.initCause(exp);
+    return se;
+  }
+
   public ScriptEngineFactory getFactory() {
     synchronized (this) {
       if (factory == null) {
@@ -281,6 +536,7 @@ public class JtclScriptEngine extends AbstractScriptEngine {
       // alias for 'context' command...
       interp.createCommand("var", cmd);
       interp.createCommand("echo", new EchoCommand());
+      interp.setAssocData(CONTEXT, new ContextData());
       interpreters.set(interp);
     }
     return interp;
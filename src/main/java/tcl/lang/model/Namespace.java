@@ -557,6 +557,7 @@ public final class Namespace {
 
         ns.childTable.clear();
         ns.getCmdTable().clear();
+        ns.interp.incrCmdNameEpoch();
 
         // If the reference count is 0, then discard the namespace.
         // Otherwise, mark it as "dead" so that it can't be used.
@@ -1675,7 +1676,7 @@ public final class Namespace {
       cxtNs = getCurrentNamespace(interp);
     }
 
-    if (cxtNs.resolver != null || interp.getResolvers() != null) {
+    if (cxtNs.resolver != null || !interp.getResolvers().isEmpty()) {
       try {
         if (cxtNs.resolver != null) {
           cmd = cxtNs.resolver.resolveCmd(interp, name, cxtNs, flags);
@@ -1683,7 +1684,7 @@ public final class Namespace {
           cmd = null;
         }
 
-        if (cmd == null && interp.getResolvers() != null) {
+        if (cmd == null && !interp.getResolvers().isEmpty()) {
           for (ListIterator<Interp.ResolverScheme> iter = interp.getResolvers().listIterator();
               cmd == null && iter.hasNext(); ) {
             res = iter.next();
@@ -1796,7 +1797,7 @@ public final class Namespace {
       cxtNs = getCurrentNamespace(interp);
     }
 
-    if (cxtNs.resolver != null || interp.getResolvers() != null) {
+    if (cxtNs.resolver != null || !interp.getResolvers().isEmpty()) {
       try {
         if (cxtNs.resolver != null) {
           var = cxtNs.resolver.resolveVar(interp, name, cxtNs, flags);
@@ -1804,7 +1805,7 @@ public final class Namespace {
           var = null;
         }
 
-        if (var == null && interp.getResolvers() != null) {
+        if (var == null && !interp.getResolvers().isEmpty()) {
           for (ListIterator<Interp.ResolverScheme> iter = interp.getResolvers().listIterator();
               var == null && iter.hasNext(); ) {
             res = iter.next();
@@ -2027,6 +2028,7 @@ public final class Namespace {
     // Plug in the new command resolver.
 
     namespace.resolver = resolver;
+    namespace.interp.incrCmdNameEpoch();
   }
 
   /**
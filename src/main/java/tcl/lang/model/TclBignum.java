@@ -0,0 +1,203 @@
+/*
+ * TclBignum.java
+ *
+ *	Implements the internal rep for integers that are too large
+ *	to be held in a Java long.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang.model;
+
+import java.math.BigInteger;
+import tcl.lang.InternalRep;
+import tcl.lang.Interp;
+import tcl.lang.StrtoulResult;
+import tcl.lang.TCL;
+import tcl.lang.Util;
+import tcl.lang.exception.TclException;
+
+/**
+ * This class implements the arbitrary-precision integer object type in Tcl. Only integers outside
+ * the range of a Java long are held in a TclBignum; an integer that fits in a long always uses the
+ * TclInteger rep, so that common integer math never allocates. The methods that create or change a
+ * bignum value normalize the result to a TclInteger when it fits.
+ */
+public final class TclBignum implements InternalRep {
+
+  /** The value, which never fits in a long. */
+  private final BigInteger value;
+
+  private TclBignum(BigInteger value) {
+    this.value = value;
+  }
+
+  /**
+   * @return the value, which is never within the range of a long
+   */
+  public BigInteger getValue() {
+    return value;
+  }
+
+  /** Returns the decimal string for the value. */
+  @Override
+  public String toString() {
+    return value.toString();
+  }
+
+  /**
+   * @param b a BigInteger value
+   * @return true if b is within the range of a Java long
+   */
+  public static boolean fitsLong(BigInteger b) {
+    return b.bitLength() < 64;
+  }
+
+  /**
+   * Create a TclObject holding an integer value of any size.
+   *
+   * @param b the value
+   * @return a TclObject with a TclBignum internal rep, or a TclInteger internal rep if b fits in a
+   *     long
+   */
+  public static TclObject newInstance(BigInteger b) {
+    if (fitsLong(b)) {
+      return TclInteger.newInstance(b.longValue());
+    }
+    return new TclObject(new TclBignum(b));
+  }
+
+  /**
+   * Changes the value of an unshared object to an integer of any size.
+   *
+   * @param tobj the object to operate on
+   * @param b the new value
+   */
+  public static void set(TclObject tobj, BigInteger b) {
+    if (fitsLong(b)) {
+      TclInteger.set(tobj, b.longValue());
+    } else {
+      tobj.setInternalRep(new TclBignum(b));
+      tobj.invalidateStringRep();
+    }
+  }
+
+  /**
+   * Tests whether an object holds an integer that is too large for a Java long. If the object's
+   * string rep is such an integer, its internal rep is changed to a TclBignum.
+   *
+   * @param interp current interpreter, may be null
+   * @param tobj the object to test
+   * @return true if the object now has a TclBignum internal rep
+   */
+  public static boolean isBignum(Interp interp, TclObject tobj) {
+    InternalRep rep = tobj.getInternalRep();
+    if (rep instanceof TclBignum) {
+      return true;
+    }
+    if (tobj.isIntType() || rep instanceof TclDouble) {
+      return false;
+    }
+    String s = tobj.toString();
+    StrtoulResult res = (interp == null) ? new StrtoulResult() : interp.getStrtoulResult();
+    Util.strtoul(s, 0, 0, res);
+    if (res.getErrno() != TCL.INTEGER_RANGE) {
+      return false;
+    }
+    int end = res.getIndex();
+    for (int i = end; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c != ' ' && !Character.isWhitespace(c)) {
+        return false;
+      }
+    }
+
+    // Long.MIN_VALUE is reported as out of range by strtoul, since
+    // its magnitude doesn't fit in a long, and ends up a TclInteger.
+
+    exprSetInternalRep(tobj, parse(s, 0, end));
+    return !tobj.isIntType();
+  }
+
+  /**
+   * Change the internal rep of an object whose string rep was parsed as the given integer. This
+   * method does not invalidate the string rep since the object's value is not being changed.
+   *
+   * @param tobj the object to operate on
+   * @param b the value parsed from the string rep
+   */
+  public static void exprSetInternalRep(TclObject tobj, BigInteger b) {
+    if (fitsLong(b)) {
+      TclInteger.exprSetInternalRep(tobj, b.longValue());
+    } else {
+      tobj.setInternalRep(new TclBignum(b));
+    }
+  }
+
+  /**
+   * Returns the value of an integer object of any size.
+   *
+   * @param interp current interpreter
+   * @param tobj the object to operate on
+   * @return the integer value of the object
+   * @throws TclException if the object is not an integer
+   */
+  public static BigInteger get(Interp interp, TclObject tobj) throws TclException {
+    if (isBignum(interp, tobj)) {
+      return ((TclBignum) tobj.getInternalRep()).value;
+    }
+    return BigInteger.valueOf(TclInteger.getLong(interp, tobj));
+  }
+
+  /**
+   * Returns the low 64 bits of an integer object of any size, for commands such as "binary format"
+   * that truncate integers to a fixed width.
+   *
+   * @param interp current interpreter
+   * @param tobj the object to operate on
+   * @return the integer value of the object, truncated to a long
+   * @throws TclException if the object is not an integer
+   */
+  public static long getLongBits(Interp interp, TclObject tobj) throws TclException {
+    if (!tobj.isIntType() && isBignum(interp, tobj)) {
+      return ((TclBignum) tobj.getInternalRep()).value.longValue();
+    }
+    return TclInteger.getLong(interp, tobj);
+  }
+
+  /**
+   * Parse an integer that strtoul() found to be out of the range of a long.
+   *
+   * @param s string holding the integer
+   * @param start index of the first character of the integer, which may be preceded by white space,
+   *     a sign and a base prefix as accepted by Util.strtoul() with a base of 0
+   * @param end index of the character following the last digit
+   * @return the value
+   */
+  public static BigInteger parse(String s, int start, int end) {
+    int i = start;
+    while (i < end && (s.charAt(i) == ' ' || Character.isWhitespace(s.charAt(i)))) {
+      i++;
+    }
+    boolean negative = false;
+    if (s.charAt(i) == '-' || s.charAt(i) == '+') {
+      negative = (s.charAt(i) == '-');
+      i++;
+    }
+    int radix = 10;
+    if (s.charAt(i) == '0' && i + 1 < end) {
+      char c = s.charAt(i + 1);
+      if (c == 'x' || c == 'X') {
+        radix = 16;
+        i += 2;
+      } else {
+        radix = 8;
+        i++;
+      }
+    }
+    BigInteger b = new BigInteger(s.substring(i, end), radix);
+    return negative ? b.negate() : b;
+  }
+}
@@ -27,9 +27,18 @@ import tcl.lang.Interp;
 import tcl.lang.cmd.EncodingCmd;
 import tcl.lang.exception.TclRuntimeError;
 
-/** This class implements the binary data object type in Tcl. */
+/**
+ * This class implements the binary data object type in Tcl.
+ *
+ * <p>The bytes are normally held in a byte array. A byte array object can also be backed by a
+ * read-only ByteBuffer, such as a memory-mapped region of a file read with "fconfigure -mmap 1";
+ * the bytes are then only copied into the heap when a caller asks for the byte array itself.
+ */
 public final class TclByteArray implements InternalRep {
 
+  /** The largest byte array the JVM can reliably allocate. */
+  public static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
   /**
    * The number of bytes used in the byte array. The following structure is the internal rep for a
    * ByteArray object. Keeps track of how much memory has been used. This can be different from how
@@ -38,9 +47,15 @@ public final class TclByteArray implements InternalRep {
    */
   private int used;
 
-  /** Internal representation of the binary data. */
+  /** Internal representation of the binary data. Null while the data is held in buffer. */
   private byte[] bytes;
 
+  /**
+   * Read-only buffer holding the binary data, or null if the data is in bytes. Its remaining bytes
+   * are the value.
+   */
+  private ByteBuffer buffer;
+
   /** Create a new empty Tcl binary data. */
   private TclByteArray() {
     used = 0;
@@ -61,6 +76,12 @@ public final class TclByteArray implements InternalRep {
     System.arraycopy(b, position, bytes, 0, used);
   }
 
+  /** Create a new Tcl binary data backed by a read-only buffer. */
+  private TclByteArray(ByteBuffer buffer) {
+    this.buffer = buffer;
+    used = buffer.remaining();
+  }
+
   /** Create a new Tcl binary data. */
   private TclByteArray(char[] c) {
     used = c.length;
@@ -73,9 +94,26 @@ public final class TclByteArray implements InternalRep {
   /** Returns a duplicate of the current object. */
   @Override
   public InternalRep duplicate() {
+    if (buffer != null) {
+      // The buffer is read-only, so it can be shared
+      return new TclByteArray(buffer);
+    }
     return new TclByteArray(bytes, 0, used);
   }
 
+  /**
+   * @return the byte array, copying the bytes out of the buffer first if the data is held in a
+   *     buffer
+   */
+  private byte[] array() {
+    if (buffer != null) {
+      bytes = new byte[used];
+      buffer.duplicate().get(bytes);
+      buffer = null;
+    }
+    return bytes;
+  }
+
   /**
    * Called to query the string representation of the Tcl object. This method is called only by
    * TclObject.toString() when TclObject.stringRep is null.
@@ -86,8 +124,15 @@ public final class TclByteArray implements InternalRep {
   @Override
   public String toString() {
     char[] c = new char[used];
-    for (int ix = 0; ix < used; ix++) {
-      c[ix] = (char) (bytes[ix] & 0xff);
+    if (buffer != null) {
+      int pos = buffer.position();
+      for (int ix = 0; ix < used; ix++) {
+        c[ix] = (char) (buffer.get(pos + ix) & 0xff);
+      }
+    } else {
+      for (int ix = 0; ix < used; ix++) {
+        c[ix] = (char) (bytes[ix] & 0xff);
+      }
     }
     return new String(c);
   }
@@ -119,6 +164,21 @@ public final class TclByteArray implements InternalRep {
     return new TclObject(new TclByteArray());
   }
 
+  /**
+   * Set the value of an unshared object to the remaining bytes of a buffer, without copying them.
+   * The buffer must not be modified afterwards; a read-only view of it is kept.
+   *
+   * @param tobj object to set
+   * @param buffer the bytes
+   */
+  public static void setBuffer(TclObject tobj, ByteBuffer buffer) {
+    if (tobj.isShared()) {
+      throw new TclRuntimeError("TclByteArray.setBuffer() called with shared object");
+    }
+    tobj.setInternalRep(new TclByteArray(buffer.asReadOnlyBuffer()));
+    tobj.invalidateStringRep();
+  }
+
   /**
    * Called to convert the other object's internal rep to a ByteArray.
    *
@@ -158,10 +218,11 @@ public final class TclByteArray implements InternalRep {
     }
     setByteArrayFromAny(interp, tobj);
     TclByteArray tbyteArray = (TclByteArray) tobj.getInternalRep();
+    tbyteArray.array();
 
     if (length > tbyteArray.bytes.length) {
       byte[] newBytes = new byte[length];
-      System.arraycopy(tbyteArray.bytes, 0, newBytes, 0, tbyteArray.used);
+      System.arraycopy(tbyteArray.bytes, 0, newBytes, 0, Math.min(tbyteArray.used, length));
       tbyteArray.bytes = newBytes;
     }
     tobj.invalidateStringRep();
@@ -169,6 +230,23 @@ public final class TclByteArray implements InternalRep {
     return tbyteArray.bytes;
   }
 
+  /**
+   * Release the space allocated beyond the length of the byte array, after it was grown ahead of
+   * its use by setLength().
+   *
+   * @param interp the current interpreter
+   * @param tobj the byte array object
+   */
+  public static void trimToLength(Interp interp, TclObject tobj) {
+    setByteArrayFromAny(interp, tobj);
+    TclByteArray tbyteArray = (TclByteArray) tobj.getInternalRep();
+    if (tbyteArray.bytes != null && tbyteArray.bytes.length > tbyteArray.used) {
+      byte[] newBytes = new byte[tbyteArray.used];
+      System.arraycopy(tbyteArray.bytes, 0, newBytes, 0, tbyteArray.used);
+      tbyteArray.bytes = newBytes;
+    }
+  }
+
   /**
    * Queries the length of the byte array. If tobj is not a byte array object, an attempt will be
    * made to convert it to a byte array.
@@ -199,7 +277,25 @@ public final class TclByteArray implements InternalRep {
   public static byte[] getBytes(Interp interp, TclObject tobj) {
     setByteArrayFromAny(interp, tobj);
     TclByteArray tbyteArray = (TclByteArray) tobj.getInternalRep();
-    return tbyteArray.bytes;
+    return tbyteArray.array();
+  }
+
+  /**
+   * Returns the bytes of a ByteArray object as a buffer, without copying them out of a buffer
+   * backing the object. If tobj is not a ByteArray object, an attempt will be made to convert it to
+   * a ByteArray. The buffer must not be modified.
+   *
+   * @param interp the current interpreter.
+   * @param tobj the byte array object.
+   * @return a buffer whose remaining bytes are the value of the object
+   */
+  public static ByteBuffer getBuffer(Interp interp, TclObject tobj) {
+    setByteArrayFromAny(interp, tobj);
+    TclByteArray tbyteArray = (TclByteArray) tobj.getInternalRep();
+    if (tbyteArray.buffer != null) {
+      return tbyteArray.buffer.duplicate();
+    }
+    return ByteBuffer.wrap(tbyteArray.bytes, 0, tbyteArray.used);
   }
 
   /**
@@ -225,7 +321,7 @@ public final class TclByteArray implements InternalRep {
     csd.onUnmappableCharacter(CodingErrorAction.REPLACE);
     CharBuffer cb = null;
     try {
-      cb = csd.decode(ByteBuffer.wrap(tbyteArray.bytes, 0, tbyteArray.used));
+      cb = csd.decode(getBuffer(interp, tobj));
     } catch (CharacterCodingException e) {
     }
     if (cb == null) return "";
@@ -13,6 +13,7 @@
 
 package tcl.lang.model;
 
+import java.math.BigInteger;
 import tcl.lang.InternalRep;
 import tcl.lang.Interp;
 import tcl.lang.Util;
@@ -191,6 +192,9 @@ public final class TclInteger implements InternalRep {
    * operation by calling get() and then set(), this method provides an optimized implementation.
    * This method is not public since it will only be invoked by the incr command.
    *
+   * <p>If the object holds an integer too large for a long, or the sum overflows a long, the object
+   * is changed to a TclBignum.
+   *
    * @param interp current interpreter.
    * @param tobj the object to operate on.
    * @param incrAmount amount to increment
@@ -198,10 +202,22 @@ public final class TclInteger implements InternalRep {
   public static void incr(final Interp interp, final TclObject tobj, final long incrAmount)
       throws TclException {
     if (!tobj.isIntType()) {
-      setIntegerFromAny(interp, tobj);
+      if (TclBignum.isBignum(interp, tobj)) {
+        TclBignum.set(tobj, TclBignum.get(interp, tobj).add(BigInteger.valueOf(incrAmount)));
+        return;
+      }
+      if (!tobj.isIntType()) {
+        setIntegerFromAny(interp, tobj);
+      }
+    }
+    final long value = tobj.ivalue;
+    final long sum = value + incrAmount;
+    if (((value ^ sum) & (incrAmount ^ sum)) < 0) {
+      TclBignum.set(tobj, BigInteger.valueOf(value).add(BigInteger.valueOf(incrAmount)));
+      return;
     }
     tobj.invalidateStringRep();
-    tobj.ivalue += incrAmount;
+    tobj.ivalue = sum;
   }
 
   /**
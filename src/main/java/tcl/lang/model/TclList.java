@@ -267,6 +267,7 @@ public final class TclList implements InternalRep {
     tobj.invalidateStringRep();
 
     ArrayList<TclObject> alist = ((TclList) tobj.getInternalRep()).alist;
+    alist.ensureCapacity(alist.size() + endIdx - startIdx);
 
     for (int i = startIdx; i < endIdx; i++) {
       TclObject elemObj = objv[i];
@@ -649,27 +650,33 @@ public final class TclList implements InternalRep {
       boolean unique,
       String command)
       throws TclException {
-    if (!tobj.isListType()) {
-      setListFromAny(interp, tobj);
+    TclObject objArray[] = TclList.getElements(interp, tobj);
+
+    // Sort a copy of the elements, so that the list is unchanged if the
+    // sort fails.
+
+    var sorter = TclSorter.sort(interp, objArray, sortMode, sortIndex, sortIncreasing, command);
+
+    // When -unique is given, only the last of a run of equal elements is
+    // kept. The runs are found by comparing the keys the sort computed.
+
+    boolean[] duplicate = null;
+    if (unique) {
+      duplicate = new boolean[objArray.length];
+      for (int i = 0; i < objArray.length - 1; i++) {
+        duplicate[i] = sorter.equalKeys(i, i + 1);
+      }
     }
+
     tobj.invalidateStringRep();
     TclList tlist = (TclList) tobj.getInternalRep();
-
-    TclObject objArray[] = TclList.getElements(interp, tobj);
     tlist.alist.clear();
-
-    var qsort = TclSorter.sort(interp, objArray, sortMode, sortIndex, sortIncreasing, command);
-
     for (int i = 0; i < objArray.length; i++) {
-      if (unique && i < objArray.length - 1) {
-        TclObject o1 = objArray[i];
-        TclObject o2 = objArray[i + 1];
-        if (qsort.compare(o1, o2) == 0) {
-          /* don't add o1 now, it is not unique */
-          continue;
-        }
+      if (duplicate != null && duplicate[i]) {
+        objArray[i].release();
+      } else {
+        tlist.alist.add(objArray[i]);
       }
-      tlist.alist.add(objArray[i]);
       objArray[i] = null;
     }
   }
@@ -1,5 +1,5 @@
 /*
- * TclList.java
+ * TclString.java
  *
  * Copyright (c) 1997 Sun Microsystems, Inc.
  *
@@ -30,10 +30,13 @@ public final class TclString implements InternalRep {
 
   // Used to perform "append" operations. After an append op,
   // sbuf.toString() will contain the latest value of the string and
-  // tobj.stringRep will be set to null. This field is not private
-  // since it will need to be accessed directly by Jacl's IO code.
+  // tobj.stringRep will be set to null. The string is only built when
+  // it is asked for, and length(), charAt() and substring() don't ask
+  // for it, so that a loop that appends to a string and looks at it
+  // copies each character once. An interp is used by one thread, so
+  // the builder is not synchronized.
 
-  StringBuffer sbuf;
+  StringBuilder sbuf;
 
   private TclString() {
     sbuf = null;
@@ -50,7 +53,7 @@ public final class TclString implements InternalRep {
     }
   }
 
-  private TclString(StringBuffer sb) {
+  private TclString(StringBuilder sb) {
     sbuf = sb;
 
     if (TclObject.saveObjRecords) {
@@ -83,11 +86,11 @@ public final class TclString implements InternalRep {
   }
 
   /**
-   * Return the internal StringBuffer. Used by TclInputStream as a shortcut.
+   * Return the internal StringBuilder.
    *
-   * @return sbuf, the internal StringBuffer.
+   * @return sbuf, the internal StringBuilder, or null if the string has not been appended to.
    */
-  public StringBuffer getSbuf() {
+  public StringBuilder getSbuf() {
     return sbuf;
   }
 
@@ -111,13 +114,18 @@ public final class TclString implements InternalRep {
   }
 
   /**
-   * Create a new TclObject that makes use of the given StringBuffer object. The passed in
-   * StringBuffer should not be modified after it is passed to this method.
+   * Create a new TclObject that makes use of the given StringBuilder object. The passed in
+   * StringBuilder should not be modified after it is passed to this method.
    */
-  public static TclObject newInstance(StringBuffer sb) {
+  public static TclObject newInstance(StringBuilder sb) {
     return new TclObject(new TclString(sb));
   }
 
+  /** Create a new TclObject with the current value of the given StringBuffer object. */
+  public static TclObject newInstance(StringBuffer sb) {
+    return new TclObject(new TclString(new StringBuilder(sb)));
+  }
+
   public static TclObject newInstance(Object o) {
     return newInstance(o.toString());
   }
@@ -167,6 +175,57 @@ public final class TclString implements InternalRep {
    * tobj.toString() instead.
    */
 
+  /**
+   * @param tobj a TclObject.
+   * @return the builder that holds the string value of tobj, if the value has been appended to
+   *     since the string was last asked for, null otherwise.
+   */
+  private static StringBuilder pendingAppends(TclObject tobj) {
+    if (tobj.hasNoStringRep() && tobj.isStringType()) {
+      return ((TclString) tobj.getInternalRep()).sbuf;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of characters in the string value of a TclObject, without building the
+   * string of a TclString that has been appended to.
+   *
+   * @param tobj the TclObject.
+   * @return the length of its string value.
+   */
+  public static int length(TclObject tobj) {
+    StringBuilder sb = pendingAppends(tobj);
+    return sb != null ? sb.length() : tobj.toString().length();
+  }
+
+  /**
+   * Returns a character of the string value of a TclObject, without building the string of a
+   * TclString that has been appended to.
+   *
+   * @param tobj the TclObject.
+   * @param index index of the character, from 0 to length(tobj) - 1.
+   * @return the character.
+   */
+  public static char charAt(TclObject tobj, int index) {
+    StringBuilder sb = pendingAppends(tobj);
+    return sb != null ? sb.charAt(index) : tobj.toString().charAt(index);
+  }
+
+  /**
+   * Returns a range of the string value of a TclObject, without building the string of a TclString
+   * that has been appended to.
+   *
+   * @param tobj the TclObject.
+   * @param first index of the first character.
+   * @param end index after the last character.
+   * @return the characters from first to end - 1.
+   */
+  public static String substring(TclObject tobj, int first, int end) {
+    StringBuilder sb = pendingAppends(tobj);
+    return sb != null ? sb.substring(first, end) : tobj.toString().substring(first, end);
+  }
+
   /**
    * Appends a string to a TclObject object. This method is equivalent to Tcl_AppendToObj() in Tcl
    * 8.0.
@@ -174,7 +233,7 @@ public final class TclString implements InternalRep {
    * @param tobj the TclObject to append a string to.
    * @param string the string to append to the object.
    */
-  public static void append(TclObject tobj, String string) {
+  public static void append(TclObject tobj, CharSequence string) {
     if (!tobj.isStringType()) {
       setStringFromAny(tobj);
     }
@@ -185,7 +244,7 @@ public final class TclString implements InternalRep {
       tobj.setInternalRep(tstr);
     }
     if (tstr.sbuf == null) {
-      tstr.sbuf = new StringBuffer(tobj.toString());
+      tstr.sbuf = new StringBuilder(tobj.toString());
     }
     tobj.invalidateStringRep();
     tstr.sbuf.append(string);
@@ -210,7 +269,7 @@ public final class TclString implements InternalRep {
       tobj.setInternalRep(tstr);
     }
     if (tstr.sbuf == null) {
-      tstr.sbuf = new StringBuffer(tobj.toString());
+      tstr.sbuf = new StringBuilder(tobj.toString());
     }
     tobj.invalidateStringRep();
     tstr.sbuf.append(charArr, offset, length);
@@ -223,7 +282,12 @@ public final class TclString implements InternalRep {
    * tobj.toString() + tobj2.toString();
    */
   public static void append(TclObject tobj, TclObject tobj2) {
-    append(tobj, tobj2.toString());
+    StringBuilder sb = pendingAppends(tobj2);
+    if (sb != null && tobj2 != tobj) {
+      append(tobj, sb);
+    } else {
+      append(tobj, tobj2.toString());
+    }
   }
 
   /**
@@ -248,15 +312,15 @@ public final class TclString implements InternalRep {
       tobj.setInternalRep(tstr);
     }
     if (tstr.sbuf == null) {
-      tstr.sbuf = new StringBuffer(tobj.toString());
+      tstr.sbuf = new StringBuilder(tobj.toString());
     }
-    StringBuffer sb = tstr.sbuf;
+    StringBuilder sb = tstr.sbuf;
     int currentLen = tstr.sbuf.length();
 
     tobj.invalidateStringRep();
 
-    for (int i = 0; i < endIdx; i++) {
-      currentLen += objv[i].toString().length();
+    for (int i = startIdx; i < endIdx; i++) {
+      currentLen += length(objv[i]);
     }
     // Large enough to holds all bytes, plus a little extra
     if (currentLen > (1024 * 10)) {
@@ -265,8 +329,8 @@ public final class TclString implements InternalRep {
       currentLen += (currentLen / 4);
     }
     sb.ensureCapacity(currentLen);
-    for (int i = 0; i < endIdx; i++) {
-      sb.append(objv[i].toString());
+    for (int i = startIdx; i < endIdx; i++) {
+      append(tobj, objv[i]);
     }
   }
 
@@ -285,7 +349,7 @@ public final class TclString implements InternalRep {
       tobj.setInternalRep(tstr);
     }
     if (tstr.sbuf == null) {
-      tstr.sbuf = new StringBuffer();
+      tstr.sbuf = new StringBuilder();
     } else {
       tstr.sbuf.setLength(0);
     }
@@ -0,0 +1,249 @@
+/*
+ * ParsedScript.java --
+ *
+ *	A ParsedScript holds the result of running Parser.parseCommand
+ *	over an entire script, so that a script that is evaluated many
+ *	times (such as the body of a procedure) only needs to be
+ *	tokenized once.
+ *
+ * See the file "license.terms" for information on usage and redistribution
+ * of this file, and for a DISCLAIMER OF ALL WARRANTIES.
+ */
+
+package tcl.lang.parse;
+
+import tcl.lang.CallFrame;
+import tcl.lang.Interp;
+import tcl.lang.TCL;
+import tcl.lang.exception.TclException;
+import tcl.lang.model.TclObject;
+
+/**
+ * A pre-parsed script. The script is broken up into commands, and each command into ParsedWords
+ * holding the tokens that Parser.parseCommand produced for it.
+ *
+ * <p>A ParsedScript is only created for scripts that parse without error. Scripts with a syntax
+ * error are left to Parser.eval2, so that the commands in front of the error still run and the
+ * error is reported exactly as before.
+ */
+public final class ParsedScript {
+
+  // The script the commands were parsed from. Kept so that error
+  // information can be generated the same way Parser.eval2 does it.
+
+  private final char[] script_array;
+  private final int script_index;
+
+  // The commands of the script, in order. Commands with no words
+  // (empty lines and comments) are not recorded.
+
+  private final Command[] commands;
+
+  // Value to store in interp.termOffset after the script completes.
+
+  private final int termOffset;
+
+  /** One command of a parsed script. */
+  private static final class Command {
+    // Index of the first character of the command in script_array.
+    int commandStart;
+
+    // Number of characters to report in errorInfo when the command fails.
+    int logLength;
+
+    // Offset, relative to script_index, of the character following
+    // the command.
+    int nextOffset;
+
+    ParsedWord[] words;
+  }
+
+  private ParsedScript(char[] script_array, int script_index, Command[] commands, int termOffset) {
+    this.script_array = script_array;
+    this.script_index = script_index;
+    this.commands = commands;
+    this.termOffset = termOffset;
+  }
+
+  /**
+   * Parse a script into a ParsedScript.
+   *
+   * @param interp interpreter, used to allocate tokens; no error is left in it
+   * @param script_array array of characters containing the script, with a trailing '\0'
+   * @param script_index starting index into script array
+   * @param numChars number of characters in script; if < 0, all characters up to the end
+   * @param nested true if the script is the contents of a command substitution, in which case a
+   *     close bracket terminates the script
+   * @return the parsed script, or null if the script has a syntax error
+   */
+  public static ParsedScript parse(
+      Interp interp, char[] script_array, int script_index, int numChars, boolean nested) {
+    int script_length = script_array.length - 1;
+    if (numChars < 0) {
+      numChars = script_length - script_index;
+    }
+
+    Command[] cmds = new Command[4];
+    int numCmds = 0;
+    int charsLeft = numChars;
+    int src_index = script_index;
+    int nextIndex;
+
+    // The result of the interp must not be disturbed by a parse
+    // failure, so parseCommand is never passed an interp here. It
+    // only uses the interp to report errors and to pool tokens.
+
+    do {
+      TclParse parse =
+          Parser.parseCommand(null, script_array, src_index, charsLeft, null, 0, nested);
+      try {
+        if (parse.getResult() != TCL.OK) {
+          return null;
+        }
+
+        if (parse.getNumWords() > 0) {
+          if (numCmds == cmds.length) {
+            Command[] newCmds = new Command[cmds.length * 2];
+            System.arraycopy(cmds, 0, newCmds, 0, numCmds);
+            cmds = newCmds;
+          }
+          cmds[numCmds++] = parseCommand(interp, parse, script_array, script_index, nested);
+        }
+
+        nextIndex = parse.getCommandStart() + parse.getCommandSize();
+      } catch (TclException e) {
+        // Only raised when a literal word can't be built, which
+        // means the tokens are malformed. Let eval2 handle it.
+        return null;
+      } finally {
+        parse.release();
+      }
+
+      charsLeft -= (nextIndex - src_index);
+      src_index = nextIndex;
+      if (nested && (src_index > 1) && (script_array[src_index - 1] == ']')) {
+        // Same special case as in Parser.eval2(): a close bracket
+        // ends a nested script.
+        return new ParsedScript(
+            script_array, script_index, trim(cmds, numCmds), (src_index - 1) - script_index);
+      }
+    } while (charsLeft > 0);
+
+    return new ParsedScript(
+        script_array, script_index, trim(cmds, numCmds), src_index - script_index);
+  }
+
+  private static Command[] trim(Command[] cmds, int numCmds) {
+    if (cmds.length == numCmds) {
+      return cmds;
+    }
+    Command[] result = new Command[numCmds];
+    System.arraycopy(cmds, 0, result, 0, numCmds);
+    return result;
+  }
+
+  private static Command parseCommand(
+      Interp interp, TclParse parse, char[] script_array, int script_index, boolean nested)
+      throws TclException {
+    Command cmd = new Command();
+    cmd.commandStart = parse.getCommandStart();
+    cmd.nextOffset = parse.getCommandStart() + parse.getCommandSize() - script_index;
+
+    // Work out the length of the command as it will appear in
+    // errorInfo. See the matching code in Parser.eval2().
+
+    int commandLength = parse.getCommandSize();
+    char term = script_array[parse.getCommandStart() + commandLength - 1];
+    int type = Parser.charType(term);
+    int terminators;
+    if (nested) {
+      terminators = Parser.TYPE_COMMAND_END | Parser.TYPE_CLOSE_BRACK;
+    } else {
+      terminators = Parser.TYPE_COMMAND_END;
+    }
+    if ((type & terminators) != 0) {
+      commandLength -= 1;
+    }
+    cmd.logLength = commandLength;
+
+    int numWords = parse.getNumWords();
+    TclToken[] tokenList = parse.getTokenList();
+    cmd.words = new ParsedWord[numWords];
+    int tokenIndex = 0;
+    for (int i = 0; i < numWords; i++) {
+      TclToken token = tokenList[tokenIndex];
+      cmd.words[i] = ParsedWord.fromTokens(interp, tokenList, tokenIndex + 1, token.numComponents);
+      tokenIndex += (token.numComponents + 1);
+    }
+    return cmd;
+  }
+
+  /**
+   * Evaluate the parsed script. This has the same behavior as calling Parser.eval2() on the text
+   * the script was parsed from.
+   *
+   * @param interp interpreter in which to evaluate the script and report errors
+   * @param flags TCL.EVAL_GLOBAL or 0
+   * @throws TclException
+   */
+  public void eval(Interp interp, int flags) throws TclException {
+    interp.resetResult();
+    CallFrame savedVarFrame = interp.getVarFrame();
+    if ((flags & TCL.EVAL_GLOBAL) != 0) {
+      interp.setVarFrame(null);
+    }
+    interp.setEvalFlags(interp.getEvalFlags() & ~Parser.TCL_BRACKET_TERM);
+
+    final Command[] commands = this.commands;
+    for (int c = 0; c < commands.length; c++) {
+      // The test on noEval matches the one in Parser.eval2().
+
+      if (interp.getNoEval() != 0) {
+        continue;
+      }
+
+      final Command cmd = commands[c];
+      final ParsedWord[] words = cmd.words;
+      final int numWords = words.length;
+      TclObject[] objv = Parser.grabObjv(interp, numWords);
+      int objUsed = 0;
+
+      try {
+        for (objUsed = 0; objUsed < numWords; objUsed++) {
+          objv[objUsed] = words[objUsed].eval(interp);
+        }
+
+        try {
+          Parser.evalObjv(interp, objv, cmd.logLength, 0);
+        } catch (StackOverflowError e) {
+          Parser.infiniteLoopException(interp);
+        }
+      } catch (TclException e) {
+        if (e.getCompletionCode() == TCL.ERROR && !(interp.isErrAlreadyLogged())) {
+          interp.setVarFrame(savedVarFrame);
+          Parser.logCommandInfo(
+              interp, script_array, script_index, cmd.commandStart, cmd.logLength, e);
+        }
+        interp.setTermOffset(cmd.nextOffset);
+        throw e;
+      } finally {
+        for (int i = 0; i < objUsed; i++) {
+          objv[i].release();
+          objv[i] = null;
+        }
+        Parser.releaseObjv(interp, objv, numWords);
+      }
+    }
+
+    interp.setTermOffset(termOffset);
+    interp.setVarFrame(savedVarFrame);
+  }
+
+  /**
+   * Returns the offset, relative to the start of the script, of the character following the script.
+   * For a nested script this is the index of the close bracket.
+   */
+  int getTermOffset() {
+    return termOffset;
+  }
+}
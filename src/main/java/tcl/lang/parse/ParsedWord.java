@@ -0,0 +1,411 @@
+/*
+ * ParsedWord.java --
+ *
+ *	A ParsedWord holds the tokens of a single word, as produced
+ *	by the Parser, in a form that can be evaluated many times.
+ *
+ * See the file "license.terms" for information on usage and redistribution
+ * of this file, and for a DISCLAIMER OF ALL WARRANTIES.
+ */
+
+package tcl.lang.parse;
+
+import tcl.lang.CallFrame;
+import tcl.lang.Interp;
+import tcl.lang.TCL;
+import tcl.lang.Var;
+import tcl.lang.exception.TclException;
+import tcl.lang.exception.TclRuntimeError;
+import tcl.lang.model.CharPointer;
+import tcl.lang.model.TclObject;
+import tcl.lang.model.TclString;
+
+/**
+ * A pre-parsed word. A word with no variable or command substitutions is turned into a literal
+ * TclObject when it is parsed. Otherwise the component tokens are kept and are evaluated each time
+ * the word is, without having to parse the text again. Scripts in command substitutions are parsed
+ * into ParsedScripts the first time they are evaluated.
+ *
+ * <p>ParsedWord is used for the words of a ParsedScript and for the $var, [cmd] and "quoted"
+ * operands of a compiled expression.
+ */
+public final class ParsedWord {
+
+  // Value of the word if it has no substitutions, otherwise null.
+  //
+  // The literal holds a ref that is never released: a running
+  // invocation of a script may still be using the literal after the
+  // owner of the script is deleted (a proc that renames itself, for
+  // example), so the literal is left for the garbage collector along
+  // with the rest of the word.
+
+  private final TclObject literal;
+
+  // Copies of the component tokens of the word. The tokens filled
+  // in by the Parser are pooled and so can't be kept.
+
+  private final TclToken[] tokens;
+
+  // The string value of each TEXT and BS token, and the variable name
+  // for each VARIABLE token (stored at the index of the name token).
+
+  private final String[] strings;
+
+  // Lazily parsed scripts for each COMMAND token.
+
+  private final ParsedScript[] scripts;
+
+  // For each VARIABLE token, the compiled local slot the variable was
+  // last found in, and the compiled local names of the frame it was
+  // found in. The slot stays valid for all frames with the same names,
+  // which means all invocations of the same procedure.
+
+  private String[][] localNames;
+  private int[] localIndexes;
+
+  private ParsedWord(TclObject literal) {
+    this.literal = literal;
+    this.tokens = null;
+    this.strings = null;
+    this.scripts = null;
+  }
+
+  private ParsedWord(TclToken[] tokens, String[] strings, ParsedScript[] scripts) {
+    this.literal = null;
+    this.tokens = tokens;
+    this.strings = strings;
+    this.scripts = scripts;
+  }
+
+  /**
+   * Create a ParsedWord from the component tokens of a word.
+   *
+   * @param interp current interpreter
+   * @param tokenList token list from a TclParse object; the tokens are copied
+   * @param tIndex index of the first component token of the word
+   * @param count number of component tokens
+   */
+  static ParsedWord fromTokens(Interp interp, TclToken[] tokenList, int tIndex, int count)
+      throws TclException {
+    boolean isLiteral = true;
+    for (int i = 0; i < count; i++) {
+      int type = tokenList[tIndex + i].type;
+      if (type == Parser.TCL_TOKEN_COMMAND || type == Parser.TCL_TOKEN_VARIABLE) {
+        isLiteral = false;
+        break;
+      }
+    }
+
+    if (isLiteral) {
+      // evalTokens() never touches the interp for text and backslash
+      // tokens. The returned object has already been preserved.
+
+      return new ParsedWord(Parser.evalTokens(interp, tokenList, tIndex, count));
+    }
+
+    TclToken[] tokens = new TclToken[count];
+    String[] strings = new String[count];
+    ParsedScript[] scripts = null;
+    for (int i = 0; i < count; i++) {
+      TclToken src = tokenList[tIndex + i];
+      TclToken token = new TclToken();
+      token.script_array = src.script_array;
+      token.script_index = src.script_index;
+      token.size = src.size;
+      token.type = src.type;
+      token.numComponents = src.numComponents;
+      tokens[i] = token;
+
+      switch (token.type) {
+        case Parser.TCL_TOKEN_TEXT:
+          strings[i] = token.getTokenString();
+          break;
+        case Parser.TCL_TOKEN_BS:
+          BackSlashResult bs = Parser.backslash(token.script_array, token.script_index);
+          if (bs.isWordSep()) {
+            strings[i] = "\\" + bs.getC();
+          } else {
+            strings[i] = String.valueOf(bs.getC());
+          }
+          break;
+        case Parser.TCL_TOKEN_COMMAND:
+          if (scripts == null) {
+            scripts = new ParsedScript[count];
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return new ParsedWord(tokens, strings, scripts);
+  }
+
+  /**
+   * Parse a variable reference, like Parser.parseVar() but without evaluating it.
+   *
+   * @param interp current interpreter
+   * @param string string containing the variable reference
+   * @param index index of the "$" in string
+   * @param length number of characters in string
+   * @return the parsed word, or null if the variable reference is malformed. If the result is not
+   *     null, then getNextIndex() gives the index of the character following the reference.
+   */
+  public static Result parseVar(Interp interp, String string, int index, int length) {
+    CharPointer src = new CharPointer(string.substring(index, length));
+    TclParse parse = Parser.parseVarName(null, src.getArray(), src.getIndex(), -1, null, false);
+    try {
+      if (parse.getResult() != TCL.OK) {
+        return null;
+      }
+      if (parse.getNumTokens() == 1) {
+        // There isn't a variable name after all: the $ is just a $.
+        return new Result(new ParsedWord(literal("$")), index + 1);
+      }
+      ParsedWord word = fromTokens(interp, parse.getTokenList(), 0, parse.getNumTokens());
+      return new Result(word, index + parse.getTokenList()[0].size);
+    } catch (TclException e) {
+      return null;
+    } finally {
+      parse.release();
+    }
+  }
+
+  /**
+   * Parse a command substitution, like ParseAdaptor.parseNestedCmd() but without evaluating it.
+   *
+   * @param interp current interpreter
+   * @param string string containing the command
+   * @param index index of the character following the "[" in string
+   * @param length number of characters in string
+   * @return the parsed word, or null if the command has a syntax error. If the result is not null,
+   *     then getNextIndex() gives the index of the character following the "]".
+   */
+  public static Result parseNestedCmd(Interp interp, String string, int index, int length) {
+    if (index == length) {
+      return null;
+    }
+    CharPointer script = new CharPointer(string);
+    ParsedScript parsed =
+        ParsedScript.parse(interp, script.getArray(), index, length - index, true);
+    if (parsed == null) {
+      return null;
+    }
+    int end = index + parsed.getTermOffset();
+    if (end >= length || string.charAt(end) != ']') {
+      return null;
+    }
+
+    TclToken token = new TclToken();
+    token.type = Parser.TCL_TOKEN_COMMAND;
+    token.script_array = script.getArray();
+    token.script_index = index - 1;
+    token.size = end - index + 2;
+    token.numComponents = 0;
+    ParsedScript[] scripts = {parsed};
+    return new Result(new ParsedWord(new TclToken[] {token}, new String[1], scripts), end + 1);
+  }
+
+  /**
+   * Parse a quoted string, like ParseAdaptor.parseQuotes() but without evaluating it.
+   *
+   * @param interp current interpreter
+   * @param string string containing the quoted string
+   * @param index index of the character following the open quote in string
+   * @param length number of characters in string
+   * @return the parsed word, or null if the string is malformed. If the result is not null, then
+   *     getNextIndex() gives the index of the character following the close quote.
+   */
+  public static Result parseQuotes(Interp interp, String string, int index, int length) {
+    CharPointer script = new CharPointer(string);
+    script.setIndex(index);
+    TclParse parse = new TclParse(null, script.getArray(), length, null, 0);
+    try {
+      parse.setCommandStart(index);
+      TclToken token = parse.getToken(0);
+      token.type = Parser.TCL_TOKEN_WORD;
+      token.script_array = script.getArray();
+      token.script_index = index;
+      parse.setNumTokens(parse.getNumTokens() + 1);
+      parse.setNumWords(parse.getNumWords() + 1);
+      parse = Parser.parseTokens(script.getArray(), index, Parser.TYPE_QUOTE, parse);
+      if (parse.getResult() != TCL.OK
+          || script.getArray()[parse.getTermIndex()] != '"'
+          || parse.getNumTokens() < 2) {
+        return null;
+      }
+      ParsedWord word = fromTokens(interp, parse.getTokenList(), 1, parse.getNumTokens() - 1);
+      return new Result(word, parse.getTermIndex() + 1);
+    } catch (TclException e) {
+      return null;
+    } finally {
+      parse.release();
+    }
+  }
+
+  private static TclObject literal(String s) {
+    TclObject obj = TclString.newInstance(s);
+    obj.preserve();
+    return obj;
+  }
+
+  /**
+   * Evaluate the word.
+   *
+   * @param interp interpreter in which to substitute variables and commands
+   * @return the value of the word, with its ref count incremented
+   */
+  public TclObject eval(Interp interp) throws TclException {
+    if (literal != null) {
+      literal.preserve();
+      return literal;
+    }
+    return evalTokens(interp, 0, tokens.length);
+  }
+
+  /**
+   * Evaluate tokens and concatenate their values, like Parser.evalTokens() does.
+   *
+   * @return the value of the tokens, with its ref count incremented
+   */
+  private TclObject evalTokens(Interp interp, int tIndex, int count) throws TclException {
+    TclObject result = null;
+    TclObject value;
+    String p = null;
+
+    for (; count > 0; count--) {
+      TclToken token = tokens[tIndex];
+      value = null;
+
+      switch (token.type) {
+        case Parser.TCL_TOKEN_TEXT:
+        case Parser.TCL_TOKEN_BS:
+          p = strings[tIndex];
+          break;
+
+        case Parser.TCL_TOKEN_COMMAND:
+          {
+            ParsedScript script = scripts[tIndex];
+            if (script == null) {
+              script =
+                  ParsedScript.parse(
+                      interp, token.script_array, token.script_index + 1, token.size - 2, true);
+              scripts[tIndex] = script;
+            }
+            if (script != null) {
+              script.eval(interp, 0);
+            } else {
+              interp.setEvalFlags(interp.getEvalFlags() | Parser.TCL_BRACKET_TERM);
+              Parser.eval2(interp, token.script_array, token.script_index + 1, token.size - 2, 0);
+            }
+            value = interp.getResult();
+            break;
+          }
+
+        case Parser.TCL_TOKEN_VARIABLE:
+          {
+            TclObject index;
+            if (token.numComponents == 1) {
+              index = null;
+            } else {
+              index = evalTokens(interp, tIndex + 2, token.numComponents - 1);
+            }
+            String varName = strings[tIndex + 1];
+
+            if (interp.getNoEval() == 0) {
+              if (index != null) {
+                try {
+                  value = interp.getVar(varName, index.toString(), 0);
+                } finally {
+                  index.release();
+                }
+              } else {
+                value = getCompiledLocal(interp, tIndex, varName);
+                if (value == null) {
+                  value = interp.getVar(varName, null, 0);
+                }
+              }
+            } else {
+              value = TclString.newInstance("");
+              value.preserve();
+            }
+            count -= token.numComponents;
+            tIndex += token.numComponents;
+            break;
+          }
+
+        default:
+          throw new TclRuntimeError("unexpected token type in ParsedWord.evalTokens");
+      }
+
+      if (result == null) {
+        if (value != null) {
+          result = value;
+        } else {
+          result = TclString.newInstance(p);
+        }
+        result.preserve();
+      } else {
+        if (result.isShared()) {
+          result.release();
+          result = result.duplicate();
+          result.preserve();
+        }
+        if (value != null) {
+          p = value.toString();
+        }
+        TclString.append(result, p);
+      }
+      tIndex++;
+    }
+    return result;
+  }
+
+  /**
+   * Read a scalar variable from the compiled local array of the current frame, using the slot
+   * cached for the VARIABLE token at tIndex.
+   *
+   * @return the value of the variable, or null if it has to be looked up with getVar()
+   */
+  private TclObject getCompiledLocal(Interp interp, int tIndex, String varName) {
+    CallFrame varFrame = interp.getVarFrame();
+    if (varFrame == null) {
+      return null;
+    }
+    String[] names = varFrame.getCompiledLocalsNames();
+    if (names == null) {
+      return null;
+    }
+    if (localNames == null) {
+      localNames = new String[tokens.length][];
+      localIndexes = new int[tokens.length];
+    }
+    int localIndex;
+    if (localNames[tIndex] == names) {
+      localIndex = localIndexes[tIndex];
+    } else {
+      localIndex = varFrame.getCompiledLocalIndex(varName);
+      localNames[tIndex] = names;
+      localIndexes[tIndex] = localIndex;
+    }
+    return Var.getCompiledLocalScalar(interp, varFrame, localIndex);
+  }
+
+  /** A ParsedWord along with the index of the character following it in the source string. */
+  public static final class Result {
+    private final ParsedWord word;
+    private final int nextIndex;
+
+    Result(ParsedWord word, int nextIndex) {
+      this.word = word;
+      this.nextIndex = nextIndex;
+    }
+
+    public ParsedWord getWord() {
+      return word;
+    }
+
+    public int getNextIndex() {
+      return nextIndex;
+    }
+  }
+}
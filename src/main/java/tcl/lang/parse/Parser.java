@@ -793,7 +793,7 @@ public class Parser {
       // command words as arguments. Then call ourselves recursively
       // to execute it.
 
-      cmd = interp.getWrappedCommand(objv[0].toString());
+      cmd = ResolvedCmdName.getCommand(interp, objv[0]);
       if (cmd == null) {
         newObjv = Parser.grabObjv(interp, objv.length + 1);
         for (i = (objv.length - 1); i >= 0; i--) {
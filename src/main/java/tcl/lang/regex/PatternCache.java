@@ -0,0 +1,158 @@
+/*
+ * PatternCache.java --
+ *
+ *	This file implements a bounded cache of compiled regular
+ *	expressions shared by all the interpreters in a JVM.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.lang.regex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A least-recently-used cache of the Java Patterns that Regex.compile() translates TCL regular
+ * expressions into. The cache is keyed by the TCL regular expression and the TCL_REG_* flags it was
+ * compiled with (and on whether matching starts at offset 0, which changes the translation of '^'),
+ * so that a regexp, regsub, lsearch -regexp or switch -regexp that is evaluated many times with the
+ * same pattern only needs to create a new Matcher each time.
+ *
+ * <p>Patterns are immutable and can be shared between threads, so a single cache is used for all
+ * interpreters. Expressions that fail to compile are not cached.
+ */
+public final class PatternCache {
+
+  /** Maximum number of patterns kept in the cache. */
+  public static final int MAX_SIZE = 256;
+
+  // Cached entries, in least-recently-used order. All access is
+  // synchronized on the map.
+
+  private static final LinkedHashMap<Key, Entry> cache =
+      new LinkedHashMap<Key, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+          return size() > MAX_SIZE;
+        }
+      };
+
+  private static long hits;
+  private static long misses;
+
+  private PatternCache() {}
+
+  /**
+   * Look up a compiled pattern.
+   *
+   * @param regexp TCL regular expression
+   * @param flags TCL_REG_* flags the expression is compiled with
+   * @param atStart true if matching starts at offset 0
+   * @return the cached entry, or null if the pattern isn't cached
+   */
+  static Entry get(String regexp, int flags, boolean atStart) {
+    Key key = new Key(regexp, flags, atStart);
+    synchronized (cache) {
+      Entry entry = cache.get(key);
+      if (entry == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+      return entry;
+    }
+  }
+
+  /**
+   * Add a compiled pattern to the cache.
+   *
+   * @param regexp TCL regular expression
+   * @param flags TCL_REG_* flags the expression was compiled with
+   * @param atStart true if matching starts at offset 0
+   * @param pattern the compiled pattern
+   * @param compiledFlags flags after the embedded options of the expression were applied
+   */
+  static void put(String regexp, int flags, boolean atStart, Pattern pattern, int compiledFlags) {
+    Key key = new Key(regexp, flags, atStart);
+    synchronized (cache) {
+      cache.put(key, new Entry(pattern, compiledFlags));
+    }
+  }
+
+  /**
+   * @return the number of lookups that found a compiled pattern
+   */
+  public static long getHits() {
+    synchronized (cache) {
+      return hits;
+    }
+  }
+
+  /**
+   * @return the number of lookups that did not find a compiled pattern
+   */
+  public static long getMisses() {
+    synchronized (cache) {
+      return misses;
+    }
+  }
+
+  /**
+   * @return the number of patterns currently in the cache
+   */
+  public static int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  /** Remove all patterns from the cache and reset the hit and miss counts. */
+  public static void clear() {
+    synchronized (cache) {
+      cache.clear();
+      hits = 0;
+      misses = 0;
+    }
+  }
+
+  /** A compiled pattern, along with the flags that were in effect when it was compiled. */
+  static final class Entry {
+    final Pattern pattern;
+    final int flags;
+
+    Entry(Pattern pattern, int flags) {
+      this.pattern = pattern;
+      this.flags = flags;
+    }
+  }
+
+  private static final class Key {
+    private final String regexp;
+    private final int flags;
+    private final boolean atStart;
+
+    Key(String regexp, int flags, boolean atStart) {
+      this.regexp = regexp;
+      this.flags = flags;
+      this.atStart = atStart;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) o;
+      return flags == k.flags && atStart == k.atStart && regexp.equals(k.regexp);
+    }
+
+    @Override
+    public int hashCode() {
+      return (regexp.hashCode() * 31 + flags) * 2 + (atStart ? 1 : 0);
+    }
+  }
+}
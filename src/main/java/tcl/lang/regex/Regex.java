@@ -325,10 +325,35 @@ public class Regex {
     // than the actual length of the string.
     this.offset = offset;
 
-    this.pattern = this.compile(regexp);
+    // The translation of a TCL regexp depends only on the regexp, the
+    // flags and whether matching starts at the beginning of the
+    // string, so the compiled pattern can be reused.
+
+    boolean atStart = (offset == 0);
+    PatternCache.Entry cached = PatternCache.get(regexp, flags, atStart);
+    if (cached != null) {
+      this.pattern = cached.pattern;
+      this.flags = cached.flags;
+    } else {
+      this.pattern = this.compile(regexp);
+      PatternCache.put(regexp, flags, atStart, this.pattern, this.flags);
+    }
     this.matcher = pattern.matcher(this.string);
   }
 
+  /**
+   * Reset this object to match the same regular expression against a new input string, without
+   * creating a new Matcher. Matching starts at the offset given to the constructor.
+   *
+   * @param string input string
+   */
+  public void reset(String string) {
+    this.string = string;
+    this.count = 0;
+    this.matchCalled = false;
+    this.matcher.reset(string);
+  }
+
   /**
    * Attempts to match the input string against the regular expression. On the first call, it
    * attempts matching starting at the offset specified in the constructor. On subsequent calls, it
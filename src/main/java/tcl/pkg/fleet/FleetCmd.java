@@ -2,7 +2,9 @@ package tcl.pkg.fleet;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import tcl.lang.*;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclNumArgsException;
@@ -10,12 +12,17 @@ import tcl.lang.model.*;
 
 public final class FleetCmd implements Command {
 
-  private static long fleetCount = 0;
+  private static final AtomicLong fleetCount = new AtomicLong();
   private long memberCount = 0;
   Namespace ns;
   String fleetName;
-  private static final HashMap<String, FleetMember> fleetMembers =
-      new HashMap<String, FleetMember>();
+  // Mailbox capacity and overflow policy of new members, unless
+  // given to the member subcommand.
+  private int mailboxSize = Integer.MAX_VALUE;
+  private FleetMember.Overflow overflow = FleetMember.Overflow.BLOCK;
+  // The members of this fleet. Members report results from their own
+  // threads, so the registry must be safe to read from any thread.
+  private final Map<String, FleetMember> fleetMembers = new ConcurrentHashMap<>();
 
   private enum SubCmds {
     create() {
@@ -23,9 +30,11 @@ public final class FleetCmd implements Command {
       void eval(final Interp interp, final TclObject argv[], final FleetCmd mCmd)
           throws TclException {
         ArgOptions argOptions = new ArgOptions(interp, argv, 2);
-        String name = argOptions.get("-name", "fleet" + fleetCount);
-        fleetCount++;
+        String name = argOptions.get("-name", "fleet" + fleetCount.getAndIncrement());
         FleetCmd fleetCmd = new FleetCmd();
+        fleetCmd.mailboxSize = getMailboxSize(interp, argOptions, fleetCmd.mailboxSize);
+        fleetCmd.overflow =
+            FleetMember.Overflow.get(interp, argOptions.get("-overflow", fleetCmd.overflow.name()));
         interp.createCommand(name, fleetCmd);
         fleetCmd.fleetName = name;
         interp.setResult(name);
@@ -39,8 +48,15 @@ public final class FleetCmd implements Command {
         ArgOptions argOptions = new ArgOptions(interp, argv, 2);
         String name = argOptions.get("-name", "member" + mCmd.memberCount);
         mCmd.memberCount++;
-        FleetMember fleetMember = new FleetMember(mCmd, name);
-        fleetMembers.put(name, fleetMember);
+        if (mCmd.fleetMembers.containsKey(name)) {
+          throw new TclException(
+              interp, "member \"" + name + "\" already exists in fleet \"" + mCmd.fleetName + "\"");
+        }
+        int mailboxSize = getMailboxSize(interp, argOptions, mCmd.mailboxSize);
+        FleetMember.Overflow overflow =
+            FleetMember.Overflow.get(interp, argOptions.get("-overflow", mCmd.overflow.name()));
+        FleetMember fleetMember = new FleetMember(mCmd, name, mailboxSize, overflow);
+        mCmd.fleetMembers.put(name, fleetMember);
         interp.setResult(name);
       }
     },
@@ -107,12 +123,19 @@ public final class FleetCmd implements Command {
     count() {
       void eval(final Interp interp, final TclObject argv[], final FleetCmd mCmd)
           throws TclException {
-        if (argv.length != 4) {
-          throw new TclNumArgsException(interp, 2, argv, "-messages memberName");
+        if ((argv.length != 2) && (argv.length != 4)) {
+          throw new TclNumArgsException(interp, 2, argv, "?-messages memberName?");
         }
         ArgOptions argOptions = new ArgOptions(interp, argv, 2);
         String memberName = argOptions.get("-messages", "");
-        if (!memberName.equals("")) {
+        if (argv.length == 2) {
+          // Messages waiting in all the mailboxes of the fleet
+          int size = 0;
+          for (FleetMember member : mCmd.fleetMembers.values()) {
+            size += member.messageCount();
+          }
+          interp.setResult(size);
+        } else if (!memberName.equals("")) {
           FleetMember member = mCmd.fleetMembers.get(memberName);
           if (member == null) {
             throw new TclException(
@@ -128,32 +151,48 @@ public final class FleetCmd implements Command {
     stats() {
       void eval(final Interp interp, final TclObject argv[], final FleetCmd mCmd)
           throws TclException {
-        if (argv.length != 4) {
-          throw new TclNumArgsException(interp, 2, argv, "-member memberName");
+        if ((argv.length != 2) && (argv.length != 4)) {
+          throw new TclNumArgsException(interp, 2, argv, "?-member memberName?");
         }
         ArgOptions argOptions = new ArgOptions(interp, argv, 2);
         String memberName = argOptions.get("-member", "");
-        if (!memberName.equals("")) {
+        if (argv.length == 2) {
+          // Totals over all the members of the fleet
+          double processingTime = 0.0;
+          double waitingTime = 0.0;
+          int messages = 0;
+          long processed = 0;
+          long dropped = 0;
+          for (FleetMember member : mCmd.fleetMembers.values()) {
+            processingTime += member.getProcessingTime();
+            waitingTime += member.getWaitingTime();
+            messages += member.messageCount();
+            processed += member.getProcessed();
+            dropped += member.getDropped();
+          }
+          TclObject tDict =
+              statsDict(interp, processingTime, waitingTime, messages, processed, dropped);
+          TclDict.put(
+              interp,
+              tDict,
+              TclString.newInstance("members"),
+              TclInteger.newInstance(mCmd.fleetMembers.size()));
+          interp.setResult(tDict);
+        } else if (!memberName.equals("")) {
           FleetMember member = mCmd.fleetMembers.get(memberName);
           if (member == null) {
             throw new TclException(
                 interp,
                 "Can't find member \"" + memberName + "\" in fleet \"" + mCmd.fleetName + "\"");
           } else {
-            TclObject tDict = TclDict.newInstance();
-            double processingTime = member.getProcessingTime();
-            double waitingTime = member.getWaitingTime();
-            TclDict.put(
-                interp,
-                tDict,
-                TclString.newInstance("processing"),
-                TclDouble.newInstance(processingTime));
-            TclDict.put(
-                interp,
-                tDict,
-                TclString.newInstance("waiting"),
-                TclDouble.newInstance(waitingTime));
-            interp.setResult(tDict);
+            interp.setResult(
+                statsDict(
+                    interp,
+                    member.getProcessingTime(),
+                    member.getWaitingTime(),
+                    member.messageCount(),
+                    member.getProcessed(),
+                    member.getDropped()));
           }
         }
       }
@@ -173,10 +212,14 @@ public final class FleetCmd implements Command {
                 interp,
                 "Can't find member \"" + memberName + "\" in fleet \"" + mCmd.fleetName + "\"");
           } else {
-            member.execCommand(null);
             mCmd.fleetMembers.remove(memberName);
+            member.stop(interp);
           }
         } else {
+          for (FleetMember member : mCmd.fleetMembers.values()) {
+            member.stop(interp);
+          }
+          mCmd.fleetMembers.clear();
           Namespace.deleteNamespace(mCmd.ns);
           int result = interp.deleteCommand(mCmd.fleetName);
           interp.setResult(result);
@@ -188,7 +231,36 @@ public final class FleetCmd implements Command {
         throws TclException;
   }
 
-  private static HashMap<String, SubCmds> aliasMap = new HashMap<String, SubCmds>();
+  private static final Map<String, SubCmds> aliasMap = new ConcurrentHashMap<String, SubCmds>();
+
+  private static int getMailboxSize(Interp interp, ArgOptions argOptions, int defValue)
+      throws TclException {
+    int size = argOptions.get("-mailbox", defValue);
+    if (size < 1) {
+      throw new TclException(interp, "mailbox size must be at least 1, got " + size);
+    }
+    return size;
+  }
+
+  private static TclObject statsDict(
+      Interp interp,
+      double processingTime,
+      double waitingTime,
+      int messages,
+      long processed,
+      long dropped)
+      throws TclException {
+    TclObject tDict = TclDict.newInstance();
+    TclDict.put(
+        interp, tDict, TclString.newInstance("processing"), TclDouble.newInstance(processingTime));
+    TclDict.put(
+        interp, tDict, TclString.newInstance("waiting"), TclDouble.newInstance(waitingTime));
+    TclDict.put(interp, tDict, TclString.newInstance("messages"), TclInteger.newInstance(messages));
+    TclDict.put(
+        interp, tDict, TclString.newInstance("processed"), TclInteger.newInstance(processed));
+    TclDict.put(interp, tDict, TclString.newInstance("dropped"), TclInteger.newInstance(dropped));
+    return tDict;
+  }
 
   SubCmds getSubCmd(final Interp interp, final String name) throws TclException {
     SubCmds subCmd;
@@ -269,6 +341,6 @@ public final class FleetCmd implements Command {
       final String readyVar)
       throws TclException {
     Message cjobj = new Message(interp, messageList, readyCmd, readyVar);
-    member.execCommand(cjobj);
+    member.execCommand(interp, cjobj);
   }
 }
@@ -8,11 +8,15 @@
 // Interp when ready.
 package tcl.pkg.fleet;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import tcl.lang.*;
 import tcl.lang.exception.TclException;
-import tcl.lang.model.TclList;
 import tcl.lang.model.TclObject;
 import tcl.lang.model.TclString;
 
@@ -21,13 +25,47 @@ public class FleetMember implements Runnable {
   public static final int STATUS_OK = 0;
   public static final int STATUS_ERROR = 1;
   private static boolean debug = false;
-  private boolean terminated = false;
+
+  /** The largest number of messages taken from the mailbox at once. */
+  private static final int BATCH_SIZE = 64;
+
+  /** What execCommand() does with a message when the mailbox is full. */
+  public enum Overflow {
+    /** Wait for the member to make room. */
+    BLOCK,
+    /** Raise an error in the sender. */
+    ERROR,
+    /** Discard the new message, completing it with an error. */
+    DROP,
+    /** Discard the oldest message in the mailbox to make room, completing it with an error. */
+    DROPOLDEST;
+
+    static Overflow get(Interp interp, String name) throws TclException {
+      for (Overflow overflow : values()) {
+        if (overflow.name().equalsIgnoreCase(name)) {
+          return overflow;
+        }
+      }
+      throw new TclException(
+          interp,
+          "bad overflow policy \"" + name + "\": must be block, error, drop, or dropoldest");
+    }
+  }
+
+  // Builds virtual threads on JVMs that have them (Java 21 and later),
+  // null otherwise. Looked up reflectively, since the project is built
+  // for Java 17.
+  private static final MethodHandle VIRTUAL_THREAD_BUILDER = virtualThreadBuilder();
+
+  private volatile boolean terminated = false;
   // The FleetMember instance, it is possible that
   // the thread could be terminated and then
   // started again which would replace this instance.
   private Thread thread = null;
-  // Thread safe queue of events to process.
-  private BlockingQueue queue = new LinkedBlockingQueue();
+  // Thread safe mailbox of events to process, bounded by
+  // the capacity given when the member was created.
+  private final BlockingQueue<ExecEvent> queue;
+  private final Overflow overflow;
   // Jacl interp used to process events. The
   // interp is created in the other thread.
   // it should never be accessed from the
@@ -35,8 +73,11 @@ public class FleetMember implements Runnable {
   private Interp interp = null;
   private final FleetCmd fleet;
   private final String name;
-  private long processingTime = 0;
-  private long waitingTime = 0;
+  // Written only by the member thread, read by the fleet.
+  private volatile long processingTime = 0;
+  private volatile long waitingTime = 0;
+  private volatile long processed = 0;
+  private final AtomicLong dropped = new AtomicLong();
 
   public static interface MessageResult {
 
@@ -46,13 +87,12 @@ public class FleetMember implements Runnable {
 
   private static record ExecEvent(Message callback) {}
 
-  FleetMember(final FleetCmd fleet, final String name) {
+  FleetMember(final FleetCmd fleet, final String name, int capacity, Overflow overflow) {
     this.name = name;
     this.fleet = fleet;
-    thread = new Thread(this);
-    thread.setDaemon(true);
-
-    thread.setName(name + " service");
+    this.queue = new LinkedBlockingQueue<>(capacity);
+    this.overflow = overflow;
+    thread = newThread(this, name + " service");
 
     if (debug) {
       System.out.println("thread create");
@@ -60,26 +100,140 @@ public class FleetMember implements Runnable {
     thread.start();
   }
 
-  // Invoked to send a message that will be evaluated as a command
-  public synchronized void execCommand(Message callback) {
+  private static MethodHandle virtualThreadBuilder() {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      MethodHandle ofVirtual =
+          lookup.findStatic(
+              Thread.class,
+              "ofVirtual",
+              MethodType.methodType(Class.forName("java.lang.Thread$Builder$OfVirtual")));
+      MethodHandle unstarted =
+          lookup.findVirtual(
+              builderClass, "unstarted", MethodType.methodType(Thread.class, Runnable.class));
+      return MethodHandles.filterArguments(
+          unstarted, 0, ofVirtual.asType(MethodType.methodType(builderClass)));
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  // Members spend most of their time waiting for messages, so a virtual
+  // thread lets a JVM run thousands of them. Each member keeps its own
+  // thread, since an interp must be used in the thread that created it.
+  private static Thread newThread(Runnable runnable, String name) {
+    Thread thread = null;
+    if (VIRTUAL_THREAD_BUILDER != null) {
+      try {
+        thread = (Thread) VIRTUAL_THREAD_BUILDER.invoke(runnable);
+      } catch (Throwable e) {
+        thread = null;
+      }
+    }
+    if (thread == null) {
+      thread = new Thread(runnable);
+      thread.setDaemon(true);
+    }
+    thread.setName(name);
+    return thread;
+  }
+
+  // Invoked to send a message that will be evaluated as a command.
+  // What happens when the mailbox is full depends on the overflow
+  // policy of the member. A dropped message is completed with an
+  // error status, so that a sender waiting on its -var or -reply
+  // is told that it will never be evaluated.
+  public void execCommand(Interp interp, Message callback) throws TclException {
     if (debug) {
       System.out.println("execCommand ");
     }
 
     ExecEvent event = new ExecEvent(callback);
-    queue.add(event);
+    switch (overflow) {
+      case BLOCK:
+        put(interp, event);
+        break;
+      case ERROR:
+        if (!queue.offer(event)) {
+          callback.discard();
+          throw new TclException(
+              interp,
+              "mailbox of member \"" + name + "\" in fleet \"" + fleet.fleetName + "\" is full");
+        }
+        break;
+      case DROP:
+        if (!queue.offer(event)) {
+          drop(callback);
+        }
+        break;
+      case DROPOLDEST:
+        while (!queue.offer(event)) {
+          ExecEvent oldest = queue.poll();
+          if (oldest == null) {
+            continue;
+          }
+          if (oldest.callback() == null) {
+            // A pending stop request. The messages behind it will never
+            // be evaluated, so release them, keep the stop request and
+            // drop the new message.
+            ArrayList<ExecEvent> events = new ArrayList<>();
+            queue.drainTo(events);
+            for (ExecEvent later : events) {
+              if (later.callback() != null) {
+                later.callback().discard();
+              }
+            }
+            put(interp, oldest);
+            drop(callback);
+            break;
+          }
+          drop(oldest.callback());
+        }
+        break;
+    }
+  }
 
-    synchronized (this) {
-      if (debug) {
-        System.out.println("notify in execCommand");
+  // Invoked when a message is dropped because the mailbox is full.
+  private void drop(Message callback) {
+    dropped.incrementAndGet();
+    callback.completed(
+        STATUS_ERROR, fleet, this, TclString.newInstance("message dropped: mailbox full"));
+    callback.discard();
+  }
+
+  // Invoked to stop the member once the messages already in its
+  // mailbox have been processed.
+  void stop(Interp interp) throws TclException {
+    put(interp, new ExecEvent(null));
+  }
+
+  private void put(Interp interp, ExecEvent event) throws TclException {
+    try {
+      queue.put(event);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if (event.callback() != null) {
+        event.callback().discard();
       }
-      notify(); // wake up other thread
+      throw new TclException(
+          interp, "interrupted while waiting for the mailbox of member \"" + name + "\"");
     }
   }
 
   public int forget() {
-    int size = queue.size();
-    queue.clear();
+    ArrayList<ExecEvent> events = new ArrayList<>();
+    queue.drainTo(events);
+    int size = 0;
+    for (ExecEvent event : events) {
+      if (event.callback() == null) {
+        // Keep a pending stop request
+        queue.offer(event);
+      } else {
+        event.callback().discard();
+        size++;
+      }
+    }
     return size;
   }
 
@@ -97,23 +251,43 @@ public class FleetMember implements Runnable {
       System.out.println("thread start");
     }
 
-    // Loop forever waiting for next request to be
-    // added to the queue.
+    // Loop until a stop request is taken from the mailbox, taking
+    // whatever is waiting behind each message along with it, so that
+    // a busy member doesn't contend on the mailbox for every message.
+    ArrayList<ExecEvent> batch = new ArrayList<>(BATCH_SIZE);
     try {
-      while (true) {
+      while (!terminated) {
         long startTime = System.nanoTime();
-        ExecEvent event = (ExecEvent) queue.take();
-        if (event.callback() == null) {
-          break;
-        }
+        batch.add(queue.take());
         waitingTime = waitingTime + (System.nanoTime() - startTime);
-        processEvent(event);
+        queue.drainTo(batch, BATCH_SIZE - 1);
+        for (ExecEvent event : batch) {
+          if (event.callback() == null) {
+            terminated = true;
+          } else if (terminated) {
+            event.callback().discard();
+          } else {
+            processEvent(event);
+          }
+        }
+        batch.clear();
       }
     } catch (InterruptedException ieE) {
       ieE.printStackTrace();
     }
     terminated = true;
 
+    // Release the messages still in the mailbox behind the stop
+    // request, which will never be evaluated.
+
+    queue.drainTo(batch);
+    for (ExecEvent event : batch) {
+      if (event.callback() != null) {
+        event.callback().discard();
+      }
+    }
+    batch.clear();
+
     // Dispose of Jacl interp before leaving this
     // thread. It is critical that the Jacl interp
     // be disposed of in the same thread it was
@@ -138,12 +312,13 @@ public class FleetMember implements Runnable {
     }
 
     try {
-      // Init interp if needed
+      // Init interp if needed. Creating it from a template keeps
+      // the cost of starting many members down.
       if (interp == null) {
         if (debug) {
           System.out.println("Interp() and init");
         }
-        interp = Interp.of();
+        interp = Interp.of(InterpTemplate.standard());
       }
       evalScript(event.callback());
 
@@ -165,16 +340,10 @@ public class FleetMember implements Runnable {
 
       // Invoke callback to report error
 
+      processed = processed + 1;
       event.callback().completed(1, fleet, this, TclString.newInstance(msg.toString()));
     } finally {
-      try {
-        TclObject[] cmdArgs = TclList.getElements(interp, event.callback().messageList);
-        for (TclObject cmdArg : cmdArgs) {
-          cmdArg.release();
-        }
-        //        event.callback.messageList.release();
-      } catch (TclException tclE) {
-      }
+      event.callback().discard();
     }
   }
 
@@ -186,6 +355,20 @@ public class FleetMember implements Runnable {
     return waitingTime / 1.0e9;
   }
 
+  /**
+   * @return the number of messages the member has evaluated
+   */
+  public long getProcessed() {
+    return processed;
+  }
+
+  /**
+   * @return the number of messages discarded because the mailbox was full
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
   private void evalScript(Message callback) throws TclException {
     if (debug) {
       System.out.println("evalCmd ");
@@ -198,6 +381,9 @@ public class FleetMember implements Runnable {
     TclObject result = interp.getResult().duplicate();
     result.preserve();
     processingTime = processingTime + (System.nanoTime() - startTime);
+    // Counted before the reply is queued, so that a sender that has
+    // its reply sees the message in the stats.
+    processed = processed + 1;
     // interp.resetResult();
     callback.completed(0, fleet, this, result);
   }
@@ -25,6 +25,18 @@ class Message extends TclEvent implements FleetMember.MessageResult {
     this.readyVar = readyVar;
   }
 
+  // Release the words of the message, which were preserved when it
+  // was sent. Invoked once the message has been evaluated, or when it
+  // is discarded without being evaluated.
+  void discard() {
+    try {
+      for (TclObject cmdArg : TclList.getElements(null, messageList)) {
+        cmdArg.release();
+      }
+    } catch (TclException tclE) {
+    }
+  }
+
   // Invoked by FleetMember when a compile job is finished.
   // This implementation will queue an event in the original
   // thread that will define the Java class.
@@ -1071,7 +1071,7 @@ public class Class {
 
     frame = Migrate.GetCallFrame(interp, 0);
 
-    contextObj = cdefn.info.contextFrames.get(frame);
+    contextObj = Methods.GetContextObject(frame);
     if (contextObj == null) {
       return null;
     }
@@ -1080,16 +1080,27 @@ public class Class {
     // class context, but we must also be careful to get its
     // index from the most-specific class context. Variables
     // are arranged differently depending on which class
-    // constructed the object.
+    // constructed the object. The index is looked up once for
+    // each class and kept in the lookup record, since the
+    // objects a method is invoked on are usually of one class.
 
-    if (contextObj.classDefn != vlookup.vdefn.member.classDefn) {
-      ItclVarLookup tmp =
-          (ItclVarLookup) contextObj.classDefn.resolveVars.get(vlookup.vdefn.member.fullname);
-      if (tmp != null) {
-        vlookup = tmp;
+    int index = vlookup.index;
+    ItclClass objClass = contextObj.classDefn;
+
+    if (objClass != vlookup.vdefn.member.classDefn) {
+      if (vlookup.cachedClass == objClass && vlookup.cachedEpoch == cdefn.info.vtableEpoch) {
+        index = vlookup.cachedIndex;
+      } else {
+        ItclVarLookup tmp = objClass.resolveVars.get(vlookup.vdefn.member.fullname);
+        if (tmp != null) {
+          index = tmp.index;
+        }
+        vlookup.cachedClass = objClass;
+        vlookup.cachedIndex = index;
+        vlookup.cachedEpoch = cdefn.info.vtableEpoch;
       }
     }
-    return contextObj.data[vlookup.index];
+    return contextObj.data[index];
   }
 
   // Note: Itcl_ClassCompiledVarResolver not ported
@@ -1159,6 +1170,11 @@ public class Class {
     buffer = new StringBuffer(64);
     buffer2 = new StringBuffer(64);
 
+    // Invalidate the slots cached at call sites, since a
+    // member may now resolve differently in this class.
+
+    cdefn.info.vtableEpoch++;
+
     // Clear the variable resolution table.
 
     for (Object o : cdefn.resolveVars.entrySet()) {
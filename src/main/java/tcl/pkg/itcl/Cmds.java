@@ -118,7 +118,6 @@ public class Cmds {
     info.objects = new HashMap();
     info.transparentFrames = new Itcl_Stack();
     Util.InitStack(info.transparentFrames);
-    info.contextFrames = new HashMap<>();
     info.protection = Itcl.DEFAULT_PROTECT;
     info.cdefnStack = new Itcl_Stack();
     Util.InitStack(info.cdefnStack);
@@ -305,14 +304,8 @@ public class Cmds {
     info.objects.clear();
     info.objects = null;
 
-    // Discard all known object contexts.
-
-    for (Map.Entry<tcl.lang.CallFrame, ItclObject> entry : info.contextFrames.entrySet()) {
-      contextObj = entry.getValue();
-      Util.ReleaseData(contextObj);
-    }
-    info.contextFrames.clear();
-    info.contextFrames = null;
+    // Object contexts are kept in the call frames of active
+    // methods, and released by Methods.PopContext().
 
     Util.DeleteStack(info.transparentFrames);
     info.transparentFrames = null;
@@ -887,7 +880,7 @@ public class Cmds {
         frame = Migrate.GetCallFrame(interp, 0);
         info = contextClass.info;
 
-        contextObj = info.contextFrames.get(frame);
+        contextObj = Methods.GetContextObject(frame);
         if (contextObj == null) {
           throw new TclException(
               interp, "can't scope variable \"" + token + "\": missing object context\"");
@@ -52,10 +52,13 @@ class ItclObjectInfo implements AssocData, ItclEventuallyFreed {
   // one of these contexts, it does an
   // "uplevel" to get past the transparent
   // frame and back to the calling context.
-  HashMap<tcl.lang.CallFrame, ItclObject> contextFrames; // object contexts for active call frames
 
   int protection; // protection level currently in effect
 
+  int vtableEpoch; // incremented each time the virtual tables
+  // of a class are rebuilt, which invalidates the
+  // slots cached by ExecMethod and ItclVarLookup
+
   Itcl_Stack cdefnStack; // stack of class definitions currently
 
   // being parsed
@@ -133,6 +136,8 @@ class ItclMemberCode implements ItclEventuallyFreed {
   String body; // String based representation of proc "body".
   // Used for both a Tcl proc and one
   // implemented via a Java Command.
+  TclObject bodyObj; // body of a Tcl implementation, evaluated
+  // as an object so that it is only parsed once.
 
   Command objCmd; // Java style objv Command
 
@@ -218,6 +223,13 @@ class ItclVarLookup {
 
   int index; // index into virtual table (instance data)
   Var common; // variable (common data)
+
+  ItclClass cachedClass; // most-specific class of the last object
+  // this variable was resolved for, when it is
+  // not the class of this lookup record
+  int cachedIndex; // index of the variable in the data of
+  // objects of cachedClass
+  int cachedEpoch; // vtableEpoch when the index was cached
 }
 
 // Representation for the context in which a body of [incr Tcl]
@@ -554,6 +554,7 @@ public class Methods {
       // proc_body = TclString.newInstance("");
       mcode.body = null;
     }
+    mcode.bodyObj = null;
 
     mcode.proc = null;
 
@@ -579,6 +580,8 @@ public class Methods {
     // Otherwise, treat the body as a chunk of Tcl code.
     else {
       mcode.flags |= ItclInt.IMPLEMENT_TCL;
+      mcode.bodyObj = TclString.newInstance(body);
+      mcode.bodyObj.preserve();
     }
 
     return mcode;
@@ -615,6 +618,10 @@ public class Methods {
     if (mcode.proc != null) {
       mcode.proc = null;
     }
+    if (mcode.bodyObj != null) {
+      mcode.bodyObj.release();
+      mcode.bodyObj = null;
+    }
   }
 
   /*
@@ -786,7 +793,7 @@ public class Methods {
       } else if ((mcode.flags & ItclInt.IMPLEMENT_ARGCMD) != 0) {
         throw new TclRuntimeError("unexpected IMPLEMENT_ARGCMD");
       } else if ((mcode.flags & ItclInt.IMPLEMENT_TCL) != 0) {
-        interp.eval(mcode.body);
+        interp.eval(mcode.bodyObj, 0);
       } else {
         throw new TclRuntimeError("bad implementation flag for " + member.fullname);
       }
@@ -1138,6 +1145,14 @@ public class Methods {
   public static final class ExecMethod implements CommandWithDispose {
     final ItclMemberFunc mfunc;
 
+    // The implementation of the method in the most-specific class
+    // of the last object it was invoked on, which is usually the
+    // class of the next one.
+
+    ItclClass cachedClass;
+    ItclMemberFunc cachedFunc;
+    int cachedEpoch;
+
     ExecMethod(ItclMemberFunc mfunc) {
       if (mfunc == null) {
         throw new NullPointerException();
@@ -1199,9 +1214,14 @@ public class Methods {
 
       token = objv[0].toString();
       if (token.indexOf("::") == -1) {
-        ItclMemberFunc tmp = (ItclMemberFunc) contextObj.classDefn.resolveCmds.get(member.name);
-        if (tmp != null) {
-          mfunc = tmp;
+        ItclClass objClass = contextObj.classDefn;
+        if (objClass != cachedClass || cachedEpoch != objClass.info.vtableEpoch) {
+          cachedFunc = objClass.resolveCmds.get(member.name);
+          cachedClass = objClass;
+          cachedEpoch = objClass.info.vtableEpoch;
+        }
+        if (cachedFunc != null) {
+          mfunc = cachedFunc;
           member = mfunc.member;
         }
       }
@@ -1323,13 +1343,12 @@ public class Methods {
     context.classDefn = contextClass;
     // context.compiledLocals = new Var[20];
 
-    // If this is an object context, register it in a hash table
-    // of all known contexts. We'll need this later if we
-    // call Itcl_GetContext to get the object context for the
-    // current call frame.
+    // If this is an object context, keep it in the call frame.
+    // We'll need this later if we call Itcl_GetContext to get
+    // the object context for the current call frame.
 
     if (contextObj != null) {
-      contextClass.info.contextFrames.put(frame, contextObj);
+      frame.setClientData(contextObj);
       Util.PreserveData(contextObj);
     }
 
@@ -1386,7 +1405,6 @@ public class Methods {
       ItclContext context) // storage space for class/object context
       {
     CallFrame frame;
-    ItclObjectInfo info;
     ItclObject contextObj;
 
     // See if the current call frame has an object context
@@ -1394,12 +1412,11 @@ public class Methods {
     // object info.
 
     frame = Migrate.GetCallFrame(interp, 0);
-    info = context.classDefn.info;
 
-    contextObj = info.contextFrames.get(frame);
+    contextObj = GetContextObject(frame);
     if (contextObj != null) {
       Util.ReleaseData(contextObj);
-      info.contextFrames.remove(frame);
+      frame.setClientData(null);
     }
 
     // Remove the call frame.
@@ -1427,7 +1444,6 @@ public class Methods {
   static GetContextResult GetContext(Interp interp) // current interpreter
       throws TclException {
     Namespace activeNs = Namespace.getCurrentNamespace(interp);
-    ItclObjectInfo info;
     CallFrame frame;
     ItclClass cdefn;
     ItclObject odefn;
@@ -1446,8 +1462,7 @@ public class Methods {
 
       frame = Migrate.GetCallFrame(interp, 0);
 
-      info = cdefn.info;
-      odefn = info.contextFrames.get(frame);
+      odefn = GetContextObject(frame);
 
       return new GetContextResult(cdefn, odefn);
     }
@@ -1460,6 +1475,23 @@ public class Methods {
 
   public static record GetContextResult(ItclClass cdefn, ItclObject odefn) {}
 
+  /*
+   * ------------------------------------------------------------------------
+   * Methods.GetContextObject
+   *
+   * Returns the object context that PushContext kept in a call frame, or
+   * null if the frame is null or has no object context.
+   * ------------------------------------------------------------------------
+   */
+
+  static ItclObject GetContextObject(CallFrame frame) {
+    if (frame == null) {
+      return null;
+    }
+    Object data = frame.getClientData();
+    return (data instanceof ItclObject) ? (ItclObject) data : null;
+  }
+
   /*
    * ------------------------------------------------------------------------
    * Itcl_AssignArgs -> Methods.AssignArgs
@@ -16,12 +16,18 @@
 
 package tcl.pkg.java;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import tcl.lang.InternalRep;
 import tcl.lang.Interp;
 import tcl.lang.exception.TclException;
@@ -82,10 +88,53 @@ public final class FuncSig implements InternalRep {
 
   Object func;
 
-  // Stores all accessible instance methods for a Java class.
-  static HashMap<Class<?>, Method[]> instanceMethodTable = new HashMap<>();
-  static HashMap<Class<?>, Method[]> staticMethodTable = new HashMap<>();
-  static HashMap<Class<?>, HashMap<String, Method[]>> instanceMethodTableByName = new HashMap<>();
+  // A MethodHandle that calls func, of type (Object, Object[])Object
+  // where the first argument is the target object (ignored for
+  // constructors and static methods) and the second the arguments,
+  // and the converters for the parameters of func. handle is null when
+  // func can only be called through pkgInvoker.
+
+  MethodHandle handle;
+  JavaInvoke.ArgConverter[] converters;
+
+  // A FuncSig is also the cache of the constructor or method that a
+  // signature object resolved to at one call site. It is stored as the
+  // internal rep of the signature, and is reused when the signature is
+  // used again in the same interp, for a target of the same class,
+  // with the same number of arguments. When the method was chosen
+  // among overloaded methods from the classes of the arguments, those
+  // classes must match too: the cache that was once here reused a
+  // FuncSig for any arguments, which picked the wrong overloaded method
+  // (see test AmbiguousSignature-2.1). FuncSigs for targets of other
+  // classes are chained through next.
+
+  private Interp interp;
+  private boolean isStatic;
+  private int count;
+  private Class<?>[] argClasses;
+  private FuncSig next;
+
+  // The most FuncSigs chained in the internal rep of one signature.
+
+  private static final int MAX_CACHED = 8;
+
+  private static final MethodType HANDLE_TYPE =
+      MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  // The handles and converters of the constructors and methods that
+  // have been called. They depend on nothing but the constructor or
+  // method, so they are shared by all interps.
+
+  private record Invoker(MethodHandle handle, JavaInvoke.ArgConverter[] converters) {}
+
+  private static final Map<Object, Invoker> invokerTable = new ConcurrentHashMap<>();
+
+  // Stores all accessible instance methods for a Java class. The tables
+  // are shared by the interps of all threads.
+  static Map<Class<?>, Method[]> instanceMethodTable = new ConcurrentHashMap<>();
+  static Map<Class<?>, Method[]> staticMethodTable = new ConcurrentHashMap<>();
+  static Map<Class<?>, HashMap<String, Method[]>> instanceMethodTableByName =
+      new ConcurrentHashMap<>();
 
   /*
    * ----------------------------------------------------------------------
@@ -124,7 +173,15 @@ public final class FuncSig implements InternalRep {
    */
 
   public InternalRep duplicate() {
-    return new FuncSig(targetCls, pkgInvoker, func);
+    FuncSig sig = new FuncSig(targetCls, pkgInvoker, func);
+    sig.handle = handle;
+    sig.converters = converters;
+    sig.interp = interp;
+    sig.isStatic = isStatic;
+    sig.count = count;
+    sig.argClasses = argClasses;
+    sig.next = next;
+    return sig;
   }
 
   /*
@@ -158,27 +215,20 @@ public final class FuncSig implements InternalRep {
       throws TclException {
     boolean isConstructor = (cls == null);
 
-    /*
-     * FIXME: commented out Method caching system we comment out this code
-     * because it causes the AmbiguousSignature-2.1 test to fail under Tcl
-     * Blend. a new caching system might help but it is unclear if
-     * determining a cache "match" is any less work then just searching.
-     *
-     *
-     * InternalRep rep = signature.getInternalRep();
-     *
-     * // If a valid FuncSig internal rep is already cached, return it //
-     * right away.
-     *
-     * if (rep instanceof FuncSig) { FuncSig tmp = (FuncSig)rep; Object func
-     * = tmp.func;
-     *
-     * if (isConstructor) { if ((func instanceof Constructor) &&
-     * (((Constructor)func).getParameterTypes().length == count)) { return
-     * tmp; } } else { if ((func instanceof Method) && (tmp.targetCls ==
-     * cls) && (((Method)func).getParameterTypes().length == count)) {
-     * return tmp; } } }
-     */
+    // If the signature has been resolved at this call site for the same
+    // kind of target and arguments, return the cached FuncSig right away.
+
+    InternalRep rep = signature.getInternalRep();
+    FuncSig cached = null;
+
+    if (rep instanceof FuncSig) {
+      cached = (FuncSig) rep;
+      for (FuncSig sig = cached; sig != null; sig = sig.next) {
+        if (sig.matches(interp, cls, isStatic, argv, startIdx, count)) {
+          return sig;
+        }
+      }
+    }
 
     // Look up the constructor or method using the string rep of the
     // signature object.
@@ -255,11 +305,157 @@ public final class FuncSig implements InternalRep {
     }
 
     FuncSig sig = new FuncSig(cls, PkgInvoker.getPkgInvoker(cls), match);
-    // signature.setInternalRep(sig);
+    sig.interp = interp;
+    sig.isStatic = isStatic;
+    sig.count = count;
+    if (isOverloaded(cls, match, isStatic)) {
+      sig.argClasses = getArgClasses(interp, argv, startIdx, count);
+    }
+
+    Invoker invoker = getInvoker(match);
+    sig.handle = invoker.handle();
+    sig.converters = invoker.converters();
+
+    // Chain the FuncSigs already cached for other targets behind the new
+    // one. The string rep is generated first, since the signature may be
+    // a pure list.
+
+    int cachedCount = 0;
+    for (FuncSig c = cached; c != null; c = c.next) {
+      cachedCount++;
+    }
+    if (cachedCount < MAX_CACHED) {
+      sig.next = cached;
+    }
+    signature.toString();
+    signature.setInternalRep(sig);
 
     return sig;
   }
 
+  // Return true if this FuncSig was resolved for a call with the
+  // given target class and arguments.
+
+  private boolean matches(
+      Interp interp, Class<?> cls, boolean isStatic, TclObject[] argv, int startIdx, int count) {
+    if ((this.interp != interp) || (this.isStatic != isStatic) || (this.count != count)) {
+      return false;
+    }
+    if (cls == null) {
+      if (!(func instanceof Constructor)) {
+        return false;
+      }
+    } else if ((targetCls != cls) || !(func instanceof Method)) {
+      return false;
+    }
+    return (argClasses == null)
+        || Arrays.equals(argClasses, getArgClasses(interp, argv, startIdx, count));
+  }
+
+  // Return true if there is another accessible constructor or method
+  // with the same name and number of parameters as match, so that the
+  // one chosen may depend on the classes of the arguments.
+
+  private static boolean isOverloaded(Class<?> cls, Object match, boolean isStatic) {
+    Object[] funcs;
+    String name = null;
+    int numParams;
+
+    if (match instanceof Constructor) {
+      Constructor<?> cons = (Constructor<?>) match;
+      funcs = getAccessibleConstructors(cons.getDeclaringClass());
+      numParams = cons.getParameterCount();
+    } else {
+      Method method = (Method) match;
+      name = method.getName();
+      funcs =
+          isStatic
+              ? getAccessibleStaticMethods(cls)
+              : getAccessibleInstanceMethods(cls, method.getName());
+      numParams = method.getParameterCount();
+    }
+
+    int found = 0;
+    for (Object f : funcs) {
+      if (f instanceof Method) {
+        Method m = (Method) f;
+        if (!m.getName().equals(name) || (m.getParameterCount() != numParams)) {
+          continue;
+        }
+      } else if (((Constructor) f).getParameterCount() != numParams) {
+        continue;
+      }
+      if (++found > 1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Return the classes of the arguments as used to choose between
+  // overloaded methods: the class of a Java object, or String for any
+  // other Tcl value.
+
+  private static Class<?>[] getArgClasses(
+      Interp interp, TclObject[] argv, int startIdx, int count) {
+    Class<?>[] classes = new Class<?>[count];
+    for (int i = 0; i < count; i++) {
+      ReflectObject rep = ReflectObject.findReflectObject(interp, argv[startIdx + i]);
+      classes[i] = (rep == null) ? String.class : rep.javaClass;
+    }
+    return classes;
+  }
+
+  // Return the MethodHandle and argument converters for a constructor or
+  // method, creating them the first time. A handle can only be made for
+  // a public member of a public class, which needs no PkgInvoker to be
+  // accessed; the others are called through their PkgInvoker.
+
+  private static Invoker getInvoker(Object func) {
+    Invoker invoker = invokerTable.get(func);
+    if (invoker != null) {
+      return invoker;
+    }
+
+    Class<?>[] paramTypes =
+        (func instanceof Constructor)
+            ? ((Constructor<?>) func).getParameterTypes()
+            : ((Method) func).getParameterTypes();
+    JavaInvoke.ArgConverter[] converters = new JavaInvoke.ArgConverter[paramTypes.length];
+    for (int i = 0; i < paramTypes.length; i++) {
+      converters[i] = JavaInvoke.getConverter(paramTypes[i]);
+    }
+
+    invoker = new Invoker(makeHandle(func, paramTypes.length), converters);
+    invokerTable.put(func, invoker);
+    return invoker;
+  }
+
+  private static MethodHandle makeHandle(Object func, int numParams) {
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    try {
+      MethodHandle mh;
+      if (func instanceof Constructor) {
+        mh = lookup.unreflectConstructor((Constructor) func);
+        mh = mh.asSpreader(Object[].class, numParams);
+        mh = MethodHandles.dropArguments(mh, 0, Object.class);
+      } else {
+        Method method = (Method) func;
+        mh = lookup.unreflect(method);
+        mh = mh.asSpreader(Object[].class, numParams);
+        if (Modifier.isStatic(method.getModifiers())) {
+          mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+      }
+      return mh.asType(HANDLE_TYPE);
+    } catch (IllegalAccessException e) {
+      // Not accessible through a public lookup, for example a public
+      // method of a class in a package that is not exported, or a
+      // caller sensitive method. It is called by reflection.
+      return null;
+    }
+  }
+
   // lookupMethod attempts to find an exact match for the method name
   // based on the types (Java Class objects) of the arguments to the
   // method. If an exact match can not be found it will raise a TclException.
@@ -396,27 +592,11 @@ public final class FuncSig implements InternalRep {
       return match_list.get(0);
     } else if (match_list.size() > 1) {
 
-      Class[] argv_classes = new Class[argv_count];
+      Class<?>[] argv_classes;
       Class[] match_classes;
 
       // get the object types for the method arguments in argv
-      for (i = 0; i < argv_count; i++) {
-        TclObject tobj = argv[startIdx + i];
-
-        boolean isJavaObj = true;
-        Class c = null;
-        try {
-          c = ReflectObject.getClass(interp, tobj);
-        } catch (TclException e) {
-          isJavaObj = false;
-        }
-
-        if (isJavaObj) {
-          argv_classes[i] = c;
-        } else {
-          argv_classes[i] = String.class;
-        }
-      }
+      argv_classes = getArgClasses(interp, argv, startIdx, argv_count);
 
       if (debug) {
         // debug print argv types
@@ -46,6 +46,16 @@ public class JavaInvoke {
 
   private static Object EMPTY_ARGS[] = new Object[0];
 
+  /**
+   * Converts a Tcl argument to the Java type of a constructor or method parameter. FuncSig binds a
+   * converter to each parameter when it caches a constructor or method, so the type tests in
+   * convertTclObject() are not repeated for each call.
+   */
+  @FunctionalInterface
+  interface ArgConverter {
+    Object convert(Interp interp, TclObject tclObj) throws TclException;
+  }
+
   /**
    * Call the specified constructor
    *
@@ -100,7 +110,7 @@ public class JavaInvoke {
 
     FuncSig sig = FuncSig.get(interp, null, signature, argv, startIdx, count, false);
 
-    Object javaObj = call(interp, sig.pkgInvoker, signature, sig.func, null, argv, startIdx, count);
+    Object javaObj = call(interp, sig, signature, null, argv, startIdx, count);
 
     return ReflectObject.newInstance(interp, sig.targetCls, javaObj);
   }
@@ -109,7 +119,7 @@ public class JavaInvoke {
    * Call the specified instance or static method of the given object.
    *
    * @param interp Current interpreter
-   * @param reflectObj The object whose method to invoke
+   * @param reflectObj The reflected object whose method to invoke
    * @param signature Method signature
    * @param argv Arguments
    * @param startIdx Index of the first argument in argv[] to pass to the method.
@@ -120,7 +130,7 @@ public class JavaInvoke {
    */
   static TclObject callMethod(
       Interp interp, // Current interpreter.
-      TclObject reflectObj, // The object whose method to invoke.
+      ReflectObject reflectObj, // The object whose method to invoke.
       TclObject signature, // Method signature.
       TclObject argv[], // Arguments.
       int startIdx, // Index of the first argument in argv[] to
@@ -130,8 +140,8 @@ public class JavaInvoke {
       boolean convert) // Whether the value should be converted
       // into Tcl objects of the closest types.
       throws TclException {
-    Object javaObj = ReflectObject.get(interp, reflectObj);
-    Class javaCl = ReflectObject.getClass(interp, reflectObj);
+    Object javaObj = reflectObj.javaObj;
+    Class<?> javaCl = reflectObj.javaClass;
     FuncSig sig = FuncSig.get(interp, javaCl, signature, argv, startIdx, count, false);
     Method method = (Method) sig.func;
     Class rtype = method.getReturnType();
@@ -141,7 +151,7 @@ public class JavaInvoke {
           interp, "Return type \"" + JavaInfoCmd.getNameFromClass(rtype) + "\" is not accessible");
     }
 
-    Object result = call(interp, sig.pkgInvoker, signature, method, javaObj, argv, startIdx, count);
+    Object result = call(interp, sig, signature, javaObj, argv, startIdx, count);
 
     if (rtype == Void.TYPE) {
       return null;
@@ -186,7 +196,7 @@ public class JavaInvoke {
           interp, "Return type \"" + JavaInfoCmd.getNameFromClass(rtype) + "\" is not accessible");
     }
 
-    Object result = call(interp, sig.pkgInvoker, signature, method, null, argv, startIdx, count);
+    Object result = call(interp, sig, signature, null, argv, startIdx, count);
 
     if (rtype == Void.TYPE) {
       return null;
@@ -195,6 +205,68 @@ public class JavaInvoke {
     }
   }
 
+  /**
+   * Call the constructor, instance method, or static method of a FuncSig with the given parameters.
+   * If the FuncSig has a MethodHandle, the arguments are converted with its bound converters and
+   * the handle is invoked, otherwise the call is made through the PkgInvoker.
+   *
+   * @param interp Current interpreter
+   * @param sig the constructor or method to call
+   * @param signature For formatting error message
+   * @param obj The object associated with an instance method call, should be null for constructor
+   *     and static method calls
+   * @param argv Arguments
+   * @param startIdx Index of the first argument in argv[] to pass to the method.
+   * @param count Number of arguments to pass to the method.
+   * @return the value returned by the method, or the new object for a constructor
+   * @throws TclException
+   */
+  static Object call(
+      Interp interp,
+      FuncSig sig,
+      TclObject signature,
+      Object obj,
+      TclObject argv[],
+      int startIdx,
+      int count)
+      throws TclException {
+    if (sig.handle == null) {
+      return call(interp, sig.pkgInvoker, signature, sig.func, obj, argv, startIdx, count);
+    }
+
+    ArgConverter[] converters = sig.converters;
+
+    if (count != converters.length) {
+      throw new TclException(
+          interp,
+          "wrong # args for calling "
+              + ((sig.func instanceof Constructor) ? "constructor" : "method")
+              + " \""
+              + signature
+              + "\"");
+    }
+
+    Object args[];
+
+    if (count == 0) {
+      args = EMPTY_ARGS;
+    } else {
+      args = new Object[count];
+      for (int i = 0; i < count; i++) {
+        args[i] = converters[i].convert(interp, argv[i + startIdx]);
+      }
+    }
+
+    try {
+      return sig.handle.invokeExact(obj, args);
+    } catch (TclException e) {
+      interp.setResult(e.getMessage());
+      throw e;
+    } catch (Throwable te) {
+      throw new ReflectException(interp, te);
+    }
+  }
+
   /**
    * Call the constructor, instance method, or static method with the given parameters. Check the
    * parameter types and perform TclObject to JavaObject conversion
@@ -1006,19 +1078,9 @@ public class JavaInvoke {
       TclObject tclObj) // From this Tcl object.
       throws TclException // If conversion fails.
       {
-    Object javaObj = null;
-    Class javaClass = null;
-    boolean isReflectObj = false;
+    ReflectObject rep = ReflectObject.findReflectObject(interp, tclObj);
 
-    try {
-      javaObj = ReflectObject.get(interp, tclObj);
-      javaClass = ReflectObject.getClass(interp, tclObj);
-      isReflectObj = true;
-    } catch (TclException e) {
-      interp.resetResult();
-    }
-
-    if (!isReflectObj) {
+    if (rep == null) {
       // tclObj a Tcl "primitive" value. We try convert it to the
       // corresponding primitive value in Java.
       //
@@ -1102,68 +1164,133 @@ public class JavaInvoke {
                 + "\"");
       }
     } else {
-      // The TclObject is a ReflectObject that contains javaObj. We
-      // check to see if javaObj can be converted to the required
-      // type. If javaObj is a wrapper for a primitive type then
-      // we check to see if the object is an instanceof the type.
+      return convertReflectObject(interp, type, tclObj, rep);
+    }
+  }
 
-      if (isAssignable(type, javaClass)) {
-        return javaObj;
-      }
+  /**
+   * Returns the converter from a Tcl argument to a parameter of the given type. The most common
+   * parameter types get a converter that goes straight to the conversion for that type, all others
+   * use convertTclObject().
+   *
+   * @param type the parameter type
+   * @return a converter with the same result as convertTclObject(interp, type, tclObj)
+   */
+  static ArgConverter getConverter(Class<?> type) {
+    if ((type == String.class) || (type == Object.class)) {
+      return (interp, tclObj) -> {
+        ReflectObject rep = ReflectObject.findReflectObject(interp, tclObj);
+        return (rep == null) ? tclObj.toString() : convertReflectObject(interp, type, tclObj, rep);
+      };
+    } else if ((type == Integer.TYPE) || (type == Integer.class)) {
+      return (interp, tclObj) -> {
+        ReflectObject rep = ReflectObject.findReflectObject(interp, tclObj);
+        return (rep == null)
+            ? Integer.valueOf(TclInteger.getInt(interp, tclObj))
+            : convertReflectObject(interp, type, tclObj, rep);
+      };
+    } else if ((type == Long.TYPE) || (type == Long.class)) {
+      return (interp, tclObj) -> {
+        ReflectObject rep = ReflectObject.findReflectObject(interp, tclObj);
+        return (rep == null)
+            ? Long.valueOf(TclInteger.getLong(interp, tclObj))
+            : convertReflectObject(interp, type, tclObj, rep);
+      };
+    } else if ((type == Double.TYPE) || (type == Double.class)) {
+      return (interp, tclObj) -> {
+        ReflectObject rep = ReflectObject.findReflectObject(interp, tclObj);
+        return (rep == null)
+            ? Double.valueOf(TclDouble.get(interp, tclObj))
+            : convertReflectObject(interp, type, tclObj, rep);
+      };
+    } else if ((type == Boolean.TYPE) || (type == Boolean.class)) {
+      return (interp, tclObj) -> {
+        ReflectObject rep = ReflectObject.findReflectObject(interp, tclObj);
+        return (rep == null)
+            ? Boolean.valueOf(TclBoolean.get(interp, tclObj))
+            : convertReflectObject(interp, type, tclObj, rep);
+      };
+    } else {
+      return (interp, tclObj) -> convertTclObject(interp, type, tclObj);
+    }
+  }
 
-      if (type.isPrimitive()) {
-        if (type == Boolean.TYPE) {
-          if (javaObj instanceof Boolean) {
-            return javaObj;
-          }
-        } else if (type == Character.TYPE) {
-          if (javaObj instanceof Character) {
-            return javaObj;
-          }
-        } else if (type == Byte.TYPE) {
-          if (javaObj instanceof Byte) {
-            return javaObj;
-          }
-        } else if (type == Short.TYPE) {
-          if (javaObj instanceof Short) {
-            return javaObj;
-          }
-        } else if (type == Integer.TYPE) {
-          if (javaObj instanceof Integer) {
-            return javaObj;
-          }
-        } else if (type == Long.TYPE) {
-          if (javaObj instanceof Long) {
-            return javaObj;
-          }
-        } else if (type == Float.TYPE) {
-          if (javaObj instanceof Float) {
-            return javaObj;
-          }
-        } else if (type == Double.TYPE) {
-          if (javaObj instanceof Double) {
-            return javaObj;
-          }
-        } else if (type == Void.TYPE) {
-          // void is not a valid type for conversions
-        }
-      }
+  /**
+   * Converts a Tcl object that is a handle to a Java object to the required type
+   *
+   * @param interp current interpreter
+   * @param type Convert to this type
+   * @param tclObj Convert from this Tcl object
+   * @param rep the ReflectObject of tclObj
+   * @return object of the requested type
+   * @throws TclException if the conversion fails
+   */
+  private static Object convertReflectObject(
+      Interp interp, Class<?> type, TclObject tclObj, ReflectObject rep) throws TclException {
+    Object javaObj = rep.javaObj;
+    Class<?> javaClass = rep.javaClass;
+
+    // The TclObject is a ReflectObject that contains javaObj. We
+    // check to see if javaObj can be converted to the required
+    // type. If javaObj is a wrapper for a primitive type then
+    // we check to see if the object is an instanceof the type.
+
+    if (isAssignable(type, javaClass)) {
+      return javaObj;
+    }
 
-      // Pass TclObject that contains the ReflectObject directly.
-      if (type == TclObject.class) {
-        return tclObj;
+    if (type.isPrimitive()) {
+      if (type == Boolean.TYPE) {
+        if (javaObj instanceof Boolean) {
+          return javaObj;
+        }
+      } else if (type == Character.TYPE) {
+        if (javaObj instanceof Character) {
+          return javaObj;
+        }
+      } else if (type == Byte.TYPE) {
+        if (javaObj instanceof Byte) {
+          return javaObj;
+        }
+      } else if (type == Short.TYPE) {
+        if (javaObj instanceof Short) {
+          return javaObj;
+        }
+      } else if (type == Integer.TYPE) {
+        if (javaObj instanceof Integer) {
+          return javaObj;
+        }
+      } else if (type == Long.TYPE) {
+        if (javaObj instanceof Long) {
+          return javaObj;
+        }
+      } else if (type == Float.TYPE) {
+        if (javaObj instanceof Float) {
+          return javaObj;
+        }
+      } else if (type == Double.TYPE) {
+        if (javaObj instanceof Double) {
+          return javaObj;
+        }
+      } else if (type == Void.TYPE) {
+        // void is not a valid type for conversions
       }
+    }
 
-      throw new TclException(
-          interp,
-          "expected object of type "
-              + JavaInfoCmd.getNameFromClass(type)
-              + " but got \""
-              + tclObj
-              + "\" ("
-              + ((javaClass == null) ? "null" : JavaInfoCmd.getNameFromClass(javaClass))
-              + ")");
+    // Pass TclObject that contains the ReflectObject directly.
+    if (type == TclObject.class) {
+      return tclObj;
     }
+
+    throw new TclException(
+        interp,
+        "expected object of type "
+            + JavaInfoCmd.getNameFromClass(type)
+            + " but got \""
+            + tclObj
+            + "\" ("
+            + ((javaClass == null) ? "null" : JavaInfoCmd.getNameFromClass(javaClass))
+            + ")");
   }
 
   /**
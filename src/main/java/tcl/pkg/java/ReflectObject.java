@@ -25,6 +25,8 @@ import tcl.lang.Interp;
 import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclNumArgsException;
 import tcl.lang.exception.TclRuntimeError;
+import tcl.lang.model.TclDouble;
+import tcl.lang.model.TclInteger;
 import tcl.lang.model.TclObject;
 import tcl.pkg.java.reflect.PkgInvoker;
 
@@ -678,21 +680,57 @@ public sealed class ReflectObject implements InternalRep, CommandWithDispose per
         // registered in the given interpreter.
         // Error message is left inside interp.
       {
+    if (findReflectObject(interp, tobj) == null) {
+      throw new TclException(interp, "unknown java object \"" + tobj + "\"");
+    }
+  }
+
+  /*
+   * ----------------------------------------------------------------------
+   *
+   * findReflectObject --
+   *
+   * Returns the ReflectObject represented by tobj, or null if tobj is not
+   * the name of a java.lang.Object registered in the given interpreter.
+   * Unlike getReflectObject(), no exception is raised for a value that is
+   * not an object handle, so this is cheap to call for ordinary Tcl values.
+   *
+   * Results: The ReflectObject, or null.
+   *
+   * Side effects: When successful, the internal representation of tobj is
+   * changed to ReflectObject, if it is not already so.
+   *
+   * ----------------------------------------------------------------------
+   */
+
+  static ReflectObject findReflectObject(
+      Interp interp, // Current interpreter.
+      // Must be non-null
+      TclObject tobj) // The TclObject to query.
+      {
     InternalRep rep = tobj.getInternalRep();
     ReflectObject roRep;
 
     if (rep instanceof ReflectObject) {
       roRep = (ReflectObject) rep;
       if (roRep.isValid && (roRep.ownerInterp == interp)) {
-        return;
+        return roRep;
       }
     }
 
+    // A number can't be the name of an object, and its string rep
+    // need not be generated to find that out.
+
+    if ((rep instanceof TclInteger) || (rep instanceof TclDouble)) {
+      return null;
+    }
+
     String s = tobj.toString();
     if (s.startsWith(CMD_PREFIX)) {
       if (s.equals(NULL_REP)) {
-        tobj.setInternalRep(makeReflectObject(interp, null, null));
-        return;
+        roRep = makeNullObject(interp, null);
+        tobj.setInternalRep(roRep);
+        return roRep;
       } else {
         Command cmd = interp.getCommand(s);
         if ((cmd != null) && (cmd instanceof ReflectObject) && ((ReflectObject) cmd).isValid) {
@@ -708,12 +746,12 @@ public sealed class ReflectObject implements InternalRep, CommandWithDispose per
           }
 
           tobj.setInternalRep(roRep);
-          return;
+          return roRep;
         }
       }
     }
 
-    throw new TclException(interp, "unknown java object \"" + tobj + "\"");
+    return null;
   }
 
   /*
@@ -879,8 +917,11 @@ public sealed class ReflectObject implements InternalRep, CommandWithDispose per
     int startIdx = sigIdx + 1;
     int count = argv.length - startIdx;
 
+    // Pass this object rather than argv[0], so that argv[0] keeps the
+    // resolved command name as its internal rep.
+
     TclObject result =
-        JavaInvoke.callMethod(interp, argv[0], argv[sigIdx], argv, startIdx, count, convert);
+        JavaInvoke.callMethod(interp, this, argv[sigIdx], argv, startIdx, count, convert);
 
     if (result == null) interp.resetResult();
     else interp.setResult(result);
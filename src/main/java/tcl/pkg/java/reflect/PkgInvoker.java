@@ -21,7 +21,8 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  * This class is used for the java::* commands to gain access to
@@ -64,7 +65,7 @@ public class PkgInvoker {
   // FIXME: There is a problem here when mutliple interps could be making
   // use of the same cachedInvokers table. If a name conflict were
   // encountered, incorrect result would be the result.
-  static HashMap<String, PkgInvoker> cachedInvokers = new HashMap<>();
+  static Map<String, PkgInvoker> cachedInvokers = new ConcurrentHashMap<>();
 
   // This is the default invoker to use if a package doesn't include a
   // proper TclPkgInvoker class. This means only the public members
@@ -37,6 +37,7 @@ public final class JaclLoadTJCCmd implements Command {
     interp.eval("namespace eval TJC {}");
 
     // Load TJC class files as needed.
+    Extension.loadOnDemand(interp, "::TJC::autocompile", "tcl.pkg.tjc.TJCAutoCompileCmd");
     Extension.loadOnDemand(interp, "::TJC::command", "tcl.pkg.tjc.TJCCommandCmd");
     Extension.loadOnDemand(interp, "::TJC::compile", "tcl.pkg.tjc.TJCCompileCmd");
     Extension.loadOnDemand(interp, "::TJC::package", "tcl.pkg.tjc.TJCPackageCmd");
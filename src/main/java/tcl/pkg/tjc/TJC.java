@@ -30,6 +30,7 @@ import tcl.lang.exception.TclException;
 import tcl.lang.exception.TclNumArgsException;
 import tcl.lang.exception.TclRuntimeError;
 import tcl.lang.model.Namespace;
+import tcl.lang.model.TclBignum;
 import tcl.lang.model.TclDouble;
 import tcl.lang.model.TclInteger;
 import tcl.lang.model.TclList;
@@ -132,11 +133,10 @@ public class TJC {
   // compiledLocals array is disposed of
   // automatically when the CallFrame is popped.
 
-  //  public static Var[] initCompiledLocals(
-  //      final CallFrame frame, final int size, final String[] names) {
-  //    frame.setCompiledLocalsNames(names);
-  //    return frame.setCompiledLocals(new Var[size]);
-  //  }
+  public static Var[] initCompiledLocals(
+      final CallFrame frame, final int size, final String[] names) {
+    return frame.initCompiledLocals(names);
+  }
 
   // Evaluate a Tcl string that is the body of a Tcl procedure.
 
@@ -1254,6 +1254,9 @@ public class TJC {
       case ExprValue.STRING:
         interp.setResult(value.getStringValue());
         break;
+      case ExprValue.BIGNUM:
+        interp.setResult(TclBignum.newInstance(value.getBignumValue()));
+        break;
       default:
         throw new TclRuntimeError("internal error: expression, unknown");
     }
@@ -1323,6 +1326,11 @@ public class TJC {
         {
           throw new TclException(interp, "argument to math function didn't have numeric value");
         }
+      case ExprValue.BIGNUM:
+        {
+          value.setIntValue(value.getBignumValue().longValue());
+          break;
+        }
     }
   }
 
@@ -1337,6 +1345,10 @@ public class TJC {
       throw new TclException(interp, "argument to math function didn't have numeric value");
     } else if (value.isIntType()) {
       value.setDoubleValue((double) value.getIntValue());
+    } else if (value.isBignumType()) {
+      double d = value.getBignumValue().doubleValue();
+      Expression.checkDoubleRange(interp, d);
+      value.setDoubleValue(d);
     }
   }
 
@@ -0,0 +1,72 @@
+/*
+ * TJCAutoCompileCmd.java --
+ *
+ *	Implements TJC::autocompile, which makes TJC compile the procs
+ *	of an interpreter that are called often.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.pkg.tjc;
+
+import tcl.lang.Command;
+import tcl.lang.Interp;
+import tcl.lang.ProcCompiler;
+import tcl.lang.Procedure;
+import tcl.lang.exception.TclException;
+import tcl.lang.exception.TclNumArgsException;
+import tcl.lang.model.TclInteger;
+import tcl.lang.model.TclObject;
+
+public final class TJCAutoCompileCmd implements Command, ProcCompiler {
+
+  // Implementation of TJC::autocompile, used to compile the procs
+  // that are called often in the background, like TJC::compile does.
+  // The compiled command is installed in the proc when the interp
+  // next processes events. A proc that is redefined is interpreted
+  // again until it gets hot, and a proc that fails to compile stays
+  // interpreted.
+
+  // Created when TJC::autocompile is first invoked, see JaclLoadTJCCmd.
+
+  public TJCAutoCompileCmd() {}
+
+  public void cmdProc(Interp interp, TclObject[] objv) throws TclException {
+    // Usage:
+    //
+    // TJC::autocompile
+    // TJC::autocompile threshold
+    //
+    // Sets or returns the number of calls that makes a proc hot,
+    // 0 means that procs are not compiled.
+
+    if (objv.length > 2) {
+      throw new TclNumArgsException(interp, 1, objv, "?threshold?");
+    }
+    if (objv.length == 2) {
+      int threshold = TclInteger.getInt(interp, objv[1]);
+      if (threshold < 0) {
+        throw new TclException(interp, "expected non-negative integer but got \"" + objv[1] + "\"");
+      }
+      if (threshold == 0) {
+        interp.setProcCompiler(null, 0);
+      } else {
+        interp.setProcCompiler(this, threshold);
+      }
+    }
+    interp.setResult(interp.getHotProcThreshold());
+  }
+
+  // Invoked by the interp when a proc gets hot.
+
+  public void compile(Interp interp, Procedure proc) {
+    try {
+      TJCCompileCmd.HotProcCompile(interp, proc);
+    } catch (TclException te) {
+      // The proc stays interpreted
+      interp.resetResult();
+    }
+  }
+}
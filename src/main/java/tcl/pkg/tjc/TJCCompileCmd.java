@@ -159,8 +159,6 @@ public final class TJCCompileCmd implements Command {
 
   static void TclCompile(Interp interp, String cmd, String readyCmd, String readyVar)
       throws TclException {
-    int i, len;
-
     String fullyQualifiedCmd;
 
     // Make sure compiler thread is running
@@ -178,7 +176,6 @@ public final class TJCCompileCmd implements Command {
     // qualifiers.
 
     StringBuffer pname = new StringBuffer(64);
-    StringBuffer cname = new StringBuffer(64);
 
     if (cmd.startsWith("::")) {
       // already fully qualified
@@ -206,11 +203,41 @@ public final class TJCCompileCmd implements Command {
       System.out.println("fully qualified name is \"" + pname.toString());
     }
 
+    fullyQualifiedCmd = pname.toString();
+
+    TJCCompileTclCmd ctobj = new TJCCompileTclCmd(interp, fullyQualifiedCmd, readyCmd, readyVar);
+
+    TclCompile(interp, proc, cmd, ctobj);
+  }
+
+  // Compile a Tcl proc that has become hot, see TJCAutoCompileCmd.
+  // The compiled command is installed in the Procedure instead of
+  // replacing it, so that the proc keeps its name, body and traces.
+
+  static void HotProcCompile(Interp interp, Procedure proc) throws TclException {
+    // Make sure compiler thread is running
+    TJCThread.startThread();
+
+    String fullyQualifiedCmd = interp.getCommandFullName(proc.wcmd);
+
+    TJCCompileTclCmd ctobj = new TJCCompileTclCmd(interp, fullyQualifiedCmd, proc);
+
+    TclCompile(interp, proc, fullyQualifiedCmd, ctobj);
+  }
+
+  // Send the declaration of a Tcl proc to the compiler thread.
+  // The cmd argument is the name the proc is declared with,
+  // the ctobj will load the compiled command.
+
+  private static void TclCompile(Interp interp, Procedure proc, String cmd, TJCCompileTclCmd ctobj)
+      throws TclException {
+    int i, len;
+
     // Generate Java class name for Tcl proc
 
-    fullyQualifiedCmd = pname.toString();
+    StringBuffer cname = new StringBuffer(64);
 
-    String upper = fullyQualifiedCmd;
+    String upper = ctobj.cmd;
     boolean cap = true;
     len = upper.length();
     for (i = 0; i < len; i++) {
@@ -288,8 +315,6 @@ public final class TJCCompileCmd implements Command {
 
     TclList.append(interp, procList, TclString.newInstance(proc.body.toString()));
 
-    TJCCompileTclCmd ctobj = new TJCCompileTclCmd(interp, fullyQualifiedCmd, readyCmd, readyVar);
-
     if (ctobj.debug) {
       System.out.println("Sending proc decl\n" + procList.toString());
     }
@@ -345,6 +370,8 @@ class TJCCompileTclCmd extends TclEvent implements TJCThread.CompiledClassReady
   final String cmd;
   final String readyCmd;
   final String readyVar;
+  final Procedure proc; // Hot proc the compiled command is installed
+  // in, or null to replace the command.
 
   boolean status;
   String errorMsg = "";
@@ -356,6 +383,15 @@ class TJCCompileTclCmd extends TclEvent implements TJCThread.CompiledClassReady
     this.cmd = cmd;
     this.readyCmd = readyCmd;
     this.readyVar = readyVar;
+    this.proc = null;
+  }
+
+  TJCCompileTclCmd(Interp interp, String cmd, Procedure proc) {
+    this.interp = interp;
+    this.cmd = cmd;
+    this.readyCmd = null;
+    this.readyVar = null;
+    this.proc = proc;
   }
 
   // Invoked by TJCThread when a compile job is finished.
@@ -489,6 +525,27 @@ class TJCCompileTclCmd extends TclEvent implements TJCThread.CompiledClassReady
       return 1;
     }
     TJC.CompiledCommand cmdObj = (TJC.CompiledCommand) o;
+
+    if (proc != null) {
+      // A hot proc that was redefined or deleted while it was
+      // compiled is dropped. Otherwise the compiled command is
+      // initialized now, so that a proc that can't run compiled
+      // stays interpreted instead of failing when it is called.
+
+      if (proc.isDeleted()) {
+        return 1;
+      }
+      try {
+        cmdObj.wcmd = proc.wcmd;
+        cmdObj.initCmd(interp);
+      } catch (TclException te) {
+        interp.resetResult();
+        return 1;
+      }
+      proc.setCompiledCommand(cmdObj);
+      return 1;
+    }
+
     try {
       if (debug) {
         System.out.println("now to create command \"" + cmd + "\"");
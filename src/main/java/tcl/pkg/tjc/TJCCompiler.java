@@ -0,0 +1,279 @@
+/*
+ * TJCCompiler.java --
+ *
+ *	Compiles Java source code in memory with the compiler of the
+ *	JDK the interpreter runs on.
+ *
+ * See the file "license.terms" for information on usage and
+ * redistribution of this file, and for a DISCLAIMER OF ALL
+ * WARRANTIES.
+ */
+
+package tcl.pkg.tjc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import tcl.lang.Interp;
+import tcl.lang.exception.TclException;
+
+/**
+ * Compiles Java source code in memory with the javax.tools compiler, so that TJC needs neither a
+ * javac executable nor temporary files. The source of several classes can be compiled at once,
+ * which costs little more than compiling one of them, since most of the time of a compile is spent
+ * reading the classes it refers to.
+ *
+ * <p>An instance keeps the class path it has read between compiles, and must be used by one thread
+ * at a time.
+ */
+public final class TJCCompiler {
+
+  private static final List<String> OPTIONS = Arrays.asList("-g", "-proc:none", "-nowarn");
+
+  private final JavaCompiler compiler;
+
+  private final StandardJavaFileManager fileManager;
+
+  private final List<String> options;
+
+  /**
+   * @return true if the JVM has a Java compiler, as a JDK has and a JRE does not.
+   */
+  public static boolean isAvailable() {
+    return ToolProvider.getSystemJavaCompiler() != null;
+  }
+
+  /**
+   * Creates a compiler whose class path is the class path of the JVM and the classes of the
+   * interpreter, which may not be on it when they are in a module.
+   *
+   * @param interp the current interpreter, used to report errors.
+   * @exception TclException if the JVM has no Java compiler.
+   */
+  public TJCCompiler(Interp interp) throws TclException {
+    compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new TclException(interp, "no Java compiler available, a JDK is required");
+    }
+    fileManager = compiler.getStandardFileManager(null, Locale.ROOT, null);
+    options = new ArrayList<>(OPTIONS);
+    options.add("-classpath");
+    options.add(classpath(""));
+  }
+
+  /**
+   * @param extra a class path to add, or "".
+   * @return the class path of the JVM, followed by the location of the classes of the interpreter
+   *     and the extra class path.
+   */
+  private static String classpath(String extra) {
+    StringBuilder classpath = new StringBuilder(System.getProperty("java.class.path", ""));
+    CodeSource source = TJCCompiler.class.getProtectionDomain().getCodeSource();
+    if (source != null) {
+      try {
+        String location = new File(source.getLocation().toURI()).getPath();
+        if (classpath.length() > 0) {
+          classpath.append(File.pathSeparatorChar);
+        }
+        classpath.append(location);
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        // Not a file, the classes are only found on the class path
+      }
+    }
+    if (extra.length() > 0) {
+      if (classpath.length() > 0) {
+        classpath.append(File.pathSeparatorChar);
+      }
+      classpath.append(extra);
+    }
+    return classpath.toString();
+  }
+
+  /**
+   * Compiles Java source code in memory.
+   *
+   * @param interp the current interpreter, used to report errors.
+   * @param sources maps the file name of each compilation unit, like "foo/bar/Test.java", to its
+   *     source code.
+   * @return maps the file name of each compilation unit to its classes, each a class name mapped to
+   *     class data. The top level classes of a unit come first, followed by its nested classes
+   *     sorted by name.
+   * @exception TclException if the source code does not compile. The message lists the errors.
+   */
+  public Map<String, Map<String, byte[]>> compile(Interp interp, Map<String, String> sources)
+      throws TclException {
+    ArrayList<JavaFileObject> units = new ArrayList<>();
+    for (Map.Entry<String, String> entry : sources.entrySet()) {
+      units.add(new SourceFile(entry.getKey(), entry.getValue()));
+    }
+
+    MemoryFileManager memory = new MemoryFileManager(fileManager);
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    boolean ok = compiler.getTask(null, memory, diagnostics, options, null, units).call();
+    if (!ok) {
+      StringBuilder msg = new StringBuilder();
+      for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+        if (d.getKind() != Diagnostic.Kind.ERROR) {
+          continue;
+        }
+        if (msg.length() > 0) {
+          msg.append('\n');
+        }
+        if (d.getSource() != null) {
+          msg.append(((SourceFile) d.getSource()).fileName);
+          msg.append(':');
+          msg.append(d.getLineNumber());
+          msg.append(": ");
+        }
+        msg.append(d.getMessage(Locale.ROOT));
+      }
+      throw new TclException(interp, msg.toString());
+    }
+
+    LinkedHashMap<String, Map<String, byte[]>> result = new LinkedHashMap<>();
+    for (JavaFileObject unit : units) {
+      String fileName = ((SourceFile) unit).fileName;
+      LinkedHashMap<String, byte[]> classes = new LinkedHashMap<>();
+      TreeMap<String, byte[]> nested = new TreeMap<>();
+      Map<String, ByteArrayOutputStream> output = memory.classes.get(unit);
+      if (output != null) {
+        for (Map.Entry<String, ByteArrayOutputStream> entry : output.entrySet()) {
+          if (entry.getKey().indexOf('$') == -1) {
+            classes.put(entry.getKey(), entry.getValue().toByteArray());
+          } else {
+            nested.put(entry.getKey(), entry.getValue().toByteArray());
+          }
+        }
+      }
+      classes.putAll(nested);
+      result.put(fileName, classes);
+    }
+    return result;
+  }
+
+  /**
+   * Compiles Java source files into class files. Used by the TJC batch compiler in place of running
+   * javac.
+   *
+   * @param classpath the class path of the source files, added to the class path of the JVM.
+   * @param destDir the directory where class files are written.
+   * @param fileNames the source files.
+   * @return the error messages, or "" if the files compiled.
+   * @exception IOException if the files can't be read or written.
+   */
+  public static String compileFiles(String classpath, String destDir, String[] fileNames)
+      throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      return "no Java compiler available, a JDK is required";
+    }
+    try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, Locale.ROOT, null)) {
+      ArrayList<String> opts = new ArrayList<>(OPTIONS);
+      opts.add("-classpath");
+      opts.add(classpath(classpath));
+      opts.add("-d");
+      opts.add(destDir);
+      DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+      boolean ok =
+          compiler
+              .getTask(null, fm, diagnostics, opts, null, fm.getJavaFileObjects(fileNames))
+              .call();
+      if (ok) {
+        return "";
+      }
+      StringBuilder msg = new StringBuilder();
+      for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+        if (d.getKind() == Diagnostic.Kind.ERROR) {
+          if (msg.length() > 0) {
+            msg.append('\n');
+          }
+          msg.append(d.toString());
+        }
+      }
+      return msg.toString();
+    }
+  }
+
+  /** The source code of a compilation unit, held in a String. */
+  private static final class SourceFile extends SimpleJavaFileObject {
+    final String fileName;
+    final String source;
+
+    SourceFile(String fileName, String source) {
+      super(URI.create("string:///" + fileName.replace('\\', '/')), Kind.SOURCE);
+      this.fileName = fileName;
+      this.source = source;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return source;
+    }
+  }
+
+  /** A class file, kept in memory. */
+  private static final class ClassFile extends SimpleJavaFileObject {
+    private final ByteArrayOutputStream out;
+
+    ClassFile(String className, ByteArrayOutputStream out) {
+      super(URI.create("bytes:///" + className.replace('.', '/') + ".class"), Kind.CLASS);
+      this.out = out;
+    }
+
+    @Override
+    public OutputStream openOutputStream() {
+      return out;
+    }
+  }
+
+  /**
+   * Reads classes through the standard file manager and keeps the class files it writes in memory,
+   * grouped by the compilation unit they came from.
+   */
+  private static final class MemoryFileManager
+      extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    final HashMap<FileObject, Map<String, ByteArrayOutputStream>> classes = new HashMap<>();
+
+    MemoryFileManager(StandardJavaFileManager fileManager) {
+      super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(
+        Location location, String className, JavaFileObject.Kind kind, FileObject sibling)
+        throws IOException {
+      if (kind != JavaFileObject.Kind.CLASS) {
+        return super.getJavaFileForOutput(location, className, kind, sibling);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      classes.computeIfAbsent(sibling, s -> new LinkedHashMap<>()).put(className, out);
+      return new ClassFile(className, out);
+    }
+
+    @Override
+    public void close() {
+      // The standard file manager is kept open for the next compile
+    }
+  }
+}
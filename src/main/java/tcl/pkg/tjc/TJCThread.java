@@ -19,6 +19,8 @@
 package tcl.pkg.tjc;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.Vector;
 import tcl.lang.Interp;
@@ -70,6 +72,28 @@ public class TJCThread implements Runnable {
 
   private Interp interp = null;
 
+  // Compiles Java source in memory. Created in the
+  // other thread when the first source is compiled,
+  // unless another driver was selected or the JVM
+  // has no Java compiler, in which case the Tcl
+  // code of the driver compiles it.
+
+  private TJCCompiler javac = null;
+
+  // Java source code waiting to be compiled with javac,
+  // the name of the Tcl command it was generated from,
+  // or "" for Java source, and the callback to invoke
+  // with the compiled classes.
+
+  private static record Job(
+      String geninfo,
+      String filename,
+      String jfilename,
+      String source,
+      CompiledClassReady callback) {}
+
+  private final ArrayList<Job> jobs = new ArrayList<>();
+
   // Event record. This is a buffer of line
   // oriented data that indicates what events
   // are being processed and in what order.
@@ -255,6 +279,8 @@ public class TJCThread implements Runnable {
         driver = "pizza";
       } else if (token.equals("-janino")) {
         driver = "janino";
+      } else if (token.equals("-javac")) {
+        driver = "javac";
       }
     }
   }
@@ -342,27 +368,39 @@ public class TJCThread implements Runnable {
         break;
       }
 
-      // Process all events in the queue, one at
-      // a time starting with the first one. Be
-      // sure to do this in a thread safe way
-      // in case another thread is adding elements
-      // to the queue.
+      // Process all events in the queue, starting
+      // with the first one. The events are taken
+      // from the queue together, in a thread safe
+      // way in case another thread is adding elements
+      // to the queue, so that the Java source of all
+      // of them can be compiled at once.
 
       while (true) {
-        Vector event;
+        ArrayList<Vector<?>> events = new ArrayList<>();
         synchronized (queue) {
           if (queue.size() == 0) {
             break;
           }
-          event = (Vector) queue.remove(0);
+          for (Object event : queue) {
+            events.add((Vector<?>) event);
+          }
+          queue.clear();
           if (debug) {
-            System.out.println("removed event, there are " + queue.size() + " events left");
+            System.out.println("removed " + events.size() + " events");
           }
         }
-        // Process the event after removing it
+        // Process the events after removing them
         // from the queue and releasing the
         // monitor.
-        processEvent(event);
+        for (Vector<?> event : events) {
+          processEvent(event);
+
+          // Bail out if thread should die
+          if (terminate_request) {
+            break;
+          }
+        }
+        compileJobs();
 
         // Bail out if thread should die
         if (terminate_request) {
@@ -384,8 +422,13 @@ public class TJCThread implements Runnable {
             System.out.println("thread wait");
           }
 
+          // An event queued since the queue was checked
+          // would have notified before this thread waits.
+
           ready = true;
-          this.wait(); // wait for next service request
+          if (queue.size() == 0 && !terminate_request) {
+            this.wait(); // wait for next service request
+          }
           ready = false;
         }
       } catch (InterruptedException e) {
@@ -497,6 +540,10 @@ public class TJCThread implements Runnable {
           interp.setVar("JAVA_DRIVER", null, driver, 0);
         }
         interp.eval("source resource:/tcl/pkg/tjc/library/tjcthread.tcl");
+
+        if ((driver == null && TJCCompiler.isAvailable()) || "javac".equals(driver)) {
+          javac = new TJCCompiler(interp);
+        }
       }
 
       if (type.equals("JAVA")) {
@@ -518,20 +565,80 @@ public class TJCThread implements Runnable {
         msg.append(te.getMessage());
       }
 
-      if (eventLog != null) {
-        eventLog.append(msg.toString());
-        eventLog.append('\n');
-      }
-      if (debug) {
-        System.out.println(msg.toString());
-      }
+      reportError(filename, source, callback, msg.toString());
+    }
+  }
+
+  // Invoke the callback of a failed compile.
+
+  private void reportError(
+      String filename, String source, CompiledClassReady callback, String msg) {
+    if (eventLog != null) {
+      eventLog.append(msg);
+      eventLog.append('\n');
+    }
+    if (debug) {
+      System.out.println(msg);
+    }
 
-      // Invoke callback to report error
+    callback.compiled("", filename, source, null, null, 1, msg);
+  }
+
+  // Compile the Java source of the events processed
+  // since the last call with javac, all at once when
+  // there are several, and invoke their callbacks.
+
+  private void compileJobs() {
+    if (jobs.isEmpty()) {
+      return;
+    }
+    ArrayList<Job> batch = new ArrayList<>(jobs);
+    jobs.clear();
+
+    if (eventLog != null) {
+      eventLog.append("javac compile " + batch.size() + " files\n");
+    }
+    if (debug) {
+      System.out.println("compileJobs " + batch.size() + " files");
+    }
+
+    LinkedHashMap<String, String> sources = new LinkedHashMap<>();
+    for (Job job : batch) {
+      sources.put(job.jfilename(), job.source());
+    }
+    if (batch.size() > 1 && sources.size() == batch.size()) {
+      try {
+        Map<String, Map<String, byte[]>> classes = javac.compile(interp, sources);
+        for (Job job : batch) {
+          compiled(job, classes.get(job.jfilename()));
+        }
+        return;
+      } catch (TclException te) {
+        // An error in one file fails the whole batch, compile
+        // the files one at a time to report it to the right
+        // callback.
+      }
+    }
 
-      callback.compiled("", filename, source, null, null, 1, msg.toString());
+    for (Job job : batch) {
+      try {
+        Map<String, Map<String, byte[]>> classes =
+            javac.compile(interp, Map.of(job.jfilename(), job.source()));
+        compiled(job, classes.get(job.jfilename()));
+      } catch (TclException te) {
+        reportError(
+            job.filename(), job.source(), job.callback(), "TclException: " + te.getMessage());
+      }
     }
   }
 
+  private static void compiled(Job job, Map<String, byte[]> classes) {
+    ArrayList<String> class_names = new ArrayList<>(classes.keySet());
+    ArrayList<byte[]> class_data = new ArrayList<>(classes.values());
+    job.callback()
+        .compiled(job.geninfo(), job.filename(), job.source(), class_names, class_data, 0, "");
+  }
+
   // Compile a Java source file into bytecode and invoke the callback.
 
   private void processJavaSource(String filename, String source, CompiledClassReady callback)
@@ -543,6 +650,11 @@ public class TJCThread implements Runnable {
       System.out.println("processJavaSource " + filename);
     }
 
+    if (javac != null) {
+      jobs.add(new Job("", filename, filename, source, callback));
+      return;
+    }
+
     TclObject cmd_obj = TclString.newInstance("processJavaSource");
     TclObject filename_obj = TclString.newInstance(filename);
     TclObject source_obj = TclString.newInstance(source);
@@ -625,6 +737,11 @@ public class TJCThread implements Runnable {
       System.out.println("processTclSource interp result was:\n" + java_source);
     }
 
+    if (javac != null) {
+      jobs.add(new Job(proc_name, filename, filename + ".java", java_source, callback));
+      return;
+    }
+
     cmd_obj = TclString.newInstance("processJavaSource");
     filename_obj = TclString.newInstance(filename);
     source_obj = TclString.newInstance(java_source);
@@ -411,7 +411,7 @@ proc compileproc_nocompile { proc_list class_name } {
 
     # Setup local variable table. The wcmd identifier here
     # is inherited from TJC.CompiledCommand.
-    append buffer [emitter_callframe_push wcmd.ns]
+    append buffer [emitter_callframe_push wcmd.getNs()]
     append buffer [emitter_callframe_try]
 
     # Process proc args
@@ -907,7 +907,7 @@ proc compileproc_compile { proc_list class_name {config_init {}} } {
 
     # Setup local variable table. The wcmd identifier here
     # is inherited from TJC.CompiledCommand.
-    append buffer [emitter_callframe_push wcmd.ns]
+    append buffer [emitter_callframe_push wcmd.getNs()]
 
     set body_bufer ""
 
@@ -1230,7 +1230,7 @@ proc compileproc_command_cache_init_generate {} {
     }
 
     append buffer \
-        [emitter_statement "wcmd_cmdEpoch = wcmd.cmdEpoch"] \
+        [emitter_statement "wcmd_cmdEpoch = wcmd.getCmdEpoch()"] \
         [emitter_statement "return"]
 
     emitter_indent_level -1
@@ -1298,7 +1298,7 @@ proc compileproc_command_cache_init_generate {} {
         [emitter_statement "lwcmd = TJC.INVALID_COMMAND_CACHE"] \
         [emitter_statement "cmdEpoch = 0"] \
         [emitter_container_if_else] \
-        [emitter_statement "cmdEpoch = lwcmd.cmdEpoch"] \
+        [emitter_statement "cmdEpoch = lwcmd.getCmdEpoch()"] \
         [emitter_container_if_end]
 
     # Emit switch on cacheId to assign cache variable
@@ -1360,12 +1360,12 @@ proc compileproc_command_cache_epoch_check { symbol } {
     set buffer ""
 
     append buffer \
-        "((" $symbol "_cmdEpoch == " $symbol ".cmdEpoch)\n"
+        "((" $symbol "_cmdEpoch == " $symbol ".getCmdEpoch())\n"
 
     emitter_indent_level +1
 
     append buffer [emitter_indent] \
-        "? " $symbol ".cmd : null)"
+        "? " $symbol ".getCmd() : null)"
 
     emitter_indent_level -1
 
@@ -1381,7 +1381,7 @@ proc compileproc_command_cache_epoch_check { symbol } {
 proc compileproc_command_cache_update { symbol } {
     set buffer ""
 
-    set if_cond "${symbol}_cmdEpoch != ${symbol}.cmdEpoch"
+    set if_cond "${symbol}_cmdEpoch != ${symbol}.getCmdEpoch()"
 
     append buffer [emitter_container_if_start $if_cond]
 
@@ -1416,7 +1416,7 @@ proc compileproc_get_cache_id_from_symbol { symbol } {
 # epoch is checked.
 
 proc compileproc_command_cache_this_check {} {
-    set cond {wcmd_cmdEpoch != wcmd.cmdEpoch}
+    set cond {wcmd_cmdEpoch != wcmd.getCmdEpoch()}
 
     set buffer ""
 
@@ -9267,7 +9267,7 @@ proc compileproc_emit_inline_command_incr { key } {
 
             set tmpsymbol [compileproc_tmpvar_next]
             append incr_value_buffer [emitter_statement \
-                "int $tmpsymbol = TclInteger.get(interp, $value_symbol)"]
+                "long $tmpsymbol = TclInteger.getLong(interp, $value_symbol)"]
 
             set incr_symbol $tmpsymbol
         }
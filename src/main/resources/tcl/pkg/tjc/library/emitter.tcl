@@ -248,7 +248,7 @@ proc emitter_package_name { package } {
 # Import all identifiers in Tcl/Jacl package.
 
 proc emitter_import_tcl {} {
-    return "import tcl.lang.*;\nimport tcl.pkg.tjc.*;\nimport tcl.pkg.java.*;\nimport tcl.lang.channel.*;\n"
+    return "import tcl.lang.*;\nimport tcl.lang.exception.*;\nimport tcl.lang.model.*;\nimport tcl.pkg.tjc.*;\nimport tcl.pkg.java.*;\nimport tcl.lang.channel.*;\n"
 }
 
 # Import all identifiers in a named package
@@ -824,7 +824,7 @@ proc emitter_init_constants { tlist } {
                     append buffer \
                         "TclString.newInstance(\"" $jstr "\")\;\n" \
                         [emitter_indent] \
-                        "TclInteger.get(interp, " $name ")\;"
+                        "TclInteger.getLong(interp, " $name ")\;"
                 }
             }
             "STRING" {
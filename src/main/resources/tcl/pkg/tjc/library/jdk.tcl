@@ -245,6 +245,11 @@ proc jdk_tool_javac { filenames } {
         } else {
             error "unsupported compiler \"$compiler\""
         }
+    } elseif {![catch {package require java}] && \
+            [java::call tcl.pkg.tjc.TJCCompiler isAvailable]} {
+        # Compile in this JVM with its own compiler, which is
+        # much faster than starting a javac process.
+        set javac ""
     } else {
           set javac [list javac -classpath [file normalize $::env(CLASSPATH)]]
     }
@@ -317,6 +322,24 @@ proc jdk_tool_javac { filenames } {
             puts "JAVAC exec: $javac $javac_flags -d $TJC_build $javac_filenames"
         }
 
+        if {$javac == ""} {
+            if {[info exists ::env(CLASSPATH)]} {
+                set classpath [file normalize $::env(CLASSPATH)]
+            } else {
+                set classpath ""
+            }
+            set files [java::new {String[]} [llength $javac_filenames] \
+                $javac_filenames]
+            set err [java::call tcl.pkg.tjc.TJCCompiler compileFiles \
+                $classpath $TJC_build $files]
+            if {$err != ""} {
+                puts stderr $err
+                set caught 1
+                break
+            }
+            continue
+        }
+
 	if {[catch {eval exec $javac $javac_flags {-d $TJC_build} $javac_filenames} err]} {
             puts stderr $err
             if {![string match *deprecation* $err]} {
@@ -13,15 +13,7 @@ public class ApplyCmdTest extends TclCmdTest {
             Arrays.asList(
                 new String[] {
                   // fails because of error message differences:
-                  "apply-4.3",
-                  "apply-4.4",
-                  "apply-4.5",
-                  "apply-5.1",
-                  // returns the correct values, but not in the same order as C Tcl
-                  "apply-8.2",
-                  "apply-8.3",
-                  "apply-8.9",
-                  "apply-8.10"
+                  "apply-4.3", "apply-4.4", "apply-4.5", "apply-5.1"
                 }));
     String resName = "/tcl/lang/cmd/apply.test";
     tclTestResource(resName, expectedFailureList);
@@ -0,0 +1,12 @@
+package tcl.lang.cmd;
+
+import org.junit.jupiter.api.Test;
+import tcl.lang.TclCmdTest;
+
+public class FleetCmdTest extends TclCmdTest {
+  @Test
+  public void testCmd() throws Exception {
+    String resName = "/tcl/lang/cmd/fleet.test";
+    tclTestResource(resName);
+  }
+}
@@ -0,0 +1,87 @@
+package tcl.lang.embed.jsr223;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JtclScriptEngineTest {
+
+  public interface Calculator {
+    int add(int a, int b);
+
+    String greet(String name);
+  }
+
+  private ScriptEngine engine;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    engine = new JtclScriptEngineFactory().getScriptEngine();
+    engine.eval("proc add {a b} {expr {$a + $b}}");
+    engine.eval("proc greet {name} {return \"hello $name\"}");
+    engine.eval("proc fail {msg} {error $msg}");
+  }
+
+  @Test
+  public void testCompiledScriptEvaluatedTwice() throws Exception {
+    engine.eval("set n 0");
+    CompiledScript script = ((Compilable) engine).compile("incr n");
+    assertEquals("1", script.eval().toString());
+    assertEquals("2", script.eval().toString());
+    assertEquals("2", engine.eval("set n").toString());
+  }
+
+  @Test
+  public void testCompileIncompleteScript() {
+    assertThrows(ScriptException.class, () -> ((Compilable) engine).compile("set x {"));
+  }
+
+  @Test
+  public void testCompiledScriptError() throws Exception {
+    CompiledScript script = ((Compilable) engine).compile("fail compiled");
+    ScriptException e = assertThrows(ScriptException.class, () -> script.eval());
+    assertTrue(e.getMessage().contains("compiled"), e.getMessage());
+  }
+
+  @Test
+  public void testInvokeFunctionWithArguments() throws Exception {
+    Invocable invocable = (Invocable) engine;
+    assertEquals(5, invocable.invokeFunction("add", 2, 3));
+    assertEquals(7, invocable.invokeFunction("add", 4, 3));
+    assertEquals("hello world", invocable.invokeFunction("greet", "world"));
+    assertEquals("hello a b", invocable.invokeFunction("greet", "a b"));
+  }
+
+  @Test
+  public void testInvokeMissingFunction() {
+    Invocable invocable = (Invocable) engine;
+    NoSuchMethodException e =
+        assertThrows(NoSuchMethodException.class, () -> invocable.invokeFunction("nosuchproc"));
+    assertEquals("no such function \"nosuchproc\"", e.getMessage());
+  }
+
+  @Test
+  public void testInvokeFunctionError() {
+    Invocable invocable = (Invocable) engine;
+    ScriptException e =
+        assertThrows(ScriptException.class, () -> invocable.invokeFunction("fail", "boom"));
+    assertTrue(e.getMessage().contains("boom"), e.getMessage());
+    e = assertThrows(ScriptException.class, () -> invocable.invokeFunction("add", 1));
+    assertTrue(e.getMessage().contains("wrong # args"), e.getMessage());
+  }
+
+  @Test
+  public void testGetInterface() throws Exception {
+    Calculator calculator = ((Invocable) engine).getInterface(Calculator.class);
+    assertEquals(9, calculator.add(4, 5));
+    assertEquals("hello there", calculator.greet("there"));
+  }
+}